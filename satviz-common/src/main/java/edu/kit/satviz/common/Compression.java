@@ -24,11 +24,35 @@ public final class Compression {
    * @throws IOException if an i/o error occurs
    */
   public static InputStream openPossiblyCompressed(Path file) throws IOException {
-    InputStream is = new BufferedInputStream(Files.newInputStream(file));
-    if (file.getFileName().toString().endsWith(".xz")) {
+    return decompressIfNeeded(file, Files.newInputStream(file));
+  }
+
+  /**
+   * Buffers an already opened stream of the given file,
+   * wrapping it in a xz decompression stream if the file name ends with ".xz".<br>
+   * This allows inspecting the raw bytes of the file (e.g. for hashing) while reading it.
+   *
+   * @param file The file the stream belongs to.
+   * @param raw The stream of the raw (possibly compressed) file content.
+   * @return An input stream that can be used to read the file.
+   * @throws IOException if an i/o error occurs
+   */
+  public static InputStream decompressIfNeeded(Path file, InputStream raw) throws IOException {
+    InputStream is = new BufferedInputStream(raw);
+    if (isCompressed(file)) {
       is = new XZInputStream(is);
     }
     return is;
   }
 
+  /**
+   * Checks whether the given file is marked as compressed, i.e. whether its name ends with ".xz".
+   *
+   * @param file The file to check.
+   * @return {@code true}, if the file is opened with decompression, {@code false} otherwise.
+   */
+  public static boolean isCompressed(Path file) {
+    return file.getFileName().toString().endsWith(".xz");
+  }
+
 }
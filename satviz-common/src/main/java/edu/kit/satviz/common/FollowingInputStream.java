@@ -0,0 +1,140 @@
+package edu.kit.satviz.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An {@code InputStream} that reads a file which is still being written, similar to
+ * {@code tail -f}.
+ *
+ * <p>When the reader catches up with the end of the file, reading blocks until more bytes have
+ * been appended, instead of signalling the end of the stream. The file is polled for new bytes,
+ * starting with a short interval that is doubled up to a fixed maximum while the file doesn't
+ * grow. The end of the stream is only reported once
+ * <ul>
+ *   <li>no bytes have been appended for the idle timeout (see {@link #isTimedOut()}) or</li>
+ *   <li>{@link #stop()} has been called.</li>
+ * </ul>
+ * Since the stream can't know whether the writer is done, detecting the logical end of the content
+ * (e.g. the empty clause terminating a DRAT proof) is up to the reader.
+ */
+public final class FollowingInputStream extends InputStream {
+
+  private static final long MIN_POLL_INTERVAL = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long MAX_POLL_INTERVAL = TimeUnit.MILLISECONDS.toNanos(50);
+
+  private final FileChannel channel;
+  private final long idleTimeout;
+  private final byte[] single = new byte[1];
+
+  private volatile boolean stopped = false;
+  private volatile boolean timedOut = false;
+  private volatile IOException error;
+  private volatile Thread reader;
+
+  /**
+   * Opens a file for following.
+   *
+   * @param file The file to read.
+   * @param idleTimeout The duration after which the stream ends, if no new bytes have been
+   *                    appended to the file in the meantime.
+   * @throws IOException If the file cannot be opened.
+   */
+  public FollowingInputStream(Path file, Duration idleTimeout) throws IOException {
+    if (idleTimeout.isNegative()) {
+      throw new IllegalArgumentException("Timeout must not be negative");
+    }
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    this.idleTimeout = idleTimeout.toNanos();
+  }
+
+  @Override
+  public int read() throws IOException {
+    return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+    long idleSince = System.nanoTime();
+    long interval = MIN_POLL_INTERVAL;
+    reader = Thread.currentThread();
+    try {
+      while (!stopped && !timedOut) {
+        int read = channel.read(buffer);
+        if (read > 0) {
+          return read;
+        }
+        if (channel.size() < channel.position()) {
+          throw new IOException("File was truncated while it was followed");
+        }
+        long idle = System.nanoTime() - idleSince;
+        if (idle >= idleTimeout) {
+          timedOut = true;
+          return -1;
+        }
+        LockSupport.parkNanos(this, Math.min(interval, idleTimeout - idle));
+        interval = Math.min(interval * 2, MAX_POLL_INTERVAL);
+      }
+      return -1;
+    } catch (IOException e) {
+      error = e;
+      throw e;
+    } finally {
+      reader = null;
+    }
+  }
+
+  @Override
+  public int available() throws IOException {
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(0, channel.size() - channel.position()));
+  }
+
+  /**
+   * Makes this stream end, i.e. a blocked or future read returns <code>-1</code> as soon as
+   * possible. This method may be called from any thread.
+   */
+  public void stop() {
+    stopped = true;
+    Thread current = reader;
+    if (current != null) {
+      LockSupport.unpark(current);
+    }
+  }
+
+  /**
+   * Returns whether this stream has ended, because the file hasn't grown for the idle timeout.
+   *
+   * @return {@code true}, if the timeout has been reached, {@code false} otherwise.
+   */
+  public boolean isTimedOut() {
+    return timedOut;
+  }
+
+  /**
+   * Returns the exception that made the last read fail. This is useful, if the reader doesn't
+   * distinguish between I/O errors and the end of the stream.
+   *
+   * @return The {@code IOException} thrown by a read, or {@code null}, if there was none.
+   */
+  public IOException getError() {
+    return error;
+  }
+
+  @Override
+  public void close() throws IOException {
+    stop();
+    channel.close();
+  }
+
+}
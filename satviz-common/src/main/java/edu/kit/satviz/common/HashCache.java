@@ -0,0 +1,211 @@
+package edu.kit.satviz.common;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * An on-disk cache of file content hashes (see {@link Hashing}), so that large SAT instances
+ * don't have to be read again just to compute their hash.
+ *
+ * <p>Entries are keyed by the absolute path, the size and the last modification time of a file,
+ * so a cached hash is only used as long as the file appears to be unchanged.
+ * The cache is shared by all satviz processes of a user; it is best-effort, meaning that
+ * failures to read or write the cache file are ignored.
+ */
+public final class HashCache {
+
+  private static final Path DEFAULT_LOCATION =
+      Path.of(System.getProperty("user.home"), "satviz", "hash-cache");
+  private static final int MAX_ENTRIES = 256;
+
+  private final Path cacheFile;
+
+  /**
+   * Creates a cache that is stored in the given file.
+   *
+   * @param cacheFile The file containing the cache entries. It is created when needed.
+   */
+  public HashCache(Path cacheFile) {
+    this.cacheFile = cacheFile;
+  }
+
+  /**
+   * Returns the cache stored in the default location ({@code ~/satviz/hash-cache}).
+   *
+   * @return The default cache.
+   */
+  public static HashCache getDefault() {
+    return new HashCache(DEFAULT_LOCATION);
+  }
+
+  /**
+   * Reads the attributes of a file that determine whether a cache entry is still valid.
+   * These should be read <em>before</em> a file is hashed and passed to
+   * {@link #put(Path, Key, long)}, so that modifications during hashing are not masked.
+   *
+   * @param file The file.
+   * @return The current key of the file.
+   * @throws IOException If the attributes of the file cannot be read.
+   */
+  public static Key keyOf(Path file) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    return new Key(attributes.size(), attributes.lastModifiedTime().toMillis());
+  }
+
+  /**
+   * Looks up the hash of a file.
+   *
+   * @param file The file.
+   * @return The cached hash, or an empty {@code OptionalLong}, if there is no valid entry.
+   */
+  public OptionalLong get(Path file) {
+    try {
+      return get(file, keyOf(file));
+    } catch (IOException e) {
+      // a cache miss is always a valid answer
+      return OptionalLong.empty();
+    }
+  }
+
+  /**
+   * Looks up the hash of a file, whose key has been read already. Using the same key for the
+   * lookup and for {@link #put(Path, Key, long)} after a miss ensures that both refer to the same
+   * version of the file.
+   *
+   * @param file The file.
+   * @param key The key of the file, as returned by {@link #keyOf(Path)}.
+   * @return The cached hash, or an empty {@code OptionalLong}, if there is no valid entry.
+   */
+  public OptionalLong get(Path file, Key key) {
+    try {
+      Entry entry = readEntries().get(normalize(file));
+      if (entry != null && entry.key.equals(key)) {
+        return OptionalLong.of(entry.hash);
+      }
+    } catch (IOException e) {
+      // a cache miss is always a valid answer
+    }
+    return OptionalLong.empty();
+  }
+
+  /**
+   * Stores the hash of a file.
+   *
+   * @param file The file.
+   * @param key The key of the file, as returned by {@link #keyOf(Path)} before hashing it.
+   * @param hash The hash of the file content.
+   */
+  public void put(Path file, Key key, long hash) {
+    try {
+      Map<String, Entry> entries = readEntries();
+      String path = normalize(file);
+      entries.remove(path);
+      entries.put(path, new Entry(key, hash));
+      var iterator = entries.keySet().iterator();
+      while (entries.size() > MAX_ENTRIES) {
+        iterator.next();
+        iterator.remove();
+      }
+      writeEntries(entries);
+    } catch (IOException e) {
+      // the cache is only an optimisation
+    }
+  }
+
+  /**
+   * Returns the hash of a file, either from the cache or by reading and hashing the file (which
+   * is then added to the cache).
+   *
+   * @param file The file.
+   * @return The hash of the file content, as computed by {@link Hashing#hashContent}.
+   * @throws IOException If the file has to be hashed, but cannot be read.
+   */
+  public long hashFile(Path file) throws IOException {
+    Key key = keyOf(file);
+    OptionalLong cached = get(file, key);
+    if (cached.isPresent()) {
+      return cached.getAsLong();
+    }
+    long hash = Hashing.hashContent(Files.newInputStream(file));
+    put(file, key, hash);
+    return hash;
+  }
+
+  private static String normalize(Path file) {
+    return file.toAbsolutePath().normalize().toString();
+  }
+
+  // line format: <hash> <size> <mtime> <path>, the path is last as it may contain spaces
+  private Map<String, Entry> readEntries() throws IOException {
+    Map<String, Entry> entries = new LinkedHashMap<>();
+    try (BufferedReader reader = Files.newBufferedReader(cacheFile, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] parts = line.split(" ", 4);
+        if (parts.length != 4) {
+          continue;
+        }
+        try {
+          long hash = Long.parseUnsignedLong(parts[0], 16);
+          Key key = new Key(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+          entries.put(parts[3], new Entry(key, hash));
+        } catch (NumberFormatException e) {
+          // skip corrupted entries
+        }
+      }
+    } catch (NoSuchFileException e) {
+      // empty cache
+    }
+    return entries;
+  }
+
+  // write to a temporary file first, so concurrent readers never see a partial cache
+  private void writeEntries(Map<String, Entry> entries) throws IOException {
+    Path dir = cacheFile.toAbsolutePath().getParent();
+    Files.createDirectories(dir);
+    Path temp = Files.createTempFile(dir, "hash-cache", ".tmp");
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+        for (var entry : entries.entrySet()) {
+          Entry value = entry.getValue();
+          writer.write(Long.toHexString(value.hash) + ' ' + value.key.size() + ' '
+              + value.key.lastModified() + ' ' + entry.getKey());
+          writer.newLine();
+        }
+      }
+      try {
+        Files.move(temp, cacheFile, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * The attributes of a file, which identify a version of its content.
+   *
+   * @param size The size of the file in bytes.
+   * @param lastModified The last modification time in milliseconds since the epoch.
+   */
+  public record Key(long size, long lastModified) {
+
+  }
+
+  private record Entry(Key key, long hash) {
+
+  }
+
+}
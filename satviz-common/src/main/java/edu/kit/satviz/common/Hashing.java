@@ -1,8 +1,10 @@
 package edu.kit.satviz.common;
 
 import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import net.jpountz.xxhash.StreamingXXHash64;
 import net.jpountz.xxhash.XXHashFactory;
 
 /**
@@ -37,4 +39,118 @@ public final class Hashing {
     }
   }
 
+  /**
+   * Wraps the given {@code InputStream} in a stream that hashes all bytes passing through it.
+   * Once the wrapped stream has been read completely, the hash is the same as the one returned by
+   * {@link #hashContent(InputStream)}.
+   *
+   * @param in The stream to read from.
+   * @return A {@link HashingInputStream} reading from {@code in}.
+   */
+  public static HashingInputStream hashing(InputStream in) {
+    return new HashingInputStream(in);
+  }
+
+  /**
+   * An {@code InputStream} that computes the hash of the bytes read from it on the fly.
+   * This allows hashing a file while it is being parsed, instead of reading it a second time.
+   *
+   * <p>Marking is not supported, since bytes cannot be "unhashed".
+   */
+  public static final class HashingInputStream extends FilterInputStream {
+
+    private final StreamingXXHash64 hash = HASH_FACTORY.newStreamingHash64(0);
+    private final byte[] single = new byte[1];
+    private boolean closed = false;
+    private long finalHash;
+
+    private HashingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = in.read();
+      if (b != -1) {
+        single[0] = (byte) b;
+        hash.update(single, 0, 1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = in.read(b, off, len);
+      if (read > 0) {
+        hash.update(b, off, read);
+      }
+      return read;
+    }
+
+    // skipped bytes still have to be hashed
+    @Override
+    public long skip(long n) throws IOException {
+      byte[] buf = new byte[(int) Math.min(8192, Math.max(n, 0))];
+      long skipped = 0;
+      while (skipped < n) {
+        int read = read(buf, 0, (int) Math.min(buf.length, n - skipped));
+        if (read == -1) {
+          break;
+        }
+        skipped += read;
+      }
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+
+    }
+
+    @Override
+    public void reset() throws IOException {
+      throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Returns the hash of all bytes that have been read so far.
+     *
+     * @return The hash
+     */
+    public long getHash() {
+      return closed ? finalHash : hash.getValue();
+    }
+
+    /**
+     * Reads the remaining bytes of the underlying stream (e.g. trailing data the parser did not
+     * need) and returns the hash of the entire content.
+     *
+     * @return The hash of the complete stream
+     * @throws IOException If there is an I/O error while reading the stream
+     */
+    public long finish() throws IOException {
+      byte[] buf = new byte[8192];
+      while (read(buf, 0, buf.length) != -1) {
+        // only hash
+      }
+      return getHash();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!closed) {
+        finalHash = hash.getValue();
+        closed = true;
+        hash.close();
+      }
+      super.close();
+    }
+
+  }
+
 }
@@ -0,0 +1,73 @@
+package edu.kit.satviz.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FollowingInputStreamTest {
+
+  private Path file;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    file = Files.createTempFile("following", null);
+    Files.writeString(file, "hello");
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    Files.delete(file);
+  }
+
+  @Test
+  void test_read_appended() throws Exception {
+    try (var in = new FollowingInputStream(file, Duration.ofMillis(500))) {
+      var content = CompletableFuture.supplyAsync(() -> readAll(in));
+      Thread.sleep(50);
+      Files.writeString(file, " world", StandardOpenOption.APPEND);
+      assertEquals("hello world", content.get(5, TimeUnit.SECONDS));
+      assertTrue(in.isTimedOut());
+      assertEquals(-1, in.read());
+    }
+  }
+
+  @Test
+  void test_stop() throws Exception {
+    try (var in = new FollowingInputStream(file, Duration.ofMinutes(1))) {
+      var content = CompletableFuture.supplyAsync(() -> readAll(in));
+      Thread.sleep(50);
+      in.stop();
+      assertEquals("hello", content.get(1, TimeUnit.SECONDS));
+      assertFalse(in.isTimedOut());
+    }
+  }
+
+  @Test
+  void test_read_truncated() throws Exception {
+    try (var in = new FollowingInputStream(file, Duration.ofMinutes(1))) {
+      assertEquals(5, in.read(new byte[16]));
+      Files.writeString(file, "");
+      assertThrows(IOException.class, in::read);
+      assertNotNull(in.getError());
+    }
+  }
+
+  private static String readAll(FollowingInputStream in) {
+    try {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+}
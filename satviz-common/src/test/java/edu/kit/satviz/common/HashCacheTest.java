@@ -0,0 +1,77 @@
+package edu.kit.satviz.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.OptionalLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HashCacheTest {
+
+  private Path dir;
+  private Path file;
+  private HashCache cache;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    dir = Files.createTempDirectory("hash-cache-test");
+    file = dir.resolve("instance with spaces.cnf");
+    Files.writeString(file, "p cnf 1 1\n1 0\n");
+    cache = new HashCache(dir.resolve("cache/hashes"));
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    try (var files = Files.walk(dir)) {
+      for (Path path : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  void test_get_empty() {
+    assertEquals(OptionalLong.empty(), cache.get(file));
+  }
+
+  @Test
+  void test_hashFile_stores() throws IOException {
+    long hash = cache.hashFile(file);
+    assertEquals(Hashing.hashContent(Files.newInputStream(file)), hash);
+    assertEquals(OptionalLong.of(hash), cache.get(file));
+    assertEquals(OptionalLong.of(hash), new HashCache(dir.resolve("cache/hashes")).get(file));
+  }
+
+  @Test
+  void test_get_modified() throws IOException {
+    cache.put(file, HashCache.keyOf(file), 42);
+    assertEquals(OptionalLong.of(42), cache.get(file));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+    assertEquals(OptionalLong.empty(), cache.get(file));
+  }
+
+  @Test
+  void test_get_key() throws IOException {
+    HashCache.Key key = HashCache.keyOf(file);
+    cache.put(file, key, 42);
+    assertEquals(OptionalLong.of(42), cache.get(file, key));
+    // an entry for another version of the file doesn't match
+    assertEquals(OptionalLong.empty(),
+        cache.get(file, new HashCache.Key(key.size(), key.lastModified() + 1)));
+  }
+
+  @Test
+  void test_put_replaces() throws IOException {
+    HashCache.Key key = HashCache.keyOf(file);
+    cache.put(file, key, 1);
+    cache.put(file, key, 2);
+    assertEquals(OptionalLong.of(2), cache.get(file));
+    assertEquals(1, Files.readAllLines(dir.resolve("cache/hashes")).size());
+  }
+
+}
@@ -2,6 +2,7 @@ package edu.kit.satviz.common;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import org.junit.jupiter.api.Test;
 
@@ -14,4 +15,19 @@ class HashingTest {
     }
   }
 
+  @Test
+  void test_hashing_sameAsHashContent() throws IOException {
+    byte[] content;
+    try (var in = HashingTest.class.getResourceAsStream("/hash_test.txt")) {
+      content = in.readAllBytes();
+    }
+    try (var hashing = Hashing.hashing(new ByteArrayInputStream(content))) {
+      // mix single byte reads, skips and bulk reads, leaving the rest to finish()
+      hashing.read();
+      hashing.skip(2);
+      hashing.read(new byte[3]);
+      assertEquals(Hashing.hashContent(new ByteArrayInputStream(content)), hashing.finish());
+    }
+  }
+
 }
@@ -15,6 +15,7 @@ dependencies {
     implementation("com.fasterxml.jackson.core:jackson-databind:2.13.1")
     implementation("net.sourceforge.argparse4j:argparse4j:0.9.0")
     implementation("net.lingala.zip4j:zip4j:2.9.1")
+    implementation("org.lz4:lz4-java:1.8.0")
     implementation(project(":satviz-parsers"))
     implementation(project(":satviz-common"))
 }
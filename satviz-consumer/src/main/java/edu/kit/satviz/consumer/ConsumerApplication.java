@@ -2,6 +2,7 @@ package edu.kit.satviz.consumer;
 
 import edu.kit.satviz.common.Compression;
 import edu.kit.satviz.common.ConstraintValidationException;
+import edu.kit.satviz.common.HashCache;
 import edu.kit.satviz.common.Hashing;
 import edu.kit.satviz.consumer.cli.ConsumerCli;
 import edu.kit.satviz.consumer.config.ConsumerConfig;
@@ -10,6 +11,7 @@ import edu.kit.satviz.consumer.config.ConsumerMode;
 import edu.kit.satviz.consumer.config.ConsumerModeConfig;
 import edu.kit.satviz.consumer.config.EmbeddedModeConfig;
 import edu.kit.satviz.consumer.config.ExternalModeConfig;
+import edu.kit.satviz.consumer.config.SessionModeConfig;
 import edu.kit.satviz.consumer.display.DisplayType;
 import edu.kit.satviz.consumer.display.VideoController;
 import edu.kit.satviz.consumer.graph.Graph;
@@ -27,16 +29,23 @@ import edu.kit.satviz.consumer.processing.IdentityMapping;
 import edu.kit.satviz.consumer.processing.Mediator;
 import edu.kit.satviz.consumer.processing.RecencyHeatmap;
 import edu.kit.satviz.consumer.processing.RingInteractionGraph;
+import edu.kit.satviz.consumer.processing.SessionManifest;
 import edu.kit.satviz.consumer.processing.VariableInteractionGraph;
 import edu.kit.satviz.network.pub.ConsumerConnection;
 import edu.kit.satviz.network.pub.OfferType;
 import edu.kit.satviz.network.pub.ProducerId;
+import edu.kit.satviz.network.pub.SharedMemoryAddress;
 import edu.kit.satviz.network.pub.SolverId;
 import edu.kit.satviz.parsers.DimacsFile;
+import edu.kit.satviz.parsers.ParallelDimacsLoader;
 import edu.kit.satviz.parsers.ParsingException;
-import edu.kit.satviz.sat.ClauseUpdate;
+import edu.kit.satviz.sat.ClauseBatch;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.InetAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -50,7 +59,6 @@ import java.util.function.IntUnaryOperator;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.StreamSupport;
 import net.lingala.zip4j.ZipFile;
 import net.sourceforge.argparse4j.inf.ArgumentParserException;
 
@@ -59,6 +67,8 @@ public final class ConsumerApplication {
   private static final Logger logger = Logger.getLogger("Consumer");
   private static ProducerId pid = null;
   private static final Object SYNC_OBJECT = new Object();
+  // the rings of the embedded producer are in a directory named after the consumer's process ID
+  private static final String RING_DIR_PREFIX = "satviz-";
 
   public static void main(String[] args)
       throws IOException, InterruptedException, ExecutionException {
@@ -77,6 +87,11 @@ public final class ConsumerApplication {
       System.exit(1);
     }
 
+    if (config.getModeConfig().getMode() == ConsumerMode.SESSION) {
+      openSession(config, ((SessionModeConfig) config.getModeConfig()).getSessionPath());
+      return;
+    }
+
     Path tempDir = Files.createTempDirectory("satviz"); // TODO: 05.03.2022 make own temp?
     tempDir.toFile().deleteOnExit();
 
@@ -99,8 +114,17 @@ public final class ConsumerApplication {
     logger.log(Level.INFO, "Graph contracted to {0} nodes", contraction.remainingNodes());
     GlComponents components = initializeRendering(config, vig, contraction, initialData, glScheduler);
 
-    ClauseCoordinator coordinator = new ClauseCoordinator(components.graph,
-        tempDir, initialData.variables, components.nodeMapping);
+    ClauseCoordinator coordinator;
+    if (config.getSaveSessionPath() == null) {
+      coordinator = new ClauseCoordinator(components.graph,
+          tempDir, initialData.variables, components.nodeMapping);
+    } else {
+      logger.log(Level.INFO, "Saving session to {0}", config.getSaveSessionPath());
+      coordinator = ClauseCoordinator.createSession(components.graph, config.getSaveSessionPath(),
+          initialData.variables, components.nodeMapping, createManifest(config, contraction));
+    }
+    // a proof sent from a later clause on still deletes clauses that were added before
+    coordinator.ignoreUnknownDeletions(initialData.clauses);
 
     Mediator mediator = new Mediator.MediatorBuilder()
         .setConfig(config)
@@ -117,6 +141,81 @@ public final class ConsumerApplication {
       connection.stop();
     });
 
+    startUserInterface(mediator, config);
+
+    connection.connect(ConsumerApplication.pid, mediator);
+
+    if (config.isRecordImmediately() || config.isNoGui()) {
+      mediator.startOrStopRecording();
+    }
+    mediator.startRendering();
+  }
+
+  private static void openSession(ConsumerConfig config, Path sessionDir)
+      throws IOException, InterruptedException, ExecutionException {
+    logger.log(Level.INFO, "Opening session {0}", sessionDir);
+    SessionManifest manifest = SessionManifest.read(sessionDir);
+    if (config.getInstancePath() != null
+        && HashCache.getDefault().hashFile(config.getInstancePath())
+        != manifest.getInstanceHash()) {
+      logger.severe("SAT instance does not match the session");
+      System.exit(1);
+      return;
+    }
+    // the processors must be the same as the ones of the recording
+    config.setHeatmapImplementation(manifest.getHeatmapImplementation());
+    config.setWindowSize(manifest.getWindowSize());
+    config.setVigImplementation(manifest.getVigImplementation());
+    config.setWeightFactor(manifest.getWeightFactor());
+    logger.log(Level.INFO, "Session contains {0} clause updates", manifest.getUpdateCount());
+
+    ScheduledExecutorService glScheduler = Executors.newSingleThreadScheduledExecutor();
+    GlComponents components = createGlComponents(config, manifest.getNodeCount(),
+        new ArrayNodeMapping(manifest.getContractionMapping()), glScheduler);
+    Heatmap heatmap = getHeatmapImplementation(config);
+    VariableInteractionGraph vig = getVigImplementation(config);
+    // the first snapshot contains the initial layout
+    ClauseCoordinator coordinator = glScheduler.submit(() -> {
+      ClauseCoordinator opened = ClauseCoordinator.openSession(components.graph, sessionDir,
+          manifest, components.nodeMapping, List.of(heatmap, vig));
+      components.controller.resetCamera();
+      components.controller.nextFrame();
+      return opened;
+    }).get();
+
+    Mediator mediator = new Mediator.MediatorBuilder()
+        .setConfig(config)
+        .setGlScheduler(glScheduler)
+        .setController(components.controller)
+        .setGraph(components.graph)
+        .setCoordinator(coordinator)
+        .setHeatmap(heatmap)
+        .setVig(vig)
+        .createMediator();
+
+    startUserInterface(mediator, config);
+
+    if (config.isRecordImmediately() || config.isNoGui()) {
+      mediator.startOrStopRecording();
+    }
+    mediator.startRendering();
+  }
+
+  private static SessionManifest createManifest(ConsumerConfig config,
+                                                Graph.Contraction contraction)
+      throws IOException {
+    SessionManifest manifest = new SessionManifest();
+    manifest.setInstanceHash(HashCache.getDefault().hashFile(config.getInstancePath()));
+    manifest.setNodeCount(contraction.remainingNodes());
+    manifest.setContractionMapping(contraction.mapping());
+    manifest.setHeatmapImplementation(config.getHeatmapImplementation());
+    manifest.setWindowSize(config.getWindowSize());
+    manifest.setVigImplementation(config.getVigImplementation());
+    manifest.setWeightFactor(config.getWeightFactor());
+    return manifest;
+  }
+
+  private static void startUserInterface(Mediator mediator, ConsumerConfig config) {
     if (!config.isNoGui()) {
       startVisualisationGui(mediator, config);
     } else {
@@ -143,13 +242,6 @@ public final class ConsumerApplication {
         }
       });
     }
-
-    connection.connect(ConsumerApplication.pid, mediator);
-
-    if (config.isRecordImmediately() || config.isNoGui()) {
-      mediator.startOrStopRecording();
-    }
-    mediator.startRendering();
   }
 
   private static Heatmap getHeatmapImplementation(ConsumerConfig config) {
@@ -186,19 +278,8 @@ public final class ConsumerApplication {
       ConsumerConfig config, Supplier<? extends VariableInteractionGraph> vig,
       Graph.Contraction contraction, InitialGraphInfo initialData, ExecutorService glScheduler
   ) throws InterruptedException, ExecutionException {
-    logger.finer("Initialising OpenGL window");
-
-    GlComponents components = glScheduler.submit(() -> {
-      Graph graph = Graph.create(contraction.remainingNodes());
-      VideoController videoController = VideoController.create(
-          graph,
-          (config.isNoGui()) ? DisplayType.OFFSCREEN : DisplayType.ONSCREEN,
-          1920,
-          1080
-      );
-      videoController.applyTheme(config.getTheme());
-      return new GlComponents(graph, new ArrayNodeMapping(contraction.mapping()), videoController);
-    }).get();
+    GlComponents components = createGlComponents(config, contraction.remainingNodes(),
+        new ArrayNodeMapping(contraction.mapping()), glScheduler);
 
 
     logger.info("Calculating initial layout");
@@ -222,14 +303,55 @@ public final class ConsumerApplication {
     return components;
   }
 
+  private static GlComponents createGlComponents(
+      ConsumerConfig config, int nodes, IntUnaryOperator nodeMapping, ExecutorService glScheduler
+  ) throws InterruptedException, ExecutionException {
+    logger.finer("Initialising OpenGL window");
+
+    return glScheduler.submit(() -> {
+      Graph graph = Graph.create(nodes);
+      VideoController videoController = VideoController.create(
+          graph,
+          (config.isNoGui()) ? DisplayType.OFFSCREEN : DisplayType.ONSCREEN,
+          1920,
+          1080
+      );
+      videoController.applyTheme(config.getTheme());
+      return new GlComponents(graph, nodeMapping, videoController);
+    }).get();
+  }
+
   private static InitialGraphInfo readDimacsFile(ConsumerConfig config) throws IOException {
-    try (DimacsFile dimacsFile = new DimacsFile(
-        Compression.openPossiblyCompressed(config.getInstancePath()))) {
-      int variableAmount = dimacsFile.getVariableAmount();
-      logger.log(Level.INFO, "Instance contains {0} variables", variableAmount);
-      ClauseUpdate[] clauses = StreamSupport.stream(dimacsFile.spliterator(), false)
-          .toArray(ClauseUpdate[]::new);
-      return new InitialGraphInfo(variableAmount, clauses);
+    Path instancePath = config.getInstancePath();
+    try {
+      if (!Compression.isCompressed(instancePath)) {
+        // uncompressed files can be memory-mapped and parsed in parallel
+        try (ParallelDimacsLoader loader = new ParallelDimacsLoader(instancePath)) {
+          int variableAmount = loader.getVariableAmount();
+          logger.log(Level.INFO, "Instance contains {0} variables", variableAmount);
+          return new InitialGraphInfo(variableAmount, loader.load());
+        }
+      }
+      // unless the hash is cached, the raw bytes are hashed while parsing,
+      // so verifying the instance doesn't read it again
+      HashCache hashCache = HashCache.getDefault();
+      HashCache.Key key = HashCache.keyOf(instancePath);
+      InputStream in = Files.newInputStream(instancePath);
+      Hashing.HashingInputStream raw = null;
+      if (hashCache.get(instancePath, key).isEmpty()) {
+        raw = Hashing.hashing(in);
+        in = raw;
+      }
+      try (DimacsFile dimacsFile = new DimacsFile(
+          Compression.decompressIfNeeded(instancePath, in))) {
+        int variableAmount = dimacsFile.getVariableAmount();
+        logger.log(Level.INFO, "Instance contains {0} variables", variableAmount);
+        ClauseBatch clauses = dimacsFile.readClauses();
+        if (raw != null) {
+          hashCache.put(instancePath, key, raw.finish());
+        }
+        return new InitialGraphInfo(variableAmount, clauses);
+      }
     } catch (ParsingException e) {
       if (!config.isNoGui()) {
         // Error window.
@@ -264,17 +386,39 @@ public final class ConsumerApplication {
       throws InterruptedException {
     ConsumerModeConfig modeConfig = config.getModeConfig();
     boolean embedded = modeConfig.getMode() == ConsumerMode.EMBEDDED;
-    int consumerPort = embedded ? 0 : ((ExternalModeConfig) modeConfig).getPort();
-    ConsumerConnection connection = new ConsumerConnection(consumerPort,
-        ConsumerApplication::newConnectionAvailable, (s) -> logger.log(Level.SEVERE,
-        "network fail: {0}", s));
-    try {
-      connection.start();
-      logger.log(Level.INFO, "Port {0} opened", String.valueOf(connection.getPort()));
-    } catch (IOException e) {
-      logger.log(Level.SEVERE, "Error while trying to start embedded producer", e);
-      System.exit(1);
-      return null;
+    ConsumerConnection connection = null;
+    // the arguments telling the embedded producer how to connect, if not via TCP
+    List<String> localArgs = null;
+    if (embedded) {
+      // the embedded producer runs on the same machine, so it can use shared memory in a
+      // memory-backed file system or a Unix domain socket
+      Path shm = Path.of("/dev/shm");
+      if (Files.isDirectory(shm) && Files.isWritable(shm)) {
+        deleteStaleRings(shm);
+        Path rings = shm.resolve(RING_DIR_PREFIX + ProcessHandle.current().pid());
+        connection = startLocalConnection(new SharedMemoryAddress(rings));
+        localArgs = List.of("--shared-memory", rings.toString());
+      }
+      if (connection == null) {
+        Path socket = tempDir.resolve("producer.sock").toAbsolutePath();
+        connection = startLocalConnection(UnixDomainSocketAddress.of(socket));
+        localArgs = List.of("--socket", socket.toString());
+      }
+    }
+    if (connection == null) {
+      localArgs = null;
+      int consumerPort = embedded ? 0 : ((ExternalModeConfig) modeConfig).getPort();
+      connection = new ConsumerConnection(consumerPort,
+          ConsumerApplication::newConnectionAvailable, (s) -> logger.log(Level.SEVERE,
+          "network fail: {0}", s));
+      try {
+        connection.start();
+        logger.log(Level.INFO, "Port {0} opened", String.valueOf(connection.getPort()));
+      } catch (IOException e) {
+        logger.log(Level.SEVERE, "Error while trying to start embedded producer", e);
+        System.exit(1);
+        return null;
+      }
     }
 
     if (embedded) {
@@ -282,8 +426,10 @@ public final class ConsumerApplication {
       EmbeddedModeConfig embedConfig = (EmbeddedModeConfig) modeConfig;
       try {
         String sourcePath = embedConfig.getSourcePath().toAbsolutePath().toString();
-        List<String> baseArgs = List.of("-H", InetAddress.getLocalHost().getHostAddress(),
-            "-P", String.valueOf(connection.getPort()));
+        List<String> baseArgs = localArgs != null
+            ? localArgs
+            : List.of("-H", InetAddress.getLocalHost().getHostAddress(),
+                "-P", String.valueOf(connection.getPort()));
         List<String> additionalArgs = switch (embedConfig.getSource()) {
           case SOLVER -> List.of("-s", sourcePath, "-i", config.getInstancePath().toAbsolutePath().toString());
           case PROOF -> List.of("-p", sourcePath);
@@ -314,6 +460,43 @@ public final class ConsumerApplication {
     return connection;
   }
 
+  // removes the rings left behind by consumers that crashed before their producer attached
+  private static void deleteStaleRings(Path shm) {
+    try (DirectoryStream<Path> dirs = Files.newDirectoryStream(shm, RING_DIR_PREFIX + "*")) {
+      for (Path dir : dirs) {
+        String pid = dir.getFileName().toString().substring(RING_DIR_PREFIX.length());
+        if (!pid.matches("[0-9]+") || ProcessHandle.of(Long.parseLong(pid)).isPresent()) {
+          continue;
+        }
+        try (DirectoryStream<Path> rings = Files.newDirectoryStream(dir)) {
+          for (Path ring : rings) {
+            Files.deleteIfExists(ring);
+          }
+        }
+        Files.deleteIfExists(dir);
+        logger.log(Level.INFO, "Deleted stale shared memory rings {0}", dir);
+      }
+    } catch (IOException | NumberFormatException e) {
+      logger.log(Level.WARNING, "Cannot delete stale shared memory rings", e);
+    }
+  }
+
+  // starts a connection for the embedded producer, returns null if the address cannot be used
+  private static ConsumerConnection startLocalConnection(SocketAddress address) {
+    ConsumerConnection connection = new ConsumerConnection(address,
+        ConsumerApplication::newConnectionAvailable, (s) -> logger.log(Level.SEVERE,
+        "network fail: {0}", s));
+    try {
+      connection.start();
+      logger.log(Level.INFO, "Listening on {0}", address);
+      return connection;
+    } catch (IOException | UnsupportedOperationException e) {
+      // e.g. if the path of a socket is too long
+      logger.log(Level.WARNING, "Cannot listen on " + address + ", falling back", e);
+      return null;
+    }
+  }
+
   private static Path extractProducer(Path tempDir) throws IOException {
     Path producerDir = Files.createTempDirectory(tempDir, "producer");
     var producerStream
@@ -342,7 +525,7 @@ public final class ConsumerApplication {
     if (pid.getType() != OfferType.SOLVER) {
       return true;
     }
-    long hash = Hashing.hashContent(Files.newInputStream(instancePath));
+    long hash = HashCache.getDefault().hashFile(instancePath);
     SolverId sid = (SolverId) pid;
     if (hash != sid.getInstanceHash()) {
       logger.log(Level.SEVERE, "SAT instance mismatch: {0} (local) vs {1} (remote)",
@@ -363,7 +546,7 @@ public final class ConsumerApplication {
 
   }
 
-  private record InitialGraphInfo(int variables, ClauseUpdate[] clauses) {
+  private record InitialGraphInfo(int variables, ClauseBatch clauses) {
 
   }
 }
@@ -9,6 +9,7 @@ import edu.kit.satviz.consumer.config.EmbeddedModeConfig;
 import edu.kit.satviz.consumer.config.EmbeddedModeSource;
 import edu.kit.satviz.consumer.config.ExternalModeConfig;
 import edu.kit.satviz.consumer.config.HeatmapColors;
+import edu.kit.satviz.consumer.config.SessionModeConfig;
 import edu.kit.satviz.consumer.config.Theme;
 import edu.kit.satviz.consumer.config.WeightFactor;
 import edu.kit.satviz.consumer.config.jsonparsing.ColorDeserializer;
@@ -41,7 +42,8 @@ public final class ConsumerCli {
         .version("0.1.0-SNAPSHOT")
         .description("""
             A clause consumer for satviz.
-            Can be started with an external or embedded producer and a SAT instance.""");
+            Can be started with an external or embedded producer and a SAT instance,
+            or open a saved session.""");
 
     Subparsers subparsers = PARSER.addSubparsers().dest("subparser_name");
 
@@ -61,6 +63,12 @@ public final class ConsumerCli {
         .type(int.class)
         .help("Port, where clauses can be received");
 
+    Subparser sessionParser = subparsers.addParser("session")
+        .help("Open a saved session, without a producer");
+    sessionParser.addArgument("dir")
+        .type(PathArgumentType.get())
+        .help("Path to the session directory");
+
     Subparser fileParser = subparsers.addParser("config")
         .help("Start consumer how it's specified in the configuration file");
     fileParser.addArgument("file")
@@ -79,6 +87,9 @@ public final class ConsumerCli {
         .setDefault(ConsumerConfig.DEFAULT_VIDEO_TEMPLATE_PATH)
         .type(String.class)
         .help("Path, where animation should be stored to, in this format: /etc/video-{}.ogv");
+    PARSER.addArgument("--save-session")
+        .type(PathArgumentType.get())
+        .help("Directory, where the session should be saved to, so it can be opened later");
     PARSER.addArgument("--buffer", "-b")
         .setDefault(ConsumerConfig.DEFAULT_BUFFER_SIZE)
         .type(int.class)
@@ -149,6 +160,7 @@ public final class ConsumerCli {
     config.setNoGui(namespace.getBoolean("no_gui"));
     config.setVideoTemplatePath(namespace.getString("out"));
     config.setRecordImmediately(namespace.getBoolean("start_rec"));
+    config.setSaveSessionPath(namespace.get("save_session"));
     config.setBufferSize(namespace.getInt("buffer"));
     config.setWeightFactor(namespace.get("weight"));
     config.setWindowSize(namespace.getInt("window"));
@@ -178,6 +190,11 @@ public final class ConsumerCli {
         externalConfig.setPort(namespace.get("port"));
         yield externalConfig;
       }
+      case "session" -> {
+        SessionModeConfig sessionConfig = new SessionModeConfig();
+        sessionConfig.setSessionPath(namespace.get("dir"));
+        yield sessionConfig;
+      }
       default -> throw new IllegalArgumentException("No valid mode set.");
     };
   }
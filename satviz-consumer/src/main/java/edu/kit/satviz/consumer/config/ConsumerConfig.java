@@ -57,6 +57,7 @@ public class ConsumerConfig {
   private boolean noGui = DEFAULT_NO_GUI;
   private String videoTemplatePath = DEFAULT_VIDEO_TEMPLATE_PATH;
   private boolean recordImmediately = DEFAULT_RECORD_IMMEDIATELY;
+  private Path saveSessionPath;
 
   // cosmetic settings
   private int bufferSize = DEFAULT_BUFFER_SIZE;
@@ -117,6 +118,16 @@ public class ConsumerConfig {
     this.recordImmediately = recordImmediately;
   }
 
+  /**
+   * Setter-method for the directory the visualization session should be saved to.
+   *
+   * @param saveSessionPath The path of the session directory,
+   *                        or <i>null</i>, if the session should not be saved.
+   */
+  public void setSaveSessionPath(Path saveSessionPath) {
+    this.saveSessionPath = saveSessionPath;
+  }
+
   /**
    * Setter-method for the buffer-size.
    *
@@ -238,6 +249,16 @@ public class ConsumerConfig {
     return recordImmediately;
   }
 
+  /**
+   * Getter-method for the directory the visualization session should be saved to.
+   *
+   * @return The path of the session directory,
+   *         or <i>null</i>, if the session should not be saved.
+   */
+  public Path getSaveSessionPath() {
+    return saveSessionPath;
+  }
+
   /**
    * Getter-method for the buffer-size.
    *
@@ -334,6 +355,7 @@ public class ConsumerConfig {
         && Objects.equals(modeConfig, config.modeConfig)
         && Objects.equals(instancePath, config.instancePath)
         && Objects.equals(videoTemplatePath, config.videoTemplatePath)
+        && Objects.equals(saveSessionPath, config.saveSessionPath)
         && weightFactor == config.weightFactor
         && Objects.equals(theme, config.theme)
         && heatmapImplementation == config.heatmapImplementation
@@ -346,7 +368,8 @@ public class ConsumerConfig {
   @Override
   public int hashCode() {
     return Objects.hash(modeConfig, instancePath, noGui, videoTemplatePath,
-        recordImmediately, bufferSize, weightFactor, heatmapImplementation, windowSize, theme,
+        recordImmediately, saveSessionPath, bufferSize, weightFactor, heatmapImplementation,
+        windowSize, theme,
         vigImplementation, contractionIterations, period, videoTimeout);
   }
 
@@ -4,6 +4,7 @@ import static edu.kit.satviz.common.FileExistsConstraint.fileExists;
 
 import edu.kit.satviz.common.Constraint;
 import edu.kit.satviz.common.ConstraintValidationException;
+import edu.kit.satviz.consumer.processing.SessionManifest;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -22,13 +23,24 @@ public class ConsumerConstraint implements Constraint<ConsumerConfig> {
       fail("Window size must be greater than 0");
     }
 
+    ConsumerModeConfig modeConfig = config.getModeConfig();
+    boolean session = modeConfig != null && modeConfig.getMode() == ConsumerMode.SESSION;
+    // a saved session doesn't need the instance, but it is checked against the session if given
     if (config.getInstancePath() == null) {
-      fail("No instance is set");
+      if (!session) {
+        fail("No instance is set");
+      }
+    } else {
+      fileExists().validate(config.getInstancePath());
     }
-    fileExists().validate(config.getInstancePath());
     fileExists().validate(Paths.get(config.getVideoTemplatePath()).toAbsolutePath().getParent());
-    ConsumerModeConfig modeConfig = config.getModeConfig();
-    if (modeConfig.getMode() == ConsumerMode.EMBEDDED) {
+    Path saveSessionPath = config.getSaveSessionPath();
+    if (saveSessionPath != null && SessionManifest.exists(saveSessionPath)) {
+      fail("Directory already contains a session");
+    }
+    if (modeConfig == null) {
+      fail("No consumer mode set");
+    } else if (modeConfig.getMode() == ConsumerMode.EMBEDDED) {
       EmbeddedModeConfig embeddedConfig = (EmbeddedModeConfig) modeConfig;
       Path source = embeddedConfig.getSourcePath();
       if (source == null) {
@@ -44,6 +56,15 @@ public class ConsumerConstraint implements Constraint<ConsumerConfig> {
       if (port < ExternalModeConfig.MIN_PORT_NUMBER || port > ExternalModeConfig.MAX_PORT_NUMBER) {
         fail("Invalid port set");
       }
+    } else if (session) {
+      Path sessionPath = ((SessionModeConfig) modeConfig).getSessionPath();
+      if (sessionPath == null) {
+        fail("No session directory is set");
+      } else if (!SessionManifest.exists(sessionPath)) {
+        fail("Directory does not contain a session");
+      } else if (saveSessionPath != null) {
+        fail("An opened session cannot be saved again");
+      }
     } else {
       fail("No consumer mode set");
     }
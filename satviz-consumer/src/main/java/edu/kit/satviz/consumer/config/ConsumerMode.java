@@ -3,11 +3,13 @@ package edu.kit.satviz.consumer.config;
 /**
  * This enum holds all different configuration modes.<br>
  * In this case, the option to either have an embedded or external producer
- * is represented through the two options.
+ * is represented through the first two options. The third option opens a saved session,
+ * which doesn't need a producer at all.
  */
 public enum ConsumerMode {
 
   EMBEDDED,
-  EXTERNAL
+  EXTERNAL,
+  SESSION
 
 }
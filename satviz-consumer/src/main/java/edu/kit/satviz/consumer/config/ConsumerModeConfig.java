@@ -12,7 +12,8 @@ import java.util.Objects;
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "mode")
 @JsonSubTypes({
     @JsonSubTypes.Type(value = EmbeddedModeConfig.class, name = "EMBEDDED"),
-    @JsonSubTypes.Type(value = ExternalModeConfig.class, name = "EXTERNAL")
+    @JsonSubTypes.Type(value = ExternalModeConfig.class, name = "EXTERNAL"),
+    @JsonSubTypes.Type(value = SessionModeConfig.class, name = "SESSION")
 })
 public abstract class ConsumerModeConfig {
 
@@ -0,0 +1,54 @@
+package edu.kit.satviz.consumer.config;
+
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * This subclass of the <code>ConsumerModeConfig</code> class is used, when one decides
+ * to open a visualization session that has been saved before, without a producer.
+ */
+@JsonTypeName("SESSION")
+public class SessionModeConfig extends ConsumerModeConfig {
+
+  private Path sessionPath;
+
+  /**
+   * This constructor creates an instance of the SessionModeConfig class.
+   */
+  public SessionModeConfig() {
+    super.setMode(ConsumerMode.SESSION);
+  }
+
+  /**
+   * This method sets the directory in which the session is stored.
+   *
+   * @param sessionPath The path of the session directory.
+   */
+  public void setSessionPath(Path sessionPath) {
+    this.sessionPath = sessionPath;
+  }
+
+  /**
+   * This getter-method returns the directory in which the session is stored.
+   *
+   * @return The path of the session directory.
+   */
+  public Path getSessionPath() {
+    return sessionPath;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!super.equals(o)) {
+      return false;
+    }
+    SessionModeConfig that = (SessionModeConfig) o;
+    return Objects.equals(sessionPath, that.sessionPath);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(super.hashCode(), sessionPath);
+  }
+}
@@ -358,7 +358,9 @@ public class GeneralConfigController extends ConfigController {
 
   @Override
   protected void validateConsumerConfig(ConsumerConfig config) throws ConfigArgumentException {
-    if (config.getInstancePath() == null) {
+    // a saved session can be opened without the SAT instance
+    if (config.getInstancePath() == null
+        && config.getModeConfig().getMode() != ConsumerMode.SESSION) {
       throw new ConfigArgumentException("Please select a SAT instance file.");
     }
     modeConfigController.validateConsumerConfig(config);
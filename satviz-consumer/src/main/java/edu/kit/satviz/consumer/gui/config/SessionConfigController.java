@@ -0,0 +1,95 @@
+package edu.kit.satviz.consumer.gui.config;
+
+import edu.kit.satviz.consumer.config.ConsumerConfig;
+import edu.kit.satviz.consumer.config.SessionModeConfig;
+import edu.kit.satviz.consumer.processing.SessionManifest;
+import java.io.File;
+import java.nio.file.Path;
+import javafx.fxml.FXML;
+import javafx.scene.control.Label;
+import javafx.stage.DirectoryChooser;
+
+/**
+ * Controls the window for the session mode configuration.
+ */
+public class SessionConfigController extends ConfigController {
+
+  // ATTRIBUTES (FXML)
+
+  @FXML
+  private Label sessionDirectoryLabel;
+
+  // ATTRIBUTES (OTHER)
+
+  private File sessionDirectory;
+
+
+  // METHODS (FXML)
+
+  @FXML
+  private void selectSessionDirectory() {
+    DirectoryChooser directoryChooser = new DirectoryChooser();
+
+    File directory = directoryChooser.showDialog(null);
+    if (directory != null) {
+      setSessionDirectory(directory);
+    }
+  }
+
+  // METHODS (OTHER)
+
+  @Override
+  protected void initializeComponents() {
+
+  }
+
+  @Override
+  protected void setDefaultValues() {
+    sessionDirectory = null;
+    sessionDirectoryLabel.setText("");
+  }
+
+  @Override
+  protected void loadConsumerConfig(ConsumerConfig config) {
+    setDefaultValues();
+
+    // config & config.getModeConfig() have already been checked for null by GeneralConfigController
+    SessionModeConfig sessionModeConfig = (SessionModeConfig) config.getModeConfig();
+
+    Path sessionPath = sessionModeConfig.getSessionPath();
+    if (sessionPath != null) {
+      setSessionDirectory(sessionPath.toFile());
+    }
+  }
+
+  @Override
+  protected void setConsumerConfigValues(ConsumerConfig config) {
+    if (config == null) {
+      config = new ConsumerConfig();
+    }
+
+    SessionModeConfig modeConfig = new SessionModeConfig();
+    if (sessionDirectory != null) {
+      modeConfig.setSessionPath(sessionDirectory.toPath());
+    }
+
+    config.setModeConfig(modeConfig);
+  }
+
+  @Override
+  protected void validateConsumerConfig(ConsumerConfig config) throws ConfigArgumentException {
+    SessionModeConfig sessionModeConfig = (SessionModeConfig) config.getModeConfig();
+
+    if (sessionModeConfig.getSessionPath() == null) {
+      throw new ConfigArgumentException("Please select a session directory.");
+    }
+    if (!SessionManifest.exists(sessionModeConfig.getSessionPath())) {
+      throw new ConfigArgumentException("The selected directory does not contain a session.");
+    }
+  }
+
+  private void setSessionDirectory(File directory) {
+    sessionDirectory = directory;
+    sessionDirectoryLabel.setText(directory.getName());
+  }
+}
@@ -1,6 +1,8 @@
 package edu.kit.satviz.consumer.processing;
 
 import edu.kit.satviz.consumer.graph.Graph;
+import edu.kit.satviz.sat.Clause;
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.ClauseUpdate;
 import edu.kit.satviz.serial.SerializationException;
 import java.io.BufferedInputStream;
@@ -36,6 +38,11 @@ import java.util.function.IntUnaryOperator;
  * to a temporary file. When {@link #seekToUpdate(long)} is used, the snapshot closest to the
  * desired index will be deserialised and loaded.
  *
+ * <p>A coordinator can also record a <strong>session</strong>: the clause updates and snapshots
+ * are then kept in a session directory along with a {@link SessionManifest} after closing, and the
+ * session can be {@link #openSession opened} again later. Seeking works immediately in an opened
+ * session, without any clause updates being added.
+ *
  * <p>Instances of this class hold closeable resources. It should therefore be ensured that
  * {@code ClauseCoordinator}s are {@link #close() closed} after usage.
  *
@@ -45,8 +52,11 @@ public class ClauseCoordinator implements AutoCloseable {
 
   private final Path tempDir;
   private final Path snapshotDir;
+  private final SessionManifest session; // null if the files are temporary
   private final TreeMap<Long, Snapshot> snapshots;
   private final List<ClauseUpdateProcessor> processors;
+  // the processors in the order of registration, unlike the list above
+  private final List<ClauseUpdateProcessor> registered;
   private final Graph graph;
   private final ExternalClauseBuffer buffer;
 
@@ -59,6 +69,9 @@ public class ClauseCoordinator implements AutoCloseable {
   private final ReentrantLock processorLock;
   private final int variableAmount;
   private final IntUnaryOperator nodeMapping;
+  // the clauses received so far, if unknown deletions are ignored (guarded by receivedLock)
+  private ClauseIndex received;
+  private final ReentrantLock receivedLock;
 
   // currentUpdate is volatile, even though the stateLock prevents concurrent modification already.
   // this is because while updates to currentUpdate need to be consistent and coordinated,
@@ -78,35 +91,143 @@ public class ClauseCoordinator implements AutoCloseable {
   public ClauseCoordinator(
       Graph graph, Path tempDir, int variableAmount, IntUnaryOperator nodeMapping
   ) throws IOException {
+    this(graph, tempDir, variableAmount, nodeMapping, null,
+        createSnapshotDir(tempDir), new ExternalClauseBuffer(tempDir));
+    // take initial snapshot to have a baseline in the snapshots TreeMap
+    takeSnapshot();
+  }
+
+  private ClauseCoordinator(
+      Graph graph, Path tempDir, int variableAmount, IntUnaryOperator nodeMapping,
+      SessionManifest session, Path snapshotDir, ExternalClauseBuffer buffer
+  ) {
     this.graph = graph;
     this.tempDir = tempDir;
     this.variableAmount = variableAmount;
     this.nodeMapping = nodeMapping;
-
-    this.snapshotDir = Files.createTempDirectory(tempDir, "satviz-snapshots");
-    snapshotDir.toFile().deleteOnExit();
+    this.session = session;
+    this.snapshotDir = snapshotDir;
     this.snapshots = new TreeMap<>();
     this.processors = new CopyOnWriteArrayList<>();
+    this.registered = new CopyOnWriteArrayList<>();
     this.currentUpdate = 0;
-    this.buffer = new ExternalClauseBuffer(tempDir);
+    this.buffer = buffer;
     this.snapshotLock = new ReentrantLock();
     this.stateLock = new ReentrantLock();
     this.processorLock = new ReentrantLock();
+    this.receivedLock = new ReentrantLock();
     // so the initial snapshot has something to compare the processor list against
     this.snapshots.put(0L, new Snapshot(null, new ClauseUpdateProcessor[0]));
-    // take initial snapshot to have a baseline in the snapshots TreeMap
-    takeSnapshot();
+  }
+
+  private static Path createSnapshotDir(Path tempDir) throws IOException {
+    Path snapshotDir = Files.createTempDirectory(tempDir, "satviz-snapshots");
+    snapshotDir.toFile().deleteOnExit();
+    return snapshotDir;
+  }
+
+  /**
+   * Create a new {@code ClauseCoordinator} that records a session.
+   * When the coordinator is closed, the session directory contains everything needed to
+   * {@link #openSession open} it again, with the given manifest completed by the variable amount,
+   * the amount of clause updates and the snapshot index.
+   *
+   * @param graph The underlying graph
+   * @param sessionDir The session directory. It is created if it doesn't exist, and must not
+   *                   contain a session yet.
+   * @param variableAmount The amount of variables in the corresponding SAT instance.
+   * @param nodeMapping A mapping from variables to nodes.
+   * @param manifest The manifest of the session, describing the instance and the processors.
+   * @return The new coordinator.
+   * @throws IOException If there is an I/O error while setting up the session directory, or it
+   *                     already contains a session.
+   */
+  public static ClauseCoordinator createSession(
+      Graph graph, Path sessionDir, int variableAmount, IntUnaryOperator nodeMapping,
+      SessionManifest manifest
+  ) throws IOException {
+    if (SessionManifest.exists(sessionDir)) {
+      throw new IOException("Directory already contains a session: " + sessionDir);
+    }
+    Path snapshotDir = sessionDir.resolve(SessionManifest.SNAPSHOT_DIR);
+    Files.createDirectories(snapshotDir);
+    manifest.setVariableCount(variableAmount);
+    ClauseCoordinator coordinator = new ClauseCoordinator(graph, sessionDir, variableAmount,
+        nodeMapping, Objects.requireNonNull(manifest), snapshotDir,
+        ExternalClauseBuffer.createPersistent(sessionDir));
+    coordinator.takeSnapshot();
+    return coordinator;
+  }
+
+  /**
+   * Open a session that has been recorded by a coordinator created via {@link #createSession}.
+   * The processors are registered in the given order, which must be the order in which the
+   * processors of the recording coordinator have been registered. The state of the first snapshot
+   * is loaded into the graph and the processors. Further clause updates may be added, and are
+   * saved to the session when the coordinator is closed.
+   *
+   * @param graph The underlying graph, with as many nodes as the recorded one.
+   * @param sessionDir The session directory.
+   * @param manifest The manifest read from the session directory.
+   * @param nodeMapping A mapping from variables to nodes, e.g. from the contraction mapping of the
+   *                    manifest.
+   * @param processors The processors, corresponding to the ones of the recording coordinator.
+   * @return The coordinator, whose cursor is at the first clause update.
+   * @throws IOException If an I/O error occurs or the session directory is invalid.
+   * @throws SerializationException If the first snapshot can't be deserialised.
+   */
+  public static ClauseCoordinator openSession(
+      Graph graph, Path sessionDir, SessionManifest manifest, IntUnaryOperator nodeMapping,
+      List<? extends ClauseUpdateProcessor> processors
+  ) throws IOException, SerializationException {
+    ExternalClauseBuffer buffer = ExternalClauseBuffer.open(sessionDir);
+    ClauseCoordinator coordinator = new ClauseCoordinator(graph, sessionDir,
+        manifest.getVariableCount(), nodeMapping, manifest,
+        sessionDir.resolve(SessionManifest.SNAPSHOT_DIR), buffer);
+    try {
+      for (ClauseUpdateProcessor processor : processors) {
+        coordinator.addProcessor(processor);
+      }
+      for (SessionManifest.SnapshotEntry entry : manifest.getSnapshots()) {
+        int[] positions = entry.getProcessors();
+        ClauseUpdateProcessor[] snapshotProcessors = new ClauseUpdateProcessor[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+          if (positions[i] < 0 || positions[i] >= processors.size()) {
+            throw new IOException("Snapshot refers to unknown processor " + positions[i]);
+          }
+          snapshotProcessors[i] = processors.get(positions[i]);
+        }
+        if (entry.getUpdate() < 0 || entry.getUpdate() > buffer.size()) {
+          throw new IOException("Snapshot at invalid clause update " + entry.getUpdate());
+        }
+        coordinator.snapshots.put(entry.getUpdate(), new Snapshot(
+            coordinator.snapshotDir.resolve(entry.getFile()), snapshotProcessors));
+      }
+      Snapshot initial = coordinator.snapshots.get(0L);
+      if (initial.file() == null) {
+        throw new IOException("Session has no initial snapshot");
+      }
+      coordinator.loadSnapshot(initial);
+    } catch (IOException | SerializationException | RuntimeException e) {
+      buffer.close();
+      throw e;
+    }
+    return coordinator;
   }
 
   /**
    * Add a {@link ClauseUpdateProcessor} to the list of processors that will work on clause updates.
+   * Adding a processor that is already registered has no effect.
    *
    * @param processor The processor to add.
    */
   public void addProcessor(ClauseUpdateProcessor processor) {
     processorLock.lock();
     try {
-      processors.add(processor);
+      if (!registered.contains(processor)) {
+        processors.add(processor);
+        registered.add(processor);
+      }
     } finally {
       processorLock.unlock();
     }
@@ -208,15 +329,15 @@ public class ClauseCoordinator implements AutoCloseable {
     stateLock.lock();
     int actual;
     try {
-      ClauseUpdate[] updates = buffer.getClauseUpdates(currentUpdate, numUpdates);
-      actual = updates.length;
+      ClauseBatch updates = buffer.getClauseUpdates(currentUpdate, numUpdates);
+      actual = updates.size();
       for (ClauseUpdateProcessor processor : processors) {
         graph.submitUpdate(processor.process(updates, graph, nodeMapping));
       }
       // this operation is not atomic although currentUpdate is volatile.
       // However, this is no problem because write access to currentUpdate is always coordinated
       // using stateLock.
-      currentUpdate += updates.length;
+      currentUpdate += actual;
     } finally {
       stateLock.unlock();
       snapshotLock.unlock();
@@ -243,8 +364,13 @@ public class ClauseCoordinator implements AutoCloseable {
     processorLock.lock();
     try {
       long current = currentUpdate();
-      Path snapshotFile = Files.createTempFile(snapshotDir, "snapshot", null);
-      snapshotFile.toFile().deleteOnExit();
+      Path snapshotFile;
+      if (session == null) {
+        snapshotFile = Files.createTempFile(snapshotDir, "snapshot", null);
+        snapshotFile.toFile().deleteOnExit();
+      } else {
+        snapshotFile = snapshotDir.resolve("snapshot-" + current);
+      }
       try (var stream = new BufferedOutputStream(Files.newOutputStream(snapshotFile))) {
         for (ClauseUpdateProcessor processor : processors) {
           processor.serialize(stream);
@@ -269,6 +395,26 @@ public class ClauseCoordinator implements AutoCloseable {
 
   }
 
+  /**
+   * Makes this coordinator drop the deletions of clauses that are neither part of the instance nor
+   * have been added before, e.g. because the producer started a proof after its beginning.
+   * The literals of a deletion may be given in any order.
+   *
+   * <p>The received clauses are kept in an off-heap index of at most
+   * {@link ClauseIndex#MAX_CAPACITY} entries. If it fills up, all deletions are kept again.
+   *
+   * @param instance the clauses of the SAT instance
+   */
+  public void ignoreUnknownDeletions(ClauseBatch instance) {
+    receivedLock.lock();
+    try {
+      received = new ClauseIndex();
+      track(instance);
+    } finally {
+      receivedLock.unlock();
+    }
+  }
+
   /**
    * Append a clause update to this coordinator.
    *
@@ -279,12 +425,109 @@ public class ClauseCoordinator implements AutoCloseable {
    */
   public void addClauseUpdate(ClauseUpdate clauseUpdate) throws IOException {
     if (isValidClauseUpdate(clauseUpdate)) {
-      buffer.addClauseUpdate(clauseUpdate);
+      int[] literals = clauseUpdate.clause().literals();
+      if (track(clauseUpdate.type(), literals, 0, literals.length)) {
+        buffer.addClauseUpdate(clauseUpdate);
+      }
     } else {
       throw new IllegalArgumentException(clauseUpdate + " is invalid.");
     }
   }
 
+  /**
+   * Append a clause update, whose literals are given as the beginning of an array,
+   * without creating a {@link ClauseUpdate} object.
+   * The array is not stored, so it may be reused by the caller afterwards.
+   *
+   * @param type the type of the clause update
+   * @param literals the array containing the literals
+   * @param length the amount of literals
+   * @throws IOException if an I/O error occurs
+   * @throws IllegalArgumentException if the given clause update is
+   *                                  not valid for the underlying SAT instance
+   */
+  public void addClauseUpdate(ClauseUpdate.Type type, int[] literals, int length)
+      throws IOException {
+    if (isValidClause(literals, 0, length)) {
+      if (track(type, literals, 0, length)) {
+        buffer.addClauseUpdate(type, literals, length);
+      }
+    } else {
+      throw new IllegalArgumentException(new ClauseUpdate(
+          new Clause(Arrays.copyOf(literals, length)), type) + " is invalid.");
+    }
+  }
+
+  /**
+   * Append multiple clause updates to this coordinator.
+   * If one of the updates is invalid, none of them are added.
+   *
+   * @param batch the updates to add
+   * @throws IOException if an I/O error occurs
+   * @throws IllegalArgumentException if one of the given clause updates is
+   *                                  not valid for the underlying SAT instance
+   */
+  public void addClauseUpdates(ClauseBatch batch) throws IOException {
+    int[] literals = batch.literals();
+    for (int i = 0; i < batch.size(); i++) {
+      if (!isValidClause(literals, batch.clauseStart(i), batch.clauseEnd(i))) {
+        throw new IllegalArgumentException(batch.get(i) + " is invalid.");
+      }
+    }
+    ClauseBatch kept = track(batch);
+    if (!kept.isEmpty()) {
+      buffer.addClauseUpdates(kept);
+    }
+  }
+
+  // tracks the updates of the batch, returning those that should be stored
+  private ClauseBatch track(ClauseBatch batch) {
+    receivedLock.lock();
+    try {
+      if (received == null) {
+        return batch;
+      }
+      int[] literals = batch.literals();
+      ClauseBatch.Builder kept = null;
+      for (int i = 0; i < batch.size(); i++) {
+        boolean keep = track(batch.type(i), literals, batch.clauseStart(i), batch.clauseEnd(i));
+        if (!keep && kept == null) {
+          // copy the updates before the first dropped one
+          kept = new ClauseBatch.Builder(batch.size(), batch.literalCount());
+          for (int j = 0; j < i; j++) {
+            kept.add(batch.type(j), literals, batch.clauseStart(j), batch.clauseEnd(j));
+          }
+        } else if (keep && kept != null) {
+          kept.add(batch.type(i), literals, batch.clauseStart(i), batch.clauseEnd(i));
+        }
+      }
+      return kept == null ? batch : kept.build();
+    } finally {
+      receivedLock.unlock();
+    }
+  }
+
+  // tracks a single update, returning whether it should be stored
+  private boolean track(ClauseUpdate.Type type, int[] literals, int from, int to) {
+    receivedLock.lock();
+    try {
+      if (received == null) {
+        return true;
+      }
+      long fingerprint = ClauseIndex.unorderedFingerprint(literals, from, to);
+      if (type == ClauseUpdate.Type.REMOVE) {
+        return received.remove(fingerprint) != -1;
+      }
+      if (!received.add(fingerprint, 0)) {
+        // the index is full, so unknown deletions can't be told apart anymore
+        received = null;
+      }
+      return true;
+    } finally {
+      receivedLock.unlock();
+    }
+  }
+
   private long loadClosestSnapshot(long index) throws IOException, SerializationException {
     // snapshots need to be locked - we don't want to create a snapshot while in the middle of
     // restoring some previous state.
@@ -295,56 +538,65 @@ public class ClauseCoordinator implements AutoCloseable {
       if (index >= currentUpdate && entry.getKey() <= currentUpdate) {
         return currentUpdate;
       }
-      try {
-        Snapshot snapshot = entry.getValue();
-        List<ClauseUpdateProcessor> snapshotProcessors = Arrays.asList(snapshot.processors());
-
-        try (var stream = new BufferedInputStream(Files.newInputStream(snapshot.file()))) {
-          // lock state to ensure consistent graph and processor views for advance()
-          stateLock.lock();
-          // restore processor and graph state
-          for (ClauseUpdateProcessor processor : snapshotProcessors) {
-            processor.deserialize(stream);
-          }
-          graph.deserialize(stream);
-        }
+      loadSnapshot(entry.getValue());
+      return entry.getKey();
+    } finally {
+      snapshotLock.unlock();
+    }
+  }
 
-        // lock processors so processor updates don't interleave
-        processorLock.lock();
-        List<ClauseUpdateProcessor> nonSnapshotProcessors = new ArrayList<>(this.processors);
-        nonSnapshotProcessors.removeAll(snapshotProcessors);
+  private void loadSnapshot(Snapshot snapshot) throws IOException, SerializationException {
+    snapshotLock.lock();
+    // lock state to ensure consistent graph and processor views for advance()
+    stateLock.lock();
+    try {
+      List<ClauseUpdateProcessor> snapshotProcessors = Arrays.asList(snapshot.processors());
 
-        // reset processors that were added later
-        for (ClauseUpdateProcessor processor : nonSnapshotProcessors) {
-          processor.reset();
+      try (var stream = new BufferedInputStream(Files.newInputStream(snapshot.file()))) {
+        // restore processor and graph state
+        for (ClauseUpdateProcessor processor : snapshotProcessors) {
+          processor.deserialize(stream);
         }
+        graph.deserialize(stream);
+      }
 
-        List<ClauseUpdateProcessor> newProcessors = new ArrayList<>();
-        newProcessors.addAll(snapshotProcessors); // first the processors that exist in the snapshot
-        newProcessors.addAll(nonSnapshotProcessors); // then the ones that were added afterwards
-
-        // set new processor list
-        this.processors.clear();
-        this.processors.addAll(newProcessors);
-        return entry.getKey();
-      } finally {
-        stateLock.unlock();
-        if (processorLock.isHeldByCurrentThread()) {
-          processorLock.unlock();
-        }
+      // lock processors so processor updates don't interleave
+      processorLock.lock();
+      List<ClauseUpdateProcessor> nonSnapshotProcessors = new ArrayList<>(this.processors);
+      nonSnapshotProcessors.removeAll(snapshotProcessors);
+
+      // reset processors that were added later
+      for (ClauseUpdateProcessor processor : nonSnapshotProcessors) {
+        processor.reset();
       }
+
+      List<ClauseUpdateProcessor> newProcessors = new ArrayList<>();
+      newProcessors.addAll(snapshotProcessors); // first the processors that exist in the snapshot
+      newProcessors.addAll(nonSnapshotProcessors); // then the ones that were added afterwards
+
+      // set new processor list
+      this.processors.clear();
+      this.processors.addAll(newProcessors);
     } finally {
+      stateLock.unlock();
+      if (processorLock.isHeldByCurrentThread()) {
+        processorLock.unlock();
+      }
       snapshotLock.unlock();
     }
   }
 
   private boolean isValidClauseUpdate(ClauseUpdate update) {
     int[] literals = update.clause().literals();
-    for (int i = 0; i < literals.length; i++) {
+    return isValidClause(literals, 0, literals.length);
+  }
+
+  private boolean isValidClause(int[] literals, int from, int to) {
+    for (int i = from; i < to; i++) {
       if (Math.abs(literals[i]) > variableAmount || literals[i] == 0) {
         return false;
       }
-      for (int j = i + 1; j < literals.length; j++) {
+      for (int j = i + 1; j < to; j++) {
         if (Math.abs(literals[i]) == Math.abs(literals[j])) {
           return false;
         }
@@ -353,9 +605,19 @@ public class ClauseCoordinator implements AutoCloseable {
     return true;
   }
 
+  /**
+   * Closes this coordinator. The temporary files are deleted, unless a session is recorded, in
+   * which case the manifest is completed and written to the session directory.
+   *
+   * @throws IOException If an I/O error occurs.
+   */
   @Override
   public void close() throws IOException {
     buffer.close();
+    if (session != null) {
+      writeManifest();
+      return;
+    }
     // delete tempDir
     Files.walkFileTree(tempDir, new SimpleFileVisitor<>() {
       @Override
@@ -375,6 +637,29 @@ public class ClauseCoordinator implements AutoCloseable {
     });
   }
 
+  private void writeManifest() throws IOException {
+    snapshotLock.lock();
+    try {
+      List<SessionManifest.SnapshotEntry> entries = new ArrayList<>();
+      for (Map.Entry<Long, Snapshot> entry : snapshots.entrySet()) {
+        Snapshot snapshot = entry.getValue();
+        if (snapshot.file() == null) {
+          continue;
+        }
+        int[] positions = Arrays.stream(snapshot.processors())
+            .mapToInt(registered::indexOf)
+            .toArray();
+        entries.add(new SessionManifest.SnapshotEntry(entry.getKey(),
+            snapshotDir.relativize(snapshot.file()).toString(), positions));
+      }
+      session.setUpdateCount(buffer.size());
+      session.setSnapshots(entries);
+      session.write(tempDir);
+    } finally {
+      snapshotLock.unlock();
+    }
+  }
+
   private record Snapshot(Path file, ClauseUpdateProcessor[] processors) {
 
   }
@@ -0,0 +1,208 @@
+package edu.kit.satviz.consumer.processing;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * An index of the clauses that have been added to an {@link ExternalClauseBuffer} and haven't
+ * been deleted yet, mapping a clause to the index of the clause update that added it.
+ * A clause is identified by a 64-bit fingerprint of its literals (in order) and its length.
+ * Two different live clauses of an index with a million entries share a fingerprint with a
+ * probability of less than 10<sup>-7</sup>.
+ *
+ * <p>The index is an open-addressing hash table with linear probing. It is stored off-heap, each
+ * slot consisting of the fingerprint (0 for an empty slot) and the update index. A clause that is
+ * added multiple times has an entry per addition. Once the table has reached its maximum capacity,
+ * further clauses are not indexed anymore.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class ClauseIndex {
+
+  /** The initial amount of slots. */
+  static final int MIN_CAPACITY = 1 << 10;
+  /** The maximum amount of slots, i.e. 64 MiB of memory. */
+  static final int MAX_CAPACITY = 1 << 22;
+
+  private LongBuffer table;
+  private int mask;
+  private int size = 0;
+
+  /**
+   * Creates a new, empty index.
+   */
+  ClauseIndex() {
+    allocate(MIN_CAPACITY);
+  }
+
+  /**
+   * Computes the fingerprint of a clause.
+   *
+   * @param literals The array containing the literals.
+   * @param from The index of the first literal (inclusive).
+   * @param to The index after the last literal (exclusive).
+   * @return A non-zero fingerprint.
+   */
+  static long fingerprint(int[] literals, int from, int to) {
+    long hash = 0x9e3779b97f4a7c15L * (to - from + 1);
+    for (int i = from; i < to; i++) {
+      hash = Long.rotateLeft(hash ^ (literals[i] * 0xc2b2ae3d27d4eb4fL), 31) * 0x9e3779b97f4a7c15L;
+    }
+    // the finaliser of MurmurHash3
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash == 0 ? 1 : hash;
+  }
+
+  /**
+   * Computes a fingerprint of a clause that doesn't depend on the order of its literals,
+   * e.g. for the deletions of a DRAT proof, which may list the literals in any order.
+   *
+   * @param literals The array containing the literals.
+   * @param from The index of the first literal (inclusive).
+   * @param to The index after the last literal (exclusive).
+   * @return A non-zero fingerprint.
+   */
+  static long unorderedFingerprint(int[] literals, int from, int to) {
+    long hash = 0x9e3779b97f4a7c15L * (to - from + 1);
+    for (int i = from; i < to; i++) {
+      // the sum of the mixed literals is commutative
+      long literal = literals[i] * 0xc2b2ae3d27d4eb4fL;
+      hash += (literal ^ (literal >>> 29)) * 0x9e3779b97f4a7c15L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash == 0 ? 1 : hash;
+  }
+
+  /**
+   * Adds a clause.
+   *
+   * @param fingerprint The fingerprint of the clause.
+   * @param update The index of the clause update adding the clause.
+   * @return {@code true} if the clause has been indexed, {@code false} if the index is full.
+   */
+  boolean add(long fingerprint, long update) {
+    if (4 * (size + 1) > 3 * capacity()) {
+      if (capacity() == MAX_CAPACITY) {
+        return false;
+      }
+      grow();
+    }
+    int slot = home(fingerprint);
+    while (table.get(2 * slot) != 0) {
+      slot = (slot + 1) & mask;
+    }
+    table.put(2 * slot, fingerprint);
+    table.put(2 * slot + 1, update);
+    size++;
+    return true;
+  }
+
+  /**
+   * Looks up a clause without removing it. If the clause is indexed multiple times, this returns
+   * the same entry as {@link #remove(long)}.
+   *
+   * @param fingerprint The fingerprint of the clause.
+   * @return The index of the clause update that added the clause, or -1 if it is not indexed.
+   */
+  long find(long fingerprint) {
+    int slot = home(fingerprint);
+    long current;
+    while ((current = table.get(2 * slot)) != fingerprint) {
+      if (current == 0) {
+        return -1;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return table.get(2 * slot + 1);
+  }
+
+  /**
+   * Removes a clause, if it is indexed.
+   *
+   * @param fingerprint The fingerprint of the clause.
+   * @return The index of the clause update that added the clause, or -1 if it is not indexed.
+   */
+  long remove(long fingerprint) {
+    int hole = home(fingerprint);
+    long current;
+    while ((current = table.get(2 * hole)) != fingerprint) {
+      if (current == 0) {
+        return -1;
+      }
+      hole = (hole + 1) & mask;
+    }
+    long update = table.get(2 * hole + 1);
+    // move the following entries of the cluster back, unless that would put them before their home
+    int slot = (hole + 1) & mask;
+    while ((current = table.get(2 * slot)) != 0) {
+      int home = home(current);
+      boolean between = slot > hole
+          ? home > hole && home <= slot
+          : home > hole || home <= slot;
+      if (!between) {
+        table.put(2 * hole, current);
+        table.put(2 * hole + 1, table.get(2 * slot + 1));
+        hole = slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    table.put(2 * hole, 0);
+    size--;
+    return update;
+  }
+
+  /**
+   * Returns the amount of indexed clauses.
+   *
+   * @return The amount of entries.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the amount of slots of the table.
+   *
+   * @return The current capacity.
+   */
+  int capacity() {
+    return mask + 1;
+  }
+
+  private int home(long fingerprint) {
+    return (int) fingerprint & mask;
+  }
+
+  private void allocate(int capacity) {
+    table = ByteBuffer.allocateDirect(2 * capacity * Long.BYTES)
+        .order(ByteOrder.nativeOrder())
+        .asLongBuffer();
+    mask = capacity - 1;
+  }
+
+  private void grow() {
+    LongBuffer old = table;
+    allocate(2 * capacity());
+    for (int i = 0; i < old.capacity(); i += 2) {
+      long fingerprint = old.get(i);
+      if (fingerprint != 0) {
+        int slot = home(fingerprint);
+        while (table.get(2 * slot) != 0) {
+          slot = (slot + 1) & mask;
+        }
+        table.put(2 * slot, fingerprint);
+        table.put(2 * slot + 1, old.get(i + 1));
+      }
+    }
+  }
+
+}
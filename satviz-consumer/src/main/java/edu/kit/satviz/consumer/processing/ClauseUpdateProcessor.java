@@ -2,7 +2,7 @@ package edu.kit.satviz.consumer.processing;
 
 import edu.kit.satviz.consumer.graph.Graph;
 import edu.kit.satviz.consumer.graph.GraphUpdate;
-import edu.kit.satviz.sat.ClauseUpdate;
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.serial.SerializationException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -16,14 +16,15 @@ import java.util.function.IntUnaryOperator;
 public interface ClauseUpdateProcessor {
 
   /**
-   * This method processes an array of the {@code ClauseUpdate}s into {@code GraphUpdate}s.
+   * This method processes a batch of {@code ClauseUpdate}s into {@code GraphUpdate}s.<br>
+   * <i>The batch must not be modified.</i>
    *
-   * @param clauseUpdates An array of {@code ClauseUpdate}s.
+   * @param clauseUpdates A {@code ClauseBatch} of clause updates.
    * @param graph An instance of the {@code Graph} class.
    * @param nodeMapping A mapping from literals to nodes in the {@code graph}.
    * @return An instance of the {@code GraphUpdate} class.
    */
-  GraphUpdate process(ClauseUpdate[] clauseUpdates, Graph graph, IntUnaryOperator nodeMapping);
+  GraphUpdate process(ClauseBatch clauseUpdates, Graph graph, IntUnaryOperator nodeMapping);
 
   /**
    * This method serializes the internal state of the processor.<br>
@@ -17,10 +17,11 @@ public class CliqueInteractionGraph extends VariableInteractionGraph {
 
   @Override
   protected void process(
-      WeightUpdate weightUpdate, int[] variables, float weight, IntUnaryOperator nodeMapping
+      WeightUpdate weightUpdate, int[] variables, int length, float weight,
+      IntUnaryOperator nodeMapping
   ) {
-    for (int i = 0; i < variables.length; i++) {
-      for (int j = i + 1; j < variables.length; j++) {
+    for (int i = 0; i < length; i++) {
+      for (int j = i + 1; j < length; j++) {
         weightUpdate.add(
             nodeMapping.applyAsInt(variables[i]), nodeMapping.applyAsInt(variables[j]), weight
         );
@@ -1,46 +1,153 @@
 package edu.kit.satviz.consumer.processing;
 
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.ClauseUpdate;
+import edu.kit.satviz.serial.ClauseBatchSerializer;
 import edu.kit.satviz.serial.ClauseUpdateSerializer;
-import edu.kit.satviz.serial.SerialBuilder;
 import edu.kit.satviz.serial.SerializationException;
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Objects;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntUnaryOperator;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
 
 /**
  * A memory-external, append-only, ranged random access storage for {@link ClauseUpdate}s.
  *
- * <p>This class uses temporary files to store its data.
+ * <p>This class uses temporary files to store its data, unless it is created as
+ * {@linkplain #createPersistent(Path) persistent}. The data of a persistent buffer is kept in its
+ * directory after closing, from where it can be {@linkplain #open(Path) opened} again.
  *
- * @implNote Currently, the implementation uses two temporary files: One that contains all the
- *           added clause updates, serialised in order, and one that acts as a lookup table.
- *           The lookup table file contains the byte at which each clause begins in the clause file.
- *           Hence, whenever a clause is added, it is first serialised to the clause file, then
- *           its beginning byte number is written to the lookup file.
+ * @implNote The clause updates are serialised in order into blocks of about
+ *           {@value #DEFAULT_BLOCK_SIZE} bytes, each followed by the offsets at which its clause
+ *           updates begin. Complete blocks are compressed with LZ4 and appended to a segmented
+ *           log: fixed-size segment files, which are memory-mapped, and a block never spans two
+ *           segments. An in-memory index (a few bytes per block) contains the position of each
+ *           block in the log and its first clause update. Hence, reading a range of clause updates
+ *           decompresses the blocks containing it, and finds the updates in them by their offsets.
+ *           The updates of the block that is still being filled are read from memory.<br>
+ *           The deletion of a clause that has been added in the same or the previous block is
+ *           stored as a reference to the addition: its distance in clause updates, as a
+ *           variable-length integer. Its offset in the block is stored as the complement (i.e.,
+ *           negative), so references can be told apart without decoding. The additions are found
+ *           via a {@link ClauseIndex} of the live clauses, and their literals are compared before a
+ *           reference is stored, so a collision of fingerprints only costs the reference. Deletions
+ *           of older clauses are stored in full, so that reading a deletion never decompresses
+ *           more than the previous block, which is usually cached already. Otherwise, it is kept
+ *           in a cache of its own, which doesn't evict the blocks of the playback window.<br>
+ *           Recently decompressed blocks are cached. The cache holds the blocks of the last read
+ *           (plus one), so it follows the window of the playback.<br>
+ *           Appends are published by a release-store of the size, which readers load with acquire
+ *           semantics. The block index and the segments are published by a volatile write of the
+ *           block count, so complete blocks can be read without a lock.<br>
+ *           The most recently appended clause updates are also kept decoded in a {@link TailCache},
+ *           from which reads right behind the write head (as in live mode) are served. For
+ *           sequential reads (as during a replay), a background thread decompresses the next block
+ *           and loads the pages of the log ahead of the read position into memory, so that reading
+ *           doesn't wait for the disk. Reads only hold the output lock while they check or copy
+ *           from the tail cache, or read from the block that is being filled.<br>
+ *           A persistent buffer names its segment files {@code clauses-<n>.log} and writes the
+ *           block index to {@value #INDEX_FILE} when it is closed. The clause index is not stored,
+ *           so deletions of clauses that have been added before reopening are stored in full.
  */
 public class ExternalClauseBuffer implements AutoCloseable {
 
+  /** The default size of a clause segment file in bytes. */
+  static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+  /** The default size of an uncompressed block in bytes. */
+  static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+  /** The default amount of memory used for the literals of the tail cache in bytes. */
+  static final int DEFAULT_TAIL_CACHE_SIZE = 1024 * 1024;
+  /** The amount of bytes of the log that are loaded ahead of sequential reads. */
+  static final int READ_AHEAD = 4 * 1024 * 1024;
+  /** The minimum amount of decompressed blocks that are cached. */
+  static final int MIN_CACHED_BLOCKS = 2;
+  /** The maximum size of a reference from a deletion to an addition in bytes. */
+  static final int MAX_REFERENCE_SIZE = 10;
+  /** The name of the file containing the block index of a persistent buffer. */
+  static final String INDEX_FILE = "clauses.idx";
+  /** The version of the format of the index file. */
+  static final int INDEX_VERSION = 1;
+
   private static final ClauseUpdateSerializer updateSerializer = new ClauseUpdateSerializer();
+  private static final ClauseBatchSerializer batchSerializer = new ClauseBatchSerializer();
+  private static final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+  private static final LZ4SafeDecompressor decompressor =
+      LZ4Factory.fastestInstance().safeDecompressor();
+
+  private static final VarHandle SIZE;
 
+  static {
+    try {
+      SIZE = MethodHandles.lookup().findVarHandle(ExternalClauseBuffer.class, "size", long.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private final Path dir;
+  private final int segmentSize;
+  private final int blockSize;
+  private final int maxBlockSize;
+  private final boolean persistent;
   private final Lock outputLock;
-  private final Lock readLock;
-  private final RandomAccessFile clauseLookupReadFile;
-  private final OutputStream clauseLookupOutStream;
-  private final RandomAccessFile clauseReadFile;
-  private final OutputStream clauseOutStream;
 
-  private volatile long size;
-  private long nextClauseBegin;
+  // replaced (never modified) when a segment is added, before the block count is increased
+  private volatile MappedByteBuffer[] segments;
+  // replaced when it is full, but the entries below the block count are never modified
+  private volatile BlockInfo[] blocks;
+  private volatile int blockCount;
+
+  private long size; // only accessed via SIZE
+  private volatile boolean closed = false;
+  // only used while holding the output lock
+  private long written;
+  private long nextBlockBegin;
+  private ByteBuffer block; // the encoded updates of the block that is being filled
+  private int[] blockOffsets;
+  private int blockUpdates;
+  private Block previousBlock; // the uncompressed last complete block, null if there is none
+  private long previousBlockFirst; // the index of the first clause update of the previous block
+  private final ClauseIndex clauseIndex;
+  private final TailCache tailCache;
+  private long lastReadEnd = -1;
+  private long cacheHits = 0;
+  private long cacheMisses = 0;
+
+  // decompressed blocks by their number, guarded by itself
+  private final LinkedHashMap<Integer, Block> blockCache = new LinkedHashMap<>(16, 0.75f, true);
+  private int cachedBlocks = MIN_CACHED_BLOCKS; // guarded by the block cache
+  // the last block that has been decompressed to resolve a reference, guarded by the block cache
+  private int referencedNumber = -1;
+  private Block referenced = null;
+
+  // read-ahead for sequential reads, the thread is started with the first sequential read
+  private final Object prefetchLock = new Object();
+  private Thread prefetcher = null;
+  private long prefetchCursor = -1; // the update index to read ahead from, -1 if there is none
+  // only used by the prefetcher: the range of the log that has been loaded last
+  private long prefetchedFrom = 0;
+  private long prefetchedUntil = 0;
 
   /**
    * Create and initialise a new {@code ExternalClauseBuffer} with no initial clauses.
@@ -49,23 +156,138 @@ public class ExternalClauseBuffer implements AutoCloseable {
    * @throws IOException if an I/O error occurs.
    */
   public ExternalClauseBuffer(Path dir) throws IOException {
+    this(dir, DEFAULT_SEGMENT_SIZE, DEFAULT_BLOCK_SIZE, DEFAULT_TAIL_CACHE_SIZE);
+  }
+
+  /**
+   * Create and initialise a new {@code ExternalClauseBuffer} with no initial clauses and the given
+   * sizes.
+   *
+   * @param dir The directory where the data will be stored.
+   * @param segmentSize The size of a clause segment file in bytes.
+   * @param blockSize The size of an uncompressed block in bytes. Blocks of single clause updates
+   *                  that are larger than this are possible, as long as they fit into a segment.
+   * @param tailCacheSize The amount of memory used for the literals of the tail cache in bytes.
+   * @throws IOException if an I/O error occurs.
+   */
+  ExternalClauseBuffer(Path dir, int segmentSize, int blockSize, int tailCacheSize)
+      throws IOException {
+    this(dir, segmentSize, blockSize, tailCacheSize, false);
+  }
+
+  private ExternalClauseBuffer(Path dir, int segmentSize, int blockSize, int tailCacheSize,
+                               boolean persistent) {
+    int maxBlockSize = maxBlockSize(segmentSize);
+    // a block must be able to hold any reference
+    if (blockSize <= 0 || maxBlockSize < trailerSize(1) + MAX_REFERENCE_SIZE) {
+      throw new IllegalArgumentException("Invalid segment or block size");
+    }
+    this.dir = Objects.requireNonNull(dir);
+    this.segmentSize = segmentSize;
+    this.maxBlockSize = maxBlockSize;
+    this.blockSize = Math.min(blockSize, maxBlockSize);
+    this.persistent = persistent;
     this.outputLock = new ReentrantLock();
-    this.readLock = new ReentrantLock();
-    Path lookupFile = Files.createTempFile(dir, "satviz-clause-lookup", null);
-    Path clauseFile = Files.createTempFile(dir, "satviz-clauses", null);
-    lookupFile.toFile().deleteOnExit();
-    clauseFile.toFile().deleteOnExit();
-    this.clauseLookupReadFile = new RandomAccessFile(lookupFile.toFile(), "r");
-    this.clauseLookupOutStream = new BufferedOutputStream(Files.newOutputStream(lookupFile));
-    this.clauseReadFile = new RandomAccessFile(clauseFile.toFile(), "r");
-    this.clauseOutStream = new BufferedOutputStream(Files.newOutputStream(clauseFile));
-    this.size = 0;
-    this.nextClauseBegin = 0;
-    writeInitialClauseBegin();
+    this.segments = new MappedByteBuffer[0];
+    this.blocks = new BlockInfo[16];
+    this.blockCount = 0;
+    this.written = 0;
+    this.nextBlockBegin = 0;
+    this.block = ByteBuffer.allocate(this.blockSize);
+    this.blockOffsets = new int[16];
+    this.blockUpdates = 0;
+    this.clauseIndex = new ClauseIndex();
+    this.tailCache = new TailCache(tailCacheSize);
+  }
+
+  /**
+   * Create a new, empty {@code ExternalClauseBuffer} whose data is kept in the given directory
+   * after it has been closed.
+   *
+   * @param dir The directory where the data will be stored. It must not contain a buffer yet.
+   * @return The new buffer.
+   * @throws IOException if an I/O error occurs or the directory already contains a buffer.
+   */
+  public static ExternalClauseBuffer createPersistent(Path dir) throws IOException {
+    return createPersistent(dir, DEFAULT_SEGMENT_SIZE, DEFAULT_BLOCK_SIZE);
+  }
+
+  static ExternalClauseBuffer createPersistent(Path dir, int segmentSize, int blockSize)
+      throws IOException {
+    if (Files.exists(dir.resolve(INDEX_FILE))) {
+      throw new IOException("Directory already contains a clause buffer: " + dir);
+    }
+    return new ExternalClauseBuffer(dir, segmentSize, blockSize, DEFAULT_TAIL_CACHE_SIZE, true);
+  }
+
+  /**
+   * Open a persistent {@code ExternalClauseBuffer} that has been closed before.
+   * The clause updates it contains can be read immediately, and new ones can be appended.
+   *
+   * @param dir The directory of the buffer.
+   * @return The opened buffer.
+   * @throws IOException if an I/O error occurs or the directory doesn't contain a valid buffer.
+   */
+  public static ExternalClauseBuffer open(Path dir) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+        Files.newInputStream(dir.resolve(INDEX_FILE))))) {
+      if (in.readInt() != INDEX_VERSION) {
+        throw new IOException("Unsupported clause buffer version");
+      }
+      int segmentSize = in.readInt();
+      int blockSize = in.readInt();
+      ExternalClauseBuffer buffer;
+      try {
+        buffer = new ExternalClauseBuffer(dir, segmentSize, blockSize, DEFAULT_TAIL_CACHE_SIZE,
+            true);
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Invalid clause buffer index", e);
+      }
+      long size = in.readLong();
+      long nextBlockBegin = in.readLong();
+      MappedByteBuffer[] segments = new MappedByteBuffer[in.readInt()];
+      int count = in.readInt();
+      BlockInfo[] blocks = new BlockInfo[Math.max(count, 16)];
+      long firstUpdate = 0;
+      for (int i = 0; i < count; i++) {
+        BlockInfo info = new BlockInfo(firstUpdate, in.readInt(), in.readLong(), in.readInt(),
+            in.readInt());
+        if (info.updates() <= 0 || info.position() + info.length()
+            > (long) segments.length * segmentSize) {
+          throw new IOException("Invalid clause buffer index");
+        }
+        blocks[i] = info;
+        firstUpdate += info.updates();
+      }
+      if (firstUpdate != size) {
+        throw new IOException("Invalid clause buffer index");
+      }
+      for (int i = 0; i < segments.length; i++) {
+        segments[i] = buffer.mapSegment(i, false);
+      }
+      buffer.segments = segments;
+      buffer.blocks = blocks;
+      buffer.blockCount = count;
+      buffer.written = size;
+      buffer.nextBlockBegin = nextBlockBegin;
+      buffer.tailCache.reset(size);
+      SIZE.setRelease(buffer, size);
+      return buffer;
+    }
+  }
+
+  // the largest uncompressed block whose compressed form is guaranteed to fit into a segment
+  private static int maxBlockSize(int segmentSize) {
+    int size = (int) ((segmentSize - 16L) * 255 / 256);
+    while (size > 0 && compressor.maxCompressedLength(size) > segmentSize) {
+      size--;
+    }
+    return size;
   }
 
-  private void writeInitialClauseBegin() throws IOException {
-    clauseLookupOutStream.write(new byte[Long.BYTES]);
+  // the amount of bytes following the encoded updates of a block with the given amount of updates
+  private static int trailerSize(int updates) {
+    return (updates + 1) * Integer.BYTES;
   }
 
   /**
@@ -76,27 +298,255 @@ public class ExternalClauseBuffer implements AutoCloseable {
    */
   public void addClauseUpdate(ClauseUpdate update) throws IOException {
     Objects.requireNonNull(update);
-    ByteArrayOutputStream byteArrayStream = new ByteArrayOutputStream();
+    int[] literals = update.clause().literals();
+    addClauseUpdate(update.type(), literals, literals.length);
+  }
+
+  /**
+   * Add a clause update, whose literals are given as the beginning of an array.
+   * The array is not stored, so it may be reused by the caller afterwards
+   * (see {@link edu.kit.satviz.serial.ClauseVisitor}).
+   *
+   * @param type the type of the clause update.
+   * @param literals the array containing the literals.
+   * @param length the amount of literals.
+   * @throws IOException if the update can't be stored due to an I/O error.
+   */
+  public void addClauseUpdate(ClauseUpdate.Type type, int[] literals, int length)
+      throws IOException {
+    Objects.requireNonNull(type);
+    outputLock.lock();
     try {
-      updateSerializer.serialize(update, byteArrayStream);
-    } catch (SerializationException e) {
-      throw new RuntimeException("Unexpected exception while serializing " + update, e);
+      writeClauseUpdate(type, literals, 0, length);
+      SIZE.setRelease(this, written);
+    } finally {
+      outputLock.unlock();
     }
+  }
 
-    byte[] bytes = byteArrayStream.toByteArray();
-    ByteBuffer buf = ByteBuffer.allocate(Long.BYTES);
+  /**
+   * Add multiple clause updates to this buffer at once.
+   *
+   * @param batch the {@link ClauseBatch} of clause updates.
+   * @throws IOException if the updates can't be stored due to an I/O error.
+   */
+  public void addClauseUpdates(ClauseBatch batch) throws IOException {
+    Objects.requireNonNull(batch);
+    int[] literals = batch.literals();
     outputLock.lock();
     try {
-      clauseOutStream.write(bytes);
-      nextClauseBegin += bytes.length;
-      buf.putLong(nextClauseBegin);
-      clauseLookupOutStream.write(buf.array());
-      size++;
+      for (int i = 0; i < batch.size(); i++) {
+        writeClauseUpdate(batch.type(i), literals, batch.clauseStart(i), batch.clauseEnd(i));
+      }
+      SIZE.setRelease(this, written);
     } finally {
       outputLock.unlock();
     }
   }
 
+  // must be called while holding the output lock
+  private void writeClauseUpdate(ClauseUpdate.Type type, int[] literals, int from, int to)
+      throws IOException {
+    if (closed) {
+      throw new IOException("Buffer is closed");
+    }
+    long fingerprint = ClauseIndex.fingerprint(literals, from, to);
+    long distance = 0;
+    if (type == ClauseUpdate.Type.REMOVE) {
+      long addition = clauseIndex.find(fingerprint);
+      if (addition >= 0) {
+        if (addition < (previousBlock != null ? previousBlockFirst : written - blockUpdates)) {
+          clauseIndex.remove(fingerprint); // too old to be referenced
+        } else if (isAddition(addition, literals, from, to)) {
+          clauseIndex.remove(fingerprint);
+          distance = written - addition;
+        }
+        // otherwise, a different clause with the same fingerprint is indexed
+      }
+    }
+    while (!encode(type, literals, from, to, distance)) {
+      if (blockUpdates > 0) {
+        flushBlock();
+        if (distance > 0 && written - distance < previousBlockFirst) {
+          distance = 0; // the addition is no longer in the previous block
+        }
+      } else if (block.capacity() < maxBlockSize) {
+        // a single update that is larger than a block gets a larger block of its own
+        block = ByteBuffer.allocate((int) Math.min(2L * block.capacity(), maxBlockSize));
+      } else {
+        throw new IOException("Clause update is larger than a segment");
+      }
+    }
+    if (type == ClauseUpdate.Type.ADD) {
+      clauseIndex.add(fingerprint, written);
+    }
+    written++;
+    tailCache.append(type, literals, from, to);
+  }
+
+  // returns whether the clause update at the given index, which is in the block that is being
+  // filled or the previous one, adds the given clause. Must be called while holding the output lock
+  private boolean isAddition(long index, int[] literals, int from, int to) {
+    long unflushed = written - blockUpdates;
+    ByteBuffer data;
+    int begin;
+    int end;
+    if (index >= unflushed) {
+      data = block;
+      begin = blockOffsets[(int) (index - unflushed)];
+      end = block.position();
+    } else {
+      data = previousBlock.data();
+      begin = previousBlock.offset((int) (index - previousBlockFirst));
+      end = previousBlock.offsets();
+    }
+    try {
+      ClauseBatch added = decodeUpdates(data.slice(begin, end - begin), 1);
+      return added.type(0) == ClauseUpdate.Type.ADD && Arrays.equals(added.literals(),
+          added.clauseStart(0), added.clauseEnd(0), literals, from, to);
+    } catch (SerializationException e) {
+      return false; // the deletion is stored in full
+    }
+  }
+
+  // encodes a clause update into the block that is being filled, or, for a positive distance,
+  // a reference to the addition that far back, which the update deletes. Returns whether it fits
+  private boolean encode(ClauseUpdate.Type type, int[] literals, int from, int to,
+                         long distance) {
+    int position = block.position();
+    int available = block.capacity() - trailerSize(blockUpdates + 1) - position;
+    if (available <= 0) {
+      return false;
+    }
+    ByteBuffer out = block.slice(position, available);
+    if (distance > 0
+        ? !putVarLong(distance, out)
+        : !updateSerializer.encode(type, literals, from, to, out)) {
+      return false;
+    }
+    if (blockUpdates == blockOffsets.length) {
+      blockOffsets = Arrays.copyOf(blockOffsets, 2 * blockOffsets.length);
+    }
+    // references are marked by the complement of their offset
+    blockOffsets[blockUpdates++] = distance > 0 ? ~position : position;
+    block.position(position + out.position());
+    return true;
+  }
+
+  private static boolean putVarLong(long value, ByteBuffer out) {
+    while ((value & ~0x7fL) != 0) {
+      if (!out.hasRemaining()) {
+        return false;
+      }
+      out.put((byte) (value & 0x7f | 0x80));
+      value >>>= 7;
+    }
+    if (!out.hasRemaining()) {
+      return false;
+    }
+    out.put((byte) value);
+    return true;
+  }
+
+  private static long getVarLong(ByteBuffer in, int position) throws SerializationException {
+    long value = 0;
+    for (int shift = 0; shift < Long.SIZE; shift += 7) {
+      byte b = in.get(position++);
+      value |= (b & 0x7fL) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new SerializationException("invalid clause reference");
+  }
+
+  // compresses the block that is being filled and appends it to the log,
+  // must be called while holding the output lock
+  private void flushBlock() throws IOException {
+    for (int i = 0; i < blockUpdates; i++) {
+      block.putInt(blockOffsets[i]);
+    }
+    block.putInt(blockUpdates);
+    int rawLength = block.position();
+    int maxLength = compressor.maxCompressedLength(rawLength);
+    int segment = (int) (nextBlockBegin / segmentSize);
+    int position = (int) (nextBlockBegin % segmentSize);
+    if (segmentSize - position < maxLength) {
+      // continue with the next segment, the rest of this one stays unused
+      segment++;
+      position = 0;
+      nextBlockBegin = (long) segment * segmentSize;
+    }
+    if (segment == segments.length) {
+      addSegment();
+    }
+    int length = compressor.compress(block, 0, rawLength, segments[segment], position, maxLength);
+    int count = blockCount;
+    if (count == blocks.length) {
+      blocks = Arrays.copyOf(blocks, 2 * count);
+    }
+    blocks[count] = new BlockInfo(written - blockUpdates, blockUpdates, nextBlockBegin, length,
+        rawLength);
+    blockCount = count + 1;
+    nextBlockBegin += length;
+    // keep the block for comparing deletions with it, and reuse the buffer of the one before
+    ByteBuffer spare = previousBlock != null && previousBlock.data().capacity() == blockSize
+        ? previousBlock.data()
+        : ByteBuffer.allocate(blockSize);
+    previousBlock = new Block(block, rawLength - trailerSize(blockUpdates));
+    previousBlockFirst = written - blockUpdates;
+    blockUpdates = 0;
+    block = spare.clear();
+  }
+
+  private void addSegment() throws IOException {
+    MappedByteBuffer[] extended = Arrays.copyOf(segments, segments.length + 1);
+    extended[segments.length] = mapSegment(segments.length, true);
+    segments = extended;
+  }
+
+  private MappedByteBuffer mapSegment(int number, boolean create) throws IOException {
+    Path file;
+    if (!persistent) {
+      file = Files.createTempFile(dir, "satviz-clauses", null);
+      file.toFile().deleteOnExit();
+    } else {
+      file = dir.resolve("clauses-" + number + ".log");
+      if (create) {
+        Files.createFile(file);
+      }
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      // the mapping stays valid after the channel is closed
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+  }
+
+  // writes the block index of a persistent buffer, must be called while holding the output lock
+  private void writeIndex() throws IOException {
+    Path temp = dir.resolve(INDEX_FILE + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        Files.newOutputStream(temp)))) {
+      out.writeInt(INDEX_VERSION);
+      out.writeInt(segmentSize);
+      out.writeInt(blockSize);
+      out.writeLong(written);
+      out.writeLong(nextBlockBegin);
+      out.writeInt(segments.length);
+      out.writeInt(blockCount);
+      for (int i = 0; i < blockCount; i++) {
+        BlockInfo info = blocks[i];
+        out.writeInt(info.updates());
+        out.writeLong(info.position());
+        out.writeInt(info.length());
+        out.writeInt(info.rawLength());
+      }
+    }
+    Files.move(temp, dir.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
   /**
    * Get a number of clause updates starting from a specific index.
    *
@@ -108,8 +558,8 @@ public class ExternalClauseBuffer implements AutoCloseable {
    *
    * @param index The index of the first clause
    * @param numUpdates The number of clause updates to read, starting from {@code index}
-   * @return An array of {@link ClauseUpdate}s. As explained in the summary, it is not guaranteed to
-   *         be of length {@code numUpdates}.
+   * @return A {@link ClauseBatch} of the clause updates. As explained in the summary, it is not
+   *         guaranteed to be of size {@code numUpdates}.
    * @throws IOException if an I/O error occurs.
    * @throws SerializationException If a clause update cannot be deserialised.
    *                                This can only happen if the files used in this implementation
@@ -117,92 +567,387 @@ public class ExternalClauseBuffer implements AutoCloseable {
    * @throws IndexOutOfBoundsException if {@code index >=} {@link #size()} or {@code index < 0}
    * @throws IllegalArgumentException if {@code numUpdates < 0}
    */
-  public ClauseUpdate[] getClauseUpdates(long index, int numUpdates)
+  public ClauseBatch getClauseUpdates(long index, int numUpdates)
       throws IOException, SerializationException {
-    if (index < 0 || index >= size) {
+    long currentSize = (long) SIZE.getAcquire(this);
+    if (index < 0 || index >= currentSize) {
       throw new IndexOutOfBoundsException("For clause update index " + index);
     }
     if (numUpdates < 0) {
       throw new IllegalArgumentException("Number of updates must be non-negative");
     }
+    if (closed) {
+      throw new IOException("Buffer is closed");
+    }
+    int actualNumUpdates = (int) Math.min(numUpdates, currentSize - index);
+    if (actualNumUpdates == 0) {
+      return ClauseBatch.empty();
+    }
+    long end = index + actualNumUpdates;
+    long flushed;
+    ClauseBatch unflushed = null;
     outputLock.lock();
     try {
-      flush();
+      if (tailCache.contains(index, end)) {
+        cacheHits++;
+        ClauseBatch.Builder builder = new ClauseBatch.Builder(actualNumUpdates,
+            actualNumUpdates * 4);
+        tailCache.copy(index, end, builder);
+        lastReadEnd = end;
+        return builder.build();
+      }
+      cacheMisses++;
+      if (index == lastReadEnd) {
+        requestPrefetch(end);
+      }
+      lastReadEnd = end;
+      flushed = written - blockUpdates;
+      if (end > flushed) {
+        unflushed = readUnflushed(Math.max(index, flushed) - flushed, end - flushed);
+      }
     } finally {
       outputLock.unlock();
     }
+    if (index >= flushed) {
+      return unflushed;
+    }
+    ClauseBatch stored = readBlocks(index, Math.min(end, flushed));
+    if (unflushed == null) {
+      return stored;
+    }
+    ClauseBatch.Builder builder = new ClauseBatch.Builder(actualNumUpdates,
+        stored.literalCount() + unflushed.literalCount());
+    builder.addAll(stored);
+    builder.addAll(unflushed);
+    return builder.build();
+  }
 
-    readLock.lock();
+  // reads a range of the updates of the block that is being filled,
+  // must be called while holding the output lock
+  private ClauseBatch readUnflushed(long from, long to) throws SerializationException {
+    int[] offsets = blockOffsets;
+    long first = written - blockUpdates;
+    return decodeBlock(block, i -> offsets[i], block.position(), first, (int) from, (int) to,
+        blockCount);
+  }
+
+  // reads the clause updates in the given index range from complete blocks
+  private ClauseBatch readBlocks(long from, long to) throws SerializationException {
+    // read the count first, so that the blocks and segments contain everything up to it
+    int count = blockCount;
+    BlockInfo[] blocks = this.blocks;
+    MappedByteBuffer[] segments = this.segments;
+    int number = blockOf(blocks, count, from);
+    int first = number;
+    ClauseBatch.Builder builder = null;
+    long index = from;
+    while (index < to) {
+      BlockInfo info = blocks[number];
+      long next = Math.min(to, info.firstUpdate() + info.updates());
+      Block block = block(segments, number, info);
+      ClauseBatch batch = decodeBlock(block.data(), block::offset, block.offsets(),
+          info.firstUpdate(), (int) (index - info.firstUpdate()),
+          (int) (next - info.firstUpdate()), number);
+      number++;
+      if (index == from && next == to) {
+        resizeBlockCache(1);
+        return batch; // the common case: all updates are in the same block
+      }
+      if (builder == null) {
+        builder = new ClauseBatch.Builder((int) (to - from), batch.literalCount());
+      }
+      builder.addAll(batch);
+      index = next;
+    }
+    resizeBlockCache(number - first);
+    return builder.build();
+  }
+
+  // decodes a range of the updates of the block with the given number (the block count for the
+  // block that is being filled). Runs of fully stored updates are decoded in bulk, references are
+  // resolved by reading the referenced additions from this block or the previous one
+  private ClauseBatch decodeBlock(ByteBuffer data, IntUnaryOperator offsets, int dataEnd,
+                                  long firstUpdate, int from, int to, int number)
+      throws SerializationException {
+    ClauseBatch.Builder builder = null;
+    int runStart = from;
+    for (int i = from; i <= to; i++) {
+      if (i < to && offsets.applyAsInt(i) >= 0) {
+        continue;
+      }
+      if (runStart < i) {
+        int begin = offsets.applyAsInt(runStart);
+        ClauseBatch run = decodeUpdates(data.slice(begin, dataEnd - begin), i - runStart);
+        if (runStart == from && i == to) {
+          return run; // the common case: there are no references
+        }
+        if (builder == null) {
+          builder = new ClauseBatch.Builder(to - from, run.literalCount());
+        }
+        builder.addAll(run);
+      }
+      if (i < to) {
+        if (builder == null) {
+          builder = new ClauseBatch.Builder(to - from, 16);
+        }
+        long addition = firstUpdate + i - getVarLong(data, ~offsets.applyAsInt(i));
+        ClauseBatch added;
+        if (addition >= firstUpdate) {
+          int begin = offsets.applyAsInt((int) (addition - firstUpdate));
+          added = decodeUpdates(data.slice(begin, dataEnd - begin), 1);
+        } else {
+          added = readAddition(number - 1, addition);
+        }
+        builder.add(ClauseUpdate.Type.REMOVE, added.literals(), added.clauseStart(0),
+            added.clauseEnd(0));
+      }
+      runStart = i + 1;
+    }
+    return builder.build();
+  }
+
+  // reads a referenced addition from the complete block with the given number
+  private ClauseBatch readAddition(int number, long index) throws SerializationException {
+    if (number < 0) {
+      throw new SerializationException("invalid clause reference");
+    }
+    BlockInfo info = blocks[number];
+    if (index < info.firstUpdate()) {
+      throw new SerializationException("invalid clause reference");
+    }
+    Block block = referencedBlock(number, info);
+    int begin = block.offset((int) (index - info.firstUpdate()));
+    return decodeUpdates(block.data().slice(begin, block.offsets() - begin), 1);
+  }
+
+  // returns a decompressed block for resolving references, without changing the block cache
+  private Block referencedBlock(int number, BlockInfo info) throws SerializationException {
+    synchronized (blockCache) {
+      Block cached = blockCache.get(number);
+      if (cached != null) {
+        return cached;
+      }
+      if (referencedNumber == number) {
+        return referenced;
+      }
+    }
+    Block block = decompress(segments, info);
+    synchronized (blockCache) {
+      referencedNumber = number;
+      referenced = block;
+    }
+    return block;
+  }
+
+  // binary search for the block containing the given update index
+  private static int blockOf(BlockInfo[] blocks, int count, long index) {
+    int low = 0;
+    int high = count - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (blocks[mid].firstUpdate() <= index) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  private static ClauseBatch decodeUpdates(ByteBuffer in, int amount)
+      throws SerializationException {
+    ClauseBatch batch = batchSerializer.decodeUpdates(in, amount);
+    if (batch == null) {
+      throw new SerializationException("incomplete clause updates");
+    }
+    return batch;
+  }
+
+  // returns a decompressed block, from the cache if possible
+  private Block block(MappedByteBuffer[] segments, int number, BlockInfo info)
+      throws SerializationException {
+    synchronized (blockCache) {
+      Block cached = blockCache.get(number);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    Block block = decompress(segments, info);
+    synchronized (blockCache) {
+      blockCache.put(number, block);
+      trimBlockCache();
+    }
+    return block;
+  }
+
+  private Block decompress(MappedByteBuffer[] segments, BlockInfo info)
+      throws SerializationException {
+    ByteBuffer raw = ByteBuffer.allocate(info.rawLength());
+    int length;
+    try {
+      length = decompressor.decompress(segments[(int) (info.position() / segmentSize)],
+          (int) (info.position() % segmentSize), info.length(), raw, 0, info.rawLength());
+    } catch (LZ4Exception e) {
+      throw new SerializationException("corrupt clause block: " + e.getMessage());
+    }
+    int offsets = length - trailerSize(info.updates());
+    if (length != info.rawLength() || raw.getInt(length - Integer.BYTES) != info.updates()) {
+      throw new SerializationException("corrupt clause block");
+    }
+    return new Block(raw, offsets);
+  }
+
+  // sizes the block cache for reads spanning the given amount of blocks
+  private void resizeBlockCache(int blocksRead) {
+    synchronized (blockCache) {
+      // one more for the block the next read continues with
+      cachedBlocks = Math.max(MIN_CACHED_BLOCKS, blocksRead + 1);
+      trimBlockCache();
+    }
+  }
+
+  // must be called while holding the lock of the block cache
+  private void trimBlockCache() {
+    Iterator<Integer> eldest = blockCache.keySet().iterator();
+    while (blockCache.size() > cachedBlocks) {
+      eldest.next();
+      eldest.remove();
+    }
+  }
+
+  // lets the prefetcher load the log ahead of the given update index
+  private void requestPrefetch(long cursor) {
+    synchronized (prefetchLock) {
+      prefetchCursor = cursor;
+      if (prefetcher == null) {
+        prefetcher = new Thread(this::prefetchMain, "ClauseBuffer-Prefetch");
+        prefetcher.setDaemon(true);
+        prefetcher.start();
+      }
+      prefetchLock.notifyAll();
+    }
+  }
+
+  private void prefetchMain() {
+    while (true) {
+      long cursor;
+      synchronized (prefetchLock) {
+        while (prefetchCursor < 0 && !closed) {
+          try {
+            prefetchLock.wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+        if (closed) {
+          return;
+        }
+        cursor = prefetchCursor;
+        prefetchCursor = -1;
+      }
+      try {
+        prefetch(cursor);
+      } catch (SerializationException e) {
+        // the read itself reports this
+      }
+    }
+  }
+
+  // decompresses the block containing the given update index and loads the pages of the log
+  // from there up to the read-ahead distance
+  private void prefetch(long cursor) throws SerializationException {
+    int count = blockCount;
+    BlockInfo[] blocks = this.blocks;
+    MappedByteBuffer[] segments = this.segments;
+    if (count == 0 || closed || cursor >= blocks[count - 1].firstUpdate()
+        + blocks[count - 1].updates()) {
+      return; // not in a complete block
+    }
+    int number = blockOf(blocks, count, cursor);
+    long begin = blocks[number].position();
+    if (begin < prefetchedFrom || begin > prefetchedUntil) {
+      // not sequential to the last read-ahead, e.g. after seeking
+      prefetchedFrom = begin;
+      prefetchedUntil = begin;
+    }
+    if (prefetchedUntil - begin < READ_AHEAD / 2) {
+      long until = Math.min(begin + READ_AHEAD, (long) segments.length * segmentSize);
+      long position = prefetchedUntil;
+      while (position < until) {
+        int segment = (int) (position / segmentSize);
+        int offset = (int) (position % segmentSize);
+        int length = (int) Math.min(segmentSize - offset, until - position);
+        segments[segment].slice(offset, length).load();
+        position += length;
+      }
+      prefetchedUntil = until;
+    }
+    block(segments, number, blocks[number]);
+  }
+
+  /**
+   * Finds the clause update that added the clause which the clause update at the given index
+   * deletes. This takes constant time, but only works for deletions of clauses that have been
+   * added (with the same order of literals) and indexed before.
+   *
+   * @param index The index of the clause update.
+   * @return The index of the matching addition, or -1 if the update is not a deletion or the
+   *         addition is unknown.
+   * @throws IOException if an I/O error occurs.
+   * @throws SerializationException If the clause update cannot be deserialised.
+   * @throws IndexOutOfBoundsException if {@code index >=} {@link #size()} or {@code index < 0}
+   */
+  public long getMatchingAddition(long index) throws IOException, SerializationException {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("For clause update index " + index);
+    }
+    if (closed) {
+      throw new IOException("Buffer is closed");
+    }
+    outputLock.lock();
     try {
-      int actualNumUpdates = (int) Math.min(numUpdates, size - index);
-      ClauseUpdate[] updates = new ClauseUpdate[actualNumUpdates];
-      // TODO: 08/02/2022 pick strategy
-      readUpdatesWithEphemeralBuffers(index, updates);
-      return updates;
+      long unflushed = written - blockUpdates;
+      if (index >= unflushed) {
+        int offset = blockOffsets[(int) (index - unflushed)];
+        return offset < 0 ? index - getVarLong(block, ~offset) : -1;
+      }
     } finally {
-      readLock.unlock();
+      outputLock.unlock();
     }
+    int count = blockCount;
+    BlockInfo[] blocks = this.blocks;
+    int number = blockOf(blocks, count, index);
+    Block block = block(segments, number, blocks[number]);
+    int offset = block.offset((int) (index - blocks[number].firstUpdate()));
+    return offset < 0 ? index - getVarLong(block.data(), ~offset) : -1;
   }
 
-  // read clause updates from the given index byte by byte, without any buffering.
-  /*private void readUpdatesBufferless(long index, ClauseUpdate[] updates)
-      throws IOException, SerializationException {
-    clauseLookupReadFile.seek(index * Long.BYTES);
-    byte[] array = new byte[Long.BYTES];
-    clauseLookupReadFile.read(array);
-    long beginningByte = ByteBuffer.wrap(array).getLong();
-    clauseReadFile.seek(beginningByte);
-    SerialBuilder<ClauseUpdate> builder = updateSerializer.getBuilder();
-    for (int i = 0; i < updates.length; i++) {
-      while (!builder.finished()) {
-        builder.addByte(clauseReadFile.readByte());
-      }
-      updates[i] = builder.getObject();
-      builder.reset();
-    }
-  }*/
-
-  // read clause updates from given index, reading each entire clause at once
-  private void readUpdatesWithEphemeralBuffers(long index, ClauseUpdate[] updates)
-      throws IOException, SerializationException {
-    byte[] bytePositions = new byte[(updates.length + 1) * Long.BYTES];
-    clauseLookupReadFile.seek(index * Long.BYTES);
-    clauseLookupReadFile.read(bytePositions);
-    ByteBuffer buffer = ByteBuffer.wrap(bytePositions);
-    for (int i = 1; i <= updates.length; i++) {
-      long beginningByte = buffer.getLong((i - 1) * Long.BYTES);
-      long endingByte = buffer.getLong(i * Long.BYTES);
-      int clauseSize = (int) (endingByte - beginningByte);
-      byte[] clauseBuf = new byte[clauseSize];
-      clauseReadFile.seek(beginningByte);
-      clauseReadFile.read(clauseBuf);
-      updates[i - 1] = updateSerializer.deserialize(new ByteArrayInputStream(clauseBuf));
-    }
-  }
-
-  // read clause updates from given index, reading the entire data all at once
-  /*private void readUpdatesWithBigBuffer(long index, ClauseUpdate[] updates)
-      throws IOException, SerializationException {
-    byte[] byteRange = new byte[2 * Long.BYTES];
-    clauseLookupReadFile.seek(index * Long.BYTES);
-    clauseLookupReadFile.read(byteRange, 0, Long.BYTES);
-    clauseLookupReadFile.seek((index + updates.length) * Long.BYTES);
-    clauseLookupReadFile.read(byteRange, Long.BYTES, Long.BYTES);
-    ByteBuffer buffer = ByteBuffer.wrap(byteRange);
-    long beginningByte = buffer.getLong();
-    long endingByte = buffer.getLong();
-    byte[] clauseUpdateBytes = new byte[(int) (endingByte - beginningByte)];
-    clauseReadFile.seek(beginningByte);
-    clauseReadFile.read(clauseUpdateBytes);
-    ByteArrayInputStream stream = new ByteArrayInputStream(clauseUpdateBytes);
-    for (int i = 0; i < updates.length; i++) {
-      updates[i] = updateSerializer.deserialize(stream);
-    }
-  }*/
-
-  private void flush() throws IOException {
-    clauseLookupOutStream.flush();
-    clauseOutStream.flush();
+  /**
+   * Returns how many reads have been served from the cache of recently appended clause updates.
+   *
+   * @return the amount of cache hits.
+   */
+  public long getCacheHits() {
+    outputLock.lock();
+    try {
+      return cacheHits;
+    } finally {
+      outputLock.unlock();
+    }
+  }
+
+  /**
+   * Returns how many reads had to decode the clause updates from the log.
+   *
+   * @return the amount of cache misses.
+   */
+  public long getCacheMisses() {
+    outputLock.lock();
+    try {
+      return cacheMisses;
+    } finally {
+      outputLock.unlock();
+    }
   }
 
   /**
@@ -211,30 +956,76 @@ public class ExternalClauseBuffer implements AutoCloseable {
    * @return the size of this buffer.
    */
   public long size() {
-    return size;
+    return (long) SIZE.getAcquire(this);
   }
 
   /**
    * Closes this buffer.<br>
    * After performing this operation, this buffer must not be used anymore.
+   * A persistent buffer writes all of its clause updates to its directory first.
    *
    * <p>Note: this <strong>does not</strong> delete the temporary files created by this buffer.
+   * The files stay mapped until the mappings are garbage collected.
    *
    * @throws IOException if an I/O error occurs.
    */
   @Override
   public void close() throws IOException {
     outputLock.lock();
-    readLock.lock();
     try {
-      clauseLookupOutStream.close();
-      clauseOutStream.close();
-      clauseLookupReadFile.close();
-      clauseReadFile.close();
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (persistent) {
+        if (blockUpdates > 0) {
+          flushBlock();
+        }
+        for (MappedByteBuffer segment : segments) {
+          segment.force();
+        }
+        writeIndex();
+      }
+      segments = new MappedByteBuffer[0];
     } finally {
-      readLock.unlock();
       outputLock.unlock();
     }
+    synchronized (blockCache) {
+      blockCache.clear();
+      referenced = null;
+      referencedNumber = -1;
+    }
+    synchronized (prefetchLock) {
+      prefetchLock.notifyAll(); // lets the prefetcher terminate
+    }
+  }
+
+  /**
+   * The location of a compressed block in the log.
+   *
+   * @param firstUpdate The index of the first clause update in the block.
+   * @param updates The amount of clause updates in the block.
+   * @param position The position of the block in the log.
+   * @param length The compressed size of the block in bytes.
+   * @param rawLength The uncompressed size of the block in bytes.
+   */
+  private record BlockInfo(long firstUpdate, int updates, long position, int length,
+                           int rawLength) {
+  }
+
+  /**
+   * A decompressed block: the encoded clause updates, followed by the offsets at which they begin
+   * and their amount.
+   *
+   * @param data The uncompressed block.
+   * @param offsets The position of the offsets in the block, i.e. the end of the clause updates.
+   */
+  private record Block(ByteBuffer data, int offsets) {
+
+    int offset(int update) {
+      return data.getInt(offsets + update * Integer.BYTES);
+    }
+
   }
 
 }
@@ -2,8 +2,7 @@ package edu.kit.satviz.consumer.processing;
 
 import edu.kit.satviz.consumer.graph.Graph;
 import edu.kit.satviz.consumer.graph.HeatUpdate;
-import edu.kit.satviz.sat.Clause;
-import edu.kit.satviz.sat.ClauseUpdate;
+import edu.kit.satviz.sat.ClauseBatch;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.IntUnaryOperator;
@@ -47,20 +46,19 @@ public class FrequencyHeatmap extends Heatmap {
   }
 
   @Override
-  public HeatUpdate process(ClauseUpdate[] updates, Graph graph, IntUnaryOperator nodeMapping) {
+  public HeatUpdate process(ClauseBatch updates, Graph graph, IntUnaryOperator nodeMapping) {
     int totalAmount = cursor;
     boolean full = false;
-    for (ClauseUpdate update : updates) {
-      Clause clause = update.clause();
-      Clause previous = recentClauses[cursor];
+    for (int c = 0; c < updates.size(); c++) {
+      int[] previous = recentClauses[cursor];
       if (previous != null) {
         // if we encounter an existing element, the ring buffer is full and
         // the variables' frequencies need to be decremented
         full = true;
-        decreaseFrequencies(previous);
+        decreaseFrequencies(previous, recentLengths[cursor]);
       }
-      recentClauses[cursor] = clause;
-      increaseFrequencies(clause);
+      storeClause(updates, c);
+      increaseFrequencies(recentClauses[cursor], recentLengths[cursor]);
       totalAmount++;
       increaseCursor();
     }
@@ -81,8 +79,8 @@ public class FrequencyHeatmap extends Heatmap {
   }
 
   @Override
-  protected void removeClause(Clause clause) {
-    decreaseFrequencies(clause);
+  protected void removeClause(int[] literals, int length) {
+    decreaseFrequencies(literals, length);
   }
 
   /* Calculate the updated heat values for each node based on its frequency and the total amount
@@ -101,16 +99,16 @@ public class FrequencyHeatmap extends Heatmap {
   }
 
   /* Increment the frequencies of the variables in a clause */
-  private void increaseFrequencies(Clause clause) {
-    for (int literal : clause.literals()) {
-      frequencies.compute(Math.abs(literal), (k, v) -> v == null ? 1 : v + 1);
+  private void increaseFrequencies(int[] literals, int length) {
+    for (int i = 0; i < length; i++) {
+      frequencies.compute(Math.abs(literals[i]), (k, v) -> v == null ? 1 : v + 1);
     }
   }
 
   /* Decrement the frequencies of the variables in a clause - not going lower than 0 */
-  private void decreaseFrequencies(Clause clause) {
-    for (int literal : clause.literals()) {
-      int variable = Math.abs(literal);
+  private void decreaseFrequencies(int[] literals, int length) {
+    for (int i = 0; i < length; i++) {
+      int variable = Math.abs(literals[i]);
       Integer val = frequencies.get(variable);
       if (val == null) {
         frequencies.put(variable, 0);
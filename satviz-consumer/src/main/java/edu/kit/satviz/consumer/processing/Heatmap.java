@@ -2,6 +2,7 @@ package edu.kit.satviz.consumer.processing;
 
 import edu.kit.satviz.consumer.graph.HeatUpdate;
 import edu.kit.satviz.sat.Clause;
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.serial.ClauseSerializer;
 import edu.kit.satviz.serial.IntSerializer;
 import edu.kit.satviz.serial.SerializationException;
@@ -9,7 +10,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * A kind of {@code ClauseUpdateProcessor} that realises a heatmap of variables (nodes).
@@ -23,7 +23,12 @@ public abstract class Heatmap implements ClauseUpdateProcessor {
   private static final IntSerializer intSerializer = new IntSerializer();
   private static final ClauseSerializer clauseSerializer = new ClauseSerializer();
 
-  protected Clause[] recentClauses;
+  /* The ring buffer of recent clauses. The literals of a slot are stored in the first
+     recentLengths[i] elements of recentClauses[i], which is null if the slot is empty.
+     The arrays are reused when a slot is overwritten, so that processing a batch doesn't
+     allocate objects per clause. */
+  protected int[][] recentClauses;
+  protected int[] recentLengths;
   protected int cursor;
 
   /**
@@ -32,7 +37,8 @@ public abstract class Heatmap implements ClauseUpdateProcessor {
    * @param initialSize The amount of clauses to consider at a time.
    */
   protected Heatmap(int initialSize) {
-    this.recentClauses = new Clause[initialSize];
+    this.recentClauses = new int[initialSize][];
+    this.recentLengths = new int[initialSize];
     this.cursor = 0;
   }
 
@@ -52,21 +58,22 @@ public abstract class Heatmap implements ClauseUpdateProcessor {
   }
 
   private void shrink(int prevSize, int newSize) {
-    Clause[] temp = new Clause[newSize];
+    int[][] temp = new int[newSize][];
+    int[] tempLengths = new int[newSize];
     if (cursor >= newSize) {
       /* shrinking, case "all remaining elements are between 0 and cursor":
          [1, 2, ..., s, ..., >c, c+1, ..., n] => [>s, ..., c-1] */
       int srcPos = cursor - newSize;
       System.arraycopy(recentClauses, srcPos, temp, 0, newSize);
+      System.arraycopy(recentLengths, srcPos, tempLengths, 0, newSize);
       /* Decrement [1, 2, ..., s-1] */
       for (int i = 0; i < srcPos; i++) {
-        removeClause(recentClauses[i]);
+        removeClause(recentClauses[i], recentLengths[i]);
       }
       /* Decrement [c, ..., n] */
       for (int i = cursor; i < prevSize; i++) {
-        Clause clause = recentClauses[i];
-        if (clause != null) {
-          removeClause(clause);
+        if (recentClauses[i] != null) {
+          removeClause(recentClauses[i], recentLengths[i]);
         }
       }
       cursor = 0;
@@ -74,27 +81,33 @@ public abstract class Heatmap implements ClauseUpdateProcessor {
       /* shrinking, case "0 to cursor + elements from the end are included":
          [1, 2, ..., >c, c+1, ..., s, s+1, ..., n] => [1, 2, ..., >s, s+1, ..., n] */
       System.arraycopy(recentClauses, 0, temp, 0, cursor);
+      System.arraycopy(recentLengths, 0, tempLengths, 0, cursor);
       int remaining = newSize - cursor;
       System.arraycopy(recentClauses, prevSize - remaining, temp, cursor, remaining);
+      System.arraycopy(recentLengths, prevSize - remaining, tempLengths, cursor, remaining);
       /* Decrement [c, ..., s-1] */
       for (int i = cursor; i < prevSize - remaining; i++) {
-        Clause clause = recentClauses[i];
-        if (clause != null) {
-          removeClause(recentClauses[i]);
+        if (recentClauses[i] != null) {
+          removeClause(recentClauses[i], recentLengths[i]);
         }
       }
     }
     recentClauses = temp;
+    recentLengths = tempLengths;
   }
 
   /* Growing the ring buffer:
      [1, 2, ..., >c, c+1, ..., n] => [1, 2, ..., c-1, >null, null, ..., c, c+1, ..., n] */
   private void grow(int prevSize, int newSize) {
-    Clause[] temp = new Clause[newSize];
+    int[][] temp = new int[newSize][];
+    int[] tempLengths = new int[newSize];
     System.arraycopy(recentClauses, 0, temp, 0, cursor);
+    System.arraycopy(recentLengths, 0, tempLengths, 0, cursor);
     int remaining = prevSize - cursor;
     System.arraycopy(recentClauses, cursor, temp, newSize - remaining, remaining);
+    System.arraycopy(recentLengths, cursor, tempLengths, newSize - remaining, remaining);
     recentClauses = temp;
+    recentLengths = tempLengths;
   }
 
   /**
@@ -106,7 +119,33 @@ public abstract class Heatmap implements ClauseUpdateProcessor {
     return recentClauses.length;
   }
 
-  protected abstract void removeClause(Clause clause);
+  /**
+   * Called whenever a clause leaves the heatmap window.
+   *
+   * @param literals An array, whose first {@code length} elements are the literals of the clause.
+   *                 It must not be modified or stored.
+   * @param length The number of literals in the clause.
+   */
+  protected abstract void removeClause(int[] literals, int length);
+
+  /**
+   * Copies the {@code index}-th clause of a batch into the slot at the cursor.<br>
+   * The previous clause in that slot is overwritten without calling {@code removeClause}.
+   *
+   * @param updates The batch.
+   * @param index The index of the clause in the batch.
+   */
+  protected final void storeClause(ClauseBatch updates, int index) {
+    int start = updates.clauseStart(index);
+    int length = updates.clauseEnd(index) - start;
+    int[] slot = recentClauses[cursor];
+    if (slot == null || slot.length < length) {
+      slot = new int[length];
+      recentClauses[cursor] = slot;
+    }
+    System.arraycopy(updates.literals(), start, slot, 0, length);
+    recentLengths[cursor] = length;
+  }
 
   protected final void increaseCursor() {
     cursor = (cursor + 1) % recentClauses.length;
@@ -118,30 +157,39 @@ public abstract class Heatmap implements ClauseUpdateProcessor {
   public void deserialize(InputStream in) throws IOException, SerializationException {
     int clauses = intSerializer.deserialize(in);
     for (int i = 0; i < clauses; i++) {
-      removeClause(clauseSerializer.deserialize(in));
+      int[] literals = clauseSerializer.deserialize(in).literals();
+      removeClause(literals, literals.length);
     }
     reset();
   }
 
   @Override
   public void serialize(OutputStream out) throws IOException {
-    int savedClauses = (int) Arrays.stream(recentClauses).filter(Objects::nonNull).count();
-    intSerializer.serialize(savedClauses, out);
-    for (Clause clause : recentClauses) {
+    int savedClauses = 0;
+    for (int[] clause : recentClauses) {
       if (clause != null) {
-        clauseSerializer.serialize(clause, out);
+        savedClauses++;
+      }
+    }
+    intSerializer.serialize(savedClauses, out);
+    for (int i = 0; i < recentClauses.length; i++) {
+      if (recentClauses[i] != null) {
+        clauseSerializer.serialize(
+            new Clause(Arrays.copyOf(recentClauses[i], recentLengths[i])), out
+        );
       }
     }
   }
 
   @Override
   public void reset() {
-    for (Clause clause : recentClauses) {
-      if (clause != null) {
-        removeClause(clause);
+    for (int i = 0; i < recentClauses.length; i++) {
+      if (recentClauses[i] != null) {
+        removeClause(recentClauses[i], recentLengths[i]);
       }
     }
-    this.recentClauses = new Clause[recentClauses.length];
+    this.recentClauses = new int[recentClauses.length][];
+    this.recentLengths = new int[recentLengths.length];
     this.cursor = 0;
   }
 }
@@ -7,6 +7,7 @@ import edu.kit.satviz.consumer.display.VideoController;
 import edu.kit.satviz.consumer.graph.Graph;
 import edu.kit.satviz.network.pub.ConsumerConnectionListener;
 import edu.kit.satviz.network.pub.ProducerId;
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.ClauseUpdate;
 import edu.kit.satviz.sat.SatAssignment;
 import java.io.IOException;
@@ -241,6 +242,26 @@ public class Mediator implements ConsumerConnectionListener, AutoCloseable {
     }
   }
 
+  @Override
+  public void onClauseUpdates(ProducerId pid, ClauseBatch batch) {
+    try {
+      coordinator.addClauseUpdates(batch);
+    } catch (IOException e) {
+      e.printStackTrace();
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void onClauseUpdate(ProducerId pid, ClauseUpdate.Type type, int[] literals, int length) {
+    try {
+      coordinator.addClauseUpdate(type, literals, length);
+    } catch (IOException e) {
+      e.printStackTrace();
+      throw new RuntimeException(e);
+    }
+  }
+
   @Override
   public void onTerminateSolved(ProducerId pid, SatAssignment assign) {
     logger.info("Connection terminated - Result: satisfiable");
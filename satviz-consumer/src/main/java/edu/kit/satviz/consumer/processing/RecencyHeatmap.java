@@ -2,8 +2,7 @@ package edu.kit.satviz.consumer.processing;
 
 import edu.kit.satviz.consumer.graph.Graph;
 import edu.kit.satviz.consumer.graph.HeatUpdate;
-import edu.kit.satviz.sat.Clause;
-import edu.kit.satviz.sat.ClauseUpdate;
+import edu.kit.satviz.sat.ClauseBatch;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.function.IntUnaryOperator;
@@ -28,14 +27,14 @@ public class RecencyHeatmap extends Heatmap {
   }
 
   @Override
-  public HeatUpdate process(ClauseUpdate[] updates, Graph graph, IntUnaryOperator nodeMapping) {
+  public HeatUpdate process(ClauseBatch updates, Graph graph, IntUnaryOperator nodeMapping) {
 
-    for (ClauseUpdate update : updates) {
-      Clause previous = recentClauses[cursor];
+    for (int c = 0; c < updates.size(); c++) {
+      int[] previous = recentClauses[cursor];
       if (previous != null) {
-        removeClause(previous);
+        removeClause(previous, recentLengths[cursor]);
       }
-      recentClauses[cursor] = update.clause();
+      storeClause(updates, c);
       increaseCursor();
     }
 
@@ -43,12 +42,13 @@ public class RecencyHeatmap extends Heatmap {
     HeatUpdate update = new HeatUpdate();
     zeroPendingVariables(update, nodeMapping);
     for (int i = 1; i <= size; i++) {
-      Clause subject = recentClauses[(i + cursor - 1) % size];
+      int slot = (i + cursor - 1) % size;
+      int[] subject = recentClauses[slot];
       if (subject == null) {
         continue;
       }
-      for (int literal : subject.literals()) {
-        update.add(nodeMapping.applyAsInt(literal), (float) i / size);
+      for (int j = 0; j < recentLengths[slot]; j++) {
+        update.add(nodeMapping.applyAsInt(subject[j]), (float) i / size);
       }
     }
     return update;
@@ -62,9 +62,9 @@ public class RecencyHeatmap extends Heatmap {
   }
 
   @Override
-  protected void removeClause(Clause clause) {
-    for (int literal : clause.literals()) {
-      setToZero.add(Math.abs(literal));
+  protected void removeClause(int[] literals, int length) {
+    for (int i = 0; i < length; i++) {
+      setToZero.add(Math.abs(literals[i]));
     }
   }
 }
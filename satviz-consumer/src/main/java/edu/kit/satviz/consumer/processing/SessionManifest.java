@@ -0,0 +1,279 @@
+package edu.kit.satviz.consumer.processing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.kit.satviz.consumer.config.WeightFactor;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The description of a visualization session that has been saved to a directory.
+ * A session directory contains this manifest as {@value #FILE_NAME}, the clause updates of a
+ * persistent {@link ExternalClauseBuffer} and the snapshots taken by the {@link ClauseCoordinator}
+ * in a subdirectory {@value #SNAPSHOT_DIR}. This is enough to reopen the visualization without
+ * the SAT instance or a producer.
+ *
+ * <p>The manifest is stored as JSON. It is written when the session is closed, so a directory
+ * without a manifest does not contain a complete session.
+ */
+public class SessionManifest {
+
+  /** The name of the manifest file in a session directory. */
+  public static final String FILE_NAME = "session.json";
+  /** The name of the snapshot directory in a session directory. */
+  public static final String SNAPSHOT_DIR = "snapshots";
+  /** The version of the session format. */
+  public static final int CURRENT_VERSION = 1;
+
+  private int version = CURRENT_VERSION;
+  private long instanceHash;
+  private int variableCount;
+  private int nodeCount;
+  private int[] contractionMapping;
+  private HeatmapImplementation heatmapImplementation;
+  private int windowSize;
+  private VariableInteractionGraphImplementation vigImplementation;
+  private WeightFactor weightFactor;
+  private long updateCount;
+  private List<SnapshotEntry> snapshots = new ArrayList<>();
+
+  /**
+   * Reads the manifest of a session directory.
+   *
+   * @param sessionDir The session directory.
+   * @return The manifest.
+   * @throws IOException if the manifest can't be read or has an unsupported version.
+   */
+  public static SessionManifest read(Path sessionDir) throws IOException {
+    SessionManifest manifest = new ObjectMapper()
+        .readValue(sessionDir.resolve(FILE_NAME).toFile(), SessionManifest.class);
+    if (manifest.getVersion() != CURRENT_VERSION) {
+      throw new IOException("Unsupported session version " + manifest.getVersion());
+    }
+    return manifest;
+  }
+
+  /**
+   * Writes this manifest to a session directory, replacing the previous one.
+   *
+   * @param sessionDir The session directory.
+   * @throws IOException if an I/O error occurs.
+   */
+  public void write(Path sessionDir) throws IOException {
+    Path temp = sessionDir.resolve(FILE_NAME + ".tmp");
+    new ObjectMapper().configure(SerializationFeature.INDENT_OUTPUT, true)
+        .writeValue(temp.toFile(), this);
+    Files.move(temp, sessionDir.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Returns whether a directory contains a session.
+   *
+   * @param dir The directory.
+   * @return {@code true} if the directory contains a manifest.
+   */
+  public static boolean exists(Path dir) {
+    return Files.isRegularFile(dir.resolve(FILE_NAME));
+  }
+
+  public int getVersion() {
+    return version;
+  }
+
+  public void setVersion(int version) {
+    this.version = version;
+  }
+
+  public long getInstanceHash() {
+    return instanceHash;
+  }
+
+  public void setInstanceHash(long instanceHash) {
+    this.instanceHash = instanceHash;
+  }
+
+  public int getVariableCount() {
+    return variableCount;
+  }
+
+  public void setVariableCount(int variableCount) {
+    this.variableCount = variableCount;
+  }
+
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  public void setNodeCount(int nodeCount) {
+    this.nodeCount = nodeCount;
+  }
+
+  public int[] getContractionMapping() {
+    return contractionMapping;
+  }
+
+  public void setContractionMapping(int[] contractionMapping) {
+    this.contractionMapping = contractionMapping;
+  }
+
+  public HeatmapImplementation getHeatmapImplementation() {
+    return heatmapImplementation;
+  }
+
+  public void setHeatmapImplementation(HeatmapImplementation heatmapImplementation) {
+    this.heatmapImplementation = heatmapImplementation;
+  }
+
+  public int getWindowSize() {
+    return windowSize;
+  }
+
+  public void setWindowSize(int windowSize) {
+    this.windowSize = windowSize;
+  }
+
+  public VariableInteractionGraphImplementation getVigImplementation() {
+    return vigImplementation;
+  }
+
+  public void setVigImplementation(VariableInteractionGraphImplementation vigImplementation) {
+    this.vigImplementation = vigImplementation;
+  }
+
+  public WeightFactor getWeightFactor() {
+    return weightFactor;
+  }
+
+  public void setWeightFactor(WeightFactor weightFactor) {
+    this.weightFactor = weightFactor;
+  }
+
+  public long getUpdateCount() {
+    return updateCount;
+  }
+
+  public void setUpdateCount(long updateCount) {
+    this.updateCount = updateCount;
+  }
+
+  public List<SnapshotEntry> getSnapshots() {
+    return snapshots;
+  }
+
+  public void setSnapshots(List<SnapshotEntry> snapshots) {
+    this.snapshots = snapshots;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SessionManifest that = (SessionManifest) o;
+    return version == that.version
+        && instanceHash == that.instanceHash
+        && variableCount == that.variableCount
+        && nodeCount == that.nodeCount
+        && Arrays.equals(contractionMapping, that.contractionMapping)
+        && heatmapImplementation == that.heatmapImplementation
+        && windowSize == that.windowSize
+        && vigImplementation == that.vigImplementation
+        && weightFactor == that.weightFactor
+        && updateCount == that.updateCount
+        && Objects.equals(snapshots, that.snapshots);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = Objects.hash(version, instanceHash, variableCount, nodeCount,
+        heatmapImplementation, windowSize, vigImplementation, weightFactor, updateCount, snapshots);
+    return 31 * result + Arrays.hashCode(contractionMapping);
+  }
+
+  /**
+   * An entry of the snapshot index of a session.
+   * The processors of a snapshot are given by their positions in the list of processors of the
+   * {@link ClauseCoordinator}, in the order in which they have been registered.
+   */
+  public static class SnapshotEntry {
+
+    private long update;
+    private String file;
+    private int[] processors;
+
+    /**
+     * Creates an empty entry, to be filled by the setters.
+     */
+    public SnapshotEntry() {
+
+    }
+
+    /**
+     * Creates a new entry.
+     *
+     * @param update The index of the clause update at which the snapshot has been taken.
+     * @param file The name of the snapshot file in the snapshot directory.
+     * @param processors The positions of the processors contained in the snapshot.
+     */
+    public SnapshotEntry(long update, String file, int[] processors) {
+      this.update = update;
+      this.file = file;
+      this.processors = processors;
+    }
+
+    public long getUpdate() {
+      return update;
+    }
+
+    public void setUpdate(long update) {
+      this.update = update;
+    }
+
+    public String getFile() {
+      return file;
+    }
+
+    public void setFile(String file) {
+      this.file = file;
+    }
+
+    public int[] getProcessors() {
+      return processors;
+    }
+
+    public void setProcessors(int[] processors) {
+      this.processors = processors;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      SnapshotEntry that = (SnapshotEntry) o;
+      return update == that.update
+          && Objects.equals(file, that.file)
+          && Arrays.equals(processors, that.processors);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Objects.hash(update, file) + Arrays.hashCode(processors);
+    }
+
+  }
+
+}
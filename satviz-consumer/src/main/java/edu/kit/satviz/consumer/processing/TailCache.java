@@ -0,0 +1,128 @@
+package edu.kit.satviz.consumer.processing;
+
+import edu.kit.satviz.sat.ClauseBatch;
+import edu.kit.satviz.sat.ClauseUpdate;
+
+/**
+ * An in-memory cache of the most recently appended clause updates of an
+ * {@link ExternalClauseBuffer}, in decoded form.
+ * The literals are kept in a ring of a fixed capacity, so appending an update evicts the oldest
+ * ones once the cache is full. In live mode, the updates right behind the write head can be read
+ * from here without decoding them again.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class TailCache {
+
+  private final int[] literals;
+  private final int literalMask;
+  // the index of the first literal of each cached update, and whether it is a removal
+  private final long[] starts;
+  private final boolean[] removals;
+  private final int updateMask;
+
+  private long first = 0; // the index of the oldest cached update
+  private long end = 0; // the index after the newest cached update
+  private long literalCount = 0; // the total amount of literals appended
+
+  /**
+   * Creates a new, empty cache.
+   *
+   * @param capacityBytes The amount of memory used for literals, rounded down to a power of 2.
+   */
+  TailCache(int capacityBytes) {
+    int literalCapacity = Integer.highestOneBit(Math.max(capacityBytes / Integer.BYTES, 1));
+    // assume 4 literals per update on average
+    int updateCapacity = Math.max(literalCapacity / 4, 1);
+    this.literals = new int[literalCapacity];
+    this.literalMask = literalCapacity - 1;
+    this.starts = new long[updateCapacity];
+    this.removals = new boolean[updateCapacity];
+    this.updateMask = updateCapacity - 1;
+  }
+
+  /**
+   * Appends the next clause update, evicting the oldest updates if necessary.
+   *
+   * @param type The type of the clause update.
+   * @param source The array containing the literals.
+   * @param from The index of the first literal (inclusive).
+   * @param to The index after the last literal (exclusive).
+   */
+  void append(ClauseUpdate.Type type, int[] source, int from, int to) {
+    int length = to - from;
+    if (length > literals.length) {
+      // too long to be cached, so the cache starts over behind it
+      literalCount += length;
+      first = ++end;
+      return;
+    }
+    // evict until there is a free update slot and enough room for the literals
+    while (first < end && (end - first == starts.length
+        || literalCount + length - start(first) > literals.length)) {
+      first++;
+    }
+    int index = (int) literalCount & literalMask;
+    int firstPart = Math.min(length, literals.length - index);
+    System.arraycopy(source, from, literals, index, firstPart);
+    System.arraycopy(source, from + firstPart, literals, 0, length - firstPart);
+    starts[(int) end & updateMask] = literalCount;
+    removals[(int) end & updateMask] = type == ClauseUpdate.Type.REMOVE;
+    literalCount += length;
+    end++;
+  }
+
+  /**
+   * Empties the cache, so that the next appended clause update has the given index.
+   *
+   * @param next The index of the next clause update.
+   */
+  void reset(long next) {
+    first = next;
+    end = next;
+  }
+
+  /**
+   * Returns whether the given range of clause updates is cached.
+   *
+   * @param from The index of the first clause update (inclusive).
+   * @param to The index after the last clause update (exclusive).
+   * @return {@code true} if the cache contains all of the updates.
+   */
+  boolean contains(long from, long to) {
+    return from >= first && to <= end;
+  }
+
+  /**
+   * Adds a cached range of clause updates to a builder.
+   *
+   * @param from The index of the first clause update (inclusive).
+   * @param to The index after the last clause update (exclusive).
+   * @param builder The builder.
+   */
+  void copy(long from, long to, ClauseBatch.Builder builder) {
+    for (long i = from; i < to; i++) {
+      long start = start(i);
+      long stop = i + 1 == end ? literalCount : start(i + 1);
+      int index = (int) start & literalMask;
+      int length = (int) (stop - start);
+      if (index + length <= literals.length) {
+        builder.add(type(i), literals, index, index + length);
+      } else {
+        for (int j = 0; j < length; j++) {
+          builder.addLiteral(literals[(index + j) & literalMask]);
+        }
+        builder.endClause(type(i));
+      }
+    }
+  }
+
+  private long start(long update) {
+    return starts[(int) update & updateMask];
+  }
+
+  private ClauseUpdate.Type type(long update) {
+    return removals[(int) update & updateMask] ? ClauseUpdate.Type.REMOVE : ClauseUpdate.Type.ADD;
+  }
+
+}
@@ -3,6 +3,7 @@ package edu.kit.satviz.consumer.processing;
 import edu.kit.satviz.consumer.config.WeightFactor;
 import edu.kit.satviz.consumer.graph.Graph;
 import edu.kit.satviz.consumer.graph.WeightUpdate;
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.ClauseUpdate;
 import edu.kit.satviz.serial.SerializationException;
 import edu.kit.satviz.serial.StringSerializer;
@@ -57,27 +58,44 @@ public abstract class VariableInteractionGraph implements ClauseUpdateProcessor
 
   @Override
   public WeightUpdate process(
-      ClauseUpdate[] clauseUpdates, Graph graph, IntUnaryOperator nodeMapping
+      ClauseBatch clauseUpdates, Graph graph, IntUnaryOperator nodeMapping
   ) {
     WeightUpdate weightUpdate = new WeightUpdate();
-    for (ClauseUpdate clauseUpdate : clauseUpdates) {
-      int[] literals = clauseUpdate.clause().literals();
-      if (literals.length < 2) {
+    int[] literals = clauseUpdates.literals();
+    int[] variables = new int[0];
+    for (int c = 0; c < clauseUpdates.size(); c++) {
+      int start = clauseUpdates.clauseStart(c);
+      int length = clauseUpdates.clauseEnd(c) - start;
+      if (length < 2) {
         continue;
       }
-      for (int i = 0; i < literals.length; i++) {
-        literals[i] = Math.abs(literals[i]);
+      if (variables.length < length) {
+        variables = new int[Math.max(length, variables.length * 2)];
+      }
+      for (int i = 0; i < length; i++) {
+        variables[i] = Math.abs(literals[start + i]);
       }
 
-      float weight = (float) weightFactor.apply(literals.length);
-      weight = (clauseUpdate.type() == ClauseUpdate.Type.ADD) ? weight : -weight;
-      process(weightUpdate, literals, weight, nodeMapping);
+      float weight = (float) weightFactor.apply(length);
+      weight = (clauseUpdates.type(c) == ClauseUpdate.Type.ADD) ? weight : -weight;
+      process(weightUpdate, variables, length, weight, nodeMapping);
     }
     return weightUpdate;
   }
 
+  /**
+   * Adds the weight changes for a single clause to the {@code WeightUpdate}.
+   *
+   * @param weightUpdate The weight update of the current batch.
+   * @param variables A scratch array, whose first {@code length} elements are the variables of
+   *                  the clause. It may be modified, but must not be stored.
+   * @param length The number of variables in the clause (at least 2).
+   * @param weight The weight that is added to each affected edge.
+   * @param nodeMapping A mapping from variables to nodes.
+   */
   protected abstract void process(
-      WeightUpdate weightUpdate, int[] variables, float weight, IntUnaryOperator nodeMapping
+      WeightUpdate weightUpdate, int[] variables, int length, float weight,
+      IntUnaryOperator nodeMapping
   );
 
   @Override
@@ -13,6 +13,7 @@ module edu.kit.satviz.consumer {
   requires jdk.incubator.foreign;
   requires edu.kit.satviz.common;
   requires zip4j;
+  requires org.lz4.java;
 
   exports edu.kit.satviz.consumer.gui.config to javafx.graphics;
   exports edu.kit.satviz.consumer.gui.visualization to javafx.graphics;
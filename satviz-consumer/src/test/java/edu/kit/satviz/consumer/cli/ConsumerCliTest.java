@@ -17,7 +17,9 @@ import edu.kit.satviz.consumer.config.EmbeddedModeConfig;
 import edu.kit.satviz.consumer.config.EmbeddedModeSource;
 import edu.kit.satviz.consumer.config.ExternalModeConfig;
 import edu.kit.satviz.consumer.config.HeatmapColors;
+import edu.kit.satviz.consumer.config.SessionModeConfig;
 import edu.kit.satviz.consumer.config.Theme;
+import edu.kit.satviz.consumer.processing.SessionManifest;
 import javafx.scene.paint.Color;
 import net.sourceforge.argparse4j.inf.ArgumentParserException;
 import org.junit.jupiter.api.BeforeEach;
@@ -109,6 +111,38 @@ class ConsumerCliTest {
     assertEquals(config, result);
   }
 
+  @Test
+  void test_parseArgs_valid_session()
+      throws ArgumentParserException, ConstraintValidationException, IOException {
+    Path sessionDir = Files.createTempDirectory("session");
+    new SessionManifest().write(sessionDir);
+    var arguments = new String[] {"session", sessionDir.toString()};
+    var config = new ConsumerConfig();
+    var sessionModeConfig = new SessionModeConfig();
+    sessionModeConfig.setSessionPath(sessionDir);
+    config.setModeConfig(sessionModeConfig);
+    var result = ConsumerCli.parseArgs(arguments);
+    (new ConsumerConstraint()).validate(result);
+    assertEquals(config, result);
+  }
+
+  @Test
+  void test_parseArgs_valid_saveSession()
+      throws ArgumentParserException, ConstraintValidationException {
+    Path sessionDir = tempInstance.resolveSibling("session-" + System.nanoTime());
+    var arguments = new String[] {
+        "-i", tempInstance.toString(),
+        "-o", tempVideoTemplate.toString(),
+        "--save-session", sessionDir.toString(),
+        "external", "-P", "1231"
+    };
+    var config = getExternalConfig();
+    config.setSaveSessionPath(sessionDir);
+    var result = ConsumerCli.parseArgs(arguments);
+    (new ConsumerConstraint()).validate(result);
+    assertEquals(config, result);
+  }
+
   private ConsumerConfig getExternalConfig() {
     var config = new ConsumerConfig();
     var externalModeConfig = new ExternalModeConfig();
@@ -147,6 +181,16 @@ class ConsumerCliTest {
     assertThrows(ConstraintValidationException.class, () -> inputConstraint.validate(config));
   }
 
+  @Test
+  void test_parseArgs_invalid_sessionWithoutManifest()
+      throws ArgumentParserException, IOException {
+    Path sessionDir = Files.createTempDirectory("session");
+    var arguments = new String[] {"session", sessionDir.toString()};
+    var config = ConsumerCli.parseArgs(arguments);
+    Constraint<ConsumerConfig> inputConstraint = new ConsumerConstraint();
+    assertThrows(ConstraintValidationException.class, () -> inputConstraint.validate(config));
+  }
+
   @Test
   void test_parseArgs_invalidColors() {
     var arguments = new String[] {
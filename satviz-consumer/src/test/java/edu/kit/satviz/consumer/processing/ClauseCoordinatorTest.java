@@ -1,6 +1,7 @@
 package edu.kit.satviz.consumer.processing;
 
 import edu.kit.satviz.consumer.graph.Graph;
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.ClauseUpdate;
 import edu.kit.satviz.serial.SerializationException;
 import java.nio.file.Files;
@@ -12,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntUnaryOperator;
 
@@ -116,7 +118,7 @@ class ClauseCoordinatorTest {
     verify(processor1, never()).process(notNull(), eq(graph), eq(DEFAULT_NODE_MAPPING));
     coordinator.advanceVisualization(1);
     verify(processor1).process(
-        Arrays.copyOfRange(clauseUpdates, 0, 1), graph, DEFAULT_NODE_MAPPING
+        ClauseBatch.of(Arrays.copyOfRange(clauseUpdates, 0, 1)), graph, DEFAULT_NODE_MAPPING
     );
   }
 
@@ -148,7 +150,7 @@ class ClauseCoordinatorTest {
     }
     assertEquals(0, coordinator.currentUpdate());
     coordinator.seekToUpdate(4);
-    verify(processor1).process(someUpdates, graph, DEFAULT_NODE_MAPPING);
+    verify(processor1).process(ClauseBatch.of(someUpdates), graph, DEFAULT_NODE_MAPPING);
     assertEquals(4, coordinator.currentUpdate());
     // unnecessary deserialization should be avoided
     verify(graph, never()).deserialize(any());
@@ -263,6 +265,67 @@ class ClauseCoordinatorTest {
     assertThrows(IllegalArgumentException.class, () -> coordinator.seekToUpdate(-1));
   }
 
+  @Test
+  void test_ignoreUnknownDeletions() throws IOException {
+    coordinator.ignoreUnknownDeletions(ClauseBatch.of(clauseUpdates[0], clauseUpdates[1]));
+    coordinator.addClauseUpdate(clauseUpdates[2]);
+    // deletions of instance clauses and added clauses are kept, in any order of the literals
+    coordinator.addClauseUpdate(ClauseUpdate.of(ClauseUpdate.Type.REMOVE, 1, 6));
+    coordinator.addClauseUpdate(ClauseUpdate.Type.REMOVE, new int[] {3, 6}, 2);
+    // the clause has been deleted already, and the others have never been added
+    coordinator.addClauseUpdate(ClauseUpdate.of(ClauseUpdate.Type.REMOVE, 6, 1));
+    coordinator.addClauseUpdate(ClauseUpdate.of(ClauseUpdate.Type.REMOVE, 6, 4));
+    assertEquals(3, coordinator.totalUpdateCount());
+
+    coordinator.addClauseUpdates(ClauseBatch.of(
+        ClauseUpdate.of(ClauseUpdate.Type.REMOVE, 5, -6),
+        ClauseUpdate.of(ClauseUpdate.Type.REMOVE, 2, 6),
+        ClauseUpdate.of(ClauseUpdate.Type.ADD, 1, 4),
+        ClauseUpdate.of(ClauseUpdate.Type.REMOVE, 2, 6)
+    ));
+    assertEquals(5, coordinator.totalUpdateCount());
+  }
+
+  // sessions
+
+  @Test
+  void test_openSession() throws SerializationException, IOException {
+    Path sessionDir = Paths.get(TEMP_DIR, "session");
+    ClauseCoordinator recording = ClauseCoordinator.createSession(graph, sessionDir, 6,
+        DEFAULT_NODE_MAPPING, new SessionManifest());
+    recording.addProcessor(processor1);
+    for (ClauseUpdate update : Arrays.copyOfRange(clauseUpdates, 0, 11)) {
+      recording.addClauseUpdate(update);
+    }
+    recording.advanceVisualization(4);
+    recording.takeSnapshot();
+    recording.close();
+    assertThrows(IOException.class, () -> ClauseCoordinator.createSession(graph, sessionDir, 6,
+        DEFAULT_NODE_MAPPING, new SessionManifest()));
+
+    SessionManifest manifest = SessionManifest.read(sessionDir);
+    assertEquals(6, manifest.getVariableCount());
+    assertEquals(11, manifest.getUpdateCount());
+    assertEquals(2, manifest.getSnapshots().size());
+
+    // the initial snapshot is loaded, and seeking uses the stored snapshots without any new updates
+    Graph reopenedGraph = mock(Graph.class);
+    ClauseUpdateProcessor processor = mock(ClauseUpdateProcessor.class);
+    ClauseCoordinator reopened = ClauseCoordinator.openSession(reopenedGraph, sessionDir,
+        manifest, DEFAULT_NODE_MAPPING, List.of(processor));
+    assertEquals(11, reopened.totalUpdateCount());
+    assertEquals(0, reopened.currentUpdate());
+    verify(reopenedGraph).deserialize(any());
+    verify(processor).reset();
+    reopened.seekToUpdate(6);
+    assertEquals(6, reopened.currentUpdate());
+    verify(reopenedGraph, times(2)).deserialize(any());
+    verify(processor).deserialize(any());
+    verify(processor).process(ClauseBatch.of(Arrays.copyOfRange(clauseUpdates, 4, 6)),
+        reopenedGraph, DEFAULT_NODE_MAPPING);
+    reopened.close();
+  }
+
   @AfterEach
   void clean() throws IOException {
     coordinator.close();
@@ -0,0 +1,95 @@
+package edu.kit.satviz.consumer.processing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ClauseIndexTest {
+
+  private ClauseIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new ClauseIndex();
+  }
+
+  @Test
+  void test_fingerprint() {
+    long fingerprint = ClauseIndex.fingerprint(new int[] {1, 2, 3}, 0, 3);
+    assertEquals(fingerprint, ClauseIndex.fingerprint(new int[] {0, 1, 2, 3}, 1, 4));
+    assertNotEquals(fingerprint, ClauseIndex.fingerprint(new int[] {3, 2, 1}, 0, 3));
+    assertNotEquals(fingerprint, ClauseIndex.fingerprint(new int[] {1, 2, 3, 0}, 0, 4));
+  }
+
+  @Test
+  void test_unorderedFingerprint() {
+    long fingerprint = ClauseIndex.unorderedFingerprint(new int[] {1, -2, 3}, 0, 3);
+    assertEquals(fingerprint, ClauseIndex.unorderedFingerprint(new int[] {3, 1, -2}, 0, 3));
+    assertEquals(fingerprint, ClauseIndex.unorderedFingerprint(new int[] {0, -2, 3, 1}, 1, 4));
+    assertNotEquals(fingerprint, ClauseIndex.unorderedFingerprint(new int[] {1, 2, 3}, 0, 3));
+    assertNotEquals(fingerprint, ClauseIndex.unorderedFingerprint(new int[] {1, -2}, 0, 2));
+  }
+
+  @Test
+  void test_remove() {
+    assertTrue(index.add(7, 0));
+    assertTrue(index.add(8, 1));
+    assertEquals(0, index.remove(7));
+    assertEquals(-1, index.remove(7));
+    assertEquals(1, index.remove(8));
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  void test_find() {
+    index.add(7, 0);
+    index.add(7, 1);
+    assertEquals(-1, index.find(8));
+    assertEquals(index.find(7), index.remove(7));
+    assertEquals(1, index.size());
+    assertEquals(index.find(7), index.remove(7));
+    assertEquals(-1, index.find(7));
+  }
+
+  @Test
+  void test_remove_duplicates() {
+    index.add(7, 0);
+    index.add(7, 1);
+    long first = index.remove(7);
+    long second = index.remove(7);
+    assertEquals(1, first + second);
+    assertEquals(-1, index.remove(7));
+  }
+
+  @Test
+  void test_remove_collisions() {
+    // all fingerprints have the same home slot, the cluster wraps around the end of the table
+    int capacity = index.capacity();
+    long[] fingerprints = {capacity - 1, 2L * capacity - 1, 3L * capacity - 1, 4L * capacity - 1};
+    for (int i = 0; i < fingerprints.length; i++) {
+      index.add(fingerprints[i], i);
+    }
+    index.add(capacity, 4); // home slot 0, occupied by the cluster
+    assertEquals(1, index.remove(fingerprints[1]));
+    assertEquals(4, index.remove(capacity));
+    assertEquals(3, index.remove(fingerprints[3]));
+    assertEquals(0, index.remove(fingerprints[0]));
+    assertEquals(2, index.remove(fingerprints[2]));
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  void test_add_grow() {
+    int count = 4 * ClauseIndex.MIN_CAPACITY;
+    for (int i = 0; i < count; i++) {
+      index.add(ClauseIndex.fingerprint(new int[] {i}, 0, 1), i);
+    }
+    assertTrue(index.capacity() > ClauseIndex.MIN_CAPACITY);
+    for (int i = count - 1; i >= 0; i--) {
+      assertEquals(i, index.remove(ClauseIndex.fingerprint(new int[] {i}, 0, 1)));
+    }
+    assertEquals(0, index.size());
+  }
+
+}
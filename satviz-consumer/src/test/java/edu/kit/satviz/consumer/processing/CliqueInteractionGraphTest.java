@@ -3,6 +3,7 @@ package edu.kit.satviz.consumer.processing;
 import edu.kit.satviz.consumer.config.WeightFactor;
 import edu.kit.satviz.consumer.graph.WeightUpdate;
 import edu.kit.satviz.sat.Clause;
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.ClauseUpdate;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -82,7 +83,7 @@ class CliqueInteractionGraphTest {
     for (WeightFactor factor : WeightFactor.values()) {
       vig.setWeightFactor(factor);
       assertEquals(WEIGHT_UPDATES.get(factor), vig.process(
-          clauseUpdates, null, DEFAULT_NODE_MAPPING)
+          ClauseBatch.of(clauseUpdates), null, DEFAULT_NODE_MAPPING)
       );
     }
   }
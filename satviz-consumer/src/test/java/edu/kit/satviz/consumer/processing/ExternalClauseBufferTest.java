@@ -3,6 +3,7 @@ package edu.kit.satviz.consumer.processing;
 import static org.junit.jupiter.api.Assertions.*;
 
 import edu.kit.satviz.sat.Clause;
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.ClauseUpdate;
 import edu.kit.satviz.sat.ClauseUpdate.Type;
 import edu.kit.satviz.serial.SerializationException;
@@ -78,7 +79,7 @@ class ExternalClauseBufferTest {
     buffer.addClauseUpdate(EXAMPLE_UPDATE);
     assertEquals(1, buffer.size());
     var result = buffer.getClauseUpdates(0, 0);
-    assertEquals(0, result.length);
+    assertEquals(0, result.size());
   }
 
   @Test
@@ -86,7 +87,7 @@ class ExternalClauseBufferTest {
     buffer.addClauseUpdate(EXAMPLE_UPDATE);
     assertEquals(1, buffer.size());
     var result = buffer.getClauseUpdates(0, 1);
-    assertArrayEquals(new ClauseUpdate[] { EXAMPLE_UPDATE }, result);
+    assertEquals(ClauseBatch.of(EXAMPLE_UPDATE), result);
   }
 
   @Test
@@ -94,7 +95,30 @@ class ExternalClauseBufferTest {
     addUpdates();
     var result = buffer.getClauseUpdates(1, 3);
     var expected = Arrays.copyOfRange(UPDATES, 1, 4);
-    assertArrayEquals(expected, result);
+    assertEquals(ClauseBatch.of(expected), result);
+  }
+
+  @Test
+  void test_addClauseUpdate_literalArray() throws IOException, SerializationException {
+    int[] scratch = new int[16];
+    for (ClauseUpdate update : UPDATES) {
+      int[] literals = update.clause().literals();
+      System.arraycopy(literals, 0, scratch, 0, literals.length);
+      buffer.addClauseUpdate(update.type(), scratch, literals.length);
+      // the buffer must not keep a reference to the array
+      Arrays.fill(scratch, 42);
+    }
+    assertEquals(ClauseBatch.of(UPDATES), buffer.getClauseUpdates(0, UPDATES.length));
+  }
+
+  @Test
+  void test_addClauseUpdates() throws IOException, SerializationException {
+    buffer.addClauseUpdate(EXAMPLE_UPDATE);
+    buffer.addClauseUpdates(ClauseBatch.of(UPDATES));
+    buffer.addClauseUpdates(ClauseBatch.empty());
+    assertEquals(UPDATES.length + 1, buffer.size());
+    assertEquals(ClauseBatch.of(UPDATES), buffer.getClauseUpdates(1, UPDATES.length));
+    assertEquals(ClauseBatch.of(UPDATES[0]), buffer.getClauseUpdates(1, 1));
   }
 
   @Test
@@ -102,7 +126,7 @@ class ExternalClauseBufferTest {
     addUpdates();
     var result = buffer.getClauseUpdates(2, 10);
     var expected = Arrays.copyOfRange(UPDATES, 2, UPDATES.length);
-    assertArrayEquals(expected, result);
+    assertEquals(ClauseBatch.of(expected), result);
   }
 
   @Test
@@ -114,6 +138,192 @@ class ExternalClauseBufferTest {
     //assertThrows(IOException.class, () -> buffer.addClauseUpdate(EXAMPLE_UPDATE));
   }
 
+  @Test
+  void test_getClauseUpdates_acrossSegments() throws IOException, SerializationException {
+    buffer.close();
+    // blocks of 24 bytes fit one to three of the updates, segments two blocks,
+    // and the tail cache holds at most one update
+    buffer = new ExternalClauseBuffer(testDir, 96, 24, 4);
+    for (int i = 0; i < 10; i++) {
+      buffer.addClauseUpdates(ClauseBatch.of(UPDATES));
+    }
+    ClauseUpdate[] all = new ClauseUpdate[10 * UPDATES.length];
+    for (int i = 0; i < all.length; i++) {
+      all[i] = UPDATES[i % UPDATES.length];
+    }
+    assertEquals(all.length, buffer.size());
+    for (int from = 0; from < all.length; from++) {
+      for (int to = from; to <= all.length; to++) {
+        var expected = Arrays.copyOfRange(all, from, to);
+        assertEquals(ClauseBatch.of(expected), buffer.getClauseUpdates(from, to - from));
+      }
+    }
+  }
+
+  @Test
+  void test_addClauseUpdate_largerThanSegment() throws IOException, SerializationException {
+    buffer.close();
+    buffer = new ExternalClauseBuffer(testDir, 64, 32, 1024);
+    buffer.addClauseUpdate(UPDATES[1]);
+    assertThrows(IOException.class, () -> buffer.addClauseUpdate(longUpdate(30)));
+    assertEquals(1, buffer.size());
+    assertEquals(ClauseBatch.of(UPDATES[1]), buffer.getClauseUpdates(0, 1));
+  }
+
+  @Test
+  void test_addClauseUpdate_largerThanBlock() throws IOException, SerializationException {
+    buffer.close();
+    buffer = new ExternalClauseBuffer(testDir, 256, 16, 4);
+    ClauseUpdate[] updates = {UPDATES[0], longUpdate(20), UPDATES[1], UPDATES[2]};
+    for (var update : updates) {
+      buffer.addClauseUpdate(update);
+    }
+    for (int i = 0; i < updates.length; i++) {
+      assertEquals(ClauseBatch.of(updates[i]), buffer.getClauseUpdates(i, 1));
+    }
+    assertEquals(ClauseBatch.of(updates), buffer.getClauseUpdates(0, updates.length));
+  }
+
+  @Test
+  void test_getClauseUpdates_tailCache() throws IOException, SerializationException {
+    buffer.close();
+    // the tail cache holds 8 literals (and 2 updates), so the literals wrap around
+    buffer = new ExternalClauseBuffer(testDir, 64, 32, 32);
+    for (int i = 0; i < UPDATES.length; i++) {
+      buffer.addClauseUpdate(UPDATES[i]);
+      assertEquals(ClauseBatch.of(UPDATES[i]), buffer.getClauseUpdates(i, 1));
+    }
+    assertEquals(UPDATES.length, buffer.getCacheHits());
+    assertEquals(0, buffer.getCacheMisses());
+    assertEquals(ClauseBatch.of(Arrays.copyOfRange(UPDATES, 3, 5)),
+        buffer.getClauseUpdates(3, 2));
+    assertEquals(UPDATES.length + 1, buffer.getCacheHits());
+    // older updates have been evicted and are read from the log
+    assertEquals(ClauseBatch.of(Arrays.copyOfRange(UPDATES, 0, 3)),
+        buffer.getClauseUpdates(0, 3));
+    assertEquals(ClauseBatch.of(Arrays.copyOfRange(UPDATES, 3, 5)),
+        buffer.getClauseUpdates(3, 2));
+    assertEquals(1, buffer.getCacheMisses());
+  }
+
+  @Test
+  void test_getClauseUpdates_sequential() throws IOException, SerializationException {
+    buffer.close();
+    buffer = new ExternalClauseBuffer(testDir, 96, 24, 4);
+    for (int i = 0; i < 100; i++) {
+      buffer.addClauseUpdates(ClauseBatch.of(UPDATES));
+    }
+    // reads that continue the previous one are read ahead of in the background
+    for (int from = 0; from < buffer.size(); from += 7) {
+      ClauseBatch batch = buffer.getClauseUpdates(from, 7);
+      for (int i = 0; i < batch.size(); i++) {
+        assertEquals(UPDATES[(from + i) % UPDATES.length], batch.get(i));
+      }
+    }
+    assertEquals(0, buffer.getCacheHits());
+  }
+
+  @Test
+  void test_getClauseUpdates_deletionReferences() throws IOException, SerializationException {
+    ClauseUpdate[] updates = {
+        ClauseUpdate.of(Type.ADD, 1, 2, 3),
+        ClauseUpdate.of(Type.ADD, 4, 5),
+        ClauseUpdate.of(Type.REMOVE, 1, 2, 3),
+        ClauseUpdate.of(Type.REMOVE, 5, 4),
+        ClauseUpdate.of(Type.ADD, 1, 2, 3),
+        ClauseUpdate.of(Type.ADD, 1, 2, 3),
+        ClauseUpdate.of(Type.REMOVE, 1, 2, 3),
+        ClauseUpdate.of(Type.REMOVE, 1, 2, 3),
+        ClauseUpdate.of(Type.REMOVE, 1, 2, 3),
+        ClauseUpdate.of(Type.REMOVE, 9)
+    };
+    long[] additions = {-1, -1, 0, -1, -1, -1, 4, 5, -1, -1};
+    // everything in the block that is being filled, and spread over blocks without a tail cache
+    for (boolean small : new boolean[] {false, true}) {
+      if (small) {
+        buffer.close();
+        buffer = new ExternalClauseBuffer(testDir, 96, 24, 4);
+      }
+      for (var update : updates) {
+        buffer.addClauseUpdate(update);
+      }
+      for (int from = 0; from < updates.length; from++) {
+        for (int to = from; to <= updates.length; to++) {
+          var expected = Arrays.copyOfRange(updates, from, to);
+          assertEquals(ClauseBatch.of(expected), buffer.getClauseUpdates(from, to - from));
+        }
+        assertEquals(additions[from], buffer.getMatchingAddition(from));
+      }
+    }
+  }
+
+  @Test
+  void test_getClauseUpdates_oldDeletions() throws IOException, SerializationException {
+    buffer.close();
+    buffer = new ExternalClauseBuffer(testDir, 96, 24, 4);
+    buffer.addClauseUpdate(ClauseUpdate.of(Type.ADD, 1, 2, 3));
+    for (int i = 0; i < 20; i++) {
+      buffer.addClauseUpdate(UPDATES[1]);
+    }
+    buffer.addClauseUpdate(ClauseUpdate.of(Type.REMOVE, 1, 2, 3));
+    // the addition is several blocks back, so the deletion is stored in full
+    assertEquals(-1, buffer.getMatchingAddition(21));
+    assertEquals(ClauseBatch.of(ClauseUpdate.of(Type.REMOVE, 1, 2, 3)),
+        buffer.getClauseUpdates(21, 1));
+  }
+
+  @Test
+  void test_getClauseUpdates_deletionOverflowsBlock() throws IOException, SerializationException {
+    buffer.close();
+    buffer = new ExternalClauseBuffer(testDir, 96, 24, 4);
+    // the first block only holds the addition, the second one is full after two updates
+    ClauseUpdate[] updates = {
+        ClauseUpdate.of(Type.ADD, 1, 2, 3),
+        ClauseUpdate.of(Type.ADD, 4, 5, 6, 7, 8, 9, 10),
+        ClauseUpdate.of(Type.ADD, 11),
+        ClauseUpdate.of(Type.REMOVE, 1, 2, 3)
+    };
+    for (var update : updates) {
+      buffer.addClauseUpdate(update);
+    }
+    // the deletion starts a new block, two blocks after the addition, so it is stored in full
+    assertEquals(-1, buffer.getMatchingAddition(3));
+    for (int i = 0; i < updates.length; i++) {
+      assertEquals(ClauseBatch.of(updates[i]), buffer.getClauseUpdates(i, 1));
+    }
+    assertEquals(ClauseBatch.of(updates), buffer.getClauseUpdates(0, updates.length));
+  }
+
+  @Test
+  void test_open_persistent() throws IOException, SerializationException {
+    buffer.close();
+    buffer = ExternalClauseBuffer.createPersistent(testDir, 96, 24);
+    for (int i = 0; i < 10; i++) {
+      buffer.addClauseUpdates(ClauseBatch.of(UPDATES));
+    }
+    buffer.close();
+    assertThrows(IOException.class, () -> ExternalClauseBuffer.createPersistent(testDir));
+
+    // the reopened buffer contains the same updates, and more can be appended
+    buffer = ExternalClauseBuffer.open(testDir);
+    assertEquals(10 * UPDATES.length, buffer.size());
+    buffer.addClauseUpdates(ClauseBatch.of(UPDATES));
+    buffer.close();
+    buffer = ExternalClauseBuffer.open(testDir);
+    assertEquals(11 * UPDATES.length, buffer.size());
+    for (int i = 0; i < buffer.size(); i += UPDATES.length) {
+      assertEquals(ClauseBatch.of(UPDATES), buffer.getClauseUpdates(i, UPDATES.length));
+    }
+  }
+
+  private static ClauseUpdate longUpdate(int length) {
+    int[] literals = new int[length];
+    for (int i = 0; i < length; i++) {
+      literals[i] = 1000 * (i + 1);
+    }
+    return new ClauseUpdate(new Clause(literals), Type.ADD);
+  }
+
   private void addUpdates() throws IOException {
     for (var update : UPDATES) {
       buffer.addClauseUpdate(update);
@@ -5,7 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import edu.kit.satviz.consumer.graph.HeatUpdate;
 import edu.kit.satviz.sat.Clause;
-import edu.kit.satviz.sat.ClauseUpdate;
+import edu.kit.satviz.sat.ClauseBatch;
 import java.util.Arrays;
 import java.util.function.IntUnaryOperator;
 
@@ -26,7 +26,7 @@ class FrequencyHeatmapTest {
   @Test
   void test_process_single() {
     var result = heatmap.process(
-        new ClauseUpdate[] {UPDATES[0]}, null, DEFAULT_NODE_MAPPING
+        ClauseBatch.of(UPDATES[0]), null, DEFAULT_NODE_MAPPING
     );
     var expected = new HeatUpdate();
     expected.add(0, 1);
@@ -40,7 +40,7 @@ class FrequencyHeatmapTest {
   void test_process_multiple_overFull() {
     test_process_multiple_notFull();
     var result = heatmap.process(
-        Arrays.copyOfRange(UPDATES, 2, 5), null, DEFAULT_NODE_MAPPING
+        ClauseBatch.of(Arrays.copyOfRange(UPDATES, 2, 5)), null, DEFAULT_NODE_MAPPING
     );
     var expected = new HeatUpdate();
     expected.add(0, 2f / 3); // 1: 2
@@ -56,7 +56,7 @@ class FrequencyHeatmapTest {
   @Test
   void test_process_multiple_notFull() {
     var result = heatmap.process(
-        Arrays.copyOfRange(UPDATES, 0, 2), null, DEFAULT_NODE_MAPPING
+        ClauseBatch.of(Arrays.copyOfRange(UPDATES, 0, 2)), null, DEFAULT_NODE_MAPPING
     );
     var expected = new HeatUpdate();
     expected.add(0, 1f / 2);
@@ -71,7 +71,7 @@ class FrequencyHeatmapTest {
   @Test
   void test_process_multiple_full() {
     var result = heatmap.process(
-        Arrays.copyOfRange(UPDATES, 0, 3), null, DEFAULT_NODE_MAPPING
+        ClauseBatch.of(Arrays.copyOfRange(UPDATES, 0, 3)), null, DEFAULT_NODE_MAPPING
     );
     var expected = new HeatUpdate();
     expected.add(0, 2f / 3); // 0: 2,
@@ -85,7 +85,7 @@ class FrequencyHeatmapTest {
 
   @Test
   void test_reset() {
-    heatmap.process(UPDATES, null, DEFAULT_NODE_MAPPING);
+    heatmap.process(ClauseBatch.of(UPDATES), null, DEFAULT_NODE_MAPPING);
     heatmap.reset();
     test_process_single();
   }
@@ -4,6 +4,7 @@ import static edu.kit.satviz.consumer.processing.Constants.UPDATES;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import edu.kit.satviz.consumer.graph.HeatUpdate;
+import edu.kit.satviz.sat.ClauseBatch;
 import java.util.Arrays;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,9 +20,11 @@ class GeneralHeatmapTest {
 
   @Test
   void test_setHeatmapSize_shrinkBeforeCursor() {
-    heatmap.process(UPDATES, null, IdentityMapping.INSTANCE);
+    heatmap.process(ClauseBatch.of(UPDATES), null, IdentityMapping.INSTANCE);
     heatmap.setHeatmapSize(2);
-    var result = heatmap.process(Arrays.copyOfRange(UPDATES, 0, 1), null, IdentityMapping.INSTANCE);
+    var result = heatmap.process(
+        ClauseBatch.of(Arrays.copyOfRange(UPDATES, 0, 1)), null, IdentityMapping.INSTANCE
+    );
     var expected = new HeatUpdate();
     expected.add(0, 1);
     expected.add(2, 1);
@@ -35,10 +38,12 @@ class GeneralHeatmapTest {
 
   @Test
   void test_setHeatmapSize_shrinkAfterCursor() {
-    heatmap.process(UPDATES, null, IdentityMapping.INSTANCE);
-    heatmap.process(UPDATES, null, IdentityMapping.INSTANCE);
+    heatmap.process(ClauseBatch.of(UPDATES), null, IdentityMapping.INSTANCE);
+    heatmap.process(ClauseBatch.of(UPDATES), null, IdentityMapping.INSTANCE);
     heatmap.setHeatmapSize(2);
-    var result = heatmap.process(Arrays.copyOfRange(UPDATES, 0, 1), null, IdentityMapping.INSTANCE);
+    var result = heatmap.process(
+        ClauseBatch.of(Arrays.copyOfRange(UPDATES, 0, 1)), null, IdentityMapping.INSTANCE
+    );
     var expected = new HeatUpdate();
     expected.add(0, 1);
     expected.add(2, 1);
@@ -52,9 +57,11 @@ class GeneralHeatmapTest {
 
   @Test
   void test_setHeatmapSize_grow() {
-    heatmap.process(UPDATES, null, IdentityMapping.INSTANCE);
+    heatmap.process(ClauseBatch.of(UPDATES), null, IdentityMapping.INSTANCE);
     heatmap.setHeatmapSize(5);
-    var result = heatmap.process(Arrays.copyOfRange(UPDATES, 0, 1), null, IdentityMapping.INSTANCE);
+    var result = heatmap.process(
+        ClauseBatch.of(Arrays.copyOfRange(UPDATES, 0, 1)), null, IdentityMapping.INSTANCE
+    );
     var expected = new HeatUpdate();
     expected.add(0, 1);
     expected.add(2, 1);
@@ -4,7 +4,7 @@ import static edu.kit.satviz.consumer.processing.Constants.UPDATES;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import edu.kit.satviz.consumer.graph.HeatUpdate;
-import edu.kit.satviz.sat.ClauseUpdate;
+import edu.kit.satviz.sat.ClauseBatch;
 import java.util.Arrays;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,7 +21,7 @@ class RecencyHeatmapTest {
   @Test
   void test_process_single() {
     var result = heatmap.process(
-        new ClauseUpdate[] {UPDATES[0]}, null, IdentityMapping.INSTANCE
+        ClauseBatch.of(UPDATES[0]), null, IdentityMapping.INSTANCE
     );
     var expected = new HeatUpdate();
     expected.add(0, 1);
@@ -35,7 +35,7 @@ class RecencyHeatmapTest {
   void test_process_multiple_overFull() {
     test_process_multiple_notFull();
     var result = heatmap.process(
-        Arrays.copyOfRange(UPDATES, 2, 5), null, IdentityMapping.INSTANCE
+        ClauseBatch.of(Arrays.copyOfRange(UPDATES, 2, 5)), null, IdentityMapping.INSTANCE
     );
     var expected = new HeatUpdate();
     expected.add(0, 2f / 3);
@@ -51,7 +51,7 @@ class RecencyHeatmapTest {
   @Test
   void test_process_multiple_notFull() {
     var result = heatmap.process(
-        Arrays.copyOfRange(UPDATES, 0, 2), null, IdentityMapping.INSTANCE
+        ClauseBatch.of(Arrays.copyOfRange(UPDATES, 0, 2)), null, IdentityMapping.INSTANCE
     );
     var expected = new HeatUpdate();
     expected.add(0, 2f / 3);
@@ -66,7 +66,7 @@ class RecencyHeatmapTest {
   @Test
   void test_process_multiple_full() {
     var result = heatmap.process(
-        Arrays.copyOfRange(UPDATES, 0, 3), null, IdentityMapping.INSTANCE
+        ClauseBatch.of(Arrays.copyOfRange(UPDATES, 0, 3)), null, IdentityMapping.INSTANCE
     );
     var expected = new HeatUpdate();
     expected.add(0, 1);
@@ -80,9 +80,9 @@ class RecencyHeatmapTest {
 
   @Test
   void test_reset() {
-    heatmap.process(UPDATES, null, IdentityMapping.INSTANCE);
+    heatmap.process(ClauseBatch.of(UPDATES), null, IdentityMapping.INSTANCE);
     heatmap.reset();
-    var result = heatmap.process(new ClauseUpdate[] {UPDATES[0]}, null, IdentityMapping.INSTANCE);
+    var result = heatmap.process(ClauseBatch.of(UPDATES[0]), null, IdentityMapping.INSTANCE);
     var expected = new HeatUpdate();
     expected.add(0, 1);
     expected.add(1, 0);
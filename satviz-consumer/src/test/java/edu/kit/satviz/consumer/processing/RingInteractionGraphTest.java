@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import edu.kit.satviz.consumer.config.WeightFactor;
 import edu.kit.satviz.consumer.graph.WeightUpdate;
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.ClauseUpdate;
 import java.util.Arrays;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,7 +22,9 @@ class RingInteractionGraphTest {
 
   @Test
   void test_process() {
-    var result = vig.process(Arrays.copyOfRange(UPDATES, 0, 1), null, IdentityMapping.INSTANCE);
+    var result = vig.process(
+        ClauseBatch.of(Arrays.copyOfRange(UPDATES, 0, 1)), null, IdentityMapping.INSTANCE
+    );
     var expected = new WeightUpdate();
     expected.add(0, 2, 1);
     expected.add(2, 4, 1);
@@ -32,7 +35,9 @@ class RingInteractionGraphTest {
 
   @Test
   void test_process_ignored() {
-    var result = vig.process(new ClauseUpdate[] {ClauseUpdate.of(ClauseUpdate.Type.ADD, 3)}, null, IdentityMapping.INSTANCE);
+    var result = vig.process(
+        ClauseBatch.of(ClauseUpdate.of(ClauseUpdate.Type.ADD, 3)), null, IdentityMapping.INSTANCE
+    );
     var expected = new WeightUpdate();
     assertEquals(expected, result);
   }
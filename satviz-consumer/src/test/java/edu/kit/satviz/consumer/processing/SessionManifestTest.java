@@ -0,0 +1,63 @@
+package edu.kit.satviz.consumer.processing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.kit.satviz.consumer.config.WeightFactor;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SessionManifestTest {
+
+  private Path testDir;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    Path parent = Paths.get("build/test-files");
+    Files.createDirectories(parent);
+    testDir = Files.createTempDirectory(parent, "session-test");
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    for (Path path : Files.list(testDir).toList()) {
+      Files.delete(path);
+    }
+    Files.delete(testDir);
+  }
+
+  @Test
+  void test_writeAndRead() throws IOException {
+    assertFalse(SessionManifest.exists(testDir));
+    SessionManifest manifest = new SessionManifest();
+    manifest.setInstanceHash(0x1234_5678_9abc_def0L);
+    manifest.setVariableCount(5);
+    manifest.setNodeCount(3);
+    manifest.setContractionMapping(new int[] {0, 1, 1, 2, 0});
+    manifest.setHeatmapImplementation(HeatmapImplementation.RECENCY);
+    manifest.setWindowSize(100);
+    manifest.setVigImplementation(VariableInteractionGraphImplementation.RING);
+    manifest.setWeightFactor(WeightFactor.CONSTANT);
+    manifest.setUpdateCount(42);
+    manifest.setSnapshots(List.of(
+        new SessionManifest.SnapshotEntry(0, "snapshot-0", new int[0]),
+        new SessionManifest.SnapshotEntry(40, "snapshot-40", new int[] {1, 0})));
+    manifest.write(testDir);
+    assertTrue(SessionManifest.exists(testDir));
+    assertEquals(manifest, SessionManifest.read(testDir));
+  }
+
+  @Test
+  void test_read_unsupportedVersion() throws IOException {
+    SessionManifest manifest = new SessionManifest();
+    manifest.setVersion(SessionManifest.CURRENT_VERSION + 1);
+    manifest.write(testDir);
+    assertThrows(IOException.class, () -> SessionManifest.read(testDir));
+  }
+
+}
@@ -1,27 +1,62 @@
 package edu.kit.satviz.network.general;
 
+import edu.kit.satviz.network.pub.FlushPolicy;
 import edu.kit.satviz.serial.SerialBuilder;
 import edu.kit.satviz.serial.SerializationException;
-import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.Queue;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * A client connection to send and receive {@link NetworkMessage}s.
  * Reading is done asynchronously, while writing is done synchronously.
- * This is a wrapper around {@link SocketChannel}.
+ * Optionally, messages can be queued with {@link #offer(byte, Object)} instead, so that they are
+ * written in bulk according to a {@link FlushPolicy} by the thread selecting on this connection.
+ * This is a wrapper around {@link SocketChannel}, which may either be a TCP socket or a Unix domain
+ * socket. Alternatively, a connection to a process on the same machine may use a pair of
+ * {@link SharedMemoryRing}s, which carry the same encoded messages without involving the kernel.
+ * Such a connection cannot be registered with a selector; {@link #await(long, boolean)} is used to
+ * wait for it instead.
  */
 public class Connection implements AutoCloseable {
-  private final SocketChannel chan;
+  /** The default initial size of the (direct) receive buffer in bytes. */
+  public static final int DEFAULT_READ_BUFFER_SIZE = 64 * 1024;
+
+  /** The file name of the ring carrying messages from the client to the server. */
+  static final String SERVER_RING = "server.ring";
+  /** The file name of the ring carrying messages from the server to the client. */
+  static final String CLIENT_RING = "client.ring";
+
+  private final SocketChannel chan; // null if connected via shared memory
+  private final SharedMemoryRing ringIn; // null if connected via a socket
+  private final SharedMemoryRing ringOut;
+  private final ReadableByteChannel in;
+  private final GatheringByteChannel out;
   private final NetworkBlueprint bp;
-  private byte currentType;
-  private SerialBuilder<?> currentBuilder = null;
-  private final ByteBuffer readBuffer = ByteBuffer.allocate(1024);
+  private final ByteBuffer readBuffer;
+  // the decoding state of a message whose beginning has been read already, null if there is none
+  private SerialBuilder<?> pendingBuilder = null;
+  private byte pendingType;
+  private final MessageBatch queueBatch = new MessageBatch();
+  private ByteBuffer writeBuffer = ByteBuffer.allocate(1024);
+  private final WriteQueue writeQueue;
+  private SelectionKey key = null;
+  // the thread in await(), and whether it should stop waiting (shared memory only)
+  private volatile Thread awaiting = null;
+  private volatile boolean wakeupPending = false;
 
   private boolean readingFailed = false;
   private boolean writingFailed = false;
@@ -38,11 +73,64 @@ public class Connection implements AutoCloseable {
    * @throws IOException if an I/O error occurs
    */
   public Connection(String address, int port, NetworkBlueprint bp) throws IOException {
+    this(address, port, bp, null);
+  }
+
+  /**
+   * Creates a new connection by opening a socket channel and connecting to the specified address.
+   * Messages can be queued using the given flush policy.
+   * @param address the remote address
+   * @param port the remote port
+   * @param bp the types of messages
+   * @param policy the flush policy for queued messages, {@code null} to write every message
+   *     synchronously
+   * @throws ConnectException if the connection is refused remotely, i.e., no-one is listening on
+   *     the remote port.
+   * @throws IOException if an I/O error occurs
+   */
+  public Connection(String address, int port, NetworkBlueprint bp, FlushPolicy policy)
+      throws IOException {
+    this(new InetSocketAddress(address, port), bp, policy);
+  }
+
+  /**
+   * Creates a new connection by opening a socket channel and connecting to the specified address.
+   * If the address is a {@link UnixDomainSocketAddress}, a Unix domain socket is used, which
+   * avoids the overhead of TCP for a consumer on the same machine.
+   * Messages can be queued using the given flush policy.
+   * @param address the remote address, either an {@link InetSocketAddress} or a
+   *     {@link UnixDomainSocketAddress}
+   * @param bp the types of messages
+   * @param policy the flush policy for queued messages, {@code null} to write every message
+   *     synchronously
+   * @throws ConnectException if the connection is refused remotely, i.e., no-one is listening on
+   *     the remote port or socket file.
+   * @throws IOException if an I/O error occurs
+   */
+  public Connection(SocketAddress address, NetworkBlueprint bp, FlushPolicy policy)
+      throws IOException {
     this.bp = bp;
-    this.chan = SocketChannel.open();
-    this.chan.configureBlocking(true);
-    this.chan.connect(new InetSocketAddress(address, port));
-    this.chan.configureBlocking(false);
+    this.writeQueue = policy == null ? null : new WriteQueue(bp, policy);
+    this.readBuffer = ByteBuffer.allocateDirect(DEFAULT_READ_BUFFER_SIZE);
+    this.chan = address instanceof UnixDomainSocketAddress
+        ? SocketChannel.open(StandardProtocolFamily.UNIX)
+        : SocketChannel.open();
+    this.ringIn = null;
+    this.ringOut = null;
+    this.in = chan;
+    this.out = chan;
+    try {
+      this.chan.configureBlocking(true);
+      this.chan.connect(address);
+      this.chan.configureBlocking(false);
+    } catch (SocketException e) {
+      this.chan.close();
+      if (address instanceof UnixDomainSocketAddress uds && !Files.exists(uds.getPath())) {
+        // like a refused TCP connection, the socket file is missing if no-one is listening yet
+        throw new ConnectException(e.getMessage());
+      }
+      throw e;
+    }
   }
 
   /**
@@ -52,58 +140,187 @@ public class Connection implements AutoCloseable {
    * @throws IllegalArgumentException if the channel is blocking or not connected
    */
   public Connection(SocketChannel chan, NetworkBlueprint bp) {
+    this(chan, bp, DEFAULT_READ_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates a new connection with an already connected socket and a direct receive buffer of the
+   * given size, which is allocated once and never grows. The size doesn't limit the size of the
+   * messages: a message that doesn't fit into the buffer is decoded across several reads.
+   * @param chan the socket channel
+   * @param bp the types of messages
+   * @param readBufferSize the size of the receive buffer in bytes
+   * @throws IllegalArgumentException if the channel is blocking or not connected, or if the buffer
+   *     size is not positive
+   */
+  public Connection(SocketChannel chan, NetworkBlueprint bp, int readBufferSize) {
+    if (readBufferSize <= 0) {
+      throw new IllegalArgumentException("read buffer size must be positive");
+    }
     this.bp = bp;
+    this.writeQueue = null;
+    this.readBuffer = ByteBuffer.allocateDirect(readBufferSize);
     if (chan.isBlocking() || !chan.isConnected()) {
       throw new IllegalArgumentException("blocking or not connected socket channel");
     }
     this.chan = chan;
+    this.ringIn = null;
+    this.ringOut = null;
+    this.in = chan;
+    this.out = chan;
+  }
+
+  /**
+   * Creates a new connection by attaching to the shared memory rings of a server on the same
+   * machine (see {@link ConnectionServer#ConnectionServer(Path, int, NetworkBlueprint, int)}).
+   * Messages can be queued using the given flush policy.
+   * @param ringDir the directory containing the rings of the server
+   * @param bp the types of messages
+   * @param policy the flush policy for queued messages, {@code null} to write every message
+   *     synchronously
+   * @throws ConnectException if the rings don't exist or are still being created, i.e., the server
+   *     is not listening yet
+   * @throws IOException if an I/O error occurs, or another client is attached to the rings already
+   */
+  public Connection(Path ringDir, NetworkBlueprint bp, FlushPolicy policy) throws IOException {
+    this.bp = bp;
+    this.writeQueue = policy == null ? null : new WriteQueue(bp, policy);
+    this.readBuffer = ByteBuffer.allocateDirect(DEFAULT_READ_BUFFER_SIZE);
+    this.chan = null;
+    SharedMemoryRing clientRing = null;
+    SharedMemoryRing serverRing = null;
+    try {
+      clientRing = SharedMemoryRing.open(ringDir.resolve(CLIENT_RING));
+      serverRing = SharedMemoryRing.open(ringDir.resolve(SERVER_RING));
+      if (!serverRing.attach()) {
+        throw new IOException("another client is attached to " + ringDir);
+      }
+    } catch (IOException e) {
+      // the rings belong to the server (and possibly another client), so only release them here
+      if (clientRing != null) {
+        clientRing.release();
+      }
+      if (serverRing != null) {
+        serverRing.release();
+      }
+      if (e instanceof NoSuchFileException) {
+        throw new ConnectException("no rings in " + ringDir);
+      }
+      throw e;
+    }
+    this.ringIn = clientRing;
+    this.ringOut = serverRing;
+    this.in = ringIn;
+    this.out = ringOut;
+  }
+
+  // a connection accepted by a server via shared memory
+  Connection(SharedMemoryRing ringIn, SharedMemoryRing ringOut, NetworkBlueprint bp,
+             int readBufferSize) {
+    this.bp = bp;
+    this.writeQueue = null;
+    this.readBuffer = ByteBuffer.allocateDirect(readBufferSize);
+    this.chan = null;
+    this.ringIn = ringIn;
+    this.ringOut = ringOut;
+    this.in = ringIn;
+    this.out = ringOut;
   }
 
   /**
    * Returns the remote address.
-   * @return remote address, {@code null} if not connected
+   * @return remote address, {@code null} if not connected or connected via a Unix domain socket
+   *     or shared memory
    * @throws ClosedChannelException if the channel is closed
    * @throws IOException if an I/O error occurs
    */
   public InetSocketAddress getRemoteAddress() throws IOException {
-    return (InetSocketAddress) chan.getRemoteAddress();
+    if (chan == null) {
+      return null;
+    }
+    return chan.getRemoteAddress() instanceof InetSocketAddress remote ? remote : null;
   }
 
   /**
    * Registers this channel with the given selector.
+   * If messages are queued, the selector is woken up as soon as they should be flushed.
    * @param sel the selector
    * @param ops the interest set
+   * @return the selection key of this channel
    * @throws ClosedChannelException if the channel is closed
+   * @throws IllegalStateException if this connection uses shared memory
+   * @see #isSelectable()
    */
-  public void register(Selector sel, int ops) throws ClosedChannelException {
-    chan.register(sel, ops);
+  public SelectionKey register(Selector sel, int ops) throws ClosedChannelException {
+    if (chan == null) {
+      throw new IllegalStateException("shared memory cannot be selected");
+    }
+    key = chan.register(sel, ops);
+    return key;
   }
 
-  private NetworkMessage processByte(byte b) throws SerializationException {
-    if (currentBuilder == null) {
-      currentType = b;
-      currentBuilder = bp.getBuilder(b);
-      if (currentBuilder == null) { // didn't get builder
-        readingFailed = true;
-        throw new SerializationException("no builder available for type " + b);
-      }
-      return null;
-    }
+  /**
+   * Returns whether this connection can be registered with a selector, i.e., whether it uses a
+   * socket rather than shared memory.
+   * @return whether this connection is selectable
+   */
+  public boolean isSelectable() {
+    return chan != null;
+  }
 
-    boolean done;
+  /**
+   * Waits until messages can be read from this connection, the other side has closed it, queued
+   * messages are due to be flushed, or bytes can be written if requested. Only connections via
+   * shared memory need this; for sockets, a selector should be used, and this method returns
+   * immediately.
+   * The waiting thread spins shortly, then parks for increasingly long periods. It can be woken up
+   * early using {@link #wakeup()}.
+   * @param timeoutNanos the maximum time to wait in nanoseconds
+   * @param writable whether to stop waiting as soon as bytes can be written
+   * @return whether one of the conditions holds
+   */
+  public boolean await(long timeoutNanos, boolean writable) {
+    if (chan != null) {
+      return true;
+    }
+    awaiting = Thread.currentThread();
     try {
-      done = currentBuilder.addByte(b);
-    } catch (SerializationException e) {
-      readingFailed = true;
-      throw e;
+      // a ring closed by the other side ends the wait as well, so that the next read finds the end
+      return SharedMemoryRing.await(() -> wakeupPending || ringIn.readable() > 0
+          || (ringIn.isClosed() && ringIn.isOpen())
+          || (writeQueue != null && writeQueue.nanosUntilFlush() == 0)
+          || (writable && (ringOut.writable() > 0 || ringOut.isClosed())), timeoutNanos);
+    } finally {
+      awaiting = null;
+      wakeupPending = false;
+    }
+  }
+
+  /**
+   * Causes the thread waiting for this connection to return immediately, like
+   * {@link Selector#wakeup()}. This is either the thread selecting on the selector this connection
+   * is registered with, or the thread in {@link #await(long, boolean)}. If no thread is waiting
+   * at the moment, the next wait returns immediately instead.
+   */
+  public void wakeup() {
+    if (key != null) {
+      key.selector().wakeup();
+    } else if (chan == null) {
+      wakeupPending = true;
+      Thread thread = awaiting;
+      if (thread != null) {
+        LockSupport.unpark(thread);
+      }
     }
+  }
 
-    if (done) {
-      NetworkMessage msg = new NetworkMessage(currentType, currentBuilder.getObject());
-      currentBuilder = null; // remove last builder
-      return msg;
+  // waits until the channel can take more bytes, after it didn't accept any
+  private void awaitWritable() {
+    if (ringOut == null) {
+      Thread.onSpinWait(); // sockets are non-blocking, so we have to spin
+    } else {
+      ringOut.awaitWritable(Long.MAX_VALUE);
     }
-    return null;
   }
 
   /**
@@ -115,34 +332,194 @@ public class Connection implements AutoCloseable {
    * This method is thread-safe; concurrent calls will always block until the pending read
    * operation is complete.
    * @return sequence of messages in a queue
+   * @throws EOFException if the remote side has closed the connection
    * @throws IOException if an I/O error occurs
    * @throws SerializationException if the incoming bytes do not encode valid messages
+   * @see #read(MessageBatch)
    */
   public Queue<NetworkMessage> read() throws IOException, SerializationException {
+    synchronized (SYNC_READ) {
+      queueBatch.clear();
+      read(queueBatch);
+      Queue<NetworkMessage> messages = new ArrayDeque<>(queueBatch.size());
+      for (int i = 0; i < queueBatch.size(); i++) {
+        messages.add(new NetworkMessage(queueBatch.type(i), queueBatch.object(i)));
+      }
+      queueBatch.clear();
+      return messages;
+    }
+  }
+
+  /**
+   * Reads as many bytes as are available immediately, and appends all complete messages to the
+   * given batch. The messages are decoded directly from the receive buffer; the bytes of an
+   * incomplete message at the end are passed to a {@link SerialBuilder}, which continues with the
+   * bytes of the next calls. This way, a message spanning several reads is decoded only once.
+   * If a serialization error occurs, subsequent calls to this method will always throw a
+   * {@link SerializationException}. This does not affect writing, and it does not close the
+   * underlying socket.
+   * This method is thread-safe; concurrent calls will always block until the pending read
+   * operation is complete.
+   * @param batch the batch to append the messages to
+   * @return the amount of messages appended
+   * @throws EOFException if the remote side has closed the connection
+   * @throws IOException if an I/O error occurs
+   * @throws SerializationException if the incoming bytes do not encode valid messages
+   */
+  public int read(MessageBatch batch) throws IOException, SerializationException {
     synchronized (SYNC_READ) {
       if (readingFailed) {
         throw new SerializationException("failed previously");
       }
 
-      readBuffer.clear();
-      int numBytesAhead = chan.read(readBuffer);
+      // the buffer is in write mode, possibly containing the beginning of a message already
+      int numBytesAhead = in.read(readBuffer);
+      if (numBytesAhead < 0) {
+        // otherwise, a selector would report the channel as readable over and over again
+        throw new EOFException("connection closed by remote");
+      }
+      if (numBytesAhead == 0) {
+        return 0;
+      }
       readBuffer.flip();
 
-      Queue<NetworkMessage> messages = new ArrayDeque<>();
-      while (numBytesAhead-- > 0) { // if chan.read() returned 0 or -1 we do nothing
-        NetworkMessage msg = processByte(readBuffer.get());
-        if (msg != null) {
-          messages.add(msg);
+      int amount = 0;
+      try {
+        if (pendingBuilder != null) {
+          if (!feedPending()) {
+            readBuffer.clear();
+            return 0;
+          }
+          batch.add(pendingType, pendingBuilder.getObject());
+          pendingBuilder = null;
+          amount++;
         }
+        while (readBuffer.hasRemaining()) {
+          int start = readBuffer.position();
+          byte type = readBuffer.get();
+          Object obj = bp.decode(type, readBuffer);
+          // every object has at least one byte, so this distinguishes an incomplete message from
+          // a null object
+          if (readBuffer.position() == start + 1) {
+            pendingType = type;
+            pendingBuilder = bp.getBuilder(type);
+            feedPending();
+            break;
+          }
+          batch.add(type, obj);
+          amount++;
+        }
+      } catch (SerializationException e) {
+        readingFailed = true;
+        throw e;
+      }
+
+      // all bytes have been decoded or passed to the builder of an incomplete message
+      readBuffer.clear();
+      return amount;
+    }
+  }
+
+  // passes the remaining bytes of the receive buffer to the builder of the pending message, and
+  // returns whether the message is complete
+  private boolean feedPending() throws SerializationException {
+    while (readBuffer.hasRemaining()) {
+      if (pendingBuilder.addByte(readBuffer.get())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Queues a {@link NetworkMessage} to be written to this connection later, without blocking.
+   * The queued messages are written by {@link #flushPending()}, which the thread selecting on this
+   * connection should call according to {@link #nanosUntilFlush()} and whenever the channel is
+   * writable. The selector is woken up, if it may have to flush earlier than before.
+   * If this connection has no flush policy, the message is written synchronously.
+   * This method is thread-safe; messages are written in the order they are queued in.
+   * @param type the message type
+   * @param obj the message object
+   * @return {@code true} if the message was queued, {@code false} if the capacity of the queue is
+   *     exhausted (see {@link #awaitCapacity()})
+   * @throws IOException if an I/O error occurs while writing synchronously
+   * @throws SerializationException if the message cannot be encoded for this connection
+   */
+  public boolean offer(byte type, Object obj) throws IOException, SerializationException {
+    if (writeQueue == null) {
+      write(type, obj);
+      return true;
+    }
+    if (writingFailed) {
+      throw new SerializationException("failed previously");
+    }
+    long delayBefore = writeQueue.nanosUntilFlush();
+    boolean queued;
+    try {
+      queued = writeQueue.offer(type, obj);
+    } catch (SerializationException e) {
+      writingFailed = true;
+      throw e;
+    }
+    // wake up the selector, if nothing was pending before or the size threshold is reached now
+    if (queued && delayBefore != 0 && key != null
+        && (delayBefore < 0 || writeQueue.nanosUntilFlush() == 0)) {
+      key.selector().wakeup();
+    }
+    return queued;
+  }
+
+  /**
+   * Waits until messages can be queued again, i.e. until enough queued messages have been flushed
+   * or this connection is closed.
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  public void awaitCapacity() throws InterruptedException {
+    if (writeQueue != null) {
+      writeQueue.awaitCapacity();
+    }
+  }
+
+  /**
+   * Returns the time until the queued messages should be flushed according to the flush policy.
+   * @return the delay in nanoseconds, 0 if a flush is due, -1 if no messages are queued
+   */
+  public long nanosUntilFlush() {
+    return writeQueue == null ? -1 : writeQueue.nanosUntilFlush();
+  }
+
+  /**
+   * Writes as many queued messages as possible without blocking, using gathering writes.
+   * If not everything could be written, the caller should wait for the channel to become writable
+   * (i.e., select for {@link SelectionKey#OP_WRITE}) before flushing again.
+   * @return whether all queued messages have been written
+   * @throws IOException if an I/O error occurs
+   */
+  public boolean flushPending() throws IOException {
+    if (writeQueue == null) {
+      return true;
+    }
+    synchronized (SYNC_WRITE) {
+      return writeQueue.flush(out);
+    }
+  }
+
+  /**
+   * Writes all queued messages synchronously.
+   * @throws IOException if an I/O error occurs
+   */
+  public void flush() throws IOException {
+    synchronized (SYNC_WRITE) {
+      while (!flushPending()) { // force synchronous
+        awaitWritable();
       }
-      return messages;
     }
   }
 
   /**
    * Writes a {@link NetworkMessage} to this connection.
    * Writing is synchronous, which means that either the entire message is written or an exception
-   * is thrown.
+   * is thrown. Messages that have been queued before are written first.
    * If a serialization error occurs, subsequent calls to this method will always throw a
    * {@link SerializationException}. This does not affect reading, and it does not close the
    * underlying socket.
@@ -159,31 +536,53 @@ public class Connection implements AutoCloseable {
         throw new SerializationException("failed previously");
       }
 
-      ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
-      byteOut.write(type);
+      writeBuffer.clear();
+      writeBuffer.put(type);
       try {
-        bp.serialize(type, obj, byteOut);
+        while (!bp.encode(type, obj, writeBuffer)) {
+          writeBuffer = ByteBuffer.allocate(writeBuffer.capacity() * 2);
+          writeBuffer.put(type);
+        }
       } catch (SerializationException e) {
         writingFailed = true;
         throw e;
       }
-      ByteBuffer writeBuffer = ByteBuffer.wrap(byteOut.toByteArray());
+      writeBuffer.flip();
 
+      flush();
       while (writeBuffer.hasRemaining()) { // force synchronous
         // if another thread calls close(), this method may throw
         // ClosedChannelException or AsynchronousCloseException
-        chan.write(writeBuffer);
+        if (out.write(writeBuffer) == 0) {
+          awaitWritable();
+        }
       }
     }
   }
 
+  /**
+   * Returns whether this connection is open, i.e., it hasn't been closed by {@link #close()}.
+   * @return whether this connection is open
+   */
+  public boolean isOpen() {
+    return chan != null ? chan.isOpen() : ringIn.isOpen();
+  }
+
   /**
    * Closes this channel.
    * Calling this method may cause concurrent reads or writes to fail.
    */
   public void close() {
+    if (writeQueue != null) {
+      writeQueue.close();
+    }
     try {
-      chan.close();
+      if (chan != null) {
+        chan.close();
+      } else {
+        ringIn.close();
+        ringOut.close();
+      }
     } catch (Exception e) {
       // do nothing more; don't propagate exceptions to the outside
       // shutdown should not throw exceptions
@@ -1,17 +1,24 @@
 package edu.kit.satviz.network.general;
 
+import edu.kit.satviz.network.pub.FlushPolicy;
 import edu.kit.satviz.serial.SerializationException;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Queue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * A server connection to send and receive {@link NetworkMessage}s.
@@ -20,18 +27,33 @@ import java.util.concurrent.CopyOnWriteArrayList;
  *     writing to connections is synchronous.
  * The active connections are identified by an ID, which is a small, non-negative integer.
  * IDs are passed out sequentially, starting at 0. No ID is ever reused for another connection.
+ * The server either listens on a TCP port or on a Unix domain socket. The latter is only reachable
+ *     from the same machine, but avoids the overhead of TCP.
+ * For the highest throughput on the same machine, the server can also create a pair of
+ *     {@link SharedMemoryRing}s instead, which a single client can attach to. The events are the
+ *     same, but waiting for them is done by spinning and parking instead of a selector.
  */
 public class ConnectionServer implements AutoCloseable {
 
   private final NetworkBlueprint bp;
+  private final int readBufferSize;
   private int numConnections = 0;
   private final List<Connection> connections = new CopyOnWriteArrayList<>();
-  private final Selector sel;
+  private final Selector sel; // null if listening via shared memory
   private final ServerSocketChannel serverChan;
+  private final Path ringDir; // null if listening via a socket
+  private final SharedMemoryRing serverRing;
+  private final SharedMemoryRing clientRing;
 
   private Iterator<SelectionKey> selectedEvents = null;
   private int currentReadId;
-  private Queue<NetworkMessage> currentRead;
+  // messages of the last read that haven't been returned by poll() yet
+  private final MessageBatch currentRead = new MessageBatch();
+  private int currentReadIndex = 0;
+
+  // the thread waiting for rings in select(), and whether it should stop waiting
+  private volatile Thread awaiting = null;
+  private volatile boolean wakeupPending = false;
 
   private final Object SYNC_READ = new Object();
   private final Object SYNC_CONNECTIONS = new Object();
@@ -43,23 +65,112 @@ public class ConnectionServer implements AutoCloseable {
    * @throws IOException if an I/O error occurs
    */
   public ConnectionServer(int port, NetworkBlueprint bp) throws IOException {
+    this(port, bp, Connection.DEFAULT_READ_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates a new connection server by opening a server socket channel.
+   * Each accepted connection gets a direct receive buffer of the given size, which never grows;
+   *     larger messages are decoded across several reads.
+   * @param bp the types of messages
+   * @param port the server port, 0 for automatic assignment
+   * @param readBufferSize the size of the receive buffer of each connection in bytes
+   * @throws IOException if an I/O error occurs
+   * @throws IllegalArgumentException if the buffer size is not positive
+   */
+  public ConnectionServer(int port, NetworkBlueprint bp, int readBufferSize) throws IOException {
+    // bind to wildcard IP address
+    this(new InetSocketAddress(port), bp, readBufferSize);
+  }
+
+  /**
+   * Creates a new connection server by opening a server socket channel bound to the given address.
+   * If the address is a {@link UnixDomainSocketAddress}, the server listens on a Unix domain
+   *     socket. Its socket file must not exist yet, and is deleted when the server is closed.
+   * Each accepted connection gets a direct receive buffer of the given size, which never grows;
+   *     larger messages are decoded across several reads.
+   * @param address the local address, either an {@link InetSocketAddress} or a
+   *     {@link UnixDomainSocketAddress}
+   * @param bp the types of messages
+   * @param readBufferSize the size of the receive buffer of each connection in bytes
+   * @throws IOException if an I/O error occurs
+   * @throws IllegalArgumentException if the buffer size is not positive
+   */
+  public ConnectionServer(SocketAddress address, NetworkBlueprint bp, int readBufferSize)
+      throws IOException {
+    if (readBufferSize <= 0) {
+      throw new IllegalArgumentException("read buffer size must be positive");
+    }
     this.bp = bp;
+    this.readBufferSize = readBufferSize;
     this.sel = Selector.open();
-    this.serverChan = ServerSocketChannel.open();
+    this.serverChan = address instanceof UnixDomainSocketAddress
+        ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+        : ServerSocketChannel.open();
     this.serverChan.configureBlocking(false);
     this.serverChan.register(this.sel, SelectionKey.OP_ACCEPT);
-    // bind to wildcard IP address
-    this.serverChan.bind(new InetSocketAddress(port));
+    this.serverChan.bind(address);
+    this.ringDir = null;
+    this.serverRing = null;
+    this.clientRing = null;
   }
 
   /**
-   * Returns the local address that this server is bound to.
-   * @return local address
+   * Creates a new connection server by creating shared memory rings in the given directory, which
+   *     a single client on the same machine can attach to (see
+   *     {@link Connection#Connection(Path, NetworkBlueprint, FlushPolicy)}). The directory should
+   *     be in a memory-backed file system like {@code /dev/shm}. It is created if it doesn't exist,
+   *     but it must not contain rings already. The ring files are deleted as soon as a client has
+   *     attached, or when the server is closed.
+   * @param ringDir the directory for the rings
+   * @param ringCapacity the capacity of each of the two rings in bytes, a power of two
+   * @param bp the types of messages
+   * @param readBufferSize the size of the receive buffer in bytes
+   * @throws IOException if an I/O error occurs
+   * @throws IllegalArgumentException if the buffer size is not positive or the ring capacity is
+   *     not a power of two
+   */
+  public ConnectionServer(Path ringDir, int ringCapacity, NetworkBlueprint bp, int readBufferSize)
+      throws IOException {
+    if (readBufferSize <= 0) {
+      throw new IllegalArgumentException("read buffer size must be positive");
+    }
+    this.bp = bp;
+    this.readBufferSize = readBufferSize;
+    this.sel = null;
+    this.serverChan = null;
+    this.ringDir = ringDir;
+    Files.createDirectories(ringDir);
+    this.serverRing =
+        SharedMemoryRing.create(ringDir.resolve(Connection.SERVER_RING), ringCapacity);
+    try {
+      this.clientRing =
+          SharedMemoryRing.create(ringDir.resolve(Connection.CLIENT_RING), ringCapacity);
+    } catch (IOException e) {
+      Files.deleteIfExists(ringDir.resolve(Connection.SERVER_RING));
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the local IP address and port that this server is bound to.
+   * @return local address, {@code null} if this server listens on a Unix domain socket
    * @throws ClosedChannelException if the channel is closed
    * @throws IOException if an I/O error occurs
    */
   public InetSocketAddress getLocalAddress() throws IOException {
-    return (InetSocketAddress) serverChan.getLocalAddress();
+    return getLocalSocketAddress() instanceof InetSocketAddress local ? local : null;
+  }
+
+  /**
+   * Returns the local address that this server is bound to.
+   * @return local address, either an {@link InetSocketAddress} or a
+   *     {@link UnixDomainSocketAddress}, {@code null} if this server uses shared memory
+   * @throws ClosedChannelException if the channel is closed
+   * @throws IOException if an I/O error occurs
+   */
+  public SocketAddress getLocalSocketAddress() throws IOException {
+    return serverChan == null ? null : serverChan.getLocalAddress();
   }
 
   private PollEvent accept() {
@@ -71,7 +182,7 @@ public class ConnectionServer implements AutoCloseable {
         client.configureBlocking(false);
         // attach connection ID for quick find
         client.register(sel, SelectionKey.OP_READ, numConnections);
-        connections.add(new Connection(client, bp));
+        connections.add(new Connection(client, bp, readBufferSize));
       } catch (Exception e) {
         return new PollEvent(PollEvent.EventType.FAIL, -1, e);
       }
@@ -84,14 +195,30 @@ public class ConnectionServer implements AutoCloseable {
    * @return pending event, possibly {@code null}
    */
   public PollEvent pollPrevious() {
-    do {
-      if (currentRead != null && !currentRead.isEmpty()) {
-        return new PollEvent(PollEvent.EventType.READ, currentReadId, currentRead.poll());
+    synchronized (SYNC_READ) {
+      if (currentReadIndex < currentRead.size()) {
+        int index = currentReadIndex++;
+        return new PollEvent(PollEvent.EventType.READ, currentReadId,
+            new NetworkMessage(currentRead.type(index), currentRead.object(index)));
       }
-      if (selectedEvents == null || !selectedEvents.hasNext()) {
-        break;
+      currentRead.clear();
+      currentReadIndex = 0;
+      PollEvent event = nextEvent(currentRead);
+      if (event != null && event.type() == PollEvent.EventType.READ) {
+        currentReadIndex = 1;
+        return new PollEvent(PollEvent.EventType.READ, currentReadId,
+            new NetworkMessage(currentRead.type(0), currentRead.object(0)));
       }
+      return event;
+    }
+  }
 
+  // processes the selected keys until an event occurs; messages of a read are added to the batch
+  private PollEvent nextEvent(MessageBatch batch) {
+    if (ringDir != null) {
+      return nextRingEvent(batch);
+    }
+    while (selectedEvents != null && selectedEvents.hasNext()) {
       SelectionKey key = selectedEvents.next();
       selectedEvents.remove(); // avoid processing the same key twice
 
@@ -101,14 +228,47 @@ public class ConnectionServer implements AutoCloseable {
         currentReadId = (int) key.attachment();
         Connection conn = connections.get(currentReadId);
         try {
-          currentRead = conn.read();
+          if (conn.read(batch) > 0) {
+            return new PollEvent(PollEvent.EventType.READ, currentReadId, batch);
+          }
         } catch (Exception e) {
-          currentRead = null;
+          // a failed connection would be selected over and over again
+          conn.close();
           return new PollEvent(PollEvent.EventType.FAIL, currentReadId, e);
         }
       }
-    } while (true); // finite loop because iterator has finite length
+    } // finite loop because iterator has finite length
+
+    return null;
+  }
 
+  // like nextEvent, but checks the rings instead of selected keys
+  private PollEvent nextRingEvent(MessageBatch batch) {
+    if (connections.isEmpty()) {
+      if (!serverRing.isAttached()) {
+        return null;
+      }
+      // both sides have mapped the rings now, so their files are not needed anymore and can't be
+      // left behind if either process crashes
+      deleteRingFiles();
+      synchronized (SYNC_CONNECTIONS) {
+        connections.add(new Connection(serverRing, clientRing, bp, readBufferSize));
+        return new PollEvent(PollEvent.EventType.ACCEPT, numConnections++, null);
+      }
+    }
+    currentReadId = 0;
+    Connection conn = connections.get(0);
+    if (!conn.isOpen()) {
+      return null;
+    }
+    try {
+      if (conn.read(batch) > 0) {
+        return new PollEvent(PollEvent.EventType.READ, 0, batch);
+      }
+    } catch (Exception e) {
+      conn.close();
+      return new PollEvent(PollEvent.EventType.FAIL, 0, e);
+    }
     return null;
   }
 
@@ -129,17 +289,111 @@ public class ConnectionServer implements AutoCloseable {
       }
 
       // found no events remaining; poll new
-      try {
-        sel.select(1000);
-      } catch (Exception e) {
-        return new PollEvent(PollEvent.EventType.FAIL, -1, e);
+      PollEvent failure = select(1000);
+      if (failure != null) {
+        return failure;
       }
-      selectedEvents = sel.selectedKeys().iterator();
 
       return pollPrevious();
     }
   }
 
+  /**
+   * Polls for events like {@link #poll()}, but returns all messages read from a connection at once.
+   * A {@code READ} event carries the given batch as its object, which contains all the messages
+   *     that one read of the connection produced. The batch is cleared first, so its messages have
+   *     to be processed before the next call.
+   * This method should not be mixed with {@link #poll()}, except that messages not yet returned by
+   *     {@code poll()} are returned by this method first.
+   * @param batch the reusable batch for the read messages
+   * @return an event, possibly {@code null}
+   */
+  public PollEvent pollBatch(MessageBatch batch) {
+    return pollBatch(batch, 1000);
+  }
+
+  /**
+   * Polls for events like {@link #pollBatch(MessageBatch)}, but waits for at most the given time
+   *     if there are no events pending. A waiting poll can be ended early with {@link #wakeup()}.
+   * @param batch the reusable batch for the read messages
+   * @param timeoutMillis the maximum time to wait in milliseconds, 0 to wait until an event occurs
+   *     or the server is woken up
+   * @return an event, possibly {@code null}
+   * @throws IllegalArgumentException if the timeout is negative
+   */
+  public PollEvent pollBatch(MessageBatch batch, long timeoutMillis) {
+    if (timeoutMillis < 0) {
+      throw new IllegalArgumentException("negative timeout");
+    }
+    synchronized (SYNC_READ) {
+      batch.clear();
+      if (currentReadIndex < currentRead.size()) {
+        for (int i = currentReadIndex; i < currentRead.size(); i++) {
+          batch.add(currentRead.type(i), currentRead.object(i));
+        }
+        currentRead.clear();
+        currentReadIndex = 0;
+        return new PollEvent(PollEvent.EventType.READ, currentReadId, batch);
+      }
+
+      PollEvent event = nextEvent(batch);
+      if (event != null) {
+        return event;
+      }
+
+      // found no events remaining; poll new
+      PollEvent failure = select(timeoutMillis);
+      if (failure != null) {
+        return failure;
+      }
+
+      return nextEvent(batch);
+    }
+  }
+
+  // waits for new events, returns a global fail event if that doesn't work
+  private PollEvent select(long timeoutMillis) {
+    if (ringDir != null) {
+      awaiting = Thread.currentThread();
+      try {
+        // a ring closed by the client ends the wait, so that the next read reports the failure
+        SharedMemoryRing.await(() -> wakeupPending
+                || (connections.isEmpty() ? serverRing.isAttached()
+                    : serverRing.readable() > 0 || (serverRing.isClosed() && serverRing.isOpen())),
+            timeoutMillis == 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+      } finally {
+        awaiting = null;
+        wakeupPending = false;
+      }
+      return null;
+    }
+    try {
+      sel.select(timeoutMillis);
+    } catch (Exception e) {
+      return new PollEvent(PollEvent.EventType.FAIL, -1, e);
+    }
+    selectedEvents = sel.selectedKeys().iterator();
+    return null;
+  }
+
+  /**
+   * Causes a poll that is waiting for events to return immediately, like {@link Selector#wakeup()}.
+   *     If no poll is waiting at the moment, the next one returns immediately instead.
+   * This method is thread-safe, so it can be used to make the polling thread notice requests from
+   *     other threads, e.g. to close this server.
+   */
+  public void wakeup() {
+    if (sel != null) {
+      sel.wakeup();
+      return;
+    }
+    wakeupPending = true;
+    Thread thread = awaiting;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
   /**
    * Writes a {@link NetworkMessage} to one of the registered connections.
    * Concurrent writes to different connections are possible. Writes to the same connection are
@@ -177,6 +431,23 @@ public class ConnectionServer implements AutoCloseable {
     }
   }
 
+  private void closeRings() {
+    serverRing.close();
+    clientRing.close();
+    deleteRingFiles();
+  }
+
+  private void deleteRingFiles() {
+    try {
+      // a client that is attached already keeps its mapping
+      Files.deleteIfExists(ringDir.resolve(Connection.SERVER_RING));
+      Files.deleteIfExists(ringDir.resolve(Connection.CLIENT_RING));
+      Files.deleteIfExists(ringDir);
+    } catch (Exception e) {
+      // the directory is not empty, or cannot be deleted for other reasons
+    }
+  }
+
   /**
    * Closes all registered connections, and the server socket itself.
    * Calling this method may cause concurrent polls or writes to fail.
@@ -187,8 +458,17 @@ public class ConnectionServer implements AutoCloseable {
       for (int i = 0; i < numConnections; i++) {
         close(i);
       }
+      if (ringDir != null) {
+        closeRings();
+        return;
+      }
       try {
+        SocketAddress local = serverChan.getLocalAddress();
         serverChan.close();
+        if (local instanceof UnixDomainSocketAddress uds) {
+          // unlike ports, socket files are not released automatically
+          Files.deleteIfExists(uds.getPath());
+        }
       } catch (Exception e) {
         // do nothing more; don't propagate exceptions to the outside
         // shutdown should not throw exceptions
@@ -0,0 +1,81 @@
+package edu.kit.satviz.network.general;
+
+import java.util.Arrays;
+
+/**
+ * A reusable sequence of received messages, consisting of the types and objects of
+ * {@link NetworkMessage}s without creating a message object for each of them.
+ * A batch is filled by {@link Connection#read(MessageBatch)} and
+ * {@link ConnectionServer#pollBatch(MessageBatch)}, and should be processed before it is
+ * filled again.
+ */
+public final class MessageBatch {
+  private static final int DEFAULT_CAP = 64;
+
+  private byte[] types = new byte[DEFAULT_CAP];
+  private Object[] objects = new Object[DEFAULT_CAP];
+  private int size = 0;
+
+  /**
+   * Returns the amount of messages in this batch.
+   * @return the amount of messages
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether this batch contains no messages.
+   * @return {@code true} if the batch is empty
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the type of a message.
+   * @param index the index of the message
+   * @return the message type
+   * @throws IndexOutOfBoundsException if the index is invalid
+   */
+  public byte type(int index) {
+    checkIndex(index);
+    return types[index];
+  }
+
+  /**
+   * Returns the object of a message.
+   * @param index the index of the message
+   * @return the message object
+   * @throws IndexOutOfBoundsException if the index is invalid
+   */
+  public Object object(int index) {
+    checkIndex(index);
+    return objects[index];
+  }
+
+  /**
+   * Removes all messages from this batch, keeping its capacity.
+   */
+  public void clear() {
+    // release the objects, so they can be collected
+    Arrays.fill(objects, 0, size, null);
+    size = 0;
+  }
+
+  void add(byte type, Object obj) {
+    if (size == types.length) {
+      types = Arrays.copyOf(types, size * 2);
+      objects = Arrays.copyOf(objects, size * 2);
+    }
+    types[size] = type;
+    objects[size] = obj;
+    size++;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+    }
+  }
+}
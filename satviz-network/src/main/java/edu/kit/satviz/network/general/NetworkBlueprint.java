@@ -5,6 +5,7 @@ import edu.kit.satviz.serial.SerializationException;
 import edu.kit.satviz.serial.Serializer;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 /**
@@ -44,6 +45,45 @@ public class NetworkBlueprint {
     }
   }
 
+  /**
+   * Encodes an object according to its type.
+   *
+   * @param type the type
+   * @param obj the object to encode
+   * @param out the buffer to write to
+   * @return <code>true</code> if the object was written, <code>false</code> if the buffer doesn't
+   *     have enough space left
+   * @throws SerializationException if the serialization didn't work
+   * @see Serializer#encode(Object, ByteBuffer)
+   */
+  public boolean encode(byte type, Object obj, ByteBuffer out) throws SerializationException {
+    Serializer<?> serial = serializers[Byte.toUnsignedInt(type)];
+    if (serial != null) {
+      return serial.encodeUnsafe(obj, out);
+    } else {
+      throw new SerializationException("no serializer available");
+    }
+  }
+
+  /**
+   * Decodes an object according to its type.
+   *
+   * @param type the type
+   * @param in the buffer to read from
+   * @return the decoded object, <code>null</code> if more bytes are needed
+   * @throws SerializationException if there is no serializer for the type
+   *     or the buffer contains invalid data
+   * @see Serializer#decode(ByteBuffer)
+   */
+  public Object decode(byte type, ByteBuffer in) throws SerializationException {
+    Serializer<?> serial = serializers[Byte.toUnsignedInt(type)];
+    if (serial != null) {
+      return serial.decode(in);
+    } else {
+      throw new SerializationException("no builder available for type " + type);
+    }
+  }
+
   /**
    * Returns a deserialization builder according to the given type.
    *
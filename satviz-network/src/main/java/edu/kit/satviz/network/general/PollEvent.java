@@ -11,7 +11,10 @@ public record PollEvent(EventType type, int id, Object obj) {
   public enum EventType {
     /** A new connection is accepted. {@code obj} is {@code null}. */
     ACCEPT,
-    /** A message was read from a connection. {@code obj} is a {@link NetworkMessage} */
+    /**
+     * A message was read from a connection. {@code obj} is a {@link NetworkMessage}, or a
+     * {@link MessageBatch} if the event was returned by {@link ConnectionServer#pollBatch}
+     */
     READ,
     /** A connection (or the entire server) failed. {@code obj} is an {@link Exception} */
     FAIL
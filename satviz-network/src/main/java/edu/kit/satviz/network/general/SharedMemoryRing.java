@@ -0,0 +1,318 @@
+package edu.kit.satviz.network.general;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.net.ConnectException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A single-producer/single-consumer byte ring in a memory-mapped file, which transports bytes in
+ * one direction between two processes on the same machine.
+ * The file should reside in a memory-backed file system (e.g., {@code /dev/shm}), so that the
+ * bytes never reach a disk. Exactly one thread may write and exactly one thread may read at a time.
+ *
+ * <p>The file starts with a header, followed by the data area. The writer and the reader each own
+ * a sequence counter (the total amount of bytes written or read), which are published with release
+ * semantics and read with acquire semantics. The amount of readable bytes is the difference
+ * between the counters. No locks or system calls are needed for a transfer; waiting for the other
+ * side is done by spinning shortly, then parking with an increasing delay.
+ */
+final class SharedMemoryRing implements ByteChannel, GatheringByteChannel {
+  private static final int MAGIC = 0x73767a72; // "svzr"
+  private static final int MAGIC_OFFSET = 0;
+  private static final int CAPACITY_OFFSET = 4;
+  // the counters are on separate cache lines to avoid false sharing
+  private static final int WRITE_SEQ_OFFSET = 64;
+  private static final int READ_SEQ_OFFSET = 128;
+  private static final int FLAGS_OFFSET = 192;
+  private static final int HEADER_SIZE = 256;
+
+  /** The ring has been closed by one of the two sides. */
+  private static final int FLAG_CLOSED = 1;
+  /** The other process has attached to the ring (see {@link #attach()}). */
+  private static final int FLAG_ATTACHED = 2;
+
+  // spinning only helps if the other side can make progress on another processor meanwhile
+  private static final int SPIN_ITERATIONS =
+      Runtime.getRuntime().availableProcessors() > 1 ? 1000 : 0;
+  private static final long MIN_PARK_NANOS = 1_000;
+  private static final long MAX_PARK_NANOS = 1_000_000;
+
+  private static final VarHandle LONG =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+  private static final VarHandle INT =
+      MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+  private final MappedByteBuffer map;
+  private final ByteBuffer data;
+  private final int capacity;
+  // local copies of the counters; each side only ever updates its own counter
+  private long writeSeq;
+  private long readSeq;
+  private volatile boolean open = true;
+
+  private SharedMemoryRing(MappedByteBuffer map) throws IOException {
+    this.map = map;
+    int magic = (int) INT.getVolatile(map, MAGIC_OFFSET);
+    if (magic == 0) {
+      // the magic number is written last by create()
+      throw new ConnectException("ring is not completely created yet");
+    }
+    this.capacity = (int) INT.getVolatile(map, CAPACITY_OFFSET);
+    if (magic != MAGIC || capacity <= 0 || map.capacity() < HEADER_SIZE + capacity) {
+      throw new IOException("not a satviz ring");
+    }
+    this.data = map.slice(HEADER_SIZE, capacity);
+    this.writeSeq = (long) LONG.getAcquire(map, WRITE_SEQ_OFFSET);
+    this.readSeq = (long) LONG.getAcquire(map, READ_SEQ_OFFSET);
+  }
+
+  /**
+   * Creates the file of a new ring. The file must not exist yet.
+   * @param file the path of the file
+   * @param capacity the size of the data area in bytes, a power of two
+   * @return the ring
+   * @throws IOException if an I/O error occurs, e.g. if the file exists already
+   * @throws IllegalArgumentException if the capacity is not a power of two
+   */
+  static SharedMemoryRing create(Path file, int capacity) throws IOException {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("ring capacity must be a power of two");
+    }
+    try (FileChannel fc = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      MappedByteBuffer map = fc.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity);
+      INT.setVolatile(map, CAPACITY_OFFSET, capacity);
+      INT.setVolatile(map, MAGIC_OFFSET, MAGIC);
+      return new SharedMemoryRing(map);
+    }
+  }
+
+  /**
+   * Opens the existing file of a ring.
+   * @param file the path of the file
+   * @return the ring
+   * @throws java.nio.file.NoSuchFileException if the file doesn't exist
+   * @throws ConnectException if the file is still being created by {@link #create(Path, int)}
+   * @throws IOException if an I/O error occurs, or the file is not a ring
+   */
+  static SharedMemoryRing open(Path file) throws IOException {
+    try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      if (fc.size() < HEADER_SIZE) {
+        throw new ConnectException("ring is not completely created yet");
+      }
+      return new SharedMemoryRing(fc.map(FileChannel.MapMode.READ_WRITE, 0, fc.size()));
+    }
+  }
+
+  /**
+   * Marks this ring as attached by the other process.
+   * @return {@code false} if the ring was attached before
+   */
+  boolean attach() {
+    int flags;
+    do {
+      flags = (int) INT.getVolatile(map, FLAGS_OFFSET);
+      if ((flags & FLAG_ATTACHED) != 0) {
+        return false;
+      }
+    } while (!INT.compareAndSet(map, FLAGS_OFFSET, flags, flags | FLAG_ATTACHED));
+    return true;
+  }
+
+  /**
+   * Returns whether the other process has attached to this ring.
+   * @return whether {@link #attach()} has been called
+   */
+  boolean isAttached() {
+    return ((int) INT.getVolatile(map, FLAGS_OFFSET) & FLAG_ATTACHED) != 0;
+  }
+
+  /**
+   * Returns whether either side has closed this ring.
+   * @return whether the ring is closed
+   */
+  boolean isClosed() {
+    return ((int) INT.getVolatile(map, FLAGS_OFFSET) & FLAG_CLOSED) != 0;
+  }
+
+  /**
+   * Returns the amount of bytes that can be read without waiting.
+   * @return the amount of readable bytes
+   */
+  int readable() {
+    return (int) ((long) LONG.getAcquire(map, WRITE_SEQ_OFFSET) - readSeq);
+  }
+
+  /**
+   * Returns the amount of bytes that can be written without waiting.
+   * @return the amount of free bytes
+   */
+  int writable() {
+    return capacity - (int) (writeSeq - (long) LONG.getAcquire(map, READ_SEQ_OFFSET));
+  }
+
+  /**
+   * Reads as many bytes as are available immediately.
+   * @param dst the buffer to read into
+   * @return the amount of bytes read, -1 if the ring is closed and has no bytes left
+   * @throws ClosedChannelException if this side has closed the ring
+   */
+  @Override
+  public int read(ByteBuffer dst) throws ClosedChannelException {
+    ensureOpen();
+    int n = Math.min(readable(), dst.remaining());
+    if (n == 0) {
+      return isClosed() && readable() == 0 && dst.hasRemaining() ? -1 : 0;
+    }
+    int index = (int) readSeq & (capacity - 1);
+    int first = Math.min(n, capacity - index);
+    dst.put(data.slice(index, first));
+    if (first < n) {
+      dst.put(data.slice(0, n - first));
+    }
+    readSeq += n;
+    LONG.setRelease(map, READ_SEQ_OFFSET, readSeq);
+    return n;
+  }
+
+  /**
+   * Writes as many bytes as fit into the ring immediately.
+   * @param src the buffer to write from
+   * @return the amount of bytes written
+   * @throws ClosedChannelException if either side has closed the ring
+   */
+  @Override
+  public int write(ByteBuffer src) throws ClosedChannelException {
+    ensureOpen();
+    if (isClosed()) {
+      throw new ClosedChannelException();
+    }
+    int n = Math.min(writable(), src.remaining());
+    if (n == 0) {
+      return 0;
+    }
+    int index = (int) writeSeq & (capacity - 1);
+    int first = Math.min(n, capacity - index);
+    data.put(index, src, src.position(), first);
+    if (first < n) {
+      data.put(0, src, src.position() + first, n - first);
+    }
+    src.position(src.position() + n);
+    writeSeq += n;
+    LONG.setRelease(map, WRITE_SEQ_OFFSET, writeSeq);
+    return n;
+  }
+
+  @Override
+  public long write(ByteBuffer[] srcs, int offset, int length) throws ClosedChannelException {
+    long written = 0;
+    for (int i = offset; i < offset + length; i++) {
+      int remaining = srcs[i].remaining();
+      int n = write(srcs[i]);
+      written += n;
+      if (n < remaining) {
+        break;
+      }
+    }
+    return written;
+  }
+
+  @Override
+  public long write(ByteBuffer[] srcs) throws ClosedChannelException {
+    return write(srcs, 0, srcs.length);
+  }
+
+  /**
+   * Waits until bytes can be read, or the timeout has passed.
+   * @param timeoutNanos the maximum time to wait in nanoseconds
+   * @return whether bytes can be read
+   */
+  boolean awaitReadable(long timeoutNanos) {
+    return await(() -> readable() > 0, timeoutNanos);
+  }
+
+  /**
+   * Waits until bytes can be written, the ring is closed or the timeout has passed.
+   * @param timeoutNanos the maximum time to wait in nanoseconds
+   * @return whether bytes can be written
+   */
+  boolean awaitWritable(long timeoutNanos) {
+    return await(() -> writable() > 0 || isClosed(), timeoutNanos) && !isClosed();
+  }
+
+  /**
+   * Waits until a condition on shared memory holds, without any notification from the other
+   * process: first by spinning, as the other side usually responds quickly under load, then by
+   * parking for increasingly long periods, so that an idle ring uses little CPU time.
+   * @param condition the condition
+   * @param timeoutNanos the maximum time to wait in nanoseconds
+   * @return whether the condition holds
+   */
+  static boolean await(BooleanSupplier condition, long timeoutNanos) {
+    for (int i = 0; i < SPIN_ITERATIONS; i++) {
+      if (condition.getAsBoolean()) {
+        return true;
+      }
+      Thread.onSpinWait();
+    }
+    long start = System.nanoTime();
+    long park = MIN_PARK_NANOS;
+    while (!condition.getAsBoolean()) {
+      long remaining = timeoutNanos - (System.nanoTime() - start); // no overflow for MAX_VALUE
+      if (remaining <= 0 || Thread.currentThread().isInterrupted()) {
+        return false;
+      }
+      LockSupport.parkNanos(Math.min(park, remaining));
+      park = Math.min(park * 2, MAX_PARK_NANOS);
+    }
+    return true;
+  }
+
+  private void ensureOpen() throws ClosedChannelException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  /**
+   * Gives up this side's access to the ring without closing it for the other side, e.g. if
+   * attaching failed. The mapping is released once the ring is garbage collected.
+   */
+  void release() {
+    open = false;
+  }
+
+  /**
+   * Closes this ring for both sides. Bytes that have been written already can still be read by the
+   * other side.
+   */
+  @Override
+  public void close() {
+    if (!open) {
+      return;
+    }
+    open = false;
+    int flags;
+    do {
+      flags = (int) INT.getVolatile(map, FLAGS_OFFSET);
+    } while (!INT.compareAndSet(map, FLAGS_OFFSET, flags, flags | FLAG_CLOSED));
+  }
+}
@@ -0,0 +1,187 @@
+package edu.kit.satviz.network.general;
+
+import edu.kit.satviz.network.pub.FlushPolicy;
+import edu.kit.satviz.serial.SerializationException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded queue of encoded messages, which are written to a channel in bulk.
+ * Messages are encoded directly into a ring of pooled direct buffers (segments). Flushing writes
+ * all filled segments at once with a gathering write and returns drained segments to the pool.
+ * All methods synchronize on this queue.
+ */
+final class WriteQueue {
+  /** Size of a pooled segment; larger messages get a segment of their own. */
+  private static final int SEGMENT_SIZE = 64 * 1024;
+  /** Maximum amount of segments written by a single gathering write. */
+  private static final int MAX_GATHER = 16;
+
+  private final NetworkBlueprint bp;
+  private final FlushPolicy policy;
+  private final long lingerNanos;
+  private final int segmentSize;
+  private final int maxPooled;
+
+  // filled segments in read mode, in the order they have to be written
+  private final ArrayDeque<ByteBuffer> segments = new ArrayDeque<>();
+  private final ArrayDeque<ByteBuffer> pool = new ArrayDeque<>();
+  private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+  // the segment currently appended to, in write mode
+  private ByteBuffer tail = null;
+
+  private long pending = 0;
+  private long firstPendingNanos;
+  private boolean closed = false;
+
+  WriteQueue(NetworkBlueprint bp, FlushPolicy policy) {
+    this.bp = bp;
+    this.policy = policy;
+    this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(policy.maxLingerMicros());
+    this.segmentSize = Math.min(SEGMENT_SIZE, policy.capacity());
+    this.maxPooled = Math.max(1, policy.capacity() / segmentSize);
+  }
+
+  /**
+   * Appends a message, if the capacity of this queue allows it. A message is always accepted if the
+   * queue is empty, so that messages larger than the capacity can be sent as well.
+   * @param type the message type
+   * @param obj the message object
+   * @return whether the message was appended
+   * @throws SerializationException if the message cannot be encoded
+   */
+  synchronized boolean offer(byte type, Object obj) throws SerializationException {
+    if (pending > 0 && pending >= policy.capacity()) {
+      return false;
+    }
+    if (tail == null) {
+      tail = takeSegment();
+    }
+    if (!append(tail, type, obj)) {
+      // doesn't fit into the rest of the tail, continue with a new segment
+      sealTail();
+      tail = takeSegment();
+      if (!append(tail, type, obj)) {
+        segments.add(encodeLarge(type, obj));
+      }
+    }
+    return true;
+  }
+
+  private boolean append(ByteBuffer segment, byte type, Object obj)
+      throws SerializationException {
+    int start = segment.position();
+    if (!segment.hasRemaining()) {
+      return false;
+    }
+    segment.put(type);
+    if (!bp.encode(type, obj, segment)) {
+      segment.position(start);
+      return false;
+    }
+    addPending(segment.position() - start);
+    return true;
+  }
+
+  private ByteBuffer encodeLarge(byte type, Object obj) throws SerializationException {
+    ByteBuffer buffer = ByteBuffer.allocate(segmentSize * 2);
+    while (!append(buffer, type, obj)) {
+      buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+    }
+    return buffer.flip();
+  }
+
+  private void addPending(int bytes) {
+    if (pending == 0) {
+      firstPendingNanos = System.nanoTime();
+    }
+    pending += bytes;
+  }
+
+  private ByteBuffer takeSegment() {
+    ByteBuffer segment = pool.poll();
+    return segment != null ? segment : ByteBuffer.allocateDirect(segmentSize);
+  }
+
+  private void sealTail() {
+    if (tail == null) {
+      return;
+    }
+    if (tail.position() > 0) {
+      segments.add(tail.flip());
+    } else {
+      pool.add(tail);
+    }
+    tail = null;
+  }
+
+  /**
+   * Writes as many pending bytes as the channel accepts without blocking.
+   * @param chan the channel to write to
+   * @return whether all pending bytes have been written
+   * @throws IOException if an I/O error occurs
+   */
+  synchronized boolean flush(GatheringByteChannel chan) throws IOException {
+    sealTail();
+    while (!segments.isEmpty()) {
+      int n = 0;
+      Iterator<ByteBuffer> it = segments.iterator();
+      while (n < MAX_GATHER && it.hasNext()) {
+        gather[n++] = it.next();
+      }
+      long written = chan.write(gather, 0, n);
+      pending -= written;
+      while (!segments.isEmpty() && !segments.peek().hasRemaining()) {
+        recycle(segments.poll());
+      }
+      if (written == 0) {
+        break; // socket buffer is full
+      }
+    }
+    notifyAll();
+    return segments.isEmpty();
+  }
+
+  private void recycle(ByteBuffer segment) {
+    if (segment.isDirect() && segment.capacity() == segmentSize && pool.size() < maxPooled) {
+      pool.add(segment.clear());
+    }
+  }
+
+  /**
+   * Returns the time until the pending bytes should be flushed according to the flush policy.
+   * @return the delay in nanoseconds, 0 if a flush is due, -1 if nothing is pending
+   */
+  synchronized long nanosUntilFlush() {
+    if (pending == 0) {
+      return -1;
+    }
+    if (pending >= policy.sizeThreshold()) {
+      return 0;
+    }
+    return Math.max(0, firstPendingNanos + lingerNanos - System.nanoTime());
+  }
+
+  synchronized boolean isEmpty() {
+    return pending == 0;
+  }
+
+  /**
+   * Waits until the capacity allows appending new messages or the queue is closed.
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  synchronized void awaitCapacity() throws InterruptedException {
+    while (!closed && pending > 0 && pending >= policy.capacity()) {
+      wait();
+    }
+  }
+
+  synchronized void close() {
+    closed = true;
+    notifyAll();
+  }
+}
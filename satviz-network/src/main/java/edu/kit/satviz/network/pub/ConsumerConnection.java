@@ -1,17 +1,23 @@
 package edu.kit.satviz.network.pub;
 
+import edu.kit.satviz.network.general.Connection;
 import edu.kit.satviz.network.general.ConnectionServer;
-import edu.kit.satviz.network.general.NetworkMessage;
+import edu.kit.satviz.network.general.MessageBatch;
 import edu.kit.satviz.network.general.PollEvent;
 import edu.kit.satviz.sat.Clause;
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.ClauseUpdate;
 import edu.kit.satviz.sat.SatAssignment;
+import edu.kit.satviz.serial.SerializationException;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 // if there is time, make sure serialization or class cast errors are properly handled
@@ -23,24 +29,65 @@ import java.util.function.Consumer;
  * {@link ConsumerConnectionListener}, and can be started or stopped independently.
  * The common use case of the connect listener is to install a {@link ConsumerConnectionListener}
  * for the new connection. Additionally, a fail listener is called when a global error occurs.
+ * Producers that support it are subject to credit-based flow control: each producer may only send
+ * as many clause updates as this consumer has granted it credits for. The credits are granted
+ * again as soon as the listener has processed the clause updates, so a slow listener slows down
+ * the producer instead of letting its messages pile up.
+ * Producers that support sessions are additionally sent periodic acknowledgements of the amount of
+ * clause updates the listener has processed (e.g., stored in an external buffer). If the connection
+ * to such a producer is lost, the listener is not notified right away. Instead, the producer may
+ * reconnect within {@link #RESUME_TIMEOUT_MILLIS} and continue after the last processed clause
+ * update, which is transparent to the listener. Only if it doesn't, the listener is notified.
  */
 public class ConsumerConnection {
   private final Object SYNC_START = new Object();
   private boolean started = false;
   private volatile boolean shouldClose = false;
 
+  /** The default amount of clause updates a producer may send without waiting for credits. */
+  public static final int DEFAULT_CREDIT_WINDOW = 65536;
+
+  /** The amount of processed clause updates after which a producer is sent an acknowledgement. */
+  public static final int ACK_INTERVAL = 4096;
+
+  /** The time in milliseconds a producer has to resume a session after losing the connection. */
+  public static final long RESUME_TIMEOUT_MILLIS = 60_000;
+
   private static class ConnectionData {
     public ProducerId pid = null;
     public ConsumerConnectionListener ls = null;
     public boolean isDisconnected = false;
+    public int version = 1;
+    // the ID of the server connection, which changes when a session is resumed
+    public int serverId;
+    // flow control, only used while holding the lock on this object
+    public boolean creditsEnabled = false;
+    public long credits = 0;
+    public int processed = 0;
+    public long stallStart = -1;
+    public long stallNanos = 0;
+    // sessions, only used while holding the lock on this object
+    public String session = null;
+    public long received = 0;
+    public long acknowledged = 0;
+    public long suspendedAt = -1; // the time the connection was lost, -1 if it wasn't
+    public String failMessage = null;
+
+    ConnectionData(int serverId) {
+      this.serverId = serverId;
+    }
   }
 
-  private final int port;
+  private final SocketAddress address;
+  private final int readBufferSize;
+  private final int creditWindow;
+  private final MessageBatch readBatch = new MessageBatch();
   private final Consumer<ProducerId> lsConnect;
   private final Consumer<String> lsFail;
   private final List<ConnectionData> connections = new CopyOnWriteArrayList<>();
 
   private ConnectionServer server = null;
+  private int suspendedSessions = 0; // only used by the worker thread
 
   /**
    * Creates a new connection servicing an arbitrary number of producers.
@@ -49,7 +96,79 @@ public class ConsumerConnection {
    * @param lsFail the fail listener
    */
   public ConsumerConnection(int port, Consumer<ProducerId> lsConnect, Consumer<String> lsFail) {
-    this.port = port;
+    this(port, lsConnect, lsFail, Connection.DEFAULT_READ_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates a new connection servicing an arbitrary number of producers, which receives messages
+   * using a direct buffer of the given size per producer. The buffer never grows; larger messages
+   * are decoded across several reads.
+   * @param port the port on which to listen for producers
+   * @param lsConnect the connect listener, not {@code null}
+   * @param lsFail the fail listener
+   * @param readBufferSize the size of the receive buffer of each producer connection in bytes
+   * @throws IllegalArgumentException if the buffer size is not positive
+   */
+  public ConsumerConnection(int port, Consumer<ProducerId> lsConnect, Consumer<String> lsFail,
+                            int readBufferSize) {
+    this(port, lsConnect, lsFail, readBufferSize, DEFAULT_CREDIT_WINDOW);
+  }
+
+  /**
+   * Creates a new connection servicing an arbitrary number of producers, which receives messages
+   * using a direct buffer of the given size per producer and grants each producer credits for the
+   * given amount of clause updates at a time. The buffer never grows; larger messages are decoded
+   * across several reads.
+   * @param port the port on which to listen for producers
+   * @param lsConnect the connect listener, not {@code null}
+   * @param lsFail the fail listener
+   * @param readBufferSize the size of the receive buffer of each producer connection in bytes
+   * @param creditWindow the maximum amount of clause updates a producer may send before they have
+   *     been processed, 0 to disable flow control
+   * @throws IllegalArgumentException if the buffer size is not positive or the window is negative
+   */
+  public ConsumerConnection(int port, Consumer<ProducerId> lsConnect, Consumer<String> lsFail,
+                            int readBufferSize, int creditWindow) {
+    this(new InetSocketAddress(port), lsConnect, lsFail, readBufferSize, creditWindow);
+  }
+
+  /**
+   * Creates a new connection servicing an arbitrary number of producers, which listens on the
+   * given address, e.g. a {@link UnixDomainSocketAddress} or a {@link SharedMemoryAddress}.
+   * @param address the address on which to listen for producers, not {@code null}
+   * @param lsConnect the connect listener, not {@code null}
+   * @param lsFail the fail listener
+   */
+  public ConsumerConnection(SocketAddress address, Consumer<ProducerId> lsConnect,
+                            Consumer<String> lsFail) {
+    this(address, lsConnect, lsFail, Connection.DEFAULT_READ_BUFFER_SIZE, DEFAULT_CREDIT_WINDOW);
+  }
+
+  /**
+   * Creates a new connection servicing an arbitrary number of producers, which listens on the
+   * given address. If it is a {@link UnixDomainSocketAddress}, only producers on the same machine
+   * can connect, but messages don't have to pass through TCP.
+   * @param address the address on which to listen for producers, either an
+   *     {@link InetSocketAddress}, a {@link UnixDomainSocketAddress} or a
+   *     {@link SharedMemoryAddress}, not {@code null}
+   * @param lsConnect the connect listener, not {@code null}
+   * @param lsFail the fail listener
+   * @param readBufferSize the size of the receive buffer of each producer connection in bytes
+   * @param creditWindow the maximum amount of clause updates a producer may send before they have
+   *     been processed, 0 to disable flow control
+   * @throws IllegalArgumentException if the buffer size is not positive or the window is negative
+   */
+  public ConsumerConnection(SocketAddress address, Consumer<ProducerId> lsConnect,
+                            Consumer<String> lsFail, int readBufferSize, int creditWindow) {
+    if (readBufferSize <= 0) {
+      throw new IllegalArgumentException("read buffer size must be positive");
+    }
+    if (creditWindow < 0) {
+      throw new IllegalArgumentException("credit window must not be negative");
+    }
+    this.readBufferSize = readBufferSize;
+    this.creditWindow = creditWindow;
+    this.address = Objects.requireNonNull(address);
     this.lsConnect = Objects.requireNonNull(lsConnect);
     this.lsFail = Objects.requireNonNullElse(lsFail, (s) -> {});
   }
@@ -77,9 +196,13 @@ public class ConsumerConnection {
     }
   }
 
-  private void read(int id, NetworkMessage msg) {
+  private void read(int id, byte type, Object obj) {
     ConnectionData conn = connections.get(id);
-    switch (msg.type()) {
+    if (conn.serverId != id) {
+      // a late message of a connection that was replaced by resuming its session
+      return;
+    }
+    switch (type) {
       case MessageTypes.OFFER -> {
         InetSocketAddress remote;
         try {
@@ -89,7 +212,14 @@ public class ConsumerConnection {
           break; // we can't do anything with this new connection
         }
         @SuppressWarnings("unchecked")
-        Map<String, String> offerData = (Map<String, String>) msg.object();
+        Map<String, String> offerData = (Map<String, String>) obj;
+        conn.version = parseVersion(offerData.get("version"));
+        if (conn.version >= MessageTypes.SESSION_VERSION && offerData.get("session") != null) {
+          if (resume(id, conn, offerData)) {
+            break;
+          }
+          conn.session = offerData.get("session");
+        }
         if (offerData.get("type").equals("solver")) {
           conn.pid = new SolverId(
               id, remote,
@@ -113,9 +243,10 @@ public class ConsumerConnection {
           if (conn.isDisconnected || conn.ls == null) {
             break;
           }
-          conn.ls.onClauseUpdate(conn.pid, new ClauseUpdate(
-              (Clause) msg.object(), ClauseUpdate.Type.ADD
-          ));
+          int[] literals = ((Clause) obj).literals();
+          conn.ls.onClauseUpdate(conn.pid, ClauseUpdate.Type.ADD, literals, literals.length);
+          grant(conn, 1);
+          acknowledge(conn, 1);
         }
       }
       case MessageTypes.CLAUSE_DEL -> {
@@ -123,9 +254,25 @@ public class ConsumerConnection {
           if (conn.isDisconnected || conn.ls == null) {
             break;
           }
-          conn.ls.onClauseUpdate(conn.pid, new ClauseUpdate(
-              (Clause) msg.object(), ClauseUpdate.Type.REMOVE
-          ));
+          int[] literals = ((Clause) obj).literals();
+          conn.ls.onClauseUpdate(conn.pid, ClauseUpdate.Type.REMOVE, literals, literals.length);
+          grant(conn, 1);
+          acknowledge(conn, 1);
+        }
+      }
+      case MessageTypes.CLAUSE_BATCH -> {
+        if (conn.version < MessageTypes.BATCH_VERSION) {
+          // the producer didn't announce that it sends batches, so the protocol is violated
+          disconnect(conn, "fail: unexpected clause batch");
+          break;
+        }
+        synchronized (conn) {
+          if (conn.isDisconnected || conn.ls == null) {
+            break;
+          }
+          conn.ls.onClauseUpdates(conn.pid, (ClauseBatch) obj);
+          grant(conn, ((ClauseBatch) obj).size());
+          acknowledge(conn, ((ClauseBatch) obj).size());
         }
       }
       case MessageTypes.TERM_SOLVE -> {
@@ -135,7 +282,7 @@ public class ConsumerConnection {
           }
           conn.isDisconnected = true;
           if (conn.ls != null) {
-            conn.ls.onTerminateSolved(conn.pid, (SatAssignment) msg.object());
+            conn.ls.onTerminateSolved(conn.pid, (SatAssignment) obj);
           }
         }
       }
@@ -157,23 +304,185 @@ public class ConsumerConnection {
           }
           conn.isDisconnected = true;
           if (conn.ls != null) {
-            conn.ls.onTerminateOtherwise(conn.pid, (String) msg.object());
+            conn.ls.onTerminateOtherwise(conn.pid, (String) obj);
+          }
+        }
+      }
+    }
+  }
+
+  private static int parseVersion(String version) {
+    // producers that don't offer a valid version are treated like the first version
+    try {
+      return version == null ? 1 : Integer.parseInt(version);
+    } catch (NumberFormatException e) {
+      return 1;
+    }
+  }
+
+  /**
+   * Continues the session of a producer that has lost its connection, if the offer of a new
+   * connection names the session. The new connection takes the place of the old one.
+   * @param id the ID of the new connection
+   * @param conn the data of the new connection
+   * @param offerData the offer
+   * @return whether the offer resumed a session
+   */
+  private boolean resume(int id, ConnectionData conn, Map<String, String> offerData) {
+    String session = offerData.get("session");
+    ConnectionData old = null;
+    for (ConnectionData c : connections) {
+      if (c != conn && session.equals(c.session)) {
+        old = c;
+        break;
+      }
+    }
+    if (old == null) {
+      return false;
+    }
+    synchronized (old) {
+      long offset;
+      try {
+        offset = Long.parseLong(offerData.get("offset"));
+      } catch (NumberFormatException e) {
+        offset = Long.MAX_VALUE;
+      }
+      if (old.isDisconnected || old.ls == null || offset > old.received) {
+        // the session has ended, or the producer doesn't have all unprocessed clause updates
+        try {
+          server.write(id, MessageTypes.STOP, null);
+        } catch (Exception e) {
+          // the connection fails, which is reported by the server
+        }
+        conn.isDisconnected = true;
+        if (!old.isDisconnected) {
+          old.isDisconnected = true;
+          if (old.ls != null) {
+            old.ls.onTerminateOtherwise(old.pid, "fail: session cannot be resumed");
           }
         }
+        return true;
+      }
+      // the old connection may not have failed yet on this side; its late messages are ignored
+      connections.set(id, old);
+      old.serverId = id;
+      if (old.suspendedAt >= 0) {
+        old.suspendedAt = -1;
+        suspendedSessions--;
+      }
+      old.failMessage = null;
+      old.version = conn.version;
+      try {
+        // like connect(): the producer continues after the acknowledged clause updates
+        server.write(id, MessageTypes.ACK, old.received);
+        old.acknowledged = old.received;
+        startCredits(old);
+        server.write(id, MessageTypes.START, null);
+      } catch (Exception e) {
+        // the connection fails, and the session may be resumed again
+      }
+    }
+    return true;
+  }
+
+  // must be called while holding the lock on conn
+  private void startCredits(ConnectionData conn) throws IOException, SerializationException {
+    if (creditWindow > 0 && conn.version >= MessageTypes.CREDIT_VERSION) {
+      // the initial grant arrives before the start signal
+      server.write(conn.serverId, MessageTypes.CREDIT, creditWindow);
+      conn.creditsEnabled = true;
+      conn.credits = creditWindow;
+      conn.processed = 0;
+      if (conn.stallStart >= 0) {
+        conn.stallNanos += System.nanoTime() - conn.stallStart;
+        conn.stallStart = -1;
+      }
+    }
+  }
+
+  // must be called while holding the lock on conn, after the listener processed clause updates
+  private void acknowledge(ConnectionData conn, int updates) {
+    conn.received += updates;
+    if (conn.session == null || conn.received - conn.acknowledged < ACK_INTERVAL) {
+      return;
+    }
+    try {
+      server.write(conn.serverId, MessageTypes.ACK, conn.received);
+      conn.acknowledged = conn.received;
+    } catch (Exception e) {
+      // the connection fails, which is reported by the server
+    }
+  }
+
+  // notifies the listeners of sessions that haven't been resumed in time,
+  // and returns the time in ms until the next session expires, 0 if none is suspended
+  private long expireSessions() {
+    if (suspendedSessions == 0) {
+      return 0;
+    }
+    long next = Long.MAX_VALUE;
+    long now = System.nanoTime();
+    for (ConnectionData conn : connections) {
+      synchronized (conn) {
+        if (conn.suspendedAt < 0 || conn.isDisconnected) {
+          continue;
+        }
+        long remaining = TimeUnit.MILLISECONDS.toNanos(RESUME_TIMEOUT_MILLIS)
+            - (now - conn.suspendedAt);
+        if (remaining > 0) {
+          next = Math.min(next, remaining);
+          continue;
+        }
+        conn.isDisconnected = true;
+        suspendedSessions--;
+        conn.ls.onTerminateOtherwise(conn.pid, conn.failMessage);
       }
     }
+    // round up, so that the session has expired after waiting
+    return next == Long.MAX_VALUE ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(next + 999_999));
+  }
+
+  // must be called while holding the lock on conn, after the listener processed clause updates
+  private void grant(ConnectionData conn, int updates) {
+    if (!conn.creditsEnabled) {
+      return;
+    }
+    conn.credits -= updates;
+    conn.processed += updates;
+    if (conn.credits <= 0 && conn.stallStart < 0) {
+      // the producer has to wait for the next grant from now on
+      conn.stallStart = System.nanoTime();
+    }
+    // grant in larger steps to avoid a message for every clause update
+    if (conn.processed < Math.max(1, creditWindow / 2)) {
+      return;
+    }
+    try {
+      server.write(conn.serverId, MessageTypes.CREDIT, conn.processed);
+    } catch (Exception e) {
+      // the connection fails, which is reported by the server
+      return;
+    }
+    conn.credits += conn.processed;
+    conn.processed = 0;
+    if (conn.stallStart >= 0 && conn.credits > 0) {
+      conn.stallNanos += System.nanoTime() - conn.stallStart;
+      conn.stallStart = -1;
+    }
   }
 
   private void threadMain() {
     PollEvent event;
+    long timeout = 0;
     while (true) {
       if (shouldClose) {
-        // TODO performance-wise, don't do this in every loop iteration
-        // only if the server has to wait (methods for that are already in place)
         doClose(null);
         return;
       }
-      event = server.poll();
+      // wait without a timeout, unless a session expires; stop() wakes the server up, so the flag
+      // is checked in time
+      event = server.pollBatch(readBatch, timeout);
+      timeout = expireSessions();
       if (event == null) {
         continue;
       }
@@ -189,18 +498,33 @@ public class ConsumerConnection {
         case ACCEPT -> {
           // Note: we would need to synchronize this if the close action could be performed on
           // another thread than this one
-          connections.add(new ConnectionData());
+          connections.add(new ConnectionData(event.id()));
         }
         case READ -> {
-          NetworkMessage msg = (NetworkMessage) event.obj();
-          read(event.id(), msg);
+          // all messages of one read are handled at once, without an event per message
+          for (int i = 0; i < readBatch.size(); i++) {
+            read(event.id(), readBatch.type(i), readBatch.object(i));
+          }
         }
         case FAIL -> {
           ConnectionData conn = connections.get(event.id());
+          if (conn.serverId != event.id()) {
+            break; // the session has been resumed already
+          }
           synchronized (conn) {
             if (conn.isDisconnected) {
               break;
             }
+            if (conn.session != null && conn.ls != null) {
+              // give the producer the chance to resume the session
+              if (conn.suspendedAt < 0) {
+                conn.suspendedAt = System.nanoTime();
+                suspendedSessions++;
+                conn.failMessage = ((Exception) event.obj()).getMessage();
+                timeout = expireSessions();
+              }
+              break;
+            }
             conn.isDisconnected = true;
             if (conn.ls != null) {
               conn.ls.onTerminateOtherwise(conn.pid, ((Exception) event.obj()).getMessage());
@@ -235,7 +559,10 @@ public class ConsumerConnection {
         return;
       }
 
-      server = new ConnectionServer(port, MessageTypes.satvizBlueprint);
+      server = address instanceof SharedMemoryAddress shm
+          ? new ConnectionServer(shm.getDirectory(), shm.getCapacity(),
+              MessageTypes.satvizBlueprint, readBufferSize)
+          : new ConnectionServer(address, MessageTypes.satvizBlueprint, readBufferSize);
 
       new Thread(this::threadMain).start();
     }
@@ -243,9 +570,16 @@ public class ConsumerConnection {
 
   /**
    * Signals this server that it should disconnect all producers and close all underlying sockets.
+   * The worker thread is woken up, so this happens right away rather than after the next event.
    */
   public void stop() {
-      shouldClose = true;
+    shouldClose = true;
+    synchronized (SYNC_START) {
+      // if start() hasn't created the server yet, it sees the flag and doesn't start at all
+      if (server != null) {
+        server.wakeup();
+      }
+    }
   }
 
   /**
@@ -266,7 +600,12 @@ public class ConsumerConnection {
       }
       conn.ls = ls;
       try {
-        server.write(pid.getId(), MessageTypes.START, null);
+        if (conn.session != null) {
+          // the producer starts to keep clause updates for resuming the session
+          server.write(conn.serverId, MessageTypes.ACK, conn.received);
+        }
+        startCredits(conn);
+        server.write(conn.serverId, MessageTypes.START, null);
       } catch (Exception e) {
         conn.ls = null;
         return false;
@@ -288,7 +627,7 @@ public class ConsumerConnection {
 
       try {
         // send this message even if no listener is registered
-        server.write(conn.pid.getId(), MessageTypes.STOP, null);
+        server.write(conn.serverId, MessageTypes.STOP, null);
       } catch (Exception e) {
         // listener stays removed in any case
         return false;
@@ -306,7 +645,43 @@ public class ConsumerConnection {
     return disconnect(connections.get(pid.getId()), null);
   }
 
+  /**
+   * Returns the amount of clause updates a producer may currently send without waiting for
+   * credits.
+   * @param pid the ID of the connection
+   * @return the remaining window, -1 if the producer is not subject to flow control
+   */
+  public long getWindow(ProducerId pid) {
+    ConnectionData conn = connections.get(pid.getId());
+    synchronized (conn) {
+      return conn.creditsEnabled ? Math.max(0, conn.credits) : -1;
+    }
+  }
+
+  /**
+   * Returns the total time a producer had to wait for credits, because all granted clause updates
+   * were sent, but not processed yet.
+   * @param pid the ID of the connection
+   * @return the stall time in nanoseconds
+   */
+  public long getStallNanos(ProducerId pid) {
+    ConnectionData conn = connections.get(pid.getId());
+    synchronized (conn) {
+      long stallNanos = conn.stallNanos;
+      if (conn.stallStart >= 0) {
+        stallNanos += System.nanoTime() - conn.stallStart;
+      }
+      return stallNanos;
+    }
+  }
+
+  /**
+   * Returns the port this connection listens on.
+   * @return the local port, -1 if this connection listens on a Unix domain socket or shared memory
+   * @throws IOException if an I/O error occurs
+   */
   public int getPort() throws IOException {
-    return server.getLocalAddress().getPort();
+    InetSocketAddress local = server.getLocalAddress();
+    return local == null ? -1 : local.getPort();
   }
 }
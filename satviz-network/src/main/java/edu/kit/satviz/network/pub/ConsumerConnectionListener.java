@@ -1,7 +1,10 @@
 package edu.kit.satviz.network.pub;
 
+import edu.kit.satviz.sat.Clause;
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.ClauseUpdate;
 import edu.kit.satviz.sat.SatAssignment;
+import java.util.Arrays;
 
 /**
  * Callback methods for the consumer side listening on a producer connection.
@@ -18,6 +21,36 @@ public interface ConsumerConnectionListener {
     // do nothing
   }
 
+  /**
+   * Called when a clause was sent, with the literals of the clause in an array that is reused
+   * for the following clauses. Listeners that only store or forward the literals should override
+   * this method, so that no object is created for the clause update.
+   * By default, the literals are copied and passed to
+   * {@link #onClauseUpdate(ProducerId, ClauseUpdate)}.
+   *
+   * @param pid ID of sending producer
+   * @param type the type of the clause update
+   * @param literals the array containing the literals, which must not be stored
+   * @param length the amount of literals
+   */
+  default void onClauseUpdate(ProducerId pid, ClauseUpdate.Type type, int[] literals,
+                              int length) {
+    onClauseUpdate(pid, new ClauseUpdate(new Clause(Arrays.copyOf(literals, length)), type));
+  }
+
+  /**
+   * Called when multiple clause updates were sent in one message.
+   * By default, {@link #onClauseUpdate(ProducerId, ClauseUpdate)} is called for every update.
+   *
+   * @param pid ID of sending producer
+   * @param batch the clause updates, in the order they were sent
+   */
+  default void onClauseUpdates(ProducerId pid, ClauseBatch batch) {
+    for (ClauseUpdate update : batch) {
+      onClauseUpdate(pid, update);
+    }
+  }
+
   /**
    * Called when a satisfying SAT assignment was sent.
    *
@@ -0,0 +1,17 @@
+package edu.kit.satviz.network.pub;
+
+/**
+ * What a {@link ProducerConnection} does with clause updates once the credits granted by the
+ * consumer are used up.
+ */
+public enum CreditPolicy {
+  /** The sending thread waits until the consumer grants more credits. */
+  BLOCK,
+  /**
+   * Clause updates are kept in memory and sent once the consumer grants more credits. If too many
+   * clause updates are buffered, the sending thread waits like with {@link #BLOCK}.
+   */
+  BUFFER,
+  /** Clause updates are discarded and not sent at all. */
+  DROP
+}
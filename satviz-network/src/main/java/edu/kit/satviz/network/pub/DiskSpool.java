@@ -0,0 +1,331 @@
+package edu.kit.satviz.network.pub;
+
+import edu.kit.satviz.network.general.NetworkBlueprint;
+import edu.kit.satviz.network.general.NetworkMessage;
+import edu.kit.satviz.serial.SerializationException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Objects;
+
+/**
+ * An append-only queue of clause update messages in files on disk, which a
+ * {@link ProducerConnection} uses for clause updates that can't be sent right away.
+ * This way, a slow or paused consumer doesn't slow down the clause source (e.g., a solver) until
+ * the disk usage limit of the spool is reached.
+ *
+ * <p>Messages are appended to segment files of a limited size in the spool directory, which are
+ * deleted as soon as all of their messages have been taken out of the spool again. Each message is
+ * stored like on the network, preceded by its length and the amount of clause updates in it.
+ * The segment files are only created once the spool is used.
+ *
+ * <p>Messages are buffered before they are written to a segment file. If writing them fails, the
+ * spool is broken: the buffered messages are lost, so it neither takes nor returns any more
+ * messages, instead of returning corrupted ones.
+ */
+public final class DiskSpool implements AutoCloseable {
+  /** The default maximum size of a segment file in bytes. */
+  public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+  private static final int HEADER_SIZE = 2 * Integer.BYTES;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final NetworkBlueprint bp = MessageTypes.satvizBlueprint;
+  private final Path directory;
+  private final long maxBytes;
+  private final int segmentSize;
+
+  // the segment files, oldest first; messages are read from the first and appended to the last
+  private final ArrayDeque<Path> segments = new ArrayDeque<>();
+  private FileChannel writeChannel = null;
+  private long writeSize = 0; // the size of the last segment, including unwritten bytes
+  private final ByteBuffer writeBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+  private ByteBuffer encodeBuffer = ByteBuffer.allocate(1024);
+  private FileChannel readChannel = null;
+  private ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE).limit(0);
+  private NetworkMessage head = null;
+  private int headUpdates = 0;
+
+  private long bytes = 0;
+  private long messages = 0;
+  private long depth = 0;
+  private boolean closed = false;
+  private boolean broken = false; // buffered messages could not be written
+
+  /**
+   * Creates a new spool with segment files of the default size.
+   * @param directory the directory for the segment files, which is created if it doesn't exist
+   * @param maxBytes the maximum amount of disk space used by the segment files in bytes
+   * @throws IllegalArgumentException if the maximum is not positive
+   */
+  public DiskSpool(Path directory, long maxBytes) {
+    this(directory, maxBytes, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Creates a new spool.
+   * @param directory the directory for the segment files, which is created if it doesn't exist
+   * @param maxBytes the maximum amount of disk space used by the segment files in bytes
+   * @param segmentSize the size in bytes after which a new segment file is started
+   * @throws IllegalArgumentException if the maximum or the segment size is not positive
+   */
+  public DiskSpool(Path directory, long maxBytes, int segmentSize) {
+    if (maxBytes <= 0 || segmentSize <= 0) {
+      throw new IllegalArgumentException("spool sizes must be positive");
+    }
+    this.directory = Objects.requireNonNull(directory);
+    this.maxBytes = maxBytes;
+    this.segmentSize = segmentSize;
+  }
+
+  /**
+   * Appends a message to this spool, if the disk usage limit permits it.
+   * @param type the message type
+   * @param obj the message object
+   * @param updates the amount of clause updates in the message
+   * @return whether the message was appended
+   * @throws IOException if an I/O error occurs, or the spool is broken
+   * @throws SerializationException if the message cannot be encoded
+   */
+  synchronized boolean offer(byte type, Object obj, int updates)
+      throws IOException, SerializationException {
+    if (closed) {
+      return false;
+    }
+    checkBroken();
+    encodeBuffer.clear();
+    encodeBuffer.position(HEADER_SIZE);
+    encodeBuffer.put(type);
+    while (!bp.encode(type, obj, encodeBuffer)) {
+      encodeBuffer = ByteBuffer.allocate(encodeBuffer.capacity() * 2);
+      encodeBuffer.position(HEADER_SIZE);
+      encodeBuffer.put(type);
+    }
+    int size = encodeBuffer.position();
+    if (bytes + size > maxBytes) {
+      return false;
+    }
+    encodeBuffer.putInt(0, size - HEADER_SIZE);
+    encodeBuffer.putInt(Integer.BYTES, updates);
+    encodeBuffer.flip();
+
+    if (writeChannel == null || (writeSize > 0 && writeSize + size > segmentSize)) {
+      startSegment();
+    }
+    if (writeBuffer.remaining() < size) {
+      flushWrites();
+    }
+    if (writeBuffer.remaining() < size) {
+      // larger than the buffer
+      while (encodeBuffer.hasRemaining()) {
+        writeChannel.write(encodeBuffer, writeSize + encodeBuffer.position());
+      }
+    } else {
+      writeBuffer.put(encodeBuffer);
+    }
+    writeSize += size;
+    bytes += size;
+    messages++;
+    depth += updates;
+    return true;
+  }
+
+  private void startSegment() throws IOException {
+    if (writeChannel == null) {
+      Files.createDirectories(directory);
+    } else {
+      flushWrites();
+    }
+    // unique names, in case files of another spool are left in the directory
+    Path segment = Files.createTempFile(directory, "satviz-spool-", ".seg");
+    FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    // only now, so the last segment can still be read if the new one can't be created
+    if (segments.size() > 1) {
+      writeChannel.close(); // otherwise, the first segment is still read through it
+    }
+    segments.add(segment);
+    if (readChannel == null) {
+      readChannel = channel;
+    }
+    writeChannel = channel;
+    writeSize = 0;
+  }
+
+  private void flushWrites() throws IOException {
+    writeBuffer.flip();
+    try {
+      while (writeBuffer.hasRemaining()) {
+        // positional, because the only segment is read through the same channel
+        writeChannel.write(writeBuffer, writeSize - writeBuffer.remaining());
+      }
+    } catch (IOException e) {
+      // it is unknown which bytes have been written, and the channel may have been closed
+      broken = true;
+      throw e;
+    }
+    writeBuffer.clear();
+  }
+
+  private void checkBroken() throws IOException {
+    if (broken) {
+      throw new IOException("spooled messages could not be written");
+    }
+  }
+
+  /**
+   * Returns the oldest message of this spool, without removing it.
+   * @return the message, {@code null} if this spool is empty
+   * @throws IOException if an I/O error occurs, or the spool is broken
+   * @throws SerializationException if the segment file doesn't contain a valid message
+   */
+  synchronized NetworkMessage peek() throws IOException, SerializationException {
+    if (head != null || messages == 0) {
+      return head;
+    }
+    checkBroken();
+    while (true) {
+      if (readBuffer.remaining() >= HEADER_SIZE) {
+        int start = readBuffer.position();
+        int length = readBuffer.getInt(start);
+        if (readBuffer.remaining() >= HEADER_SIZE + length) {
+          byte type = readBuffer.get(start + HEADER_SIZE);
+          Object obj = bp.decode(type,
+              readBuffer.slice(start + HEADER_SIZE + 1, length - 1));
+          if (obj == null) {
+            throw new SerializationException("incomplete spooled message");
+          }
+          headUpdates = readBuffer.getInt(start + Integer.BYTES);
+          readBuffer.position(start + HEADER_SIZE + length);
+          head = new NetworkMessage(type, obj);
+          return head;
+        }
+        if (HEADER_SIZE + length > readBuffer.capacity()) {
+          ByteBuffer larger = ByteBuffer.allocate(HEADER_SIZE + length);
+          larger.put(readBuffer).flip();
+          readBuffer = larger;
+        }
+      }
+      readMore();
+    }
+  }
+
+  // reads the next bytes from the first segment, or continues with the next one
+  private void readMore() throws IOException {
+    if (segments.size() == 1) {
+      flushWrites(); // the message may not have been written yet
+    }
+    readBuffer.compact();
+    int read = readChannel.read(readBuffer);
+    readBuffer.flip();
+    if (read > 0) {
+      return;
+    }
+    if (segments.size() == 1) {
+      throw new IOException("spool segment is truncated");
+    }
+    // the first segment is drained, as messages never span segments
+    readChannel.close();
+    Path drained = segments.poll();
+    bytes -= Files.size(drained);
+    Files.delete(drained);
+    readChannel = segments.size() == 1
+        ? writeChannel
+        : FileChannel.open(segments.peek(), StandardOpenOption.READ);
+  }
+
+  /**
+   * Removes the message returned by {@link #peek()} from this spool. Once the spool is empty, all
+   * segment files are deleted.
+   * @throws IllegalStateException if no message has been peeked
+   * @throws IOException if an I/O error occurs
+   */
+  synchronized void remove() throws IOException {
+    if (head == null) {
+      throw new IllegalStateException("no message peeked");
+    }
+    head = null;
+    messages--;
+    depth -= headUpdates;
+    if (messages == 0) {
+      deleteSegments();
+    }
+  }
+
+  private void deleteSegments() throws IOException {
+    if (readChannel != null && readChannel != writeChannel) {
+      readChannel.close();
+    }
+    if (writeChannel != null) {
+      writeChannel.close();
+    }
+    readChannel = null;
+    writeChannel = null;
+    writeBuffer.clear();
+    readBuffer.clear().limit(0);
+    for (Path segment : segments) {
+      Files.deleteIfExists(segment);
+    }
+    segments.clear();
+    bytes = 0;
+    writeSize = 0;
+  }
+
+  /**
+   * Returns whether this spool contains no messages.
+   * @return whether this spool is empty
+   */
+  public synchronized boolean isEmpty() {
+    return messages == 0;
+  }
+
+  /**
+   * Returns the amount of clause updates in this spool.
+   * @return the depth of this spool
+   */
+  public synchronized long getDepth() {
+    return depth;
+  }
+
+  /**
+   * Returns the disk space currently used by the segment files of this spool. This includes
+   * messages that have been taken out of a segment file that is not drained completely yet.
+   * @return the disk usage in bytes
+   */
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Returns the maximum disk space the segment files of this spool may use.
+   * @return the disk usage limit in bytes
+   */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Returns the directory of the segment files.
+   * @return the spool directory
+   */
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Closes this spool and deletes its segment files, discarding all messages in it.
+   * @throws IOException if an I/O error occurs
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    closed = true;
+    head = null;
+    messages = 0;
+    depth = 0;
+    deleteSegments();
+  }
+}
@@ -0,0 +1,38 @@
+package edu.kit.satviz.network.pub;
+
+/**
+ * Determines when the clause updates sent by a {@link ProducerConnection} are written to the
+ * socket.
+ * Queued messages are flushed as soon as either {@code sizeThreshold} bytes are pending or the
+ * oldest pending message has waited for {@code maxLingerMicros} microseconds. Messages that are
+ * sent directly, e.g. terminate messages, always flush the queue.
+ * @param sizeThreshold the amount of pending bytes that causes an immediate flush
+ * @param maxLingerMicros the maximum time a message is delayed in microseconds, 0 to flush every
+ *     message as soon as possible
+ * @param capacity the maximum amount of pending bytes, before offering new messages is refused
+ */
+public record FlushPolicy(int sizeThreshold, long maxLingerMicros, int capacity) {
+
+  /** The default policy: flush at 32 KiB or after 500 µs, with at most 4 MiB pending. */
+  public static final FlushPolicy DEFAULT = new FlushPolicy(32 * 1024, 500, 4 * 1024 * 1024);
+
+  /**
+   * Creates a new flush policy.
+   * @param sizeThreshold the amount of pending bytes that causes an immediate flush
+   * @param maxLingerMicros the maximum time a message is delayed in microseconds
+   * @param capacity the maximum amount of pending bytes
+   * @throws IllegalArgumentException if the threshold is not positive, the linger time is negative
+   *     or the capacity is less than the threshold
+   */
+  public FlushPolicy {
+    if (sizeThreshold <= 0) {
+      throw new IllegalArgumentException("size threshold must be positive");
+    }
+    if (maxLingerMicros < 0) {
+      throw new IllegalArgumentException("linger time must not be negative");
+    }
+    if (capacity < sizeThreshold) {
+      throw new IllegalArgumentException("capacity must not be less than the size threshold");
+    }
+  }
+}
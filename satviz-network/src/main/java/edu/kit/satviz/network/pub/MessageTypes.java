@@ -17,6 +17,13 @@ public final class MessageTypes {
   public static final byte OFFER = 1;
   public static final byte START = 2;
   public static final byte STOP = 3;
+  /** Grants the producer the right to send more clause updates, from {@link #CREDIT_VERSION} on. */
+  public static final byte CREDIT = 4;
+  /**
+   * Acknowledges how many clause updates of a session the consumer has processed, from
+   * {@link #SESSION_VERSION} on.
+   */
+  public static final byte ACK = 5;
 
   public static final byte TERM_SOLVE = 8;
   public static final byte TERM_REFUTE = 9;
@@ -24,6 +31,17 @@ public final class MessageTypes {
 
   public static final byte CLAUSE_ADD = 'a';
   public static final byte CLAUSE_DEL = 'd';
+  /** Multiple clause updates in one message, only sent from {@link #BATCH_VERSION} on. */
+  public static final byte CLAUSE_BATCH = 'b';
+
+  /** The protocol version offered by producers. */
+  public static final int VERSION = 4;
+  /** The first protocol version, in which producers may send {@link #CLAUSE_BATCH} messages. */
+  public static final int BATCH_VERSION = 2;
+  /** The first protocol version, in which consumers may send {@link #CREDIT} messages. */
+  public static final int CREDIT_VERSION = 3;
+  /** The first protocol version, in which producers may resume a session after reconnecting. */
+  public static final int SESSION_VERSION = 4;
 
   /**
    * All the message types for satviz communication.
@@ -33,11 +51,14 @@ public final class MessageTypes {
           Map.entry(OFFER, new StringMapSerializer()),
           Map.entry(START, new NullSerializer()),
           Map.entry(STOP, new NullSerializer()),
+          Map.entry(CREDIT, new IntSerializer()),
+          Map.entry(ACK, new LongSerializer()),
           Map.entry(TERM_SOLVE, new SatAssignmentSerializer()),
           Map.entry(TERM_REFUTE, new NullSerializer()),
           Map.entry(TERM_OTHER, new StringSerializer()),
           Map.entry(CLAUSE_ADD, new ClauseSerializer()),
-          Map.entry(CLAUSE_DEL, new ClauseSerializer())
+          Map.entry(CLAUSE_DEL, new ClauseSerializer()),
+          Map.entry(CLAUSE_BATCH, new ClauseBatchSerializer())
       )
   );
 }
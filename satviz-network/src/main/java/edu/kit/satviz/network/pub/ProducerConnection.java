@@ -2,22 +2,43 @@ package edu.kit.satviz.network.pub;
 
 import edu.kit.satviz.network.general.Connection;
 import edu.kit.satviz.network.general.NetworkMessage;
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.ClauseUpdate;
 import edu.kit.satviz.sat.SatAssignment;
 import edu.kit.satviz.serial.SerializationException;
+import java.io.IOException;
 import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The producer part of a satviz network connection.
  * State changes are communicated via the {@link ProducerConnectionListener}. {@code onConnect} is
  *     called once the consumer sends the START signal. {@code onDisconnect} is called if an
  *     internal error occurs or the consumer sends the STOP signal.
+ * If the consumer uses credit-based flow control, clause updates are only sent as long as the
+ *     consumer has granted credits for them. What happens to clause updates beyond that is
+ *     determined by the {@link CreditPolicy} of this connection.
+ * If the consumer supports sessions, it acknowledges the clause updates it has processed, and
+ *     this connection keeps the unacknowledged ones in a bounded replay spool. If the connection
+ *     is lost after the consumer started it, it is re-established in the background, and the
+ *     session resumes from the last acknowledged clause update. Meanwhile, new clause updates are
+ *     buffered, and {@code onDisconnect} is only called if resuming fails.
+ * With a {@link DiskSpool}, clause updates that can't be queued for writing right away are
+ *     appended to the spool instead of stalling the sender, and sent in order as soon as the
+ *     consumer catches up. If appending to the spool fails (e.g., because the disk is full), it
+ *     isn't used anymore, and is closed once the clause updates in it have been sent. If clause
+ *     updates that were already appended can't be written to the spool, the connection fails.
  */
 public class ProducerConnection {
   private enum State {
@@ -25,11 +46,31 @@ public class ProducerConnection {
     ESTABLISHING,
     ESTABLISHED,
     STARTED,
+    RESUMING, // the connection was lost after starting, and is re-established
     CLOSED
   }
 
-  private final String address;
-  private final int port;
+  /** The maximum amount of clause updates that are buffered with {@link CreditPolicy#BUFFER}. */
+  public static final int MAX_BUFFERED_UPDATES = 1 << 20;
+
+  /** The maximum amount of unacknowledged clause updates kept for a replay after reconnecting. */
+  public static final int MAX_SPOOLED_UPDATES = 1 << 20;
+
+  /** The time in milliseconds during which a lost connection is re-established. */
+  public static final long RESUME_TIMEOUT_MILLIS = 60_000;
+
+  // connection attempts are retried with exponential backoff between these delays
+  private static final long MIN_RETRY_MILLIS = 10;
+  private static final long MAX_RETRY_MILLIS = 1000;
+
+  private record Pending(byte type, Object obj, int updates) {
+  }
+
+  private final SocketAddress address;
+  private final FlushPolicy flushPolicy;
+  private final CreditPolicy creditPolicy;
+  private DiskSpool diskSpool; // null if clause updates are not spooled to disk (anymore)
+  private boolean diskSpoolFailed = false; // nothing is appended anymore, only drained
   private ProducerId pid = null;
   private ProducerConnectionListener ls = null;
 
@@ -37,6 +78,23 @@ public class ProducerConnection {
   private final Object SYNC_STATE = new Object();
   private State state = State.INIT;
 
+  // flow control, only used while holding SYNC_STATE
+  private boolean creditsEnabled = false;
+  private long credits = 0;
+  private final ArrayDeque<Pending> buffered = new ArrayDeque<>();
+  private int bufferedUpdates = 0;
+  private long stallNanos = 0;
+  private long droppedUpdates = 0;
+
+  // sessions, only used while holding SYNC_STATE
+  private final String session = Long.toHexString(ThreadLocalRandom.current().nextLong());
+  private boolean sessionEnabled = false;
+  private final ArrayDeque<Pending> spool = new ArrayDeque<>();
+  private long spoolStart = 0; // the index of the first spooled clause update in the session
+  private int spooledUpdates = 0;
+  private long resumeDeadline = 0;
+  private boolean terminating = false; // terminated while resuming; terminate once resumed
+
   private String termMessage = null;
   private byte termByte = 0;
   private Object termObject = null;
@@ -48,8 +106,93 @@ public class ProducerConnection {
    * @param port the consumer port
    */
   public ProducerConnection(String address, int port) {
-    this.address = address;
-    this.port = port;
+    this(address, port, FlushPolicy.DEFAULT);
+  }
+
+  /**
+   * Creates a new connection to a consumer, which sends clause updates according to the given
+   * flush policy.
+   * Does not try to connect to the consumer; this is done in {@code establish()}.
+   * @param address the consumer address
+   * @param port the consumer port
+   * @param flushPolicy determines when queued clause updates are written, not {@code null}
+   */
+  public ProducerConnection(String address, int port, FlushPolicy flushPolicy) {
+    this(address, port, flushPolicy, CreditPolicy.BLOCK);
+  }
+
+  /**
+   * Creates a new connection to a consumer, which sends clause updates according to the given
+   * flush policy and handles running out of credits according to the given credit policy.
+   * Does not try to connect to the consumer; this is done in {@code establish()}.
+   * @param address the consumer address
+   * @param port the consumer port
+   * @param flushPolicy determines when queued clause updates are written, not {@code null}
+   * @param creditPolicy determines what happens to clause updates if the consumer hasn't granted
+   *     enough credits, not {@code null}
+   */
+  public ProducerConnection(String address, int port, FlushPolicy flushPolicy,
+                            CreditPolicy creditPolicy) {
+    this(new InetSocketAddress(address, port), flushPolicy, creditPolicy);
+  }
+
+  /**
+   * Creates a new connection to a consumer at the given socket address, which may be a
+   * {@link UnixDomainSocketAddress} or a {@link SharedMemoryAddress} for a consumer on the same
+   * machine.
+   * Does not try to connect to the consumer; this is done in {@code establish()}.
+   * @param address the consumer address, not {@code null}
+   */
+  public ProducerConnection(SocketAddress address) {
+    this(address, FlushPolicy.DEFAULT, CreditPolicy.BLOCK);
+  }
+
+  /**
+   * Creates a new connection to a consumer at the given socket address. For a consumer on the
+   * same machine, this may be a {@link UnixDomainSocketAddress}, which is faster than TCP.
+   * Does not try to connect to the consumer; this is done in {@code establish()}.
+   * @param address the consumer address, either an {@link InetSocketAddress}, a
+   *     {@link UnixDomainSocketAddress} or a {@link SharedMemoryAddress}, not {@code null}
+   * @param flushPolicy determines when queued clause updates are written, not {@code null}
+   * @param creditPolicy determines what happens to clause updates if the consumer hasn't granted
+   *     enough credits, not {@code null}
+   */
+  public ProducerConnection(SocketAddress address, FlushPolicy flushPolicy,
+                            CreditPolicy creditPolicy) {
+    this(address, flushPolicy, creditPolicy, null);
+  }
+
+  /**
+   * Creates a new connection to a consumer at the given socket address, which spools clause
+   * updates to disk while they can't be sent.
+   * Does not try to connect to the consumer; this is done in {@code establish()}.
+   * @param address the consumer address, not {@code null}
+   * @param diskSpool the spool for clause updates, {@code null} for no spooling; it is closed
+   *     together with this connection
+   */
+  public ProducerConnection(SocketAddress address, DiskSpool diskSpool) {
+    this(address, FlushPolicy.DEFAULT, CreditPolicy.BLOCK, diskSpool);
+  }
+
+  /**
+   * Creates a new connection to a consumer at the given socket address.
+   * Clause updates that can't be queued for writing, because the write queue is full or the
+   *     consumer hasn't granted enough credits, are appended to the given disk spool, as long as
+   *     its disk usage limit permits it. Beyond that, the credit policy applies.
+   * Does not try to connect to the consumer; this is done in {@code establish()}.
+   * @param address the consumer address, not {@code null}
+   * @param flushPolicy determines when queued clause updates are written, not {@code null}
+   * @param creditPolicy determines what happens to clause updates if the consumer hasn't granted
+   *     enough credits, not {@code null}
+   * @param diskSpool the spool for clause updates, {@code null} for no spooling; it is closed
+   *     together with this connection
+   */
+  public ProducerConnection(SocketAddress address, FlushPolicy flushPolicy,
+                            CreditPolicy creditPolicy, DiskSpool diskSpool) {
+    this.address = Objects.requireNonNull(address);
+    this.flushPolicy = Objects.requireNonNull(flushPolicy);
+    this.creditPolicy = Objects.requireNonNull(creditPolicy);
+    this.diskSpool = diskSpool;
   }
 
   private void doClose(String termMessage, byte termByte, Object termObject) {
@@ -62,15 +205,34 @@ public class ProducerConnection {
         termObject = this.termObject;
       }
       state = State.CLOSED;
+      SYNC_STATE.notifyAll(); // wake up senders waiting for credits
 
       if (termByte != 0) {
         try {
+          if (termByte != MessageTypes.TERM_OTHER) {
+            // the result depends on all clause updates, even if the consumer can't keep up
+            for (Pending p : buffered) {
+              client.write(p.type(), p.obj());
+            }
+            NetworkMessage msg;
+            while (diskSpool != null && (msg = diskSpool.peek()) != null) {
+              client.write(msg.type(), msg.object());
+              diskSpool.remove();
+            }
+          }
           client.write(termByte, termObject);
         } catch (Exception e) {
           // nothing
         }
       }
       client.close();
+      if (diskSpool != null) {
+        try {
+          diskSpool.close();
+        } catch (IOException e) {
+          // nothing
+        }
+      }
 
       if (termMessage != null) {
         ls.onDisconnect(termMessage);
@@ -81,13 +243,15 @@ public class ProducerConnection {
   /**
    * Establishes the connection to the consumer.
    * Repeatedly creates {@link Connection}s until one successfully connects to the consumer. Then
-   *     the offer message is sent.
+   *     the offer message is sent. The delay between attempts starts small, so that a consumer
+   *     that is just starting up is found quickly, and doubles with every refused attempt.
+   * When resuming, every failure is retried until the resume timeout has passed.
    * Closes this producer connection if something goes wrong.
    * @return true if the establishing was successful, false if not
    */
   private boolean doEstablish() {
     Map<String, String> offerData = new HashMap<>();
-    offerData.put("version", "1");
+    offerData.put("version", Integer.toString(MessageTypes.VERSION));
     if (pid.getType() == OfferType.SOLVER) {
       SolverId sid = (SolverId) pid;
       offerData.put("type", "solver");
@@ -97,26 +261,54 @@ public class ProducerConnection {
     } else {
       offerData.put("type", "proof");
     }
+    offerData.put("session", session);
 
     synchronized (SYNC_STATE) {
-      while (client == null && state == State.ESTABLISHING) {
+      long retryMillis = MIN_RETRY_MILLIS;
+      while (client == null && (state == State.ESTABLISHING || state == State.RESUMING)) {
+        boolean resuming = state == State.RESUMING;
         try {
-          client = new Connection(address, port, MessageTypes.satvizBlueprint);
+          client = address instanceof SharedMemoryAddress shm
+              ? new Connection(shm.getDirectory(), MessageTypes.satvizBlueprint, flushPolicy)
+              : new Connection(address, MessageTypes.satvizBlueprint, flushPolicy);
+          // the consumer continues after the clause updates it has acknowledged
+          offerData.put("offset", Long.toString(spoolStart));
+          client.write(MessageTypes.OFFER, offerData);
+          break;
         } catch (ConnectException e) {
           // connection refused by remote machine (no-one listening on port)
           // try again later
+        } catch (Exception e) {
+          if (!resuming) {
+            state = State.CLOSED;
+            ls.onDisconnect(client == null ? "fail: establish connect" : "fail: establish offer");
+            return false;
+          }
+        }
+        if (client != null) {
+          client.close();
           client = null;
-          try {
-            SYNC_STATE.wait(1000);
-          } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
+        }
+        long waitMillis = retryMillis;
+        if (resuming) {
+          long remaining = TimeUnit.NANOSECONDS.toMillis(resumeDeadline - System.nanoTime());
+          if (remaining <= 0) {
             state = State.CLOSED;
-            ls.onDisconnect("fail: establish interrupted");
+            SYNC_STATE.notifyAll();
+            ls.onDisconnect("fail: resume");
             return false;
           }
-        } catch (Exception e) {
+          waitMillis = Math.min(waitMillis, remaining);
+        }
+        try {
+          // terminateOtherwise() notifies, so closing doesn't wait for the next attempt
+          SYNC_STATE.wait(waitMillis);
+          retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
           state = State.CLOSED;
-          ls.onDisconnect("fail: establish connect");
+          SYNC_STATE.notifyAll();
+          ls.onDisconnect("fail: establish interrupted");
           return false;
         }
       }
@@ -126,30 +318,95 @@ public class ProducerConnection {
         return false;
       }
 
-      try {
-        client.write(MessageTypes.OFFER, offerData);
-      } catch (Exception e) {
-        state = State.CLOSED;
-        ls.onDisconnect("fail: establish offer");
-        return false;
+      if (state == State.ESTABLISHING) {
+        state = State.ESTABLISHED;
       }
+      return true;
+    }
+  }
 
-      state = State.ESTABLISHED;
+  /**
+   * Handles a failure of the connection after it has been established. If the consumer supports
+   *     sessions and has started this connection, the connection is closed and
+   *     {@link State#RESUMING} is entered, so that the worker re-establishes it. Otherwise, this
+   *     producer connection is closed.
+   * @param failMessage the fail message
+   * @return whether the connection is resumed
+   */
+  private boolean fail(String failMessage) {
+    synchronized (SYNC_STATE) {
+      if (!sessionEnabled || (state != State.STARTED && state != State.RESUMING)) {
+        doClose(failMessage, MessageTypes.TERM_OTHER, failMessage);
+        return false;
+      }
+      client.close();
+      client = null;
+      if (state == State.STARTED) {
+        state = State.RESUMING;
+        resumeDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RESUME_TIMEOUT_MILLIS);
+      }
+      // the consumer grants credits again once the session is resumed
+      creditsEnabled = false;
+      credits = 0;
       return true;
     }
   }
 
-  private void threadMain() {
-    if (!doEstablish()) {
-      // some sort of fatal error occurred
-      // state is set to closed and connection is closed
+  // must be called while holding SYNC_STATE
+  private void spool(Pending p) {
+    if (!sessionEnabled) {
       return;
     }
+    spool.add(p);
+    spooledUpdates += p.updates();
+    while (spooledUpdates > MAX_SPOOLED_UPDATES) {
+      // the session can't be resumed before this point anymore
+      Pending evicted = spool.poll();
+      spooledUpdates -= evicted.updates();
+      spoolStart += evicted.updates();
+    }
+  }
+
+  // removes the clause updates the consumer has processed from the spool,
+  // must be called while holding SYNC_STATE
+  private void acknowledge(long processed) {
+    while (!spool.isEmpty() && spoolStart + spool.peek().updates() <= processed) {
+      Pending p = spool.poll();
+      spooledUpdates -= p.updates();
+      spoolStart += p.updates();
+    }
+  }
+
+  // sends the spooled clause updates again after the session was resumed,
+  // must be called while holding SYNC_STATE
+  private void replay() throws IOException, SerializationException {
+    for (Pending p : spool) {
+      client.write(p.type(), p.obj());
+      if (creditsEnabled) {
+        credits -= p.updates();
+      }
+    }
+  }
+
+  private void threadMain() {
+    // some sort of fatal error occurs if the establishing fails
+    // state is set to closed and connection is closed
+    while (doEstablish()) {
+      if (!serve()) {
+        return;
+      }
+    }
+  }
 
+  // serves an established connection, returns whether it was lost and has to be re-established
+  private boolean serve() {
     Selector sel = null;
+    SelectionKey key = null; // null for shared memory, which is not selectable
     try {
-      sel = Selector.open();
-      client.register(sel, SelectionKey.OP_READ);
+      if (client.isSelectable()) {
+        sel = Selector.open();
+        key = client.register(sel, SelectionKey.OP_READ);
+      }
     } catch (Exception e) {
       if (sel != null) {
         try {
@@ -158,31 +415,65 @@ public class ProducerConnection {
           // nothing
         }
       }
-      doClose("fail: selector", MessageTypes.TERM_OTHER, "fail: selector");
-      return;
+      return fail("fail: selector");
+    }
+    try {
+      return serve(sel, key);
+    } finally {
+      if (sel != null) {
+        try {
+          sel.close();
+        } catch (Exception e) {
+          // nothing
+        }
+      }
     }
+  }
 
+  private boolean serve(Selector sel, SelectionKey key) {
     Queue<NetworkMessage> readQueue;
+    boolean ringFull = false;
     while (true) {
       synchronized (SYNC_STATE) {
         if (state == State.CLOSED) {
           doClose(null, (byte) 0, null);
-          return;
+          return false;
         }
       }
 
-      // Note: we cannot have the read() call in a synchronized block, as this would interfere
-      // with writing. Waiting for up to one second in read() while we cannot write is not desirable.
-      // This means we have to be careful here, as we may read past a close(). Sometimes this is
-      // unavoidable, and not indicative of a synchronization mistake.
+      // Note: we cannot have the waiting and read() calls in a synchronized block, as this would
+      // interfere with writing. This means we have to be careful here, as we may read past a
+      // close(). Sometimes this is unavoidable, and not indicative of a synchronization mistake.
+
+      // queued clause updates are flushed once they are due according to the flush policy, or as
+      // soon as the channel is writable again if the socket buffer was full
+      // there is no timeout otherwise: queueing a message and closing wake this thread up
+      try {
+        if (key != null) {
+          sel.select(selectTimeout(key));
+          boolean writable = key.isValid() && key.isWritable();
+          sel.selectedKeys().clear(); // act like we took care of everything
+          if (writable || client.nanosUntilFlush() == 0) {
+            boolean flushed = client.flushPending();
+            key.interestOps(flushed ? SelectionKey.OP_READ
+                : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+          }
+        } else {
+          // the same for shared memory, but without a selector there are no wakeups, so the
+          // connection itself has to check for due flushes while waiting
+          client.await(Long.MAX_VALUE, ringFull);
+          if (ringFull || client.nanosUntilFlush() == 0) {
+            ringFull = !client.flushPending();
+          }
+        }
+      } catch (Exception e) {
+        return fail("fail: write");
+      }
 
       try {
-        sel.select(1000); // avoid busy-wait
-        sel.selectedKeys().clear(); // act like we took care of everything
         readQueue = client.read();
       } catch (Exception e) {
-        doClose("fail: read", MessageTypes.TERM_OTHER, "fail: read");
-        return;
+        return fail("fail: read");
       }
 
       for (NetworkMessage msg: readQueue) {
@@ -191,22 +482,156 @@ public class ProducerConnection {
             synchronized (SYNC_STATE) {
               if (state == State.CLOSED) {
                 doClose(null, (byte) 0, null);
-                return;
+                return false;
+              }
+              if (state == State.RESUMING) {
+                try {
+                  replay();
+                } catch (Exception e) {
+                  return fail("fail: replay");
+                }
+                state = State.STARTED;
+                SYNC_STATE.notifyAll(); // senders may be waiting for buffer space
+                if (terminating) {
+                  state = State.CLOSED;
+                  doClose(null, (byte) 0, null);
+                  return false;
+                }
+              } else {
+                state = State.STARTED;
+                ls.onConnect();
               }
-              state = State.STARTED;
-              ls.onConnect();
             }
           }
           case MessageTypes.STOP -> {
             doClose("stop", (byte) 0, null);
-            return;
+            return false;
+          }
+          case MessageTypes.ACK -> {
+            synchronized (SYNC_STATE) {
+              // spooling starts with the first acknowledgement, which precedes the start signal
+              sessionEnabled = true;
+              acknowledge((Long) msg.object());
+            }
+          }
+          case MessageTypes.CREDIT -> {
+            synchronized (SYNC_STATE) {
+              // flow control starts with the first grant, so consumers without it are unaffected
+              creditsEnabled = true;
+              credits += (Integer) msg.object();
+              SYNC_STATE.notifyAll();
+            }
           }
           default -> { /* ignore */ }
         }
       }
+
+      try {
+        sendBuffered();
+      } catch (Exception e) {
+        return fail("fail: clause");
+      }
+    }
+  }
+
+  // queues buffered and then disk-spooled clause updates for which credits have been granted, as
+  // far as the write queue permits; the rest is queued in a later iteration of the worker loop
+  private void sendBuffered() throws IOException, SerializationException {
+    synchronized (SYNC_STATE) {
+      if (!isDeferred()) {
+        return;
+      }
+      while (state == State.STARTED && (!creditsEnabled || credits > 0)) {
+        boolean fromDisk = buffered.isEmpty();
+        Pending p;
+        if (!fromDisk) {
+          p = buffered.peek();
+        } else {
+          NetworkMessage msg = diskSpool == null ? null : diskSpool.peek();
+          if (msg == null) {
+            break;
+          }
+          p = new Pending(msg.type(), msg.object(), updates(msg.type(), msg.object()));
+        }
+        if (!client.offer(p.type(), p.obj())) {
+          break;
+        }
+        if (fromDisk) {
+          diskSpool.remove();
+          closeFailedSpool();
+        } else {
+          buffered.poll();
+          bufferedUpdates -= p.updates();
+        }
+        spool(p);
+        if (creditsEnabled) {
+          credits -= p.updates();
+        }
+      }
+      // senders may be waiting for buffer space
+      SYNC_STATE.notifyAll();
+    }
+  }
+
+  // whether clause updates are buffered or spooled to disk, which have to be sent before new ones,
+  // must be called while holding SYNC_STATE
+  private boolean isDeferred() {
+    return !buffered.isEmpty() || (diskSpool != null && !diskSpool.isEmpty());
+  }
+
+  // buffers a clause update in memory if allowed and there is room, or appends it to the disk
+  // spool otherwise; in memory only as long as nothing is spooled to disk, to preserve the order.
+  // Returns whether the update was deferred. Must be called while holding SYNC_STATE.
+  private boolean defer(Pending p, boolean inMemory) throws SerializationException {
+    if (inMemory && (diskSpool == null || diskSpool.isEmpty())
+        && bufferedUpdates + p.updates() <= MAX_BUFFERED_UPDATES) {
+      buffered.add(p);
+      bufferedUpdates += p.updates();
+      return true;
+    }
+    if (diskSpool == null || diskSpoolFailed) {
+      return false;
+    }
+    try {
+      return diskSpool.offer(p.type(), p.obj(), p.updates());
+    } catch (IOException e) {
+      // e.g., the disk is full: behave like without a spool for the rest of the session, once the
+      // clause updates in it have been sent to preserve the order
+      diskSpoolFailed = true;
+      closeFailedSpool();
+      return false;
     }
   }
 
+  // closes the disk spool after appending to it failed, as soon as it is drained,
+  // must be called while holding SYNC_STATE
+  private void closeFailedSpool() {
+    if (!diskSpoolFailed || !diskSpool.isEmpty()) {
+      return;
+    }
+    try {
+      diskSpool.close();
+    } catch (IOException e) {
+      // nothing
+    }
+    diskSpool = null;
+  }
+
+  private static int updates(byte type, Object obj) {
+    return type == MessageTypes.CLAUSE_BATCH ? ((ClauseBatch) obj).size() : 1;
+  }
+
+  // the time in ms to wait for reads, until queued messages have to be flushed, 0 for no limit
+  private long selectTimeout(SelectionKey key) {
+    long delay = client.nanosUntilFlush();
+    if (delay < 0 || (key.interestOps() & SelectionKey.OP_WRITE) != 0) {
+      // nothing to flush, or waiting for the channel to become writable
+      return 0;
+    }
+    // select(0) would wait indefinitely
+    return Math.max(1, TimeUnit.NANOSECONDS.toMillis(delay + 999_999));
+  }
+
   /**
    * Establishes the connection to the consumer by spawning a worker thread to read messages.
    * The thread terminates if an internal error occurs or one of the terminate methods is called.
@@ -229,45 +654,152 @@ public class ProducerConnection {
 
   /**
    * Sends a clause update over this connection.
+   * The clause update is queued and written by the worker thread according to the
+   *     {@link FlushPolicy} of this connection, so the caller doesn't block on the socket. Only if
+   *     the capacity of the queue is exhausted, this method waits until queued updates are written.
+   *     Clause updates are always written before a subsequent termination message.
    * If an exception is thrown, nothing will be written and the connection is not terminated.
-   * The return value indicates if a message has actually been sent or not. There are three cases
+   * The return value indicates if a message has actually been sent or not. There are four cases
    *     in which the message might not be sent. First, there might be an internal socket error. In
    *     this case, onDisconnect() is called. Second, the connection has been terminated. In that
    *     case, onDisconnect() is not called, as it has either been called before or the termination
    *     was initiated using one of the terminate methods (i.e., the user is aware of this).
-   *     Lastly, the clause update is not sent if a {@link SerializationException} occurs. In this
+   *     Third, the clause update is not sent if a {@link SerializationException} occurs. In this
    *     case, the connection is closed with a failure.
+   *     Fourth, the clause update is dropped if the consumer hasn't granted enough credits and the
+   *     credit policy is {@link CreditPolicy#DROP}. With the other policies, this method may wait
+   *     for the consumer to grant credits instead. With a {@link DiskSpool}, the update is only
+   *     dropped or waited for once the disk usage limit of the spool is reached.
    * @param c the clause update
    * @return true if sent, false otherwise
    * @throws IllegalStateException if the connection has not been started from the consumer
    */
   public boolean sendClauseUpdate(ClauseUpdate c) {
-    // We still need to synchronize here to make sure that no clause updates are sent after a
-    // termination message.
     byte type = c.type() == ClauseUpdate.Type.ADD ?
         MessageTypes.CLAUSE_ADD : MessageTypes.CLAUSE_DEL;
+    return send(type, c.clause());
+  }
 
-    synchronized (SYNC_STATE) {
-      switch (state) {
-        case INIT, ESTABLISHING, ESTABLISHED -> throw
-            new IllegalStateException("terminate before connection is established and started");
-        case STARTED -> {
-          try {
-            client.write(type, c.clause());
-            return true;
-          } catch (Exception e) { // note: SerializationException DOES close this connection
-            state = State.CLOSED;
-            termMessage = "fail: clause";
-            termByte = MessageTypes.TERM_OTHER;
-            termObject = "fail: clause";
+  /**
+   * Sends multiple clause updates in a single message.
+   * This behaves like calling {@link #sendClauseUpdate(ClauseUpdate)} for every update in the
+   *     batch, but avoids the overhead of writing a message for each of them. An empty batch is
+   *     not sent.
+   * @param batch the clause updates
+   * @return true if sent, false otherwise
+   * @throws IllegalStateException if the connection has not been started from the consumer
+   */
+  public boolean sendClauseUpdates(ClauseBatch batch) {
+    if (batch.isEmpty()) {
+      synchronized (SYNC_STATE) {
+        if (state != State.STARTED && state != State.CLOSED) {
+          throw new IllegalStateException(
+              "terminate before connection is established and started");
+        }
+        return state == State.STARTED;
+      }
+    }
+    return send(MessageTypes.CLAUSE_BATCH, batch);
+  }
+
+  private boolean send(byte type, Object obj) {
+    int updates = updates(type, obj);
+    Pending pending = new Pending(type, obj, updates);
+    while (true) {
+      Connection client;
+      // The state, the credits and the deferred clause updates are guarded by SYNC_STATE. Holding
+      // it while queueing also ensures that no clause update is queued after a terminate method
+      // has changed the state. Waiting for room in the write queue is done without it, as the
+      // worker thread needs it to flush.
+      synchronized (SYNC_STATE) {
+        switch (state) {
+          case INIT, ESTABLISHING, ESTABLISHED -> throw
+              new IllegalStateException("terminate before connection is established and started");
+          case RESUMING -> {
+            if (terminating) {
+              return false;
+            }
+            // buffered until the session is resumed, like without credits
+            try {
+              if (defer(pending, true)) {
+                return true;
+              }
+            } catch (SerializationException e) {
+              state = State.CLOSED;
+              termMessage = "fail: clause";
+              termByte = MessageTypes.TERM_OTHER;
+              termObject = "fail: clause";
+              return false;
+            }
+            long stallStart = System.nanoTime();
+            try {
+              SYNC_STATE.wait();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              return false;
+            } finally {
+              stallNanos += System.nanoTime() - stallStart;
+            }
+            continue;
+          }
+          case STARTED -> {
+            try {
+              // deferred clause updates have to be sent first to preserve the order
+              boolean deferred = isDeferred();
+              if ((creditsEnabled && credits <= 0) || deferred) {
+                // after resuming, clause updates may be buffered regardless of the policy
+                if (creditPolicy == CreditPolicy.DROP && !deferred) {
+                  droppedUpdates += updates;
+                  return false;
+                }
+                if (defer(pending, creditPolicy != CreditPolicy.BLOCK || !buffered.isEmpty())) {
+                  return true;
+                }
+                long stallStart = System.nanoTime();
+                try {
+                  SYNC_STATE.wait();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  return false;
+                } finally {
+                  stallNanos += System.nanoTime() - stallStart;
+                }
+                continue;
+              }
+              if (this.client.offer(type, obj)) {
+                spool(pending);
+                if (creditsEnabled) {
+                  credits -= updates; // a batch may use more credits than are left
+                }
+                return true;
+              }
+              // the write queue is full (its capacity is the high-water mark for the disk spool)
+              if (defer(pending, false)) {
+                return true;
+              }
+              // the connection may be replaced while waiting
+              client = this.client;
+            } catch (Exception e) { // note: SerializationException DOES close this connection
+              state = State.CLOSED;
+              termMessage = "fail: clause";
+              termByte = MessageTypes.TERM_OTHER;
+              termObject = "fail: clause";
+              return false;
+            }
+          } default -> {
+            // case CLOSED
+            // no error message, but indication in return value
             return false;
           }
-        } default -> {
-          // case CLOSED
-          // no error message, but indication in return value
-          return false;
         }
       }
+      // the queue is full: wait for the worker thread to flush, which needs SYNC_STATE
+      try {
+        client.awaitCapacity(); // returns if the connection is lost and closed meanwhile
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
     }
   }
 
@@ -283,6 +815,15 @@ public class ProducerConnection {
             new IllegalStateException("terminate before connection is established and started");
         case STARTED -> {
           state = State.CLOSED;
+          wakeWorker();
+          termMessage = null;
+          termByte = MessageTypes.TERM_SOLVE;
+          termObject = assign;
+        }
+        case RESUMING -> {
+          // the result is sent after the session is resumed and the clause updates are replayed
+          terminating = true;
+          wakeWorker();
           termMessage = null;
           termByte = MessageTypes.TERM_SOLVE;
           termObject = assign;
@@ -303,6 +844,15 @@ public class ProducerConnection {
             new IllegalStateException("terminate before connection is established and started");
         case STARTED -> {
           state = State.CLOSED;
+          wakeWorker();
+          termMessage = null;
+          termByte = MessageTypes.TERM_REFUTE;
+          termObject = null;
+        }
+        case RESUMING -> {
+          // the result is sent after the session is resumed and the clause updates are replayed
+          terminating = true;
+          wakeWorker();
           termMessage = null;
           termByte = MessageTypes.TERM_REFUTE;
           termObject = null;
@@ -321,8 +871,9 @@ public class ProducerConnection {
     synchronized (SYNC_STATE) {
       switch (state) {
         case INIT -> state = State.CLOSED; // do nothing else
-        case ESTABLISHING, ESTABLISHED, STARTED -> {
+        case ESTABLISHING, ESTABLISHED, STARTED, RESUMING -> {
           state = State.CLOSED;
+          wakeWorker();
           termMessage = null;
           termByte = MessageTypes.TERM_OTHER;
           termObject = reason;
@@ -331,4 +882,64 @@ public class ProducerConnection {
       }
     }
   }
+
+  // wakes up the worker thread and senders waiting for credits after the state changed to CLOSED,
+  // must be called while holding SYNC_STATE
+  private void wakeWorker() {
+    SYNC_STATE.notifyAll();
+    if (client != null) {
+      client.wakeup();
+    }
+  }
+
+  /**
+   * Returns the amount of clause updates that may currently be sent according to the credits
+   * granted by the consumer.
+   * @return the remaining credits, -1 if the consumer doesn't use flow control (yet)
+   */
+  public long getCredits() {
+    synchronized (SYNC_STATE) {
+      return creditsEnabled ? Math.max(0, credits) : -1;
+    }
+  }
+
+  /**
+   * Returns the total time that senders have waited for the consumer to grant credits.
+   * @return the stall time in nanoseconds
+   */
+  public long getStallNanos() {
+    synchronized (SYNC_STATE) {
+      return stallNanos;
+    }
+  }
+
+  /**
+   * Returns the amount of clause updates in the disk spool of this connection.
+   * @return the spool depth, 0 if this connection has no disk spool
+   */
+  public long getSpoolDepth() {
+    synchronized (SYNC_STATE) {
+      return diskSpool == null ? 0 : diskSpool.getDepth();
+    }
+  }
+
+  /**
+   * Returns the disk space currently used by the disk spool of this connection.
+   * @return the disk usage in bytes, 0 if this connection has no disk spool
+   */
+  public long getSpoolBytes() {
+    synchronized (SYNC_STATE) {
+      return diskSpool == null ? 0 : diskSpool.getBytes();
+    }
+  }
+
+  /**
+   * Returns the amount of clause updates that have been dropped with {@link CreditPolicy#DROP}.
+   * @return the amount of dropped clause updates
+   */
+  public long getDroppedUpdates() {
+    synchronized (SYNC_STATE) {
+      return droppedUpdates;
+    }
+  }
 }
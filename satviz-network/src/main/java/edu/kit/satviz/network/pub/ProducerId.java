@@ -32,7 +32,7 @@ public abstract class ProducerId {
 
   /**
    * Returns the remote address of the producer described by this ID.
-   * @return remote address
+   * @return remote address, {@code null} if the producer is connected via a Unix domain socket
    */
   public final InetSocketAddress getAddress() {
     return address;
@@ -0,0 +1,83 @@
+package edu.kit.satviz.network.pub;
+
+import java.net.SocketAddress;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * The address of a shared memory connection between a producer and a consumer on the same
+ * machine.
+ * Instead of a socket, the consumer creates two memory-mapped ring buffers (one per direction) in
+ * a directory, which the producer attaches to. This avoids the kernel entirely while clause
+ * updates are transferred, but only a single producer can connect to such an address.
+ * The directory should be in a memory-backed file system like {@code /dev/shm}.
+ */
+public final class SharedMemoryAddress extends SocketAddress {
+  private static final long serialVersionUID = 1L;
+
+  /** The default capacity of each ring buffer in bytes. */
+  public static final int DEFAULT_CAPACITY = 4 * 1024 * 1024;
+
+  private final String directory;
+  private final int capacity;
+
+  /**
+   * Creates a new shared memory address with ring buffers of the default capacity.
+   * @param directory the directory of the ring buffers
+   */
+  public SharedMemoryAddress(Path directory) {
+    this(directory, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a new shared memory address.
+   * @param directory the directory of the ring buffers
+   * @param capacity the capacity of each ring buffer in bytes, only used by the consumer
+   * @throws IllegalArgumentException if the capacity is not a power of two
+   */
+  public SharedMemoryAddress(Path directory, int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("ring capacity must be a power of two");
+    }
+    this.directory = directory.toString();
+    this.capacity = capacity;
+  }
+
+  /**
+   * Returns the directory of the ring buffers.
+   * @return the directory
+   */
+  public Path getDirectory() {
+    return Path.of(directory);
+  }
+
+  /**
+   * Returns the capacity of each ring buffer.
+   * @return the capacity in bytes
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SharedMemoryAddress that = (SharedMemoryAddress) o;
+    return capacity == that.capacity && directory.equals(that.directory);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(directory, capacity);
+  }
+
+  @Override
+  public String toString() {
+    return "shm:" + directory;
+  }
+}
@@ -2,13 +2,23 @@ package edu.kit.satviz.network;
 
 import edu.kit.satviz.network.general.Connection;
 import edu.kit.satviz.network.general.ConnectionServer;
+import edu.kit.satviz.network.general.MessageBatch;
 import edu.kit.satviz.network.general.NetworkMessage;
 import edu.kit.satviz.network.general.PollEvent;
+import edu.kit.satviz.network.pub.FlushPolicy;
 import edu.kit.satviz.network.pub.MessageTypes;
 import edu.kit.satviz.sat.Clause;
 import edu.kit.satviz.serial.SerializationException;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Queue;
 
@@ -115,6 +125,307 @@ class ConnectionTest {
     }
   }
 
+  @Test
+  void testQueued() {
+    final int PORT = 34316;
+    try {
+      server = new ConnectionServer(PORT, MessageTypes.satvizBlueprint);
+      client = new Connection("localhost", PORT, MessageTypes.satvizBlueprint,
+          new FlushPolicy(64, 60_000_000, 1024));
+
+      PollEvent event = null;
+      while (event == null) {
+        event = server.poll();
+      }
+      assertEquals(PollEvent.EventType.ACCEPT, event.type());
+
+      List<Clause> sent = new ArrayList<>();
+      assertEquals(-1, client.nanosUntilFlush());
+      Clause small = new Clause(new int[]{1, -2});
+      assertTrue(client.offer(MessageTypes.CLAUSE_ADD, small));
+      sent.add(small);
+      // below the size threshold, the message lingers
+      assertTrue(client.nanosUntilFlush() > 0);
+
+      // fill the queue up to its capacity, including a message larger than a segment
+      int[] literals = new int[600];
+      Arrays.fill(literals, 100000);
+      Clause large = new Clause(literals);
+      assertTrue(client.offer(MessageTypes.CLAUSE_ADD, large));
+      sent.add(large);
+      assertEquals(0, client.nanosUntilFlush());
+      assertFalse(client.offer(MessageTypes.CLAUSE_ADD, small));
+
+      client.flush();
+      assertEquals(-1, client.nanosUntilFlush());
+      for (int i = 0; i < 10; i++) {
+        Clause c = new Clause(new int[]{i + 1});
+        assertTrue(client.offer(MessageTypes.CLAUSE_DEL, c));
+        sent.add(c);
+      }
+      // a synchronous write flushes the queued messages first
+      client.write(MessageTypes.TERM_REFUTE, null);
+
+      List<Object> received = new ArrayList<>();
+      while (received.size() < sent.size() + 1) {
+        event = server.poll();
+        if (event != null) {
+          assertEquals(PollEvent.EventType.READ, event.type());
+          received.add(((NetworkMessage) event.obj()).object());
+        }
+      }
+      assertEquals(sent, received.subList(0, sent.size()));
+      assertNull(received.get(sent.size()));
+    } catch (Throwable t) {
+      fail(t);
+    } finally {
+      if (client != null) client.close();
+      client = null;
+      if (server != null) server.close();
+      server = null;
+    }
+  }
+
+  @Test
+  void testPollBatch() {
+    final int PORT = 34317;
+    try {
+      // a tiny receive buffer, so that messages are split across reads and decoded incrementally
+      server = new ConnectionServer(PORT, MessageTypes.satvizBlueprint, 8);
+      client = new Connection("localhost", PORT, MessageTypes.satvizBlueprint);
+      MessageBatch batch = new MessageBatch();
+
+      PollEvent event = null;
+      while (event == null) {
+        event = server.pollBatch(batch);
+      }
+      assertEquals(PollEvent.EventType.ACCEPT, event.type());
+
+      List<Object> sent = new ArrayList<>();
+      for (int i = 1; i <= 50; i++) {
+        int[] literals = new int[i];
+        Arrays.fill(literals, 1000 * i);
+        Clause c = new Clause(literals);
+        client.write(MessageTypes.CLAUSE_ADD, c);
+        sent.add(c);
+      }
+      client.write(MessageTypes.START, null);
+      sent.add(null);
+
+      List<Object> received = new ArrayList<>();
+      while (received.size() < sent.size()) {
+        event = server.pollBatch(batch);
+        if (event != null) {
+          assertEquals(PollEvent.EventType.READ, event.type());
+          assertSame(batch, event.obj());
+          assertFalse(batch.isEmpty());
+          for (int i = 0; i < batch.size(); i++) {
+            received.add(batch.object(i));
+          }
+        }
+      }
+      assertEquals(sent, received);
+      assertEquals(MessageTypes.START, batch.type(batch.size() - 1));
+    } catch (Throwable t) {
+      fail(t);
+    } finally {
+      if (client != null) client.close();
+      client = null;
+      if (server != null) server.close();
+      server = null;
+    }
+  }
+
+  @Test
+  void testUnixDomainSocket() {
+    Path dir = null;
+    try {
+      dir = Files.createTempDirectory("satviz-uds");
+      Path socket = dir.resolve("test.sock");
+      UnixDomainSocketAddress address = UnixDomainSocketAddress.of(socket);
+      // no-one is listening yet
+      assertThrows(ConnectException.class,
+          () -> new Connection(address, MessageTypes.satvizBlueprint, null));
+
+      server = new ConnectionServer(address, MessageTypes.satvizBlueprint, 1024);
+      assertEquals(address, server.getLocalSocketAddress());
+      assertNull(server.getLocalAddress());
+      client = new Connection(address, MessageTypes.satvizBlueprint, null);
+
+      PollEvent event = null;
+      while (event == null) {
+        event = server.poll();
+      }
+      assertEquals(PollEvent.EventType.ACCEPT, event.type());
+      assertNull(server.getRemoteAddress(0));
+
+      Clause c = new Clause(new int[]{1, -2, 3});
+      client.write(MessageTypes.CLAUSE_ADD, c);
+      event = null;
+      while (event == null) {
+        event = server.poll();
+      }
+      assertEquals(PollEvent.EventType.READ, event.type());
+      assertEquals(c, ((NetworkMessage) event.obj()).object());
+
+      server.write(0, MessageTypes.CLAUSE_DEL, c);
+      Queue<NetworkMessage> q;
+      do {
+        q = client.read();
+      } while (q.isEmpty());
+      assertEquals(MessageTypes.CLAUSE_DEL, q.peek().type());
+
+      server.close();
+      assertFalse(Files.exists(socket));
+    } catch (Throwable t) {
+      fail(t);
+    } finally {
+      if (client != null) client.close();
+      client = null;
+      if (server != null) server.close();
+      server = null;
+      if (dir != null) dir.toFile().delete();
+    }
+  }
+
+  @Test
+  void testSharedMemory() {
+    Path dir = null;
+    try {
+      dir = Files.createTempDirectory("satviz-shm").resolve("rings");
+      Path ringDir = dir;
+      // no-one is listening yet
+      assertThrows(ConnectException.class,
+          () -> new Connection(ringDir, MessageTypes.satvizBlueprint, null));
+      // or the server is still creating its rings
+      Path partial = Files.createDirectories(dir.resolveSibling("partial"));
+      Files.createFile(partial.resolve("client.ring"));
+      Files.write(partial.resolve("server.ring"), new byte[512]);
+      assertThrows(ConnectException.class,
+          () -> new Connection(partial, MessageTypes.satvizBlueprint, null));
+      Files.delete(partial.resolve("client.ring"));
+      Files.delete(partial.resolve("server.ring"));
+      Files.delete(partial);
+
+      // small rings, so that the messages wrap around and the writer has to wait for the reader
+      server = new ConnectionServer(ringDir, 256, MessageTypes.satvizBlueprint, 64);
+      assertNull(server.getLocalAddress());
+      client = new Connection(ringDir, MessageTypes.satvizBlueprint, null);
+      assertFalse(client.isSelectable());
+      // only one client can attach
+      assertThrows(IOException.class,
+          () -> new Connection(ringDir, MessageTypes.satvizBlueprint, null));
+      MessageBatch batch = new MessageBatch();
+
+      PollEvent event = null;
+      while (event == null) {
+        event = server.pollBatch(batch);
+      }
+      assertEquals(PollEvent.EventType.ACCEPT, event.type());
+      assertEquals(0, event.id());
+      assertNull(server.getRemoteAddress(0));
+      // the ring files are not needed anymore once the client has attached
+      assertFalse(Files.exists(ringDir.resolve("server.ring")));
+      assertFalse(Files.exists(ringDir.resolve("client.ring")));
+
+      List<Object> sent = new ArrayList<>();
+      for (int i = 1; i <= 100; i++) {
+        int[] literals = new int[i % 40 + 1];
+        Arrays.fill(literals, -1000 * i);
+        sent.add(new Clause(literals));
+      }
+      Thread writer = new Thread(() -> {
+        try {
+          for (Object c : sent) {
+            client.write(MessageTypes.CLAUSE_ADD, c);
+          }
+        } catch (Exception e) {
+          client.close();
+        }
+      });
+      writer.start();
+      List<Object> received = new ArrayList<>();
+      while (received.size() < sent.size()) {
+        event = server.pollBatch(batch);
+        if (event != null) {
+          assertEquals(PollEvent.EventType.READ, event.type());
+          for (int i = 0; i < batch.size(); i++) {
+            received.add(batch.object(i));
+          }
+        }
+      }
+      writer.join();
+      assertEquals(sent, received);
+
+      // and in the other direction
+      server.write(0, MessageTypes.STOP, null);
+      assertTrue(client.await(1_000_000_000L, false));
+      Queue<NetworkMessage> q = client.read();
+      assertEquals(1, q.size());
+      assertEquals(MessageTypes.STOP, q.peek().type());
+
+      server.close();
+      assertFalse(Files.exists(ringDir));
+      // the client notices that the server is gone
+      assertThrows(IOException.class, () -> client.write(MessageTypes.START, null));
+    } catch (Throwable t) {
+      fail(t);
+    } finally {
+      if (client != null) client.close();
+      client = null;
+      if (server != null) server.close();
+      server = null;
+      if (dir != null) dir.getParent().toFile().delete();
+    }
+  }
+
+  @Test
+  void testSharedMemoryClosed() {
+    Path dir = null;
+    try {
+      dir = Files.createTempDirectory("satviz-shm").resolve("rings");
+      server = new ConnectionServer(dir, 256, MessageTypes.satvizBlueprint, 64);
+      client = new Connection(dir, MessageTypes.satvizBlueprint, null);
+      MessageBatch batch = new MessageBatch();
+      PollEvent event = null;
+      while (event == null) {
+        event = server.pollBatch(batch);
+      }
+      assertEquals(PollEvent.EventType.ACCEPT, event.type());
+
+      // a client closing without a final message ends a poll without timeout
+      List<PollEvent> events = new ArrayList<>();
+      Thread poller = new Thread(() -> events.add(server.pollBatch(batch, 0)));
+      poller.setDaemon(true);
+      poller.start();
+      client.close();
+      poller.join(10_000);
+      assertFalse(poller.isAlive());
+      assertEquals(PollEvent.EventType.FAIL, events.get(0).type());
+      server.close();
+      server = null;
+
+      // and the other way around
+      server = new ConnectionServer(dir, 256, MessageTypes.satvizBlueprint, 64);
+      client = new Connection(dir, MessageTypes.satvizBlueprint, null);
+      event = null;
+      while (event == null) {
+        event = server.pollBatch(batch);
+      }
+      server.close();
+      assertTrue(client.await(Long.MAX_VALUE, false));
+      assertThrows(IOException.class, () -> client.read());
+    } catch (Throwable t) {
+      fail(t);
+    } finally {
+      if (client != null) client.close();
+      client = null;
+      if (server != null) server.close();
+      server = null;
+      if (dir != null) dir.getParent().toFile().delete();
+    }
+  }
+
   @Test
   void testBindEphemeral() {
     final int PORT = 0;
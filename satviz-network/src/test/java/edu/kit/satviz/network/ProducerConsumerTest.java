@@ -1,21 +1,39 @@
 package edu.kit.satviz.network;
 
+import edu.kit.satviz.network.general.Connection;
 import edu.kit.satviz.network.pub.*;
 import edu.kit.satviz.sat.Clause;
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.ClauseUpdate;
 import edu.kit.satviz.sat.SatAssignment;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.lang.invoke.StringConcatException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ProducerConsumerTest implements ProducerConnectionListener, ConsumerConnectionListener {
+  // the workers used to poll in intervals of one second, now they are woken up right away.
+  // the bound applies to the median of several rounds, so single slow ones don't matter
+  private static final long MAX_LATENCY_NANOS = 20_000_000;
+  private static final int LATENCY_ROUNDS = 5;
+
   private static ProducerConnection prod;
   private static ConsumerConnection cons;
   private static final Object SYNC_PROD = new Object();
@@ -78,6 +96,8 @@ public class ProducerConsumerTest implements ProducerConnectionListener, Consume
       assign.set(5, SatAssignment.VariableState.SET);
       assertTrue(prod.sendClauseUpdate(c1));
       assertTrue(prod.sendClauseUpdate(c2));
+      assertTrue(prod.sendClauseUpdates(ClauseBatch.of(c2, c1)));
+      assertTrue(prod.sendClauseUpdates(ClauseBatch.empty()));
       prod.terminateSolved(assign);
       assertFalse(prod.sendClauseUpdate(c1)); // sending after terminating
 
@@ -88,9 +108,7 @@ public class ProducerConsumerTest implements ProducerConnectionListener, Consume
       }
       List<ClauseUpdate> updates = onClauseUpdateCalls.get(sid);
       assertNotNull(updates);
-      assertEquals(2, updates.size());
-      assertEquals(c1, updates.get(0));
-      assertEquals(c2, updates.get(1));
+      assertEquals(List.of(c1, c2, c2, c1), updates);
       assertTrue(onDisconnectCalls.isEmpty()); // prod disconnected, so no message
 
       assertTrue(lsFailCalls.isEmpty());
@@ -103,6 +121,458 @@ public class ProducerConsumerTest implements ProducerConnectionListener, Consume
     }
   }
 
+  @Test
+  void testSharedMemory() {
+    Path dir = null;
+    try {
+      dir = Files.createTempDirectory("satviz-shm");
+      SharedMemoryAddress address = new SharedMemoryAddress(dir.resolve("rings"), 4096);
+      prod = new ProducerConnection(address);
+      prod.establish(new ProofId(), this);
+
+      cons = new ConsumerConnection(address, this::lsConnect, this::lsFail);
+      cons.start();
+      assertEquals(-1, cons.getPort());
+
+      synchronized (SYNC_PROD) {
+        while (onConnectCalls == 0) {
+          SYNC_PROD.wait();
+        }
+      }
+      List<ClauseUpdate> sent = new ArrayList<>();
+      for (int i = 1; i <= 1000; i++) {
+        ClauseUpdate c = new ClauseUpdate(new Clause(new int[]{i, -i, 2 * i}),
+            i % 3 == 0 ? ClauseUpdate.Type.REMOVE : ClauseUpdate.Type.ADD);
+        assertTrue(prod.sendClauseUpdate(c));
+        sent.add(c);
+      }
+      prod.terminateRefuted();
+
+      synchronized (SYNC_CONS) {
+        while (onTerminateRefutedCalls.isEmpty()) {
+          SYNC_CONS.wait();
+        }
+      }
+      ProducerId pid = lsConnectCalls.get(0);
+      assertNull(pid.getAddress());
+      assertEquals(sent, onClauseUpdateCalls.get(pid));
+      assertTrue(lsFailCalls.isEmpty());
+    } catch (Throwable t) {
+      fail(t);
+    } finally {
+      if (prod != null) prod.terminateOtherwise("finally");
+      if (cons != null) cons.stop();
+      deleteRecursively(dir);
+    }
+  }
+
+  @Test
+  void testStopLatency() {
+    try {
+      long[] latencies = new long[LATENCY_ROUNDS];
+      for (int i = 0; i < LATENCY_ROUNDS; i++) {
+        latencies[i] = stopLatency(new InetSocketAddress("localhost", 0));
+      }
+      assertMedianLatency("stop", latencies);
+    } catch (Throwable t) {
+      fail(t);
+    }
+  }
+
+  @Test
+  void testTerminateLatency() {
+    try {
+      long[] latencies = new long[LATENCY_ROUNDS];
+      for (int i = 0; i < LATENCY_ROUNDS; i++) {
+        latencies[i] = terminateLatency(new InetSocketAddress("localhost", 0));
+      }
+      assertMedianLatency("terminate", latencies);
+    } catch (Throwable t) {
+      fail(t);
+    }
+  }
+
+  @Test
+  void testSharedMemoryStopLatency() {
+    Path dir = null;
+    try {
+      dir = Files.createTempDirectory("satviz-shm");
+      long[] latencies = new long[LATENCY_ROUNDS];
+      for (int i = 0; i < LATENCY_ROUNDS; i++) {
+        SharedMemoryAddress address = new SharedMemoryAddress(dir.resolve("rings" + i), 4096);
+        latencies[i] = stopLatency(address);
+      }
+      assertMedianLatency("stop", latencies);
+    } catch (Throwable t) {
+      fail(t);
+    } finally {
+      deleteRecursively(dir);
+    }
+  }
+
+  // starts a consumer at the given address (with port 0 for a free one) and connects a producer,
+  // so that every round gets a port of its own
+  private void connect(SocketAddress address) throws Exception {
+    cons = new ConsumerConnection(address, this::lsConnect, this::lsFail);
+    cons.start();
+    int port = cons.getPort();
+    prod = new ProducerConnection(port == -1 ? address : new InetSocketAddress("localhost", port));
+    prod.establish(new ProofId(), this);
+    awaitStarted();
+  }
+
+  private static void assertMedianLatency(String action, long[] latencies) {
+    Arrays.sort(latencies);
+    long median = latencies[latencies.length / 2];
+    assertTrue(median < MAX_LATENCY_NANOS,
+        action + " took " + Arrays.toString(latencies) + " ns");
+  }
+
+  // returns the time from stopping the consumer until the producer is disconnected
+  private long stopLatency(SocketAddress address) throws Exception {
+    beforeEach();
+    try {
+      connect(address);
+
+      long start = System.nanoTime();
+      cons.stop();
+      synchronized (SYNC_PROD) {
+        while (onDisconnectCalls.isEmpty()) {
+          SYNC_PROD.wait();
+        }
+      }
+      long latency = System.nanoTime() - start;
+      assertEquals(List.of("stop"), onDisconnectCalls);
+      return latency;
+    } finally {
+      if (prod != null) prod.terminateOtherwise("finally");
+      if (cons != null) cons.stop();
+    }
+  }
+
+  // returns the time from terminating the producer until the consumer is notified
+  private long terminateLatency(SocketAddress address) throws Exception {
+    beforeEach();
+    try {
+      connect(address);
+
+      long start = System.nanoTime();
+      prod.terminateRefuted();
+      synchronized (SYNC_CONS) {
+        while (onTerminateRefutedCalls.isEmpty()) {
+          SYNC_CONS.wait();
+        }
+      }
+      return System.nanoTime() - start;
+    } finally {
+      if (prod != null) prod.terminateOtherwise("finally");
+      if (cons != null) cons.stop();
+    }
+  }
+
+  @Test
+  void testResume() {
+    final int PORT = 34326;
+    final int PROXY_PORT = 34327;
+    try (Proxy proxy = new Proxy(PROXY_PORT, PORT)) {
+      // the proxy accepts connections before the consumer does
+      cons = new ConsumerConnection(PORT, this::lsConnect, this::lsFail);
+      cons.start();
+      prod = new ProducerConnection("localhost", PROXY_PORT);
+      prod.establish(new SolverId("cadical", false, 42), this);
+      awaitStarted();
+
+      // more clause updates than are acknowledged at once on both sides of the interruption
+      List<ClauseUpdate> sent = new ArrayList<>();
+      for (int i = 1; i <= 20000; i++) {
+        if (i == 10000) {
+          Thread.sleep(100); // the consumer acknowledges the first clause updates
+          proxy.cut();
+          Thread.sleep(100); // the connection is resumed while clause updates are sent
+        }
+        ClauseUpdate c = new ClauseUpdate(new Clause(new int[]{i, -i}), ClauseUpdate.Type.ADD);
+        assertTrue(prod.sendClauseUpdate(c));
+        sent.add(c);
+      }
+      prod.terminateRefuted();
+
+      synchronized (SYNC_CONS) {
+        while (onTerminateRefutedCalls.isEmpty()) {
+          SYNC_CONS.wait();
+        }
+      }
+      // the interruption is transparent on both sides
+      assertEquals(1, lsConnectCalls.size());
+      assertEquals(sent, onClauseUpdateCalls.get(lsConnectCalls.get(0)));
+      assertEquals(1, onConnectCalls);
+      assertTrue(onDisconnectCalls.isEmpty());
+      assertTrue(onTerminateOtherCalls.isEmpty());
+      assertTrue(lsFailCalls.isEmpty());
+    } catch (Throwable t) {
+      fail(t);
+    } finally {
+      if (prod != null) prod.terminateOtherwise("finally");
+      if (cons != null) cons.stop();
+    }
+  }
+
+  // forwards TCP connections to a local port, and can interrupt them
+  private static class Proxy implements AutoCloseable {
+    private final ServerSocket server;
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+
+    Proxy(int port, int targetPort) throws IOException {
+      server = new ServerSocket(port);
+      new Thread(() -> {
+        try {
+          while (true) {
+            Socket a = server.accept();
+            Socket b;
+            try {
+              b = new Socket("localhost", targetPort);
+            } catch (IOException e) {
+              a.close();
+              continue;
+            }
+            sockets.add(a);
+            sockets.add(b);
+            pump(a, b);
+            pump(b, a);
+          }
+        } catch (IOException e) {
+          // closed
+        }
+      }).start();
+    }
+
+    private void pump(Socket from, Socket to) {
+      new Thread(() -> {
+        try {
+          from.getInputStream().transferTo(to.getOutputStream());
+        } catch (IOException e) {
+          // cut
+        }
+        // forward the end of the stream to the other side
+        try {
+          from.close();
+          to.close();
+        } catch (IOException e) {
+          // nothing
+        }
+      }).start();
+    }
+
+    void cut() {
+      for (Socket socket : sockets) {
+        try {
+          socket.close();
+        } catch (IOException e) {
+          // nothing
+        }
+      }
+      sockets.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+      server.close();
+      cut();
+    }
+  }
+
+  // removes the directory of the rings, including ring files that haven't been deleted
+  private static void deleteRecursively(Path dir) {
+    if (dir == null) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(dir)) {
+      for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    } catch (IOException e) {
+      // nothing left to clean up
+    }
+  }
+
+  // waits until the consumer has started the producer, and both worker threads are idle
+  private void awaitStarted() throws InterruptedException {
+    synchronized (SYNC_PROD) {
+      while (onConnectCalls == 0) {
+        SYNC_PROD.wait();
+      }
+    }
+    Thread.sleep(50);
+  }
+
+  @Test
+  void testCreditBlock() {
+    List<ClauseUpdate> sent = sendWithCredits(34318, CreditPolicy.BLOCK);
+    assertEquals(50, sent.size());
+    assertEquals(0, prod.getDroppedUpdates());
+  }
+
+  @Test
+  void testCreditBuffer() {
+    List<ClauseUpdate> sent = sendWithCredits(34319, CreditPolicy.BUFFER);
+    assertEquals(50, sent.size());
+    assertEquals(0, prod.getStallNanos()); // the buffer never fills up
+  }
+
+  @Test
+  void testCreditDrop() {
+    List<ClauseUpdate> sent = sendWithCredits(34320, CreditPolicy.DROP);
+    // the initial credits are granted before the start signal
+    assertTrue(sent.size() >= 2);
+    assertEquals(50, sent.size() + prod.getDroppedUpdates());
+  }
+
+  @Test
+  void testDiskSpool() {
+    final int port = 34328;
+    try {
+      Path dir = Files.createTempDirectory("satviz-spool-test");
+      // small segments, so that several of them are written and drained
+      DiskSpool spool = new DiskSpool(dir, 1 << 20, 1024);
+      prod = new ProducerConnection(new InetSocketAddress("localhost", port), FlushPolicy.DEFAULT,
+          CreditPolicy.BLOCK, spool);
+      prod.establish(new ProofId(), this);
+
+      cons = new ConsumerConnection(port, this::lsConnect, this::lsFail,
+          Connection.DEFAULT_READ_BUFFER_SIZE, 2);
+      cons.start();
+
+      synchronized (SYNC_PROD) {
+        while (onConnectCalls == 0) {
+          SYNC_PROD.wait();
+        }
+      }
+
+      List<ClauseUpdate> sent = new ArrayList<>();
+      for (int i = 1; i <= 2000; i++) {
+        ClauseUpdate c = new ClauseUpdate(new Clause(new int[]{i, -i}), ClauseUpdate.Type.ADD);
+        assertTrue(prod.sendClauseUpdate(c));
+        sent.add(c);
+      }
+      // the sender never waits for credits, as the spool takes the clause updates instead
+      assertEquals(0, prod.getStallNanos());
+      prod.terminateRefuted();
+
+      synchronized (SYNC_CONS) {
+        while (onTerminateRefutedCalls.isEmpty()) {
+          SYNC_CONS.wait();
+        }
+      }
+      ProducerId pid = lsConnectCalls.get(0);
+      assertEquals(sent, onClauseUpdateCalls.get(pid));
+      assertEquals(0, spool.getDepth());
+      assertEquals(0, spool.getBytes());
+      try (Stream<Path> files = Files.list(dir)) {
+        assertEquals(0, files.count());
+      }
+      Files.delete(dir);
+    } catch (Throwable t) {
+      fail(t);
+    } finally {
+      if (prod != null) prod.terminateOtherwise("finally");
+      if (cons != null) cons.stop();
+    }
+  }
+
+  @Test
+  void testDiskSpoolFailure() {
+    final int port = 34329;
+    Path file = null;
+    try {
+      // the spool directory can't be created, so appending to the spool fails
+      file = Files.createTempFile("satviz-spool-test", null);
+      DiskSpool spool = new DiskSpool(file.resolve("spool"), 1 << 20, 1024);
+      prod = new ProducerConnection(new InetSocketAddress("localhost", port), FlushPolicy.DEFAULT,
+          CreditPolicy.BLOCK, spool);
+      prod.establish(new ProofId(), this);
+
+      cons = new ConsumerConnection(port, this::lsConnect, this::lsFail,
+          Connection.DEFAULT_READ_BUFFER_SIZE, 2);
+      cons.start();
+
+      synchronized (SYNC_PROD) {
+        while (onConnectCalls == 0) {
+          SYNC_PROD.wait();
+        }
+      }
+
+      // the sender waits for credits instead, like without a spool
+      List<ClauseUpdate> sent = new ArrayList<>();
+      for (int i = 1; i <= 200; i++) {
+        ClauseUpdate c = new ClauseUpdate(new Clause(new int[]{i, -i}), ClauseUpdate.Type.ADD);
+        assertTrue(prod.sendClauseUpdate(c));
+        sent.add(c);
+      }
+      assertEquals(0, prod.getSpoolDepth());
+      prod.terminateRefuted();
+
+      synchronized (SYNC_CONS) {
+        while (onTerminateRefutedCalls.isEmpty()) {
+          SYNC_CONS.wait();
+        }
+      }
+      ProducerId pid = lsConnectCalls.get(0);
+      assertEquals(sent, onClauseUpdateCalls.get(pid));
+      assertTrue(lsFailCalls.isEmpty());
+    } catch (Throwable t) {
+      fail(t);
+    } finally {
+      if (prod != null) prod.terminateOtherwise("finally");
+      if (cons != null) cons.stop();
+      if (file != null) file.toFile().delete();
+    }
+  }
+
+  // sends 50 clause updates to a consumer with a window of two clause updates and returns the ones
+  // that were sent, after checking that exactly these were received
+  private List<ClauseUpdate> sendWithCredits(int port, CreditPolicy policy) {
+    List<ClauseUpdate> sent = new ArrayList<>();
+    try {
+      prod = new ProducerConnection("localhost", port, FlushPolicy.DEFAULT, policy);
+      prod.establish(new ProofId(), this);
+
+      cons = new ConsumerConnection(port, this::lsConnect, this::lsFail,
+          Connection.DEFAULT_READ_BUFFER_SIZE, 2);
+      cons.start();
+
+      synchronized (SYNC_PROD) {
+        while (onConnectCalls == 0) {
+          SYNC_PROD.wait();
+        }
+      }
+      assertEquals(2, prod.getCredits());
+
+      for (int i = 1; i <= 50; i++) {
+        ClauseUpdate c = new ClauseUpdate(new Clause(new int[]{i, -i}), ClauseUpdate.Type.ADD);
+        if (prod.sendClauseUpdate(c)) {
+          sent.add(c);
+        }
+      }
+      prod.terminateRefuted();
+
+      synchronized (SYNC_CONS) {
+        while (onTerminateRefutedCalls.isEmpty()) {
+          SYNC_CONS.wait();
+        }
+      }
+      ProducerId pid = lsConnectCalls.get(0);
+      assertEquals(sent, onClauseUpdateCalls.getOrDefault(pid, List.of()));
+      assertTrue(cons.getWindow(pid) >= 0);
+      assertTrue(cons.getStallNanos(pid) >= 0);
+      assertTrue(lsFailCalls.isEmpty());
+    } catch (Throwable t) {
+      fail(t);
+    } finally {
+      if (prod != null) prod.terminateOtherwise("finally");
+      if (cons != null) cons.stop();
+    }
+    return sent;
+  }
+
   @Override
   public void onConnect() {
     synchronized (SYNC_PROD) {
@@ -0,0 +1,71 @@
+package edu.kit.satviz.network.pub;
+
+import edu.kit.satviz.network.general.NetworkMessage;
+import edu.kit.satviz.sat.Clause;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiskSpoolTest {
+  private Path dir;
+  private DiskSpool spool;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    dir = Files.createTempDirectory("satviz-spool-test");
+    spool = new DiskSpool(dir, 1 << 20, 1024);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    spool.close();
+    Files.delete(dir);
+  }
+
+  @Test
+  void testOrder() throws Exception {
+    // enough messages for several segments
+    for (int i = 1; i <= 200; i++) {
+      assertTrue(spool.offer(MessageTypes.CLAUSE_ADD, new Clause(new int[]{i, -i}), 1));
+    }
+    assertEquals(200, spool.getDepth());
+    for (int i = 1; i <= 200; i++) {
+      NetworkMessage msg = spool.peek();
+      assertEquals(MessageTypes.CLAUSE_ADD, msg.type());
+      assertEquals(new Clause(new int[]{i, -i}), msg.object());
+      spool.remove();
+    }
+    assertTrue(spool.isEmpty());
+    assertNull(spool.peek());
+    try (Stream<Path> files = Files.list(dir)) {
+      assertEquals(0, files.count());
+    }
+  }
+
+  @Test
+  void testWriteFailure() throws Exception {
+    // the messages are only buffered, as they fit into the first segment
+    for (int i = 1; i <= 10; i++) {
+      assertTrue(spool.offer(MessageTypes.CLAUSE_ADD, new Clause(new int[]{i, -i}), 1));
+    }
+    // the interrupt makes writing the buffered messages fail (and closes the segment file)
+    Thread.currentThread().interrupt();
+    try {
+      assertThrows(IOException.class, spool::peek);
+    } finally {
+      Thread.interrupted();
+    }
+    // neither are new messages buffered in place of the lost ones, nor are any returned
+    assertThrows(IOException.class,
+        () -> spool.offer(MessageTypes.CLAUSE_ADD, new Clause(new int[]{11, -11}), 1));
+    assertThrows(IOException.class, spool::peek);
+    assertEquals(10, spool.getDepth());
+  }
+}
@@ -0,0 +1,134 @@
+package edu.kit.satviz.parsers;
+
+import edu.kit.satviz.sat.Clause;
+import edu.kit.satviz.sat.ClauseUpdate;
+import edu.kit.satviz.serial.ClauseSerialBuilder;
+import edu.kit.satviz.serial.SerializationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is used to parse a file in the binary DRAT format into instances of the
+ * <code>ClauseUpdate</code> class by implementing the <code>Iterator</code> interface.<br>
+ * <br>
+ * Every clause update starts with the byte <code>'a'</code> (addition) or <code>'d'</code>
+ * (deletion), followed by the clause in the variable-length literal encoding that is also used
+ * by the <code>ClauseSerializer</code>. Like in textual DRAT files, the empty clause marks the end
+ * of the proof and is not returned.
+ */
+public class BinaryDratParsingIterator implements Iterator<ClauseUpdate> {
+
+  private static final String NO_CLAUSES_LEFT_MESSAGE = "No clause updates left.";
+  private static final String UNEXPECTED_TYPE_MESSAGE =
+      "The byte \"0x%02x\" doesn't identify a clause update type.";
+  private static final String INVALID_CLAUSE_MESSAGE = "The clause is invalid: %s";
+  private static final String UNEXPECTED_END_MESSAGE = "Unexpected end of file.";
+  private String unexpectedMessage;
+
+  private final ClauseTokenizer tokenizer;
+  private final ClauseSerialBuilder clauseBuilder = new ClauseSerialBuilder();
+  private ClauseUpdate nextUpdate;
+
+  private boolean isDone = false;
+  private boolean isInvalidFile = false;
+
+  /**
+   * This constructor creates an instance of the <code>BinaryDratParsingIterator</code> class.
+   *
+   * @param tokenizer The tokenizer, which provides the raw bytes of the DRAT file.
+   */
+  protected BinaryDratParsingIterator(ClauseTokenizer tokenizer) {
+    this.tokenizer = tokenizer;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (isInvalidFile) {
+      throw new ParsingException(unexpectedMessage);
+    } else if (nextUpdate != null) {
+      return true;
+    } else if (isDone) {
+      return false;
+    }
+    nextUpdate = getNextUpdate();
+    return nextUpdate != null;
+  }
+
+  /**
+   * This method parses the next clause update.
+   *
+   * @return An instance of the <code>ClauseUpdate</code> class.
+   * @throws ParsingException In case the given file is invalid.
+   * @throws NoSuchElementException In case there are no clause updates left to read in the file.
+   */
+  @Override
+  public ClauseUpdate next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException(NO_CLAUSES_LEFT_MESSAGE);
+    }
+    ClauseUpdate next = nextUpdate;
+    nextUpdate = null;
+    return next;
+  }
+
+  /**
+   * This method reads the next clause update.
+   *
+   * @return The next clause update or <code>null</code>, if there are none left.
+   */
+  private ClauseUpdate getNextUpdate() {
+    int typeId = tokenizer.nextByte();
+    if (typeId == -1) {
+      isDone = true;
+      return null;
+    }
+    ClauseUpdate.Type type;
+    try {
+      type = ClauseUpdate.Type.getById((byte) typeId);
+    } catch (NoSuchElementException e) {
+      throw invalidFile(String.format(UNEXPECTED_TYPE_MESSAGE, typeId));
+    }
+
+    Clause clause = readClause();
+    if (clause.literals().length == 0) {
+      isDone = true;
+      return null;
+    }
+    return new ClauseUpdate(clause, type);
+  }
+
+  /**
+   * This method decodes a clause by passing its bytes to a <code>ClauseSerialBuilder</code>.
+   *
+   * @return An instance of the <code>Clause</code> record.
+   */
+  private Clause readClause() {
+    clauseBuilder.reset();
+    try {
+      int b;
+      do {
+        b = tokenizer.nextByte();
+        if (b == -1) {
+          throw invalidFile(UNEXPECTED_END_MESSAGE);
+        }
+      } while (!clauseBuilder.addByte((byte) b));
+    } catch (SerializationException e) {
+      throw invalidFile(String.format(INVALID_CLAUSE_MESSAGE, e.getMessage()));
+    }
+    return clauseBuilder.getObject();
+  }
+
+  /**
+   * This method marks the file as invalid, so every following call fails with the same message.
+   *
+   * @param message The error message that should be displayed for the
+   *                <code>ParsingException</code>.
+   * @return The <code>ParsingException</code>, which should be thrown.
+   */
+  private ParsingException invalidFile(String message) {
+    isInvalidFile = true;
+    unexpectedMessage = message;
+    return new ParsingException(message);
+  }
+
+}
@@ -2,7 +2,6 @@ package edu.kit.satviz.parsers;
 
 import edu.kit.satviz.sat.ClauseUpdate;
 import java.io.InputStream;
-import java.util.Scanner;
 
 /**
  * This class is used to parse an <code>InputStream</code> iteratively into
@@ -10,10 +9,10 @@ import java.util.Scanner;
  */
 public abstract class ClauseFile implements Iterable<ClauseUpdate>, AutoCloseable {
 
-  protected final Scanner scanner;
+  protected final ClauseTokenizer tokenizer;
 
   protected ClauseFile(InputStream in) {
-    scanner = new Scanner(in);
+    tokenizer = new ClauseTokenizer(in);
     parseHeader();
   }
 
@@ -22,9 +21,20 @@ public abstract class ClauseFile implements Iterable<ClauseUpdate>, AutoCloseabl
    */
   protected abstract void parseHeader();
 
+  /**
+   * This method returns the amount of bytes of the input, that have been consumed so far.<br>
+   * If no clause update has been parsed in advance (e.g. by <code>hasNext()</code> of the
+   * iterator), this is the offset, at which the next clause update starts.
+   *
+   * @return The offset of the first unconsumed byte in the input.
+   */
+  public long position() {
+    return tokenizer.position();
+  }
+
   @Override
   public void close() {
-    scanner.close();
+    tokenizer.close();
   }
 
 }
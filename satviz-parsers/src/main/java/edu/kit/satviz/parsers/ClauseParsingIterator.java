@@ -1,11 +1,11 @@
 package edu.kit.satviz.parsers;
 
 import edu.kit.satviz.sat.Clause;
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.ClauseUpdate;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
-import java.util.Scanner;
 
 /**
  * This abstract class is used to parse CNF and DRAT files (and maybe other filetypes in the future)
@@ -14,18 +14,23 @@ import java.util.Scanner;
  */
 public abstract class ClauseParsingIterator implements Iterator<ClauseUpdate> {
 
-  private static final String COMMENT_LINE_TOKEN = "c";
-  private static final String CLAUSE_END_TOKEN = "0";
+  private static final char COMMENT_LINE_TOKEN = 'c';
+  private static final char CLAUSE_END_TOKEN = '0';
+  private static final int INITIAL_CLAUSE_CAPACITY = 16;
 
   private static final String NO_CLAUSES_LEFT_MESSAGE = "No clause updates left.";
   private static final String UNEXPECTED_CHAR_MESSAGE = "\"%s\" contains illegal characters.";
   private static final String UNEXPECTED_VARIABLE_MESSAGE = "The variable \"%s\" is invalid.";
-  private static final String UNEXPECTED_CLAUSE_MESSAGE = "There is an unexpected clause.";
-  private static final String UNEXPECTED_END_MESSAGE = "Unexpected end of file.";
+  static final String UNEXPECTED_CLAUSE_MESSAGE = "There is an unexpected clause.";
+  static final String UNEXPECTED_END_MESSAGE = "Unexpected end of file.";
   private String unexpectedMessage;
 
-  protected final Scanner scanner;
-  private ClauseUpdate nextUpdate;
+  protected final ClauseTokenizer tokenizer;
+  // the clause update, that has been parsed, but not returned yet
+  private boolean isUpdatePending = false;
+  private ClauseUpdate.Type type;
+  private int[] literals = new int[INITIAL_CLAUSE_CAPACITY];
+  private int length;
 
   private boolean isDone = false;
   private boolean isInvalidFile = false;
@@ -35,27 +40,27 @@ public abstract class ClauseParsingIterator implements Iterator<ClauseUpdate> {
   /**
    * This constructor creates an instance of the <code>ClauseParsingIterator</code> class.
    *
-   * @param scanner The scanner, which scans through the file that should be parsed.
+   * @param tokenizer The tokenizer, which reads through the file that should be parsed.
    */
-  protected ClauseParsingIterator(Scanner scanner) {
-    this.scanner = scanner;
+  protected ClauseParsingIterator(ClauseTokenizer tokenizer) {
+    this.tokenizer = tokenizer;
   }
 
   @Override
   public boolean hasNext() {
     if (isInvalidFile) {
       throw new ParsingException(unexpectedMessage);
-    } else if (nextUpdate != null) {
+    } else if (isUpdatePending) {
       return true;
     } else if (isDone) {
       return false;
     }
     try {
-      nextUpdate = getNextUpdate();
+      parseNextUpdate();
     } catch (NoSuchElementException e) {
-      nextUpdate = null;
       return false;
     }
+    isUpdatePending = true;
     return true;
   }
 
@@ -69,17 +74,35 @@ public abstract class ClauseParsingIterator implements Iterator<ClauseUpdate> {
    */
   @Override
   public ClauseUpdate next() {
-    if (nextUpdate != null) {
-      ClauseUpdate next = nextUpdate;
-      nextUpdate = null;
-      return next;
+    if (!isUpdatePending) {
+      if (isDone) {
+        throw new NoSuchElementException(NO_CLAUSES_LEFT_MESSAGE);
+      } else if (isInvalidFile) {
+        throw new ParsingException(unexpectedMessage);
+      }
+      parseNextUpdate();
     }
-    if (isDone) {
-      throw new NoSuchElementException(NO_CLAUSES_LEFT_MESSAGE);
-    } else if (isInvalidFile) {
-      throw new ParsingException(unexpectedMessage);
+    isUpdatePending = false;
+    return new ClauseUpdate(new Clause(Arrays.copyOf(literals, length)), type);
+  }
+
+  /**
+   * This method parses the next clause update and appends it to a <code>ClauseBatch</code>,
+   * without creating any objects for the clause update itself.
+   *
+   * @param batch The builder, to which the clause update is appended.
+   * @return <i>true</i>, if a clause update was appended,<br>
+   *         <i>false</i>, if there are no clause updates left to read in the file.
+   * @throws ParsingException In case the given file is invalid.
+   *         <i>Validation is partly implemented in the subclasses.</i>
+   */
+  public boolean nextInto(ClauseBatch.Builder batch) {
+    if (!hasNext()) {
+      return false;
     }
-    return getNextUpdate();
+    isUpdatePending = false;
+    batch.add(type, literals, 0, length);
+    return true;
   }
 
   /**
@@ -107,31 +130,37 @@ public abstract class ClauseParsingIterator implements Iterator<ClauseUpdate> {
     return isFinalUpdateIncluded;
   }
 
-  private ClauseUpdate getNextUpdate() {
+  /**
+   * This method parses the next clause update into <code>type</code>, <code>literals</code>
+   * and <code>length</code>.
+   *
+   * @throws ParsingException In case the given file is invalid.
+   * @throws NoSuchElementException In case there are no clause updates left to read in the file.
+   */
+  private void parseNextUpdate() {
     skipCommentLines();
-    final ClauseUpdate.Type type = readType();
-    final ClauseUpdate clauseUpdate = new ClauseUpdate(parseClause(), type);
+    type = readType();
+    parseClause();
 
-    if (!isValidClauseUpdate(clauseUpdate)) {
+    if (!isValidClauseUpdate(type, literals, length)) {
       throwParsingException(UNEXPECTED_CLAUSE_MESSAGE);
-    } else if (isFinalClauseUpdate(clauseUpdate)) {
+    } else if (isFinalClauseUpdate(type, literals, length)) {
       isDone = true;
       if (!isFinalUpdateIncluded) {
         throw new NoSuchElementException(NO_CLAUSES_LEFT_MESSAGE);
       }
     }
-    return clauseUpdate;
   }
 
   /**
    * This method skips all commented lines.
    */
   private void skipCommentLines() {
-    while (scanner.hasNext(COMMENT_LINE_TOKEN)) {
-      scanner.nextLine();
+    while (tokenizer.hasNext(COMMENT_LINE_TOKEN)) {
+      tokenizer.skipLine();
     }
     // If no lines are left, no more clauses can be returned
-    if (!scanner.hasNext()) {
+    if (!tokenizer.hasNext()) {
       if (!isPrematureEndOfFile()) {
         isDone = true;
         throw new NoSuchElementException(NO_CLAUSES_LEFT_MESSAGE);
@@ -142,32 +171,33 @@ public abstract class ClauseParsingIterator implements Iterator<ClauseUpdate> {
   }
 
   /**
-   * This method parses a clause.
-   *
-   * @return An instance of the <code>Clause</code> record.
+   * This method parses the literals of a clause into <code>literals</code>
+   * and stores their amount in <code>length</code>.
    */
-  private Clause parseClause() {
+  private void parseClause() {
     int variable;
-    ArrayList<Integer> list = new ArrayList<>();
-    while (!scanner.hasNext(CLAUSE_END_TOKEN)) {
+    int size = 0;
+    while (!tokenizer.hasNext(CLAUSE_END_TOKEN)) {
       // in case the file ends before the clause is finished with a 0.
-      if (!scanner.hasNext()) {
+      if (!tokenizer.hasNext()) {
         throwParsingException(UNEXPECTED_END_MESSAGE);
       }
       // in case the next variable is not an integer.
-      if (!scanner.hasNextInt()) {
-        throwParsingException(UNEXPECTED_CHAR_MESSAGE, scanner.next());
+      if (!tokenizer.hasNextInt()) {
+        throwParsingException(UNEXPECTED_CHAR_MESSAGE, tokenizer.next());
       }
-      variable = scanner.nextInt();
+      variable = tokenizer.nextInt();
       // in case the next variable is invalid.
       if (!isValidVariable(variable)) {
         throwParsingException(UNEXPECTED_VARIABLE_MESSAGE, String.valueOf(variable));
       }
-      list.add(variable);
+      if (size == literals.length) {
+        literals = Arrays.copyOf(literals, size * 2);
+      }
+      literals[size++] = variable;
     }
-    scanner.next();
-
-    return new Clause(list.stream().mapToInt(i -> i).toArray());
+    tokenizer.next();
+    length = size;
   }
 
   /**
@@ -201,7 +231,7 @@ public abstract class ClauseParsingIterator implements Iterator<ClauseUpdate> {
 
   /**
    * This method determines the specific type of clause update.<br>
-   * <i>It may use the scanner to read the identifier-tokens of the type.</i>
+   * <i>It may use the tokenizer to read the identifier-tokens of the type.</i>
    *
    * @return An instance of the <code>ClauseUpdate.Type</code> enum.
    */
@@ -217,22 +247,30 @@ public abstract class ClauseParsingIterator implements Iterator<ClauseUpdate> {
   protected abstract boolean isValidVariable(int variable);
 
   /**
-   * This method checks the validity of a clause.
+   * This method checks the validity of a clause update.
    *
-   * @param clauseUpdate An instance of the <code>ClauseUpdate</code> class.
+   * @param type The type of the clause update.
+   * @param literals An array, whose first <code>length</code> elements are the literals of the
+   *                 clause. <i>It must not be modified or stored.</i>
+   * @param length The amount of literals of the clause.
    * @return <i>true</i>, if the clause is valid,<br>
    *         <i>false</i>, if not.
    */
-  protected abstract boolean isValidClauseUpdate(ClauseUpdate clauseUpdate);
+  protected abstract boolean isValidClauseUpdate(ClauseUpdate.Type type, int[] literals,
+                                                 int length);
 
   /**
    * This method checks, whether the entered clause is the last clause, that should be read.
    *
-   * @param clauseUpdate An instance of the <code>ClauseUpdate</code> class.
+   * @param type The type of the clause update.
+   * @param literals An array, whose first <code>length</code> elements are the literals of the
+   *                 clause. <i>It must not be modified or stored.</i>
+   * @param length The amount of literals of the clause.
    * @return <i>true</i>, if the clause is the last clause, that should be read,<br>
    *         <i>false</i>, if not.
    */
-  protected abstract boolean isFinalClauseUpdate(ClauseUpdate clauseUpdate);
+  protected abstract boolean isFinalClauseUpdate(ClauseUpdate.Type type, int[] literals,
+                                                 int length);
 
   /**
    * This method checks, whether the file has ended prematurely.
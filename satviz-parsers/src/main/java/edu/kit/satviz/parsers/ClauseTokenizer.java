@@ -0,0 +1,402 @@
+package edu.kit.satviz.parsers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * This class splits an <code>InputStream</code> into whitespace-separated tokens.<br>
+ * It is a byte-level replacement for the subset of <code>java.util.Scanner</code> that is needed
+ * to read DIMACS CNF and DRAT files: tokens are compared and parsed directly inside a reusable
+ * byte buffer, so reading an integer does not create any intermediate objects.<br>
+ * <br>
+ * Like <code>Scanner</code>, the <code>hasNext</code>-methods only look at the next token without
+ * consuming it, and an <code>IOException</code> of the underlying stream is treated as the end of
+ * the input.<br>
+ * <i>Only ASCII whitespace (and the ASCII separator characters) is treated as a delimiter.</i>
+ */
+public final class ClauseTokenizer implements AutoCloseable {
+
+  private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+  private final InputStream in;
+  private byte[] buffer;
+  private int position = 0;
+  private int limit = 0;
+  private long discarded = 0;
+  private boolean endOfInput = false;
+
+  // information about the token at the front of the input (if it has been looked at already)
+  private boolean isTokenPeeked = false;
+  private int tokenStart;
+  private int tokenEnd;
+  private boolean isIntParsed = false;
+  private boolean isInt;
+  private int intValue;
+
+  /**
+   * This constructor creates an instance of the <code>ClauseTokenizer</code> class.
+   *
+   * @param in The <code>InputStream</code> that should be split into tokens.
+   */
+  public ClauseTokenizer(InputStream in) {
+    this(in, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * This constructor creates an instance of the <code>ClauseTokenizer</code> class
+   * with a specific initial buffer size.
+   *
+   * @param in The <code>InputStream</code> that should be split into tokens.
+   * @param bufferSize The initial size of the internal buffer in bytes.
+   *                   The buffer grows, if a single token doesn't fit into it.
+   */
+  public ClauseTokenizer(InputStream in, int bufferSize) {
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("The buffer size must be positive.");
+    }
+    this.in = in;
+    this.buffer = new byte[bufferSize];
+  }
+
+  /**
+   * This method checks, whether there is another token in the input.
+   *
+   * @return <i>true</i>, if there is another token,<br>
+   *         <i>false</i>, if not.
+   */
+  public boolean hasNext() {
+    return peekToken();
+  }
+
+  /**
+   * This method checks, whether the next token is exactly the entered single character.
+   *
+   * @param token The expected token. It has to be an ASCII character.
+   * @return <i>true</i>, if the next token is exactly <code>token</code>,<br>
+   *         <i>false</i>, if not (or if there is no next token).
+   */
+  public boolean hasNext(char token) {
+    return peekToken() && tokenEnd - tokenStart == 1 && buffer[tokenStart] == (byte) token;
+  }
+
+  /**
+   * This method checks, whether the next token is a decimal integer that fits into an
+   * <code>int</code>. An optional leading <code>+</code> or <code>-</code> is allowed.
+   *
+   * @return <i>true</i>, if the next token is an integer,<br>
+   *         <i>false</i>, if not (or if there is no next token).
+   */
+  public boolean hasNextInt() {
+    if (!peekToken()) {
+      return false;
+    }
+    if (!isIntParsed) {
+      parseInt();
+    }
+    return isInt;
+  }
+
+  /**
+   * This method consumes the next token and returns it as an integer.
+   *
+   * @return The integer value of the next token.
+   * @throws NoSuchElementException In case there are no tokens left.
+   * @throws InputMismatchException In case the next token is not an integer.
+   */
+  public int nextInt() {
+    if (!peekToken()) {
+      throw new NoSuchElementException();
+    }
+    if (!hasNextInt()) {
+      throw new InputMismatchException(tokenString());
+    }
+    consumeToken();
+    return intValue;
+  }
+
+  /**
+   * This method consumes the next token and returns it as a <code>String</code>.
+   *
+   * @return The next token.
+   * @throws NoSuchElementException In case there are no tokens left.
+   */
+  public String next() {
+    if (!peekToken()) {
+      throw new NoSuchElementException();
+    }
+    String token = tokenString();
+    consumeToken();
+    return token;
+  }
+
+  /**
+   * This method skips the rest of the current line, including the line separator.
+   *
+   * @throws NoSuchElementException In case the input has already ended.
+   */
+  public void skipLine() {
+    if (!ensureAvailable()) {
+      throw new NoSuchElementException();
+    }
+    isTokenPeeked = false;
+    while (ensureAvailable()) {
+      byte b = buffer[position++];
+      if (b == '\n') {
+        return;
+      } else if (b == '\r') {
+        if (ensureAvailable() && buffer[position] == '\n') {
+          position++;
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * This method returns the rest of the current line and skips the line separator.
+   *
+   * @return The rest of the current line, excluding the line separator.
+   * @throws NoSuchElementException In case the input has already ended.
+   */
+  public String nextLine() {
+    if (!ensureAvailable()) {
+      throw new NoSuchElementException();
+    }
+    isTokenPeeked = false;
+    int i = position;
+    while (true) {
+      if (i == limit) {
+        int before = position;
+        boolean isFilled = fill();
+        i -= before - position;
+        if (!isFilled) {
+          break;
+        }
+      }
+      byte b = buffer[i];
+      if (b == '\n' || b == '\r') {
+        break;
+      }
+      i++;
+    }
+    String line = new String(buffer, position, i - position, StandardCharsets.UTF_8);
+    position = i;
+    if (position < limit) {
+      skipLine();
+    }
+    return line;
+  }
+
+  /**
+   * This method makes sure that (up to) the next <code>amount</code> bytes are buffered,
+   * so they can be inspected with <code>peekByte()</code> without consuming them.
+   *
+   * @param amount The amount of bytes that should be buffered.
+   * @return The amount of buffered bytes, which is only less than <code>amount</code>,
+   *         if the input ends before.
+   */
+  public int buffer(int amount) {
+    while (limit - position < amount && fill()) {
+      // keep filling
+    }
+    return Math.min(amount, limit - position);
+  }
+
+  /**
+   * This method returns a byte without consuming it.
+   *
+   * @param offset The offset of the byte, relative to the current position.
+   *               It has to be smaller than the value returned by <code>buffer()</code>.
+   * @return The byte at the entered offset.
+   */
+  public byte peekByte(int offset) {
+    return buffer[position + offset];
+  }
+
+  /**
+   * This method consumes a single byte of the raw input.
+   * It is meant for binary formats, which don't consist of tokens.
+   *
+   * @return The next byte as an <code>int</code> between <i>0</i> and <i>255</i>,<br>
+   *         or <i>-1</i>, if the input has ended.
+   */
+  public int nextByte() {
+    if (!ensureAvailable()) {
+      return -1;
+    }
+    isTokenPeeked = false;
+    return buffer[position++] & 0xff;
+  }
+
+  /**
+   * This method returns the amount of bytes, that have been consumed so far.<br>
+   * <i>Looking at the next token may consume preceding lines that only consist of whitespace.</i>
+   *
+   * @return The offset of the first unconsumed byte in the input.
+   */
+  public long position() {
+    return discarded + position;
+  }
+
+  @Override
+  public void close() {
+    try {
+      in.close();
+    } catch (IOException e) {
+      // Scanner ignores this as well; there is nothing sensible to do here.
+    }
+  }
+
+  /**
+   * This method locates the next token and makes sure that it lies completely inside the buffer.
+   *
+   * @return <i>true</i>, if there is another token,<br>
+   *         <i>false</i>, if the input has ended.
+   */
+  private boolean peekToken() {
+    if (isTokenPeeked) {
+      return true;
+    }
+    int i = position;
+    while (true) {
+      if (i == limit) {
+        int before = position;
+        boolean isFilled = fill();
+        i -= before - position;
+        if (!isFilled) {
+          return false;
+        }
+      }
+      byte b = buffer[i];
+      if (!isWhitespace(b)) {
+        break;
+      }
+      i++;
+      if (b == '\n' || b == '\r') {
+        // Whole lines of whitespace can be dropped: for nextLine() they are indistinguishable
+        // from blank lines, while whitespace on the line of the token has to be kept.
+        position = i;
+      }
+    }
+    int start = i++;
+    while (true) {
+      if (i == limit) {
+        int before = position;
+        boolean isFilled = fill();
+        int shift = before - position;
+        i -= shift;
+        start -= shift;
+        if (!isFilled) {
+          break;
+        }
+      }
+      if (isWhitespace(buffer[i])) {
+        break;
+      }
+      i++;
+    }
+    tokenStart = start;
+    tokenEnd = i;
+    isTokenPeeked = true;
+    isIntParsed = false;
+    return true;
+  }
+
+  private void consumeToken() {
+    position = tokenEnd;
+    isTokenPeeked = false;
+  }
+
+  private String tokenString() {
+    return new String(buffer, tokenStart, tokenEnd - tokenStart, StandardCharsets.UTF_8);
+  }
+
+  private void parseInt() {
+    isIntParsed = true;
+    isInt = false;
+    int i = tokenStart;
+    boolean negative = false;
+    byte first = buffer[i];
+    if (first == '-' || first == '+') {
+      negative = first == '-';
+      i++;
+    }
+    if (i == tokenEnd) {
+      return;
+    }
+    // accumulate negatively, so that Integer.MIN_VALUE can be represented
+    long value = 0;
+    for (; i < tokenEnd; i++) {
+      int digit = buffer[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return;
+      }
+      value = value * 10 - digit;
+      if (value < Integer.MIN_VALUE) {
+        return;
+      }
+    }
+    if (!negative && value == Integer.MIN_VALUE) {
+      return;
+    }
+    intValue = (int) (negative ? value : -value);
+    isInt = true;
+  }
+
+  /**
+   * This method makes sure that at least one unread byte is in the buffer.
+   *
+   * @return <i>true</i>, if there is an unread byte,<br>
+   *         <i>false</i>, if the input has ended.
+   */
+  private boolean ensureAvailable() {
+    return position < limit || fill();
+  }
+
+  /**
+   * This method reads more bytes from the input into the buffer. Already consumed bytes
+   * (everything before <code>position</code>) are discarded, which may move the unread bytes
+   * to the start of the buffer. If the buffer is full of unread bytes, it is enlarged.
+   *
+   * @return <i>true</i>, if at least one byte was read,<br>
+   *         <i>false</i>, if the input has ended.
+   */
+  private boolean fill() {
+    if (endOfInput) {
+      return false;
+    }
+    if (position > 0) {
+      System.arraycopy(buffer, position, buffer, 0, limit - position);
+      limit -= position;
+      discarded += position;
+      tokenStart -= position;
+      tokenEnd -= position;
+      position = 0;
+    } else if (limit == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+    int read;
+    try {
+      do {
+        read = in.read(buffer, limit, buffer.length - limit);
+      } while (read == 0);
+    } catch (IOException e) {
+      read = -1;
+    }
+    if (read < 0) {
+      endOfInput = true;
+      return false;
+    }
+    limit += read;
+    return true;
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1C && b <= 0x1F);
+  }
+
+}
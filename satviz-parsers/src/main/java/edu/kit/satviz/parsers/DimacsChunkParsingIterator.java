@@ -0,0 +1,50 @@
+package edu.kit.satviz.parsers;
+
+import edu.kit.satviz.sat.ClauseUpdate;
+
+/**
+ * This class is used to parse a part of the clauses of a CNF file.<br>
+ * It validates the variables, but not the amount of clauses, because that can only be done once
+ * the results of all parts are put together.
+ */
+class DimacsChunkParsingIterator extends ClauseParsingIterator {
+
+  private final int variableAmount;
+
+  /**
+   * This constructor creates an instance of the <code>DimacsChunkParsingIterator</code> class.
+   *
+   * @param tokenizer The tokenizer, that reads the part of the CNF file.
+   * @param variableAmount The variable amount, that is read in the header of the file.
+   */
+  DimacsChunkParsingIterator(ClauseTokenizer tokenizer, int variableAmount) {
+    super(tokenizer);
+    this.variableAmount = variableAmount;
+  }
+
+  @Override
+  protected ClauseUpdate.Type readType() {
+    return ClauseUpdate.Type.ADD;
+  }
+
+  @Override
+  protected boolean isValidVariable(int variable) {
+    return Math.abs(variable) <= variableAmount;
+  }
+
+  @Override
+  protected boolean isValidClauseUpdate(ClauseUpdate.Type type, int[] literals, int length) {
+    return true;
+  }
+
+  @Override
+  protected boolean isFinalClauseUpdate(ClauseUpdate.Type type, int[] literals, int length) {
+    return false;
+  }
+
+  @Override
+  protected boolean isPrematureEndOfFile() {
+    return false;
+  }
+
+}
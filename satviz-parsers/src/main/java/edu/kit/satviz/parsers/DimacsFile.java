@@ -1,5 +1,6 @@
 package edu.kit.satviz.parsers;
 
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.ClauseUpdate;
 import java.io.InputStream;
 import java.util.Iterator;
@@ -14,6 +15,8 @@ public class DimacsFile extends ClauseFile {
   private static final String INVALID_HEADER_MESSAGE =
           "The header doesn't comply with the DIMACS CNF format.";
   private static final String NO_HEADER_MESSAGE = "No header was found.";
+  // the header can't be trusted to allocate memory up front
+  private static final int MAX_INITIAL_CLAUSE_CAPACITY = 1 << 20;
 
   private int variableAmount;
   private int clauseAmount;
@@ -28,21 +31,21 @@ public class DimacsFile extends ClauseFile {
    */
   public DimacsFile(InputStream in) {
     super(in);
-    dimacsParsingIterator = new DimacsParsingIterator(scanner, variableAmount, clauseAmount);
+    dimacsParsingIterator = new DimacsParsingIterator(tokenizer, variableAmount, clauseAmount);
   }
 
   @Override
   protected void parseHeader() {
-    while (scanner.hasNext("c")) {
-      scanner.nextLine();
+    while (tokenizer.hasNext('c')) {
+      tokenizer.skipLine();
     }
-    if (!scanner.hasNext()) {
+    if (!tokenizer.hasNext()) {
       throw new ParsingException(INVALID_HEADER_MESSAGE);
     }
 
     String header;
     do {
-      header = scanner.nextLine();
+      header = tokenizer.nextLine();
     } while (header.isBlank());
 
     try (Scanner headerScanner = new Scanner(header)) {
@@ -80,6 +83,22 @@ public class DimacsFile extends ClauseFile {
     return dimacsParsingIterator;
   }
 
+  /**
+   * This method parses all remaining clauses of the file into a single <code>ClauseBatch</code>.
+   * Unlike iterating over this file, no objects are created per clause.
+   *
+   * @return The remaining clauses of the file in their original order.
+   * @throws ParsingException In case the file is invalid.
+   */
+  public ClauseBatch readClauses() {
+    int capacity = Math.min(clauseAmount, MAX_INITIAL_CLAUSE_CAPACITY);
+    ClauseBatch.Builder batch = new ClauseBatch.Builder(capacity, capacity * 4);
+    while (dimacsParsingIterator.nextInto(batch)) {
+      // keep parsing
+    }
+    return batch.build();
+  }
+
   /**
    * This getter-method returns the variable amount, that is set in the header.
    *
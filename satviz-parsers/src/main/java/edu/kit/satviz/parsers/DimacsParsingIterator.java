@@ -1,7 +1,6 @@
 package edu.kit.satviz.parsers;
 
 import edu.kit.satviz.sat.ClauseUpdate;
-import java.util.Scanner;
 
 /**
  * This class is used to validate a file in the CNF format.
@@ -16,12 +15,13 @@ public class DimacsParsingIterator extends ClauseParsingIterator {
   /**
    * This constructor creates an instance of the <code>DimacsParsingIterator</code> class.
    *
-   * @param scanner The scanner, that scans the CNF file.
+   * @param tokenizer The tokenizer, that reads the CNF file.
    * @param variableAmount The variable amount, that is read in the header of the file.
    * @param clauseAmount The clause amount, that is read in the header of the file.
    */
-  protected DimacsParsingIterator(Scanner scanner, int variableAmount, int clauseAmount) {
-    super(scanner);
+  protected DimacsParsingIterator(ClauseTokenizer tokenizer, int variableAmount,
+                                  int clauseAmount) {
+    super(tokenizer);
     this.variableAmount = variableAmount;
     this.clauseAmount = clauseAmount;
   }
@@ -37,12 +37,12 @@ public class DimacsParsingIterator extends ClauseParsingIterator {
   }
 
   @Override
-  protected boolean isValidClauseUpdate(ClauseUpdate clauseUpdate) {
+  protected boolean isValidClauseUpdate(ClauseUpdate.Type type, int[] literals, int length) {
     return ++counter <= clauseAmount;
   }
 
   @Override
-  protected boolean isFinalClauseUpdate(ClauseUpdate clauseUpdate) {
+  protected boolean isFinalClauseUpdate(ClauseUpdate.Type type, int[] literals, int length) {
     return false;
   }
 
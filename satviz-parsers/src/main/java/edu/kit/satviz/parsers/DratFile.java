@@ -5,11 +5,17 @@ import java.io.InputStream;
 import java.util.Iterator;
 
 /**
- * This class is used to parse an <code>InputStream</code> that complies with the DRAT format.
+ * This class is used to parse an <code>InputStream</code> that complies with the DRAT format.<br>
+ * Both the textual and the binary variant of DRAT are supported. Which one is used,
+ * is detected from the first bytes of the input.
  */
 public class DratFile extends ClauseFile {
 
-  private final DratParsingIterator dratParsingIterator;
+  /** The maximum amount of bytes, that are inspected to detect the binary format. */
+  private static final int DETECTION_WINDOW = 1024;
+
+  private final boolean isBinary;
+  private final Iterator<ClauseUpdate> dratParsingIterator;
 
   /**
    * This constructor creates an instance of the <code>DratFile</code> class.
@@ -18,7 +24,23 @@ public class DratFile extends ClauseFile {
    */
   public DratFile(InputStream in) {
     super(in);
-    dratParsingIterator = new DratParsingIterator(scanner);
+    isBinary = detectBinary();
+    dratParsingIterator = createIterator();
+  }
+
+  /**
+   * This constructor creates an instance of the <code>DratFile</code> class for an input, whose
+   * format is already known. This is needed for inputs, that don't start at the beginning
+   * of a DRAT file, where the format can't be detected reliably.
+   *
+   * @param in An instance of the <code>InputStream</code> class.
+   * @param isBinary <i>true</i>, if the input is in the binary DRAT format,<br>
+   *                 <i>false</i>, if it is in the textual DRAT format.
+   */
+  public DratFile(InputStream in, boolean isBinary) {
+    super(in);
+    this.isBinary = isBinary;
+    dratParsingIterator = createIterator();
   }
 
   @Override
@@ -31,4 +53,64 @@ public class DratFile extends ClauseFile {
     return dratParsingIterator;
   }
 
+  /**
+   * This getter-method returns, whether the file is in the binary DRAT format.
+   *
+   * @return <i>true</i>, if the file is binary,<br>
+   *         <i>false</i>, if it is a text file.
+   */
+  public boolean isBinary() {
+    return isBinary;
+  }
+
+  private Iterator<ClauseUpdate> createIterator() {
+    return isBinary
+        ? new BinaryDratParsingIterator(tokenizer)
+        : new DratParsingIterator(tokenizer);
+  }
+
+  /**
+   * This method checks the first bytes of the file (without consuming them) for the binary format.
+   * A binary file starts with <code>'a'</code>, which can't start a textual file, or with
+   * <code>'d'</code>. In the latter case, it contains control characters (at the latest the
+   * <code>0</code>-byte terminating the first clause), which never appear in a textual file.
+   * The bytes are inspected until such a character or the end of a line, whose last token is
+   * <code>0</code>, is found, which completes the first clause of a textual file.<br>
+   * <i>Only as many bytes as needed are read, which matters for proofs that are read while they
+   * are still being written.</i>
+   *
+   * @return <i>true</i>, if the file is binary,<br>
+   *         <i>false</i>, if it is a text file.
+   */
+  private boolean detectBinary() {
+    if (tokenizer.buffer(1) == 0) {
+      return false;
+    }
+    byte first = tokenizer.peekByte(0);
+    if (first == ClauseUpdate.Type.ADD.getId()) {
+      return true;
+    } else if (first != ClauseUpdate.Type.REMOVE.getId()) {
+      return false;
+    }
+    int tokenLength = 0;
+    boolean isTokenZero = false; // whether the current (or last, at whitespace) token is "0"
+    for (int i = 0; i < DETECTION_WINDOW && tokenizer.buffer(i + 1) > i; i++) {
+      byte b = tokenizer.peekByte(i);
+      boolean isWhitespace = b == ' ' || (b >= '\t' && b <= '\r');
+      if ((b >= 0 && b < ' ' && !isWhitespace) || b == 0x7f) {
+        return true;
+      }
+      if (isWhitespace) {
+        if (b == '\n' && isTokenZero) {
+          return false;
+        }
+        tokenLength = 0;
+      } else {
+        isTokenZero = tokenLength == 0 && b == '0';
+        tokenLength++;
+      }
+    }
+    return false;
+  }
+
 }
@@ -1,7 +1,6 @@
 package edu.kit.satviz.parsers;
 
 import edu.kit.satviz.sat.ClauseUpdate;
-import java.util.Scanner;
 
 /**
  * This class is used to validate and read the clause types from a file in the DRAT format.
@@ -11,16 +10,16 @@ public class DratParsingIterator extends ClauseParsingIterator {
   /**
    * his constructor creates an instance of the <code>DratParsingIterator</code> class.
    *
-   * @param scanner The scanner, that scans the DRAT file.
+   * @param tokenizer The tokenizer, that reads the DRAT file.
    */
-  protected DratParsingIterator(Scanner scanner) {
-    super(scanner);
+  protected DratParsingIterator(ClauseTokenizer tokenizer) {
+    super(tokenizer);
   }
 
   @Override
   protected ClauseUpdate.Type readType() {
-    if (scanner.hasNext("d")) {
-      scanner.next();
+    if (tokenizer.hasNext('d')) {
+      tokenizer.next();
       return ClauseUpdate.Type.REMOVE;
     } else {
       return ClauseUpdate.Type.ADD;
@@ -33,13 +32,13 @@ public class DratParsingIterator extends ClauseParsingIterator {
   }
 
   @Override
-  protected boolean isValidClauseUpdate(ClauseUpdate clauseUpdate) {
+  protected boolean isValidClauseUpdate(ClauseUpdate.Type type, int[] literals, int length) {
     return true;
   }
 
   @Override
-  protected boolean isFinalClauseUpdate(ClauseUpdate clauseUpdate) {
-    return clauseUpdate.clause().literals().length == 0;
+  protected boolean isFinalClauseUpdate(ClauseUpdate.Type type, int[] literals, int length) {
+    return length == 0;
   }
 
   @Override
@@ -0,0 +1,75 @@
+package edu.kit.satviz.parsers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class reads a region of a file by memory-mapping it window by window.
+ * Closing this stream doesn't close the underlying channel.
+ */
+class MappedInputStream extends InputStream {
+
+  private static final long WINDOW_SIZE = 1L << 26;
+
+  private final FileChannel channel;
+  private final long end;
+  private long windowEnd;
+  private MappedByteBuffer window;
+
+  /**
+   * This constructor creates an instance of the <code>MappedInputStream</code> class.
+   *
+   * @param channel The channel of the file, that should be read.
+   * @param start The offset of the first byte of the region.
+   * @param end The offset after the last byte of the region.
+   */
+  MappedInputStream(FileChannel channel, long start, long end) {
+    this.channel = channel;
+    this.end = end;
+    this.windowEnd = start;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!hasRemaining()) {
+      return -1;
+    }
+    return window.get() & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!hasRemaining()) {
+      return -1;
+    }
+    int n = Math.min(len, window.remaining());
+    window.get(b, off, n);
+    return n;
+  }
+
+  /**
+   * This method maps the next window of the region, if the current one is exhausted.
+   *
+   * @return <i>true</i>, if there are bytes left to read,<br>
+   *         <i>false</i>, if the end of the region has been reached.
+   * @throws IOException In case the file can't be mapped.
+   */
+  private boolean hasRemaining() throws IOException {
+    if (window != null && window.hasRemaining()) {
+      return true;
+    }
+    if (windowEnd >= end) {
+      return false;
+    }
+    long size = Math.min(WINDOW_SIZE, end - windowEnd);
+    window = channel.map(FileChannel.MapMode.READ_ONLY, windowEnd, size);
+    windowEnd += size;
+    return true;
+  }
+
+}
@@ -0,0 +1,259 @@
+package edu.kit.satviz.parsers;
+
+import edu.kit.satviz.sat.ClauseBatch;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * This class is used to load all clauses of an uncompressed file in the DIMACS CNF format
+ * at once, using multiple threads.<br>
+ * <br>
+ * The file is memory-mapped and split into chunks at clause boundaries, i.e. after lines whose
+ * last token is a <code>0</code>. The chunks are parsed in parallel and the results are merged
+ * in order afterwards. The loaded clauses, as well as the validation of the header, the variables
+ * and the clause amount, are exactly the same as when iterating over a <code>DimacsFile</code>.
+ */
+public class ParallelDimacsLoader implements AutoCloseable {
+
+  /** The minimum size of a chunk in bytes, so small files aren't split needlessly. */
+  private static final long MIN_CHUNK_SIZE = 1L << 22;
+  /** The amount of chunks per thread, so threads don't idle, if chunks take varying time. */
+  private static final int CHUNKS_PER_THREAD = 4;
+  private static final int SCAN_BUFFER_SIZE = 1 << 13;
+
+  private final FileChannel channel;
+  private final ForkJoinPool pool;
+  private final long minChunkSize;
+  private final long size;
+  private final long bodyStart;
+  private final int variableAmount;
+  private final int clauseAmount;
+
+  /**
+   * This constructor creates an instance of the <code>ParallelDimacsLoader</code> class,
+   * which uses the common <code>ForkJoinPool</code>, while also parsing the header of the file.
+   *
+   * @param file The path of the CNF file.
+   * @throws IOException In case the file can't be opened.
+   * @throws ParsingException In case no header or only an invalid header is found.
+   */
+  public ParallelDimacsLoader(Path file) throws IOException {
+    this(file, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * This constructor creates an instance of the <code>ParallelDimacsLoader</code> class,
+   * while also parsing the header of the file.
+   *
+   * @param file The path of the CNF file.
+   * @param pool The pool, which is used to parse the chunks of the file.
+   * @throws IOException In case the file can't be opened.
+   * @throws ParsingException In case no header or only an invalid header is found.
+   */
+  public ParallelDimacsLoader(Path file, ForkJoinPool pool) throws IOException {
+    this(file, pool, MIN_CHUNK_SIZE);
+  }
+
+  /**
+   * This constructor creates an instance of the <code>ParallelDimacsLoader</code> class
+   * with a specific minimum chunk size.
+   *
+   * @param file The path of the CNF file.
+   * @param pool The pool, which is used to parse the chunks of the file.
+   * @param minChunkSize The minimum size of a chunk in bytes.
+   * @throws IOException In case the file can't be opened.
+   * @throws ParsingException In case no header or only an invalid header is found.
+   */
+  ParallelDimacsLoader(Path file, ForkJoinPool pool, long minChunkSize) throws IOException {
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    this.pool = pool;
+    this.minChunkSize = minChunkSize;
+    try {
+      size = channel.size();
+      DimacsFile header = new DimacsFile(new MappedInputStream(channel, 0, size));
+      variableAmount = header.getVariableAmount();
+      clauseAmount = header.getClauseAmount();
+      bodyStart = header.tokenizer.position();
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * This method loads all clauses of the file.
+   *
+   * @return The clause updates of the file in their original order.
+   * @throws IOException In case the file can't be read.
+   * @throws ParsingException In case the file is invalid.
+   */
+  public ClauseBatch load() throws IOException {
+    long chunkSize = Math.max(minChunkSize,
+        (size - bodyStart) / ((long) pool.getParallelism() * CHUNKS_PER_THREAD));
+    List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+    try {
+      long start = bodyStart;
+      while (start < size) {
+        long end = findChunkEnd(start + chunkSize);
+        long chunkStart = start;
+        tasks.add(pool.submit(() -> parseChunk(chunkStart, end)));
+        start = end;
+      }
+      return merge(tasks);
+    } finally {
+      // don't leave any work behind, if parsing failed early
+      for (ForkJoinTask<Chunk> task : tasks) {
+        task.cancel(false);
+      }
+      for (ForkJoinTask<Chunk> task : tasks) {
+        task.quietlyJoin();
+      }
+    }
+  }
+
+  /**
+   * This method puts the results of all chunks together, while validating the clause amount.
+   * The first error in file order is reported, just like in sequential parsing.
+   *
+   * @param tasks The tasks, that parse the chunks, in file order.
+   * @return All clause updates in file order.
+   * @throws ParsingException In case the file is invalid.
+   */
+  private ClauseBatch merge(List<ForkJoinTask<Chunk>> tasks) {
+    List<Chunk> chunks = new ArrayList<>(tasks.size());
+    int total = 0;
+    int literals = 0;
+    for (ForkJoinTask<Chunk> task : tasks) {
+      Chunk chunk = task.join();
+      if ((long) total + chunk.updates.size() > clauseAmount) {
+        throw new ParsingException(ClauseParsingIterator.UNEXPECTED_CLAUSE_MESSAGE);
+      } else if (chunk.error != null) {
+        throw new ParsingException(chunk.error.getMessage());
+      }
+      total += chunk.updates.size();
+      literals += chunk.updates.literalCount();
+      chunks.add(chunk);
+    }
+    if (total < clauseAmount) {
+      throw new ParsingException(ClauseParsingIterator.UNEXPECTED_END_MESSAGE);
+    }
+    if (chunks.size() == 1) {
+      return chunks.get(0).updates;
+    }
+
+    ClauseBatch.Builder updates = new ClauseBatch.Builder(total, literals);
+    for (Chunk chunk : chunks) {
+      updates.addAll(chunk.updates);
+    }
+    return updates.build();
+  }
+
+  /**
+   * This method parses the clauses in a chunk of the file.
+   *
+   * @param start The offset of the chunk, which is at the start of a clause.
+   * @param end The offset after the chunk.
+   * @return The clauses in this chunk and the error, that ended parsing prematurely (if any).
+   */
+  private Chunk parseChunk(long start, long end) {
+    ClauseTokenizer tokenizer = new ClauseTokenizer(new MappedInputStream(channel, start, end));
+    DimacsChunkParsingIterator iterator =
+        new DimacsChunkParsingIterator(tokenizer, variableAmount);
+    ClauseBatch.Builder updates = new ClauseBatch.Builder();
+    try {
+      while (iterator.nextInto(updates)) {
+        // keep parsing
+      }
+    } catch (ParsingException e) {
+      return new Chunk(updates.build(), e);
+    }
+    return new Chunk(updates.build(), null);
+  }
+
+  /**
+   * This method finds the end of the chunk that should end near the entered offset.
+   * A chunk ends after the first line starting at or after <code>from</code>, whose last token is
+   * exactly <code>0</code>. After such a line, a new clause begins, because the <code>0</code>
+   * either terminates a clause or is part of a comment, which ends at the end of the line.
+   *
+   * @param from The offset, at which the search starts.
+   * @return The offset after the end of the chunk.
+   * @throws IOException In case the file can't be read.
+   */
+  private long findChunkEnd(long from) throws IOException {
+    if (from >= size) {
+      return size;
+    }
+    byte[] buffer = new byte[SCAN_BUFFER_SIZE];
+    // the line containing from is incomplete, so its last token can only be judged after it
+    boolean isLineStart = false;
+    boolean isTokenZero = false;
+    boolean isLastTokenZero = false;
+    int tokenLength = 0;
+    long offset = from;
+    try (InputStream in = new MappedInputStream(channel, from, size)) {
+      int read;
+      while ((read = in.read(buffer, 0, buffer.length)) > 0) {
+        for (int i = 0; i < read; i++) {
+          byte b = buffer[i];
+          if (b == '\n') {
+            if (tokenLength > 0) {
+              isLastTokenZero = isTokenZero;
+            }
+            if (isLineStart && isLastTokenZero) {
+              return offset + i + 1;
+            }
+            isLineStart = true;
+            isLastTokenZero = false;
+            tokenLength = 0;
+          } else if (b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1C && b <= 0x1F)) {
+            if (tokenLength > 0) {
+              isLastTokenZero = isTokenZero;
+            }
+            tokenLength = 0;
+          } else {
+            isTokenZero = tokenLength == 0 && b == '0';
+            tokenLength++;
+          }
+        }
+        offset += read;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * This getter-method returns the variable amount, that is set in the header.
+   *
+   * @return The variable amount.
+   */
+  public int getVariableAmount() {
+    return variableAmount;
+  }
+
+  /**
+   * This getter-method returns the clause amount, that is set in the header.
+   *
+   * @return The clause amount.
+   */
+  public int getClauseAmount() {
+    return clauseAmount;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private record Chunk(ClauseBatch updates, ParsingException error) {
+
+  }
+
+}
@@ -0,0 +1,86 @@
+package edu.kit.satviz.parsers;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClauseTokenizerTest {
+
+  private static ClauseTokenizer tokenizer(String content, int bufferSize) {
+    // deliver the input byte by byte to test tokens crossing buffer boundaries
+    InputStream in = new FilterInputStream(new ByteArrayInputStream(content.getBytes())) {
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        return super.read(b, off, Math.min(len, 1));
+      }
+    };
+    return new ClauseTokenizer(in, bufferSize);
+  }
+
+  /**
+   * This tests reading integers and tokens, which are longer than the initial buffer.
+   */
+  @Test
+  void nextInt_smallBuffer_test() {
+    ClauseTokenizer tokenizer = tokenizer("  1 -23\t+4\n\r\n2147483647 -2147483648 0", 2);
+    int[] expected = {1, -23, 4, Integer.MAX_VALUE, Integer.MIN_VALUE, 0};
+    for (int value : expected) {
+      assertTrue(tokenizer.hasNextInt());
+      assertEquals(value, tokenizer.nextInt());
+    }
+    assertFalse(tokenizer.hasNext());
+    assertThrows(NoSuchElementException.class, tokenizer::nextInt);
+  }
+
+  /**
+   * This tests tokens, which are not valid integers.
+   */
+  @Test
+  void hasNextInt_invalid_test() {
+    ClauseTokenizer tokenizer = tokenizer("2147483648 - 1a --1", 4);
+    for (String token : new String[] {"2147483648", "-", "1a", "--1"}) {
+      assertTrue(tokenizer.hasNext());
+      assertFalse(tokenizer.hasNextInt());
+      assertThrows(InputMismatchException.class, tokenizer::nextInt);
+      assertEquals(token, tokenizer.next());
+    }
+  }
+
+  /**
+   * This tests the comparison of single character tokens.
+   */
+  @Test
+  void hasNext_char_test() {
+    ClauseTokenizer tokenizer = tokenizer("d 0 00 c", 16);
+    assertTrue(tokenizer.hasNext('d'));
+    assertFalse(tokenizer.hasNext('0'));
+    tokenizer.next();
+    assertTrue(tokenizer.hasNext('0'));
+    tokenizer.next();
+    assertFalse(tokenizer.hasNext('0'));
+    tokenizer.next();
+    assertTrue(tokenizer.hasNext('c'));
+  }
+
+  /**
+   * This tests reading and skipping lines.
+   */
+  @Test
+  void nextLine_test() {
+    ClauseTokenizer tokenizer = tokenizer("c comment\r\n\n p cnf 1 2\n1 0", 3);
+    assertTrue(tokenizer.hasNext('c'));
+    tokenizer.skipLine();
+    assertTrue(tokenizer.hasNext());
+    assertEquals(" p cnf 1 2", tokenizer.nextLine());
+    assertEquals("1 0", tokenizer.nextLine());
+    assertThrows(NoSuchElementException.class, tokenizer::nextLine);
+  }
+
+}
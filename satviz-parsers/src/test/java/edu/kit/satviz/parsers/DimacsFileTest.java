@@ -1,6 +1,7 @@
 package edu.kit.satviz.parsers;
 
 import edu.kit.satviz.sat.Clause;
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.ClauseUpdate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -81,6 +82,27 @@ class DimacsFileTest {
     assertThrows(NoSuchElementException.class, iterator::next);
   }
 
+  /**
+   * This tests, whether <code>readClauses</code> returns the same clauses as the iterator.
+   */
+  @Test
+  void readClauses_test() {
+    DimacsFile dimacsFile = new DimacsFile(simpleFileStream);
+    assertEquals(ClauseBatch.of(simpleFileUpdates), dimacsFile.readClauses());
+    assertFalse(dimacsFile.iterator().hasNext());
+  }
+
+  /**
+   * This tests, whether <code>readClauses</code> validates the clause amount.
+   */
+  @Test
+  void readClauses_invalid_test() {
+    DimacsFile dimacsFile1 = new DimacsFile(invalidFileStream1);
+    assertThrows(ParsingException.class, dimacsFile1::readClauses);
+    DimacsFile dimacsFile2 = new DimacsFile(invalidFileStream2);
+    assertThrows(ParsingException.class, dimacsFile2::readClauses);
+  }
+
   /**
    * This tests a bunch of illegal headers.
    */
@@ -4,6 +4,7 @@ import edu.kit.satviz.sat.Clause;
 import edu.kit.satviz.sat.ClauseUpdate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
@@ -15,6 +16,7 @@ class DratFileTest {
 
   InputStream example4FileStream;
   InputStream example5FileStream;
+  InputStream example4BinaryFileStream;
   ClauseUpdate[] example4Updates = {
           new ClauseUpdate(new Clause(new int[]{-1}), ClauseUpdate.Type.ADD),
           new ClauseUpdate(new Clause(new int[]{-1, -2, 3}), ClauseUpdate.Type.REMOVE),
@@ -28,6 +30,7 @@ class DratFileTest {
   void setUp() {
     example4FileStream = DimacsFileTest.class.getResourceAsStream("/drat_ex/examples-4-vars.drat");
     example5FileStream = DimacsFileTest.class.getResourceAsStream("/drat_ex/example-5-vars.drat");
+    example4BinaryFileStream = DimacsFileTest.class.getResourceAsStream("/drat_ex/examples-4-vars-binary.drat");
   }
 
   @Test
@@ -62,4 +65,74 @@ class DratFileTest {
     assertEquals(6, removeClauseCounter);
   }
 
+  @Test
+  void iterator_binary_test() {
+    DratFile dratFile = new DratFile(example4BinaryFileStream);
+    assertTrue(dratFile.isBinary());
+    Iterator<ClauseUpdate> iterator = dratFile.iterator();
+    for (int i = 0; i < 5; i++) {
+      assertTrue(iterator.hasNext());
+      assertEquals(example4Updates[i], iterator.next());
+    }
+    assertFalse(iterator.hasNext());
+    assertThrows(NoSuchElementException.class, iterator::next);
+  }
+
+  @Test
+  void isBinary_text_test() {
+    assertFalse(new DratFile(example4FileStream).isBinary());
+    assertFalse(new DratFile(new ByteArrayInputStream(new byte[0])).isBinary());
+    assertTrue(new DratFile(new ByteArrayInputStream(new byte[] {'d', 2, 0})).isBinary());
+  }
+
+  @Test
+  void isBinary_firstByte_test() {
+    // the format has to be known without waiting for more bytes of a proof that is being written
+    assertFalse(new DratFile(firstClauseOnly("1 2 0\n")).isBinary());
+  }
+
+  @Test
+  void isBinary_firstDeletion_test() {
+    // a deletion is only known to be textual at the end of its line
+    assertFalse(new DratFile(firstClauseOnly("d 1 -2 0\n")).isBinary());
+    assertFalse(new DratFile(firstClauseOnly("d 1 -2 0 \r\n")).isBinary());
+  }
+
+  @Test
+  void iterator_binaryInvalid_test() {
+    // unknown clause update type
+    DratFile dratFile1 = new DratFile(new ByteArrayInputStream(new byte[] {'a', 2, 0, 'x', 2, 0}));
+    Iterator<ClauseUpdate> iterator1 = dratFile1.iterator();
+    assertEquals(ClauseUpdate.of(ClauseUpdate.Type.ADD, 1), iterator1.next());
+    assertThrows(ParsingException.class, iterator1::hasNext);
+    assertThrows(ParsingException.class, iterator1::next);
+
+    // file ends in the middle of a clause
+    DratFile dratFile2 = new DratFile(new ByteArrayInputStream(new byte[] {'d', 2, 5}));
+    assertThrows(ParsingException.class, dratFile2.iterator()::next);
+  }
+
+  // returns a stream of the given clause, which fails if more bytes are read
+  private static InputStream firstClauseOnly(String clause) {
+    return new InputStream() {
+      private final byte[] bytes = clause.getBytes();
+      private int position = 0;
+
+      @Override
+      public int read() {
+        throw new AssertionError("Read beyond the first clause");
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) {
+        if (position > 0) {
+          return read();
+        }
+        System.arraycopy(bytes, 0, b, off, bytes.length);
+        position = bytes.length;
+        return bytes.length;
+      }
+    };
+  }
+
 }
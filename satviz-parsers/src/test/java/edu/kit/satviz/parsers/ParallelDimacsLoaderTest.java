@@ -0,0 +1,83 @@
+package edu.kit.satviz.parsers;
+
+import edu.kit.satviz.sat.ClauseBatch;
+import edu.kit.satviz.sat.ClauseUpdate;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelDimacsLoaderTest {
+
+  private static ForkJoinPool pool;
+
+  @BeforeAll
+  static void setUp() {
+    pool = new ForkJoinPool(4);
+  }
+
+  @AfterAll
+  static void tearDown() {
+    pool.shutdown();
+  }
+
+  private static Path resource(String name) throws URISyntaxException {
+    return Path.of(ParallelDimacsLoaderTest.class.getResource(name).toURI());
+  }
+
+  private static ClauseBatch loadSequentially(Path file) throws IOException {
+    try (InputStream in = ParallelDimacsLoaderTest.class.getResourceAsStream(
+        "/dimacs_ex/" + file.getFileName())) {
+      DimacsFile dimacsFile = new DimacsFile(in);
+      return ClauseBatch.of(StreamSupport.stream(dimacsFile.spliterator(), false)
+          .toArray(ClauseUpdate[]::new));
+    }
+  }
+
+  /**
+   * This tests, whether a file split into many small chunks is loaded just like
+   * by a <code>DimacsFile</code>.
+   */
+  @Test
+  void load_long_test() throws Exception {
+    Path file = resource("/dimacs_ex/aim-100-1_6-no-1.cnf");
+    try (ParallelDimacsLoader loader = new ParallelDimacsLoader(file, pool, 16)) {
+      assertEquals(100, loader.getVariableAmount());
+      assertEquals(160, loader.getClauseAmount());
+      assertEquals(loadSequentially(file), loader.load());
+    }
+  }
+
+  /**
+   * This tests, whether the clause amount and the clauses themselves are validated.
+   */
+  @Test
+  void load_invalid_test() throws Exception {
+    for (String name : new String[] {"invalid1", "invalid2", "invalid3"}) {
+      Path file = resource("/dimacs_ex/" + name + "-simple_v3_c2.cnf");
+      try (ParallelDimacsLoader loader = new ParallelDimacsLoader(file, pool, 1)) {
+        assertThrows(ParsingException.class, loader::load);
+      }
+    }
+  }
+
+  /**
+   * This tests, whether a file, that isn't split at all, is loaded correctly.
+   */
+  @Test
+  void load_single_chunk_test() throws Exception {
+    Path file = resource("/dimacs_ex/aim-100-1_6-no-1.cnf");
+    try (ParallelDimacsLoader loader = new ParallelDimacsLoader(file, pool)) {
+      assertEquals(loadSequentially(file), loader.load());
+    }
+  }
+
+}
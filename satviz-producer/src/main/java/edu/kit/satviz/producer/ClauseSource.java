@@ -1,5 +1,6 @@
 package edu.kit.satviz.producer;
 
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.ClauseUpdate;
 import edu.kit.satviz.sat.SatAssignment;
 import java.util.Objects;
@@ -17,6 +18,7 @@ import java.util.function.Consumer;
 public abstract class ClauseSource implements AutoCloseable {
 
   protected Consumer<? super ClauseUpdate> clauseListener;
+  protected Consumer<? super ClauseBatch> batchListener;
   protected Consumer<? super SatAssignment> solvedListener;
   protected Runnable refutedListener;
 
@@ -25,6 +27,7 @@ public abstract class ClauseSource implements AutoCloseable {
    */
   protected ClauseSource() {
     clauseListener = c -> {};
+    batchListener = batch -> batch.forEach(clauseListener);
     solvedListener = a -> {};
     refutedListener = () -> {};
   }
@@ -54,6 +57,20 @@ public abstract class ClauseSource implements AutoCloseable {
     clauseListener = Objects.requireNonNull(listener);
   }
 
+  /**
+   * Sets the listener for batches of clause updates, which sources that collect clause updates
+   * before passing them on use instead of the clause update listener.
+   * By default, the updates of a batch are passed to the clause update listener one by one.
+   *
+   * <p>Unless stated otherwise by the implementation, the listener will be called from the same
+   * thread {@link #open()} was called from.
+   *
+   * @param listener a {@code Consumer} that accepts {@code ClauseBatch}es.
+   */
+  public void subscribeBatches(Consumer<? super ClauseBatch> listener) {
+    batchListener = Objects.requireNonNull(listener);
+  }
+
   /**
    * Sets the "refuted" listener for this source.
    *
@@ -2,12 +2,20 @@ package edu.kit.satviz.producer;
 
 import edu.kit.satviz.common.Constraint;
 import edu.kit.satviz.common.ConstraintValidationException;
+import edu.kit.satviz.network.pub.DiskSpool;
 import edu.kit.satviz.network.pub.ProducerConnection;
+import edu.kit.satviz.network.pub.SharedMemoryAddress;
 import edu.kit.satviz.producer.cli.ProducerCli;
 import edu.kit.satviz.producer.cli.ProducerConstraints;
 import edu.kit.satviz.producer.cli.ProducerParameters;
+import edu.kit.satviz.producer.filter.ClauseFilter;
+import edu.kit.satviz.producer.filter.FilterPipeline;
 import edu.kit.satviz.producer.mode.ProofMode;
 import edu.kit.satviz.producer.mode.SolverMode;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -20,6 +28,9 @@ public class ProducerApplication {
 
   private static final Logger logger = Logger.getLogger("Producer");
 
+  // the disk usage limit of the spool in MiB, if none is given
+  private static final long DEFAULT_SPOOL_LIMIT_MIB = 1024;
+
   // new modes can be added to this list
   private static final List<ProducerMode> SUPPORTED_MODES
       = List.of(new ProofMode(), new SolverMode());
@@ -41,10 +52,24 @@ public class ProducerApplication {
       logger.info("Opening clause source");
       ProducerModeData data = selectedMode.apply(parameters);
       logger.info("Clause source opened");
-      ProducerConnection connection = new ProducerConnection(
-          parameters.getHost(), parameters.getPort());
+      SocketAddress address;
+      if (parameters.getSharedMemory() != null) {
+        address = new SharedMemoryAddress(parameters.getSharedMemory());
+      } else if (parameters.getSocket() != null) {
+        address = UnixDomainSocketAddress.of(parameters.getSocket());
+      } else {
+        address = new InetSocketAddress(parameters.getHost(), parameters.getPort());
+      }
+      DiskSpool spool = null;
+      if (parameters.getSpool() != null) {
+        long limit = parameters.getSpoolLimit() != null
+            ? parameters.getSpoolLimit()
+            : DEFAULT_SPOOL_LIMIT_MIB;
+        spool = new DiskSpool(parameters.getSpool(), limit * 1024 * 1024);
+      }
+      ProducerConnection connection = new ProducerConnection(address, spool);
       SourceControlConnectionListener ls = new SourceControlConnectionListener(connection,
-          data.source());
+          data.source(), filterPipeline(parameters));
       logger.info("Waiting for network connection...");
       connection.establish(data.id(), ls);
     } catch (SourceException e) {
@@ -54,6 +79,22 @@ public class ProducerApplication {
 
   }
 
+  private static FilterPipeline filterPipeline(ProducerParameters params) {
+    List<ClauseFilter> filters = new ArrayList<>();
+    // the rate limit comes last, so that it only counts clauses that pass the other filters
+    if (params.getMaxLength() != null) {
+      filters.add(ClauseFilter.maxLength(params.getMaxLength()));
+    }
+    if (params.getSample() != null) {
+      filters.add(ClauseFilter.sample(params.getSample()));
+    }
+    if (params.getRateLimit() != null) {
+      filters.add(ClauseFilter.rateLimit(params.getRateLimit()));
+    }
+    // only proofs delete clauses
+    return new FilterPipeline(filters, params.getProofFile() != null);
+  }
+
   private static ProducerParameters parseArgs(String[] args) {
     try {
       return ProducerCli.parseArgs(args);
@@ -2,6 +2,9 @@ package edu.kit.satviz.producer;
 
 import edu.kit.satviz.network.pub.ProducerConnection;
 import edu.kit.satviz.network.pub.ProducerConnectionListener;
+import edu.kit.satviz.producer.filter.FilterPipeline;
+import edu.kit.satviz.sat.ClauseBatch;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -26,9 +29,37 @@ public class SourceControlConnectionListener implements ProducerConnectionListen
    * @param source The underlying {@link ClauseSource}.
    */
   public SourceControlConnectionListener(ProducerConnection connection, ClauseSource source) {
+    this(connection, source, new FilterPipeline(List.of(), false));
+  }
+
+  /**
+   * Creates a new {@code SourceControlConnectionListener}, which only forwards the clause updates
+   * kept by the given filter pipeline.
+   *
+   * @param connection The {@code ProducerConnection} used to send messages to a consumer
+   * @param source The underlying {@link ClauseSource}.
+   * @param filter The filters for the clause updates of the {@code source}.
+   */
+  public SourceControlConnectionListener(ProducerConnection connection, ClauseSource source,
+                                         FilterPipeline filter) {
     this.connection = connection;
     this.source = source;
-    source.subscribe(connection::sendClauseUpdate);
+    if (filter.isEmpty()) {
+      source.subscribe(connection::sendClauseUpdate);
+      source.subscribeBatches(connection::sendClauseUpdates);
+    } else {
+      source.subscribe(update -> {
+        if (filter.test(update)) {
+          connection.sendClauseUpdate(update);
+        }
+      });
+      source.subscribeBatches(batch -> {
+        ClauseBatch kept = filter.filter(batch);
+        if (!kept.isEmpty()) {
+          connection.sendClauseUpdates(kept);
+        }
+      });
+    }
     source.whenSolved(connection::terminateSolved);
     source.whenRefuted(connection::terminateRefuted);
   }
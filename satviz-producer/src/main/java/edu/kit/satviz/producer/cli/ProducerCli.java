@@ -1,11 +1,13 @@
 package edu.kit.satviz.producer.cli;
 
 import edu.kit.satviz.common.PathArgumentType;
+import edu.kit.satviz.producer.source.OverflowPolicy;
 import java.util.Locale;
 import net.sourceforge.argparse4j.ArgumentParsers;
 import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
 import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.MutuallyExclusiveGroup;
 
 /**
  * A utility class defining the command line {@code ArgumentParser} used by this application.
@@ -25,10 +27,17 @@ public final class ProducerCli {
                         A clause producer for satviz.
                         Can be started with either a solver and a SAT instance or a proof.""");
     // TODO PARSER.addArgument("-l", "--log-level")
-    PARSER.addArgument("--host", "-H")
-        .required(true)
+    MutuallyExclusiveGroup target = PARSER.addMutuallyExclusiveGroup("target").required(true);
+    target.addArgument("--host", "-H")
         .type(String.class)
         .help("The host address of the target clause consumer");
+    target.addArgument("--socket")
+        .type(PathArgumentType.get())
+        .help("Path to the Unix domain socket of a target clause consumer on the same machine");
+    target.addArgument("--shared-memory")
+        .type(PathArgumentType.get())
+        .help("Directory of the shared memory rings of a target clause consumer on the same "
+            + "machine");
     PARSER.addArgument("--port", "-P")
         .setDefault(34312)
         .type(int.class)
@@ -41,11 +50,46 @@ public final class ProducerCli {
         .help("Path to a DIMACS CNF instance file or '-' for standard input");
     PARSER.addArgument("--proof", "-p")
         .type(PathArgumentType.get())
-        .help("Path to a DRAT proof or '-' for standard input");
+        .help("Path to a DRAT proof (text or binary) or '-' for standard input");
+    PARSER.addArgument("--follow", "-f")
+        .type(boolean.class)
+        .action(Arguments.storeTrue())
+        .help("Keep reading the proof while it is being written, until it ends with the empty "
+            + "clause");
+    PARSER.addArgument("--follow-timeout")
+        .setDefault(60)
+        .type(int.class)
+        .help("Seconds without new proof data after which following the proof is given up");
+    PARSER.addArgument("--start-clause")
+        .type(long.class)
+        .help("Number of the first clause update of the proof to send (counting from 0); "
+            + "a compressed proof is still decompressed from the beginning");
+    PARSER.addArgument("--start-percent")
+        .type(double.class)
+        .help("Percentage of the proof to skip before sending clause updates");
     PARSER.addArgument("--no-wait")
         .type(boolean.class)
         .action(Arguments.storeTrue())
         .help("Do not wait for a connection to be established, start solving immediately");
+    PARSER.addArgument("--learn-overflow")
+        .type(OverflowPolicy.class)
+        .help("What to do with learned clauses while the solver learns them faster than they can "
+            + "be sent: BLOCK the solver, SAMPLE or DROP them (default: BLOCK)");
+    PARSER.addArgument("--max-length")
+        .type(int.class)
+        .help("Only send clauses with at most this many literals");
+    PARSER.addArgument("--sample")
+        .type(int.class)
+        .help("Only send every n-th clause");
+    PARSER.addArgument("--rate-limit")
+        .type(double.class)
+        .help("Send at most this many clauses per second");
+    PARSER.addArgument("--spool")
+        .type(PathArgumentType.get())
+        .help("Directory in which clause updates are spooled while the consumer can't keep up");
+    PARSER.addArgument("--spool-limit")
+        .type(long.class)
+        .help("Maximum disk usage of the spool in MiB (default: 1024)");
   }
 
   private ProducerCli() {
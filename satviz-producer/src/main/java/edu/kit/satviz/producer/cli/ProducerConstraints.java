@@ -37,8 +37,45 @@ public final class ProducerConstraints {
         new SingleModeConstraint(supportedModes),
         fileConstraint.on(ProducerParameters::getInstanceFile),
         fileConstraint.on(ProducerParameters::getProofFile),
-        fileConstraint.on(ProducerParameters::getSolverFile)
+        fileConstraint.on(ProducerParameters::getSolverFile),
+        Constraint.<ProducerParameters>checking(
+            params -> !params.isFollow() || params.getProofFile() != null,
+            "Only a proof can be followed"),
+        Constraint.<ProducerParameters>checking(
+            params -> params.getFollowTimeout() >= 0, "Follow timeout must not be negative"),
+        Constraint.<ProducerParameters>checking(
+            params -> !isStartSet(params) || (params.getProofFile() != null && !params.isFollow()),
+            "Only a complete proof can be started in the middle"),
+        Constraint.<ProducerParameters>checking(
+            params -> params.getStartClause() == null || params.getStartPercent() == null,
+            "Only one of start clause and start percentage can be set"),
+        Constraint.<ProducerParameters>checking(
+            params -> params.getStartClause() == null || params.getStartClause() >= 0,
+            "Start clause must not be negative"),
+        Constraint.<ProducerParameters>checking(
+            params -> params.getStartPercent() == null
+                || (params.getStartPercent() >= 0 && params.getStartPercent() <= 100),
+            "Start percentage must be between 0 and 100"),
+        Constraint.<ProducerParameters>checking(
+            params -> params.getMaxLength() == null || params.getMaxLength() >= 0,
+            "Maximum clause length must not be negative"),
+        Constraint.<ProducerParameters>checking(
+            params -> params.getSample() == null || params.getSample() > 0,
+            "Sampling interval must be positive"),
+        Constraint.<ProducerParameters>checking(
+            params -> params.getRateLimit() == null || params.getRateLimit() > 0,
+            "Rate limit must be positive"),
+        Constraint.<ProducerParameters>checking(
+            params -> params.getSpoolLimit() == null || params.getSpool() != null,
+            "Spool limit requires a spool directory"),
+        Constraint.<ProducerParameters>checking(
+            params -> params.getSpoolLimit() == null || params.getSpoolLimit() > 0,
+            "Spool limit must be positive")
     );
   }
 
+  private static boolean isStartSet(ProducerParameters params) {
+    return params.getStartClause() != null || params.getStartPercent() != null;
+  }
+
 }
@@ -1,5 +1,6 @@
 package edu.kit.satviz.producer.cli;
 
+import edu.kit.satviz.producer.source.OverflowPolicy;
 import java.nio.file.Path;
 import java.util.Objects;
 import net.sourceforge.argparse4j.annotation.Arg;
@@ -24,9 +25,45 @@ public final class ProducerParameters {
   @Arg
   private String host;
 
+  @Arg
+  private Path socket;
+
+  @Arg(dest = "shared_memory")
+  private Path sharedMemory;
+
   @Arg(dest = "no_wait")
   private boolean noWait;
 
+  @Arg
+  private boolean follow;
+
+  @Arg(dest = "follow_timeout")
+  private int followTimeout;
+
+  @Arg(dest = "start_clause")
+  private Long startClause;
+
+  @Arg(dest = "start_percent")
+  private Double startPercent;
+
+  @Arg(dest = "learn_overflow")
+  private OverflowPolicy learnOverflow;
+
+  @Arg(dest = "max_length")
+  private Integer maxLength;
+
+  @Arg
+  private Integer sample;
+
+  @Arg(dest = "rate_limit")
+  private Double rateLimit;
+
+  @Arg
+  private Path spool;
+
+  @Arg(dest = "spool_limit")
+  private Long spoolLimit;
+
   public Path getInstanceFile() {
     return instanceFile;
   }
@@ -47,10 +84,58 @@ public final class ProducerParameters {
     return host;
   }
 
+  public Path getSocket() {
+    return socket;
+  }
+
+  public Path getSharedMemory() {
+    return sharedMemory;
+  }
+
   public boolean isNoWait() {
     return noWait;
   }
 
+  public boolean isFollow() {
+    return follow;
+  }
+
+  public int getFollowTimeout() {
+    return followTimeout;
+  }
+
+  public Long getStartClause() {
+    return startClause;
+  }
+
+  public Double getStartPercent() {
+    return startPercent;
+  }
+
+  public OverflowPolicy getLearnOverflow() {
+    return learnOverflow;
+  }
+
+  public Integer getMaxLength() {
+    return maxLength;
+  }
+
+  public Integer getSample() {
+    return sample;
+  }
+
+  public Double getRateLimit() {
+    return rateLimit;
+  }
+
+  public Path getSpool() {
+    return spool;
+  }
+
+  public Long getSpoolLimit() {
+    return spoolLimit;
+  }
+
   public void setInstanceFile(Path instanceFile) {
     this.instanceFile = instanceFile;
   }
@@ -71,10 +156,58 @@ public final class ProducerParameters {
     this.host = host;
   }
 
+  public void setSocket(Path socket) {
+    this.socket = socket;
+  }
+
+  public void setSharedMemory(Path sharedMemory) {
+    this.sharedMemory = sharedMemory;
+  }
+
   public void setNoWait(boolean noWait) {
     this.noWait = noWait;
   }
 
+  public void setFollow(boolean follow) {
+    this.follow = follow;
+  }
+
+  public void setFollowTimeout(int followTimeout) {
+    this.followTimeout = followTimeout;
+  }
+
+  public void setStartClause(Long startClause) {
+    this.startClause = startClause;
+  }
+
+  public void setStartPercent(Double startPercent) {
+    this.startPercent = startPercent;
+  }
+
+  public void setLearnOverflow(OverflowPolicy learnOverflow) {
+    this.learnOverflow = learnOverflow;
+  }
+
+  public void setMaxLength(Integer maxLength) {
+    this.maxLength = maxLength;
+  }
+
+  public void setSample(Integer sample) {
+    this.sample = sample;
+  }
+
+  public void setRateLimit(Double rateLimit) {
+    this.rateLimit = rateLimit;
+  }
+
+  public void setSpool(Path spool) {
+    this.spool = spool;
+  }
+
+  public void setSpoolLimit(Long spoolLimit) {
+    this.spoolLimit = spoolLimit;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -86,15 +219,29 @@ public final class ProducerParameters {
     ProducerParameters that = (ProducerParameters) o;
     return port == that.port
         && noWait == that.noWait
+        && follow == that.follow
+        && followTimeout == that.followTimeout
         && Objects.equals(instanceFile, that.instanceFile)
         && Objects.equals(solverFile, that.solverFile)
         && Objects.equals(proofFile, that.proofFile)
-        && Objects.equals(host, that.host);
+        && Objects.equals(host, that.host)
+        && Objects.equals(socket, that.socket)
+        && Objects.equals(sharedMemory, that.sharedMemory)
+        && Objects.equals(startClause, that.startClause)
+        && Objects.equals(startPercent, that.startPercent)
+        && learnOverflow == that.learnOverflow
+        && Objects.equals(maxLength, that.maxLength)
+        && Objects.equals(sample, that.sample)
+        && Objects.equals(rateLimit, that.rateLimit)
+        && Objects.equals(spool, that.spool)
+        && Objects.equals(spoolLimit, that.spoolLimit);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(instanceFile, solverFile, proofFile, port, host, noWait);
+    return Objects.hash(instanceFile, solverFile, proofFile, port, host, socket, sharedMemory,
+        noWait, follow, followTimeout, startClause, startPercent, learnOverflow,
+        maxLength, sample, rateLimit, spool, spoolLimit);
   }
 
   @Override
@@ -105,7 +252,19 @@ public final class ProducerParameters {
         + ", proofFile=" + proofFile
         + ", port=" + port
         + ", host='" + host + '\''
+        + ", socket=" + socket
+        + ", sharedMemory=" + sharedMemory
         + ", noWait=" + noWait
+        + ", follow=" + follow
+        + ", followTimeout=" + followTimeout
+        + ", startClause=" + startClause
+        + ", startPercent=" + startPercent
+        + ", learnOverflow=" + learnOverflow
+        + ", maxLength=" + maxLength
+        + ", sample=" + sample
+        + ", rateLimit=" + rateLimit
+        + ", spool=" + spool
+        + ", spoolLimit=" + spoolLimit
         + '}';
   }
 }
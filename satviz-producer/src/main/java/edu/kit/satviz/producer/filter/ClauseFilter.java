@@ -0,0 +1,89 @@
+package edu.kit.satviz.producer.filter;
+
+/**
+ * A stage of a {@link FilterPipeline}, which decides whether an added clause is sent to the
+ * consumer.
+ *
+ * <p>Filters may be stateful (e.g., count the clauses they have seen), so a filter is only asked
+ * about clauses that have passed all previous stages of its pipeline. Filters are not thread-safe.
+ */
+@FunctionalInterface
+public interface ClauseFilter {
+
+  /**
+   * Decides whether an added clause passes this filter.
+   *
+   * @param literals An array containing the literals of the clause.
+   * @param from The index of the first literal (inclusive).
+   * @param to The index after the last literal (exclusive).
+   * @return {@code true} if the clause is kept, {@code false} if it is filtered out.
+   */
+  boolean accept(int[] literals, int from, int to);
+
+  /**
+   * Creates a filter that only keeps clauses of a limited length.
+   *
+   * @param maxLength The maximum amount of literals of a clause.
+   * @return A {@code ClauseFilter}.
+   * @throws IllegalArgumentException if the maximum is negative.
+   */
+  static ClauseFilter maxLength(int maxLength) {
+    if (maxLength < 0) {
+      throw new IllegalArgumentException("Maximum clause length must not be negative");
+    }
+    return (literals, from, to) -> to - from <= maxLength;
+  }
+
+  /**
+   * Creates a filter that keeps every n-th clause, starting with the first one. Which clauses are
+   * kept only depends on their order, so the same clauses are sampled every time a source is
+   * streamed.
+   *
+   * @param n The sampling interval.
+   * @return A {@code ClauseFilter}.
+   * @throws IllegalArgumentException if the interval is not positive.
+   */
+  static ClauseFilter sample(int n) {
+    if (n <= 0) {
+      throw new IllegalArgumentException("Sampling interval must be positive");
+    }
+    return new ClauseFilter() {
+      private int count = 0;
+
+      @Override
+      public boolean accept(int[] literals, int from, int to) {
+        boolean keep = count == 0;
+        count = count + 1 == n ? 0 : count + 1;
+        return keep;
+      }
+    };
+  }
+
+  /**
+   * Creates a filter that keeps at most the given amount of clauses per second on average.
+   * The filter is a token bucket, which holds the clauses of a tenth of a second (but at least
+   * one), so short bursts are smoothed out instead of cutting off at the start of every second.
+   *
+   * @param clausesPerSecond The maximum rate of kept clauses.
+   * @return A {@code ClauseFilter}.
+   * @throws IllegalArgumentException if the rate is not positive.
+   */
+  static ClauseFilter rateLimit(double clausesPerSecond) {
+    return new RateLimitFilter(clausesPerSecond, Math.max(1, clausesPerSecond / 10),
+        System::nanoTime);
+  }
+
+  /**
+   * Creates a filter that keeps at most the given amount of clauses per second on average, but
+   * allows bursts of up to the given amount of clauses.
+   *
+   * @param clausesPerSecond The maximum rate of kept clauses.
+   * @param burst The capacity of the token bucket, at least 1.
+   * @return A {@code ClauseFilter}.
+   * @throws IllegalArgumentException if the rate is not positive or the burst is less than 1.
+   */
+  static ClauseFilter rateLimit(double clausesPerSecond, double burst) {
+    return new RateLimitFilter(clausesPerSecond, burst, System::nanoTime);
+  }
+
+}
@@ -0,0 +1,134 @@
+package edu.kit.satviz.producer.filter;
+
+import edu.kit.satviz.sat.Clause;
+import edu.kit.satviz.sat.ClauseBatch;
+import edu.kit.satviz.sat.ClauseUpdate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A sequence of {@link ClauseFilter}s, which the clause updates of a source pass before they are
+ * sent to the consumer.
+ *
+ * <p>Added clauses are kept if every filter accepts them, in order. Deletions are not filtered
+ * themselves, but have to stay consistent with the additions: the deletion of a clause that has
+ * been filtered out is dropped as well, so that the consumer never removes a clause it hasn't
+ * seen. Deletions of other clauses (including clauses of the instance, which the consumer knows
+ * already) are kept. For this, the pipeline remembers the filtered clauses that are still alive,
+ * independent of the order of their literals. Sources that never delete clauses (e.g., solvers)
+ * should use a pipeline without deletion tracking, which doesn't need this memory.
+ *
+ * <p>A pipeline is not thread-safe; it is meant to be used by the thread emitting the clause
+ * updates of a source.
+ */
+public final class FilterPipeline {
+
+  private final ClauseFilter[] filters;
+  // filtered clauses with sorted literals, mapped to how often they are alive; null if not tracked
+  private final Map<Clause, Integer> filtered;
+  private long filteredUpdates = 0;
+
+  /**
+   * Creates a new pipeline.
+   *
+   * @param filters The filters, which are applied in the given order.
+   * @param trackDeletions Whether the source may delete clauses, which then have to be tracked.
+   */
+  public FilterPipeline(List<? extends ClauseFilter> filters, boolean trackDeletions) {
+    this.filters = filters.toArray(new ClauseFilter[0]);
+    // without filters, every clause is kept anyway
+    this.filtered = trackDeletions && this.filters.length > 0 ? new HashMap<>() : null;
+  }
+
+  /**
+   * Returns whether this pipeline has no filters, i.e. keeps every clause update.
+   *
+   * @return {@code true} if there are no filters.
+   */
+  public boolean isEmpty() {
+    return filters.length == 0;
+  }
+
+  /**
+   * Decides whether a clause update is kept.
+   *
+   * @param update The clause update.
+   * @return {@code true} if the update should be sent.
+   */
+  public boolean test(ClauseUpdate update) {
+    int[] literals = update.clause().literals();
+    return test(update.type(), literals, 0, literals.length);
+  }
+
+  /**
+   * Removes the clause updates that are not kept from a batch.
+   *
+   * @param batch The clause updates.
+   * @return A batch of the kept clause updates, which is the given batch if all of them are kept.
+   */
+  public ClauseBatch filter(ClauseBatch batch) {
+    int[] literals = batch.literals();
+    ClauseBatch.Builder builder = null;
+    for (int i = 0; i < batch.size(); i++) {
+      boolean keep = test(batch.type(i), literals, batch.clauseStart(i), batch.clauseEnd(i));
+      if (!keep && builder == null) {
+        // copy the kept updates so far, from now on every kept update is copied
+        builder = new ClauseBatch.Builder(batch.size(), batch.literalCount());
+        for (int j = 0; j < i; j++) {
+          builder.add(batch.type(j), literals, batch.clauseStart(j), batch.clauseEnd(j));
+        }
+      } else if (keep && builder != null) {
+        builder.add(batch.type(i), literals, batch.clauseStart(i), batch.clauseEnd(i));
+      }
+    }
+    return builder == null ? batch : builder.build();
+  }
+
+  private boolean test(ClauseUpdate.Type type, int[] literals, int from, int to) {
+    if (type == ClauseUpdate.Type.REMOVE) {
+      if (filtered == null) {
+        return true;
+      }
+      Clause key = key(literals, from, to);
+      Integer count = filtered.get(key);
+      if (count == null) {
+        return true;
+      }
+      if (count == 1) {
+        filtered.remove(key);
+      } else {
+        filtered.put(key, count - 1);
+      }
+      filteredUpdates++;
+      return false;
+    }
+    for (ClauseFilter filter : filters) {
+      if (!filter.accept(literals, from, to)) {
+        if (filtered != null) {
+          filtered.merge(key(literals, from, to), 1, Integer::sum);
+        }
+        filteredUpdates++;
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Clause key(int[] literals, int from, int to) {
+    int[] sorted = Arrays.copyOfRange(literals, from, to);
+    Arrays.sort(sorted);
+    return new Clause(sorted);
+  }
+
+  /**
+   * Returns the amount of clause updates this pipeline has filtered out.
+   *
+   * @return The amount of filtered clause updates.
+   */
+  public long getFilteredUpdates() {
+    return filteredUpdates;
+  }
+
+}
@@ -0,0 +1,39 @@
+package edu.kit.satviz.producer.filter;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link ClauseFilter} limiting the rate of kept clauses: a token bucket, which is refilled
+ * continuously and from which every kept clause takes a token.
+ */
+final class RateLimitFilter implements ClauseFilter {
+
+  private final double tokensPerNano;
+  private final double burst;
+  private final LongSupplier clock;
+  private double tokens;
+  private long last;
+
+  RateLimitFilter(double clausesPerSecond, double burst, LongSupplier clock) {
+    if (!(clausesPerSecond > 0) || !(burst >= 1)) {
+      throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+    }
+    this.tokensPerNano = clausesPerSecond / 1e9;
+    this.burst = burst;
+    this.clock = clock;
+    this.tokens = burst;
+    this.last = clock.getAsLong();
+  }
+
+  @Override
+  public boolean accept(int[] literals, int from, int to) {
+    long now = clock.getAsLong();
+    tokens = Math.min(burst, tokens + (now - last) * tokensPerNano);
+    last = now;
+    if (tokens < 1) {
+      return false;
+    }
+    tokens--;
+    return true;
+  }
+}
@@ -3,13 +3,17 @@ package edu.kit.satviz.producer.mode;
 import edu.kit.satviz.common.Compression;
 import edu.kit.satviz.network.pub.ProofId;
 import edu.kit.satviz.parsers.DratFile;
+import edu.kit.satviz.parsers.ParsingException;
 import edu.kit.satviz.producer.ProducerMode;
 import edu.kit.satviz.producer.ProducerModeData;
 import edu.kit.satviz.producer.SourceException;
 import edu.kit.satviz.producer.cli.ProducerParameters;
+import edu.kit.satviz.producer.source.LiveProofSource;
+import edu.kit.satviz.producer.source.ProofIndex;
 import edu.kit.satviz.producer.source.ProofSource;
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
 
 /**
  * A mode for when the producer should get its clauses from a DRAT proof.
@@ -23,14 +27,41 @@ public class ProofMode implements ProducerMode {
   @Override
   public ProducerModeData apply(ProducerParameters parameters) throws SourceException {
     try {
-      InputStream proofStream = Compression.openPossiblyCompressed(parameters.getProofFile());
-      DratFile drat = new DratFile(proofStream);
+      if (parameters.isFollow()) {
+        return new ProducerModeData(
+            new LiveProofSource(parameters.getProofFile(),
+                Duration.ofSeconds(parameters.getFollowTimeout())),
+            new ProofId()
+        );
+      }
+      DratFile drat;
+      if (parameters.getStartClause() != null || parameters.getStartPercent() != null) {
+        drat = openAtStart(parameters);
+      } else {
+        InputStream proofStream = Compression.openPossiblyCompressed(parameters.getProofFile());
+        drat = new DratFile(proofStream);
+      }
       return new ProducerModeData(
           new ProofSource(drat),
           new ProofId()
       );
     } catch (IOException e) {
       throw new SourceException("Could not create source - I/O error", e);
+    } catch (ParsingException e) {
+      throw new SourceException("DRAT proof parsing error", e);
     }
   }
+
+  /*
+   * Opens the proof at the requested clause update, using the (possibly newly built) index of the
+   * proof, so the preceding clause updates don't have to be parsed. Deletions of the clauses added
+   * before are still sent; the consumer ignores deletions of clauses it has never received.
+   */
+  private static DratFile openAtStart(ProducerParameters parameters) throws IOException {
+    ProofIndex index = ProofIndex.loadOrBuild(parameters.getProofFile());
+    long start = parameters.getStartClause() != null
+        ? Math.min(parameters.getStartClause(), index.getClauseCount())
+        : (long) (index.getClauseCount() * parameters.getStartPercent() / 100);
+    return index.open(start);
+  }
 }
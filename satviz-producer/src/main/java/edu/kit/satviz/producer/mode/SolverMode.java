@@ -4,6 +4,7 @@ import edu.kit.ipasir4j.Ipasir;
 import edu.kit.ipasir4j.IpasirNotFoundException;
 import edu.kit.ipasir4j.Solver;
 import edu.kit.satviz.common.Compression;
+import edu.kit.satviz.common.HashCache;
 import edu.kit.satviz.common.Hashing;
 import edu.kit.satviz.network.pub.SolverId;
 import edu.kit.satviz.parsers.DimacsFile;
@@ -12,11 +13,14 @@ import edu.kit.satviz.producer.ProducerMode;
 import edu.kit.satviz.producer.ProducerModeData;
 import edu.kit.satviz.producer.SourceException;
 import edu.kit.satviz.producer.cli.ProducerParameters;
+import edu.kit.satviz.producer.source.OverflowPolicy;
 import edu.kit.satviz.producer.source.SolverSource;
 import edu.kit.satviz.sat.ClauseUpdate;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.OptionalLong;
 
 /**
  * A mode for when the producer should get its clauses from a CDCL/ipasir-compliant solver.
@@ -31,16 +35,38 @@ public class SolverMode implements ProducerMode {
   @Override
   public ProducerModeData apply(ProducerParameters parameters) throws SourceException {
     tryLoadSolver(parameters.getSolverFile());
-    try (DimacsFile instance = new DimacsFile(
-        Compression.openPossiblyCompressed(parameters.getInstanceFile()))) {
-      Solver solver = Ipasir.init();
-      configureSolver(solver, instance);
-      return new ProducerModeData(
-          new SolverSource(solver, instance.getVariableAmount()),
-          new SolverId(Ipasir.signature(),
-              parameters.isNoWait(),
-              Hashing.hashContent(Files.newInputStream(parameters.getInstanceFile())))
-      );
+    Path instanceFile = parameters.getInstanceFile();
+    HashCache hashCache = HashCache.getDefault();
+    try {
+      HashCache.Key key = HashCache.keyOf(instanceFile);
+      OptionalLong cachedHash = hashCache.get(instanceFile, key);
+      // on a cache miss, the raw bytes are hashed while the instance is parsed,
+      // so the file is only read once
+      InputStream in = Files.newInputStream(instanceFile);
+      Hashing.HashingInputStream raw = null;
+      if (cachedHash.isEmpty()) {
+        raw = Hashing.hashing(in);
+        in = raw;
+      }
+      try (DimacsFile instance = new DimacsFile(
+          Compression.decompressIfNeeded(instanceFile, in))) {
+        Solver solver = Ipasir.init();
+        configureSolver(solver, instance);
+        long hash;
+        if (raw == null) {
+          hash = cachedHash.getAsLong();
+        } else {
+          hash = raw.finish();
+          hashCache.put(instanceFile, key, hash);
+        }
+        OverflowPolicy overflowPolicy = parameters.getLearnOverflow() != null
+            ? parameters.getLearnOverflow()
+            : OverflowPolicy.BLOCK;
+        return new ProducerModeData(
+            new SolverSource(solver, instance.getVariableAmount(), overflowPolicy),
+            new SolverId(Ipasir.signature(), parameters.isNoWait(), hash)
+        );
+      }
     } catch (IOException e) {
       throw new SourceException("I/O exception trying to read instance file", e);
     } catch (ParsingException e) {
@@ -0,0 +1,276 @@
+package edu.kit.satviz.producer.source;
+
+import edu.kit.satviz.sat.ClauseBatch;
+import edu.kit.satviz.sat.ClauseUpdate;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single-producer/single-consumer ring of clauses, which hands learned clauses from the solver
+ * thread to a sender thread.
+ * The literals are copied into a preallocated <code>int</code>-array, each clause preceded by its
+ * length, so that handing off a clause doesn't allocate anything. Clauses may wrap around the end
+ * of the array. The capacity is fixed, so clauses that are longer than the ring are copied in
+ * chunks instead (see {@link #put(int[])}), and reassembled by the consumer.<br>
+ * The producer and the consumer each own a position counter (the total amount of slots written or
+ * read), which is published with a volatile write. A thread only parks if the ring is empty or
+ * full, and the other side unparks it after its next write or read.
+ */
+final class ClauseRing {
+
+  /** The default capacity of a ring in literal slots. */
+  static final int DEFAULT_CAPACITY = 1 << 20;
+
+  private final int[] slots;
+  private final int mask;
+  // the consumer's copy of a clause that is copied in chunks, null if there is none
+  private int[] pending = null;
+  private int pendingFilled = 0;
+
+  private volatile long head = 0; // written by the consumer
+  private volatile long tail = 0; // written by the producer
+  private long cachedHead = 0; // the producer's copy of head, to avoid reading it for every clause
+
+  private volatile Thread parkedProducer = null;
+  private volatile Thread parkedConsumer = null;
+  private volatile boolean closed = false;
+
+  /**
+   * Creates a new ring with the {@link #DEFAULT_CAPACITY default capacity}.
+   */
+  ClauseRing() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a new ring with the given capacity.
+   *
+   * @param capacity The amount of literal slots, a power of two.
+   * @throws IllegalArgumentException if the capacity is not a power of two.
+   */
+  ClauseRing(int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("ring capacity must be a power of two");
+    }
+    this.slots = new int[capacity];
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Copies a clause into this ring, if there is enough room for it. Producer only.
+   *
+   * @param clause The literals of the clause.
+   * @return {@code true} if the clause was added, {@code false} if the ring is full or closed.
+   */
+  boolean offer(int[] clause) {
+    int needed = clause.length + 1;
+    long t = tail;
+    if (slots.length - (t - cachedHead) < needed) {
+      cachedHead = head;
+      if (slots.length - (t - cachedHead) < needed) {
+        return false;
+      }
+    }
+    if (closed) {
+      return false;
+    }
+    slots[(int) t & mask] = clause.length;
+    int index = (int) (t + 1) & mask;
+    int first = Math.min(clause.length, slots.length - index);
+    System.arraycopy(clause, 0, slots, index, first);
+    System.arraycopy(clause, first, slots, 0, clause.length - first);
+    publish(t + needed);
+    return true;
+  }
+
+  /**
+   * Copies a clause into this ring in chunks, waiting for the consumer to make room for each of
+   * them. This way, a clause can be handed off even if it is longer than the ring. Producer only.
+   *
+   * @param clause The literals of the clause.
+   * @return {@code true} if the clause was added, {@code false} if the ring has been closed or the
+   *         thread has been interrupted. The consumer discards a partially added clause.
+   */
+  boolean put(int[] clause) {
+    if (!awaitSpace(0)) {
+      return false;
+    }
+    long t = tail;
+    slots[(int) t & mask] = clause.length;
+    publish(t + 1);
+    int written = 0;
+    while (written < clause.length) {
+      t = tail;
+      cachedHead = head;
+      int free = slots.length - (int) (t - cachedHead);
+      if (free == 0) {
+        if (!awaitSpace(0)) {
+          return false;
+        }
+        continue;
+      }
+      if (closed) {
+        return false;
+      }
+      int n = Math.min(free, clause.length - written);
+      int index = (int) t & mask;
+      int first = Math.min(n, slots.length - index);
+      System.arraycopy(clause, written, slots, index, first);
+      System.arraycopy(clause, written + first, slots, 0, n - first);
+      written += n;
+      publish(t + n);
+    }
+    return true;
+  }
+
+  private void publish(long newTail) {
+    tail = newTail;
+    Thread consumer = parkedConsumer;
+    if (consumer != null) {
+      LockSupport.unpark(consumer);
+    }
+  }
+
+  /**
+   * Waits until a clause of the given length fits into this ring. Producer only.
+   *
+   * @param length The amount of literals in the clause.
+   * @return {@code true} if the clause fits, {@code false} if the ring has been closed or the
+   *         thread has been interrupted.
+   */
+  boolean awaitSpace(int length) {
+    int needed = length + 1;
+    parkedProducer = Thread.currentThread();
+    try {
+      // the volatile write above is ordered before reading head, see offer() and drain()
+      while (slots.length - (tail - head) < needed) {
+        if (closed || Thread.currentThread().isInterrupted()) {
+          return false;
+        }
+        LockSupport.park(this);
+      }
+      return !closed;
+    } finally {
+      parkedProducer = null;
+    }
+  }
+
+  /**
+   * Moves up to the given amount of clauses from this ring into a batch builder. Consumer only.
+   *
+   * @param builder The builder the clauses are added to.
+   * @param maxClauses The maximum amount of clauses to move.
+   * @return The amount of clauses moved. A clause that is copied in chunks is only moved once it
+   *         is complete, but its literals are taken out of the ring as they arrive.
+   */
+  int drain(ClauseBatch.Builder builder, int maxClauses) {
+    long start = head;
+    long h = start;
+    long t = tail;
+    int count = 0;
+    while (count < maxClauses) {
+      if (pending != null) {
+        // continue reassembling a clause that is being copied in chunks
+        int n = (int) Math.min(pending.length - pendingFilled, t - h);
+        for (int i = 0; i < n; i++) {
+          pending[pendingFilled + i] = slots[(int) (h + i) & mask];
+        }
+        h += n;
+        pendingFilled += n;
+        if (pendingFilled < pending.length) {
+          break;
+        }
+        builder.add(ClauseUpdate.Type.ADD, pending, 0, pending.length);
+        pending = null;
+        count++;
+        continue;
+      }
+      if (h >= t) {
+        break;
+      }
+      int length = slots[(int) h & mask];
+      if (h + 1 + length > t) {
+        // only put() publishes a clause before all of its literals have been copied
+        pending = new int[length];
+        pendingFilled = 0;
+        h++;
+        continue;
+      }
+      int index = (int) (h + 1) & mask;
+      if (index + length <= slots.length) {
+        builder.add(ClauseUpdate.Type.ADD, slots, index, index + length);
+      } else {
+        for (int i = 0; i < length; i++) {
+          builder.addLiteral(slots[(index + i) & mask]);
+        }
+        builder.endClause(ClauseUpdate.Type.ADD);
+      }
+      h += length + 1;
+      count++;
+    }
+    // parts of a long clause make room as well, even if the clause isn't complete yet
+    if (h != start) {
+      head = h;
+      Thread producer = parkedProducer;
+      if (producer != null) {
+        LockSupport.unpark(producer);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Waits until this ring contains a clause. Consumer only.
+   *
+   * @return {@code true} if there is a clause to drain, {@code false} if the ring has been closed
+   *         and is empty, or the thread has been interrupted.
+   */
+  boolean awaitClauses() {
+    parkedConsumer = Thread.currentThread();
+    try {
+      while (tail == head) {
+        if (closed || Thread.currentThread().isInterrupted()) {
+          return tail != head;
+        }
+        LockSupport.park(this);
+      }
+      return true;
+    } finally {
+      parkedConsumer = null;
+    }
+  }
+
+  /**
+   * Returns the amount of slots in this ring.
+   *
+   * @return The capacity in literal slots (each clause uses one more than its length).
+   */
+  int capacity() {
+    return slots.length;
+  }
+
+  /**
+   * Returns the amount of occupied slots in this ring. Only exact for the producer.
+   *
+   * @return The amount of slots that haven't been drained yet.
+   */
+  int used() {
+    return (int) (tail - head);
+  }
+
+  /**
+   * Closes this ring: no further clauses are added, but the remaining ones can still be drained.
+   * Waiting threads are woken up.
+   */
+  void close() {
+    closed = true;
+    Thread producer = parkedProducer;
+    if (producer != null) {
+      LockSupport.unpark(producer);
+    }
+    Thread consumer = parkedConsumer;
+    if (consumer != null) {
+      LockSupport.unpark(consumer);
+    }
+  }
+
+}
@@ -0,0 +1,94 @@
+package edu.kit.satviz.producer.source;
+
+import edu.kit.satviz.common.Compression;
+import edu.kit.satviz.common.FollowingInputStream;
+import edu.kit.satviz.parsers.DratFile;
+import edu.kit.satviz.parsers.ParsingException;
+import edu.kit.satviz.producer.ClauseSource;
+import edu.kit.satviz.producer.SourceException;
+import edu.kit.satviz.sat.ClauseUpdate;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+
+/**
+ * An implementation of {@link ClauseSource} representing a DRAT proof that is still being written
+ * by a solver, e.g. one that isn't IPASIR-compatible.
+ *
+ * <p>In contrast to {@link ProofSource}, this source doesn't stop at the end of the file, but keeps
+ * waiting for new clauses (see {@link FollowingInputStream}). A clause that has only been written
+ * partially is not emitted before it is complete.
+ */
+public class LiveProofSource extends ClauseSource {
+
+  private final Path proofFile;
+  private final Duration idleTimeout;
+  private final FollowingInputStream stream;
+
+  private volatile boolean stop;
+
+  /**
+   * Creates a source following the given DRAT file.
+   *
+   * @param proofFile The proof file, which may still be empty.
+   * @param idleTimeout The duration after which the source gives up, if the proof hasn't grown in
+   *                    the meantime.
+   * @throws IOException If the proof file cannot be opened.
+   */
+  public LiveProofSource(Path proofFile, Duration idleTimeout) throws IOException {
+    this.proofFile = proofFile;
+    this.idleTimeout = idleTimeout;
+    this.stream = new FollowingInputStream(proofFile, idleTimeout);
+    this.stop = false;
+  }
+
+  /**
+   * "Opens" the proof source, i.e. emits the clause updates of the underlying proof as soon as they
+   * are written.
+   *
+   * <p>The proof ends with the empty clause, after which the function set by
+   * {@link #whenRefuted(Runnable)} will be called. This doesn't happen, if the source is
+   * {@link #close() closed} prematurely.
+   *
+   * @throws SourceException if one of the following is the case:
+   *                         <ul>
+   *                            <li>The underlying proof file is not valid DRAT</li>
+   *                            <li>The proof file hasn't grown within the idle timeout</li>
+   *                            <li>An {@code IOException} occurs</li>
+   *                         </ul>
+   */
+  @Override
+  public void open() throws SourceException {
+    try (DratFile proof = new DratFile(Compression.decompressIfNeeded(proofFile, stream))) {
+      Iterator<ClauseUpdate> iterator = proof.iterator();
+      while (!stop && iterator.hasNext()) {
+        clauseListener.accept(iterator.next());
+      }
+    } catch (ParsingException e) {
+      // an incomplete clause at the end is expected, if the stream ended early
+      if (!stop && !stream.isTimedOut() && stream.getError() == null) {
+        throw new SourceException("DRAT proof parsing error", e);
+      }
+    } catch (IOException e) {
+      throw new SourceException("I/O exception trying to read proof file", e);
+    }
+
+    if (stop) {
+      return;
+    }
+    if (stream.getError() != null) {
+      throw new SourceException("I/O exception trying to read proof file", stream.getError());
+    } else if (stream.isTimedOut()) {
+      throw new SourceException("Proof hasn't been continued within " + idleTimeout.toSeconds()
+          + " seconds");
+    }
+    refutedListener.run();
+  }
+
+  @Override
+  public void close() {
+    stop = true;
+    stream.stop();
+  }
+}
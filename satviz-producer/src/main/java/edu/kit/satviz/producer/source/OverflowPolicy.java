@@ -0,0 +1,18 @@
+package edu.kit.satviz.producer.source;
+
+/**
+ * Determines what a {@link SolverSource} does with a learned clause if the ring buffer between the
+ * solver and its sender thread is full, i.e. if clauses are learned faster than they can be sent.
+ */
+public enum OverflowPolicy {
+  /** The solver waits until the sender thread has made room for the clause. */
+  BLOCK,
+  /**
+   * Once the ring buffer is half full, only every n-th clause is kept and the others are dropped,
+   * so that the visualization still receives a sample of the learned clauses. Clauses are dropped
+   * entirely while the buffer is full.
+   */
+  SAMPLE,
+  /** Clauses that don't fit into the ring buffer are dropped. */
+  DROP
+}
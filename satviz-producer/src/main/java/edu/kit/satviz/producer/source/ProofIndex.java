@@ -0,0 +1,251 @@
+package edu.kit.satviz.producer.source;
+
+import edu.kit.satviz.common.Compression;
+import edu.kit.satviz.parsers.DratFile;
+import edu.kit.satviz.sat.ClauseUpdate;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A sparse index of the clause updates in a DRAT proof, which allows to start reading a proof at
+ * any clause update without parsing all the preceding ones.
+ *
+ * <p>The index maps every {@code interval}-th clause update to its byte offset in the
+ * (decompressed) proof. It is stored in a sidecar file next to the proof (see
+ * {@link #sidecarOf(Path)}) and reused, as long as the size and the last modification time of the
+ * proof stay the same.
+ */
+public final class ProofIndex {
+
+  /**
+   * The default amount of clause updates between two indexed offsets.
+   */
+  public static final int DEFAULT_INTERVAL = 4096;
+
+  private static final Logger logger = Logger.getLogger("Producer");
+
+  private static final int MAGIC = 0x53564958; // "SVIX"
+  private static final int VERSION = 1;
+  private static final String SIDECAR_SUFFIX = ".idx";
+
+  private final Path proof;
+  private final long proofSize;
+  private final long proofLastModified;
+  private final boolean binary;
+  private final int interval;
+  private final long clauseCount;
+  private final long[] offsets;
+
+  private ProofIndex(Path proof, BasicFileAttributes attributes, boolean binary, int interval,
+                     long clauseCount, long[] offsets) {
+    this.proof = proof;
+    this.proofSize = attributes.size();
+    this.proofLastModified = attributes.lastModifiedTime().toMillis();
+    this.binary = binary;
+    this.interval = interval;
+    this.clauseCount = clauseCount;
+    this.offsets = offsets;
+  }
+
+  /**
+   * Returns the index of a proof. The index is read from the sidecar file, if it is up-to-date.
+   * Otherwise, the proof is indexed and the sidecar file is (re-)written, if possible.
+   *
+   * @param proof The DRAT proof file.
+   * @return The index of the proof.
+   * @throws IOException If the proof cannot be read.
+   */
+  public static ProofIndex loadOrBuild(Path proof) throws IOException {
+    Path sidecar = sidecarOf(proof);
+    ProofIndex index = load(proof, sidecar);
+    if (index != null) {
+      return index;
+    }
+    logger.log(Level.INFO, "Indexing proof {0}", proof);
+    index = build(proof, DEFAULT_INTERVAL);
+    try {
+      index.save(sidecar);
+    } catch (IOException e) {
+      // the index is just not reused next time
+      logger.log(Level.WARNING, "Could not save proof index: {0}", e.getMessage());
+    }
+    return index;
+  }
+
+  /**
+   * Indexes a proof by parsing it completely.
+   *
+   * @param proof The DRAT proof file.
+   * @param interval The amount of clause updates between two indexed offsets.
+   * @return The index of the proof.
+   * @throws IOException If the proof cannot be read.
+   * @throws edu.kit.satviz.parsers.ParsingException If the proof is not valid DRAT.
+   */
+  public static ProofIndex build(Path proof, int interval) throws IOException {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("Interval must be positive");
+    }
+    // read before indexing, so that modifications in the meantime invalidate the index
+    BasicFileAttributes attributes = Files.readAttributes(proof, BasicFileAttributes.class);
+    long[] offsets = new long[16];
+    int amount = 0;
+    long count = 0;
+    try (DratFile drat = new DratFile(Compression.openPossiblyCompressed(proof))) {
+      Iterator<ClauseUpdate> iterator = drat.iterator();
+      while (true) {
+        long position = drat.position();
+        if (!iterator.hasNext()) {
+          break;
+        }
+        if (count % interval == 0) {
+          if (amount == offsets.length) {
+            offsets = Arrays.copyOf(offsets, amount * 2);
+          }
+          offsets[amount++] = position;
+        }
+        iterator.next();
+        count++;
+      }
+      return new ProofIndex(proof, attributes, drat.isBinary(), interval, count,
+          Arrays.copyOf(offsets, amount));
+    }
+  }
+
+  /**
+   * Returns the location of the sidecar file for a proof.
+   *
+   * @param proof The DRAT proof file.
+   * @return The path of the index file, i.e. the proof path with {@code .idx} appended.
+   */
+  public static Path sidecarOf(Path proof) {
+    return proof.resolveSibling(proof.getFileName() + SIDECAR_SUFFIX);
+  }
+
+  /**
+   * Returns the amount of clause updates in the proof.
+   *
+   * @return The amount of clause updates (excluding the final empty clause).
+   */
+  public long getClauseCount() {
+    return clauseCount;
+  }
+
+  /**
+   * Returns whether the proof is in the binary DRAT format.
+   *
+   * @return {@code true}, if the proof is binary, {@code false} if it is textual.
+   */
+  public boolean isBinary() {
+    return binary;
+  }
+
+  /**
+   * Opens the proof, so that it starts at the given clause update. Only the clause updates between
+   * the closest preceding indexed offset and {@code start} have to be parsed.
+   * The offsets refer to the decompressed proof, so for a compressed proof, the preceding bytes
+   * still have to be decompressed (but not parsed); only uncompressed proofs are seeked directly.
+   * The deletions of clauses that are added before {@code start} are returned as well.
+   *
+   * @param start The (0-based) number of the first clause update to read.
+   * @return A {@code DratFile}, whose iterator returns the clause updates from {@code start} on.
+   * @throws IOException If the proof cannot be opened.
+   * @throws IllegalArgumentException If {@code start} is negative or greater than the amount
+   *                                  of clause updates.
+   */
+  public DratFile open(long start) throws IOException {
+    if (start < 0 || start > clauseCount) {
+      throw new IllegalArgumentException("Clause " + start + " is not part of the proof");
+    }
+    int entry = (int) Math.min(start / interval, offsets.length - 1L);
+    long offset = entry < 0 ? 0 : offsets[entry];
+    InputStream in = Compression.openPossiblyCompressed(proof);
+    try {
+      in.skipNBytes(offset);
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+    DratFile drat = new DratFile(in, binary);
+    Iterator<ClauseUpdate> iterator = drat.iterator();
+    for (long i = (long) Math.max(entry, 0) * interval; i < start && iterator.hasNext(); i++) {
+      iterator.next();
+    }
+    return drat;
+  }
+
+  /**
+   * Writes this index to a file. The file is replaced atomically, if possible.
+   *
+   * @param sidecar The index file.
+   * @throws IOException If the index cannot be written.
+   */
+  public void save(Path sidecar) throws IOException {
+    Path dir = sidecar.toAbsolutePath().getParent();
+    Path temp = Files.createTempFile(dir, "proof-index", ".tmp");
+    try {
+      try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(proofSize);
+        out.writeLong(proofLastModified);
+        out.writeBoolean(binary);
+        out.writeInt(interval);
+        out.writeLong(clauseCount);
+        out.writeInt(offsets.length);
+        for (long offset : offsets) {
+          out.writeLong(offset);
+        }
+      }
+      try {
+        Files.move(temp, sidecar, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /*
+   * Reads the index from the sidecar file, returning null if there is none or if it is outdated.
+   */
+  static ProofIndex load(Path proof, Path sidecar) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(proof, BasicFileAttributes.class);
+    try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecar)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION
+          || in.readLong() != attributes.size()
+          || in.readLong() != attributes.lastModifiedTime().toMillis()) {
+        return null;
+      }
+      boolean binary = in.readBoolean();
+      int interval = in.readInt();
+      long clauseCount = in.readLong();
+      int amount = in.readInt();
+      if (interval <= 0 || clauseCount < 0 || amount != (clauseCount + interval - 1) / interval) {
+        return null;
+      }
+      long[] offsets = new long[amount];
+      for (int i = 0; i < amount; i++) {
+        offsets[i] = in.readLong();
+      }
+      return new ProofIndex(proof, attributes, binary, interval, clauseCount, offsets);
+    } catch (IOException e) {
+      // a missing, truncated or otherwise unreadable index is simply rebuilt
+      return null;
+    }
+  }
+
+}
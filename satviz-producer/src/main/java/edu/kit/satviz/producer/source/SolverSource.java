@@ -5,22 +5,41 @@ import edu.kit.ipasir4j.AbstractTerminateCallback;
 import edu.kit.ipasir4j.NullData;
 import edu.kit.ipasir4j.Solver;
 import edu.kit.satviz.producer.ClauseSource;
-import edu.kit.satviz.sat.Clause;
-import edu.kit.satviz.sat.ClauseUpdate;
+import edu.kit.satviz.producer.SourceException;
+import edu.kit.satviz.sat.ClauseBatch;
 import edu.kit.satviz.sat.SatAssignment;
+import java.util.Objects;
 import java.util.function.Consumer;
 import jdk.incubator.foreign.MemoryAddress;
 
 /**
  * An implementation of {@link ClauseSource} representing a CDCL solver emitting the clauses it
  * learns while solving a SAT instance.
+ *
+ * <p>The learn callback of the solver only copies the literals of a clause into a
+ * {@link ClauseRing} and returns, so that the solver is slowed down as little as possible. A
+ * separate sender thread drains the ring and passes the clauses to the listener set by
+ * {@link #subscribeBatches(Consumer)} in batches. What happens to clauses that are learned while
+ * the ring is full is determined by the {@link OverflowPolicy} of the source. Clauses that are
+ * longer than the ring are copied in chunks, so the solver waits for the sender in that case.
  */
 public class SolverSource extends ClauseSource {
 
+  /** The maximum amount of clauses passed to the batch listener at once. */
+  public static final int MAX_BATCH_SIZE = 4096;
+
+  /** With {@link OverflowPolicy#SAMPLE}, every n-th clause is kept while the ring is crowded. */
+  public static final int SAMPLE_INTERVAL = 16;
+
   private final Solver solver;
   private final int varCount;
+  private final OverflowPolicy overflowPolicy;
+  private final ClauseRing ring;
 
   private volatile boolean shouldTerminate;
+  private volatile long droppedClauses = 0; // only written by the solver thread
+  private int sampleCounter = 0;
+  private RuntimeException senderException = null;
 
   /**
    * Creates a source from an ipasir4j {@code Solver} and the amount of variables the corresponding
@@ -32,8 +51,24 @@ public class SolverSource extends ClauseSource {
    * @param varCount The amount of variables contained in the SAT instance the solver is solving.
    */
   public SolverSource(Solver solver, int varCount) {
+    this(solver, varCount, OverflowPolicy.BLOCK);
+  }
+
+  /**
+   * Creates a source from an ipasir4j {@code Solver}, the amount of variables the corresponding
+   * instance contains and a policy for clauses that are learned faster than they can be sent.
+   *
+   * @param solver a {@code Solver} which is already configured with a SAT instance, i.e. all the
+   *               clauses have been added already. If learn or terminate callbacks are set, they
+   *               will be overwritten.
+   * @param varCount The amount of variables contained in the SAT instance the solver is solving.
+   * @param overflowPolicy Determines what happens to clauses if the ring buffer is full.
+   */
+  public SolverSource(Solver solver, int varCount, OverflowPolicy overflowPolicy) {
     this.solver = solver;
     this.varCount = varCount;
+    this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+    this.ring = new ClauseRing();
     this.shouldTerminate = false;
     solver.setLearn(MemoryAddress.NULL, varCount, new LearnCallback());
     solver.setTerminate(MemoryAddress.NULL, new TerminateCallback());
@@ -43,15 +78,38 @@ public class SolverSource extends ClauseSource {
    * Opens the source by starting the solver. A clause will be emitted by the solver when it learns
    * one.
    *
+   * <p>The batch listener is called from a sender thread, which this method waits for before
+   * returning. All learned clauses (that haven't been dropped) have been passed to the listener
+   * by then.
+   *
    * <p>When done, either calls the function set by {@link #whenSolved(Consumer)} if the solver has
    * found a solution or the function set by {@link #whenRefuted(Runnable)} if the solver has found
    * that there is no solution.
    *
    * <p>This method closes the underlying solver.
+   *
+   * @throws SourceException if the batch listener throws an exception
    */
   @Override
-  public void open() {
-    Solver.Result result = solver.solve();
+  public void open() throws SourceException {
+    Thread sender = new Thread(this::sendClauses,
+        "ClauseSender-" + Integer.toHexString(hashCode()));
+    sender.start();
+    Solver.Result result;
+    try {
+      result = solver.solve();
+    } finally {
+      ring.close();
+      try {
+        sender.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (senderException != null) {
+      solver.close();
+      throw new SourceException("Error sending learned clauses", senderException);
+    }
     switch (result) {
       case SATISFIABLE -> solvedListener.accept(solvingAssignment());
       case UNSATISFIABLE -> refutedListener.run();
@@ -71,9 +129,38 @@ public class SolverSource extends ClauseSource {
     return assignment;
   }
 
+  // drains the ring until it is closed and empty
+  private void sendClauses() {
+    ClauseBatch.Builder builder = new ClauseBatch.Builder(MAX_BATCH_SIZE, MAX_BATCH_SIZE * 8);
+    try {
+      while (ring.awaitClauses()) {
+        // nothing is moved if only a part of a long clause has arrived
+        if (ring.drain(builder, MAX_BATCH_SIZE) > 0) {
+          batchListener.accept(builder.build());
+        }
+      }
+    } catch (RuntimeException e) {
+      senderException = e; // visible to open() after join()
+      shouldTerminate = true;
+      ring.close(); // the solver must not wait for the sender anymore
+    }
+  }
+
+  /**
+   * Returns the amount of learned clauses that have been dropped according to the overflow policy
+   * of this source.
+   *
+   * @return The amount of dropped clauses.
+   */
+  public long getDroppedClauses() {
+    return droppedClauses;
+  }
+
   @Override
   public void close() {
     shouldTerminate = true;
+    // clauses learned from now on are discarded, and a waiting solver thread is woken up
+    ring.close();
   }
 
   /**
@@ -99,7 +186,26 @@ public class SolverSource extends ClauseSource {
 
     @Override
     protected void onClauseLearn(NullData data, int[] clause) {
-      clauseListener.accept(new ClauseUpdate(new Clause(clause), ClauseUpdate.Type.ADD));
+      if (overflowPolicy == OverflowPolicy.SAMPLE && ring.used() > ring.capacity() / 2
+          && ++sampleCounter % SAMPLE_INTERVAL != 0) {
+        droppedClauses++;
+        return;
+      }
+      if (clause.length >= ring.capacity()) {
+        // the clause would never fit, so the solver waits while it is copied in chunks
+        if (!ring.put(clause) && !shouldTerminate) {
+          droppedClauses++;
+        }
+        return;
+      }
+      while (!ring.offer(clause)) {
+        if (overflowPolicy != OverflowPolicy.BLOCK || !ring.awaitSpace(clause.length)) {
+          if (!shouldTerminate) {
+            droppedClauses++;
+          }
+          return;
+        }
+      }
     }
 
     @Override
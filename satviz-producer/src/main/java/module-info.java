@@ -10,5 +10,5 @@ module edu.kit.satviz.producer {
   requires net.sourceforge.argparse4j;
 
   opens edu.kit.satviz.producer.cli to net.sourceforge.argparse4j;
-  opens edu.kit.satviz.producer.source to edu.kit.ipasir4j;
+  opens edu.kit.satviz.producer.source to edu.kit.ipasir4j, net.sourceforge.argparse4j;
 }
\ No newline at end of file
@@ -23,6 +23,54 @@ class ProducerCliTest {
     assertThrows(ArgumentParserException.class, () -> ProducerCli.parseArgs(args));
   }
 
+  @Test
+  void test_parseArgs_hostAndSocket() {
+    String[] args = {"-H", "example.com", "--socket", "/tmp/satviz.sock", "-p", "foo/bar.drat"};
+    assertThrows(ArgumentParserException.class, () -> ProducerCli.parseArgs(args));
+  }
+
+  @Test
+  void test_parseArgs_socket() {
+    var expected = new ProducerParameters();
+    expected.setSocket(Paths.get("/tmp/satviz.sock"));
+    expected.setPort(34312);
+    expected.setProofFile(Paths.get("foo/bar.drat"));
+    expected.setFollowTimeout(60);
+    String[] args = {"--socket", "/tmp/satviz.sock", "-p", "foo/bar.drat"};
+    try {
+      var params = ProducerCli.parseArgs(args);
+      assertEquals(expected, params);
+    } catch (ArgumentParserException e) {
+      fail(e);
+    }
+  }
+
+  @Test
+  void test_parseArgs_sharedMemory() {
+    String[] args = {"--shared-memory", "/dev/shm/satviz", "-p", "foo/bar.drat"};
+    try {
+      var params = ProducerCli.parseArgs(args);
+      assertEquals(Paths.get("/dev/shm/satviz"), params.getSharedMemory());
+      assertNull(params.getHost());
+      assertNull(params.getSocket());
+    } catch (ArgumentParserException e) {
+      fail(e);
+    }
+  }
+
+  @Test
+  void test_parseArgs_spool() {
+    String[] args = {"-H", "example.com", "-p", "foo/bar.drat", "--spool", "/var/tmp/satviz",
+        "--spool-limit", "64"};
+    try {
+      var params = ProducerCli.parseArgs(args);
+      assertEquals(Paths.get("/var/tmp/satviz"), params.getSpool());
+      assertEquals(64L, params.getSpoolLimit());
+    } catch (ArgumentParserException e) {
+      fail(e);
+    }
+  }
+
   @Test
   void test_parseArgs_validArgs() {
     var expected = new ProducerParameters();
@@ -30,6 +78,7 @@ class ProducerCliTest {
     expected.setPort(1234);
     expected.setProofFile(Paths.get("foo/bar.drat"));
     expected.setNoWait(true);
+    expected.setFollowTimeout(60);
     String[] args = {"-H", "example.com", "-P", "1234", "-p", "foo/bar.drat", "--no-wait"};
     try {
       var params = ProducerCli.parseArgs(args);
@@ -45,6 +94,7 @@ class ProducerCliTest {
     expected.setPort(34312);
     expected.setHost("example.com");
     expected.setNoWait(false);
+    expected.setFollowTimeout(60);
     expected.setSolverFile(Paths.get("foo/bar.so"));
     expected.setInstanceFile(Paths.get("instance.cnf"));
     String[] args = {"-H", "example.com", "-s", "foo/bar.so", "-i", "instance.cnf"};
@@ -56,4 +106,33 @@ class ProducerCliTest {
     }
   }
 
+  @Test
+  void test_parseArgs_follow() {
+    var expected = new ProducerParameters();
+    expected.setHost("example.com");
+    expected.setPort(34312);
+    expected.setProofFile(Paths.get("foo/bar.drat"));
+    expected.setFollow(true);
+    expected.setFollowTimeout(5);
+    String[] args = {"-H", "example.com", "-p", "foo/bar.drat", "-f", "--follow-timeout", "5"};
+    try {
+      var params = ProducerCli.parseArgs(args);
+      assertEquals(expected, params);
+    } catch (ArgumentParserException e) {
+      fail(e);
+    }
+  }
+
+  @Test
+  void test_parseArgs_startClause() {
+    String[] args = {"-H", "example.com", "-p", "foo/bar.drat", "--start-clause", "123456789012"};
+    try {
+      var params = ProducerCli.parseArgs(args);
+      assertEquals(123456789012L, params.getStartClause());
+      assertNull(params.getStartPercent());
+    } catch (ArgumentParserException e) {
+      fail(e);
+    }
+  }
+
 }
@@ -98,4 +98,65 @@ class ProducerConstraintsTest {
     assertDoesNotThrow(() -> constraint.validate(params));
   }
 
+  @Test
+  void test_validate_followSolver() {
+    var params = new ProducerParameters();
+    params.setSolverFile(existingFile);
+    params.setInstanceFile(existingFile);
+    params.setFollow(true);
+    params.setHost("example.com");
+    assertThrows(ConstraintValidationException.class, () -> constraint.validate(params));
+  }
+
+  @Test
+  void test_validate_okFollowProof() {
+    var params = new ProducerParameters();
+    params.setProofFile(existingFile);
+    params.setFollow(true);
+    params.setFollowTimeout(10);
+    params.setHost("example.com");
+    assertDoesNotThrow(() -> constraint.validate(params));
+  }
+
+  @Test
+  void test_validate_startClauseAndPercent() {
+    var params = new ProducerParameters();
+    params.setProofFile(existingFile);
+    params.setStartClause(10L);
+    params.setStartPercent(50.0);
+    params.setHost("example.com");
+    assertThrows(ConstraintValidationException.class, () -> constraint.validate(params));
+  }
+
+  @Test
+  void test_validate_spoolLimitWithoutSpool() {
+    var params = new ProducerParameters();
+    params.setProofFile(existingFile);
+    params.setSpoolLimit(64L);
+    params.setHost("example.com");
+    assertThrows(ConstraintValidationException.class, () -> constraint.validate(params));
+    params.setSpool(Paths.get("spool"));
+    assertDoesNotThrow(() -> constraint.validate(params));
+    params.setSpoolLimit(0L);
+    assertThrows(ConstraintValidationException.class, () -> constraint.validate(params));
+  }
+
+  @Test
+  void test_validate_startPercentInvalid() {
+    var params = new ProducerParameters();
+    params.setProofFile(existingFile);
+    params.setStartPercent(101.0);
+    params.setHost("example.com");
+    assertThrows(ConstraintValidationException.class, () -> constraint.validate(params));
+  }
+
+  @Test
+  void test_validate_okStartClause() {
+    var params = new ProducerParameters();
+    params.setProofFile(existingFile);
+    params.setStartClause(10L);
+    params.setHost("example.com");
+    assertDoesNotThrow(() -> constraint.validate(params));
+  }
+
 }
@@ -0,0 +1,81 @@
+package edu.kit.satviz.producer.filter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.kit.satviz.sat.ClauseBatch;
+import edu.kit.satviz.sat.ClauseUpdate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class FilterPipelineTest {
+
+  @Test
+  void test_maxLength() {
+    var pipeline = new FilterPipeline(List.of(ClauseFilter.maxLength(2)), false);
+    assertTrue(pipeline.test(ClauseUpdate.of(ClauseUpdate.Type.ADD, 1, 2)));
+    assertFalse(pipeline.test(ClauseUpdate.of(ClauseUpdate.Type.ADD, 1, 2, 3)));
+    assertEquals(1, pipeline.getFilteredUpdates());
+  }
+
+  @Test
+  void test_sample() {
+    var pipeline = new FilterPipeline(List.of(ClauseFilter.sample(3)), false);
+    for (int i = 0; i < 9; i++) {
+      assertEquals(i % 3 == 0, pipeline.test(ClauseUpdate.of(ClauseUpdate.Type.ADD, i + 1)));
+    }
+  }
+
+  @Test
+  void test_rateLimit() {
+    AtomicLong clock = new AtomicLong(0);
+    var pipeline = new FilterPipeline(List.of(new RateLimitFilter(10, 2, clock::get)), false);
+    ClauseUpdate update = ClauseUpdate.of(ClauseUpdate.Type.ADD, 1);
+    // the burst is used up at once
+    assertTrue(pipeline.test(update));
+    assertTrue(pipeline.test(update));
+    assertFalse(pipeline.test(update));
+    // one token per 100 ms
+    clock.set(50_000_000);
+    assertFalse(pipeline.test(update));
+    clock.set(110_000_000);
+    assertTrue(pipeline.test(update));
+    assertFalse(pipeline.test(update));
+    // the bucket doesn't hold more than the burst
+    clock.set(10_000_000_000L);
+    assertTrue(pipeline.test(update));
+    assertTrue(pipeline.test(update));
+    assertFalse(pipeline.test(update));
+  }
+
+  @Test
+  void test_deletionsConsistent() {
+    var pipeline = new FilterPipeline(List.of(ClauseFilter.maxLength(2)), true);
+    assertFalse(pipeline.test(ClauseUpdate.of(ClauseUpdate.Type.ADD, 1, 2, 3)));
+    assertTrue(pipeline.test(ClauseUpdate.of(ClauseUpdate.Type.ADD, 4, 5)));
+    // the filtered clause is deleted with a different order of literals
+    assertFalse(pipeline.test(ClauseUpdate.of(ClauseUpdate.Type.REMOVE, 3, 1, 2)));
+    assertTrue(pipeline.test(ClauseUpdate.of(ClauseUpdate.Type.REMOVE, 4, 5)));
+    // clauses that weren't filtered (e.g., of the instance) can still be deleted
+    assertTrue(pipeline.test(ClauseUpdate.of(ClauseUpdate.Type.REMOVE, 1, 2, 3)));
+    assertTrue(pipeline.test(ClauseUpdate.of(ClauseUpdate.Type.REMOVE, 6, 7, 8)));
+  }
+
+  @Test
+  void test_filter_batch() {
+    var pipeline = new FilterPipeline(List.of(ClauseFilter.maxLength(1)), true);
+    ClauseBatch kept = ClauseBatch.of(ClauseUpdate.of(ClauseUpdate.Type.ADD, 1),
+        ClauseUpdate.of(ClauseUpdate.Type.ADD, 2));
+    assertSame(kept, pipeline.filter(kept));
+
+    ClauseBatch batch = ClauseBatch.of(
+        ClauseUpdate.of(ClauseUpdate.Type.ADD, 1),
+        ClauseUpdate.of(ClauseUpdate.Type.ADD, 2, 3),
+        ClauseUpdate.of(ClauseUpdate.Type.ADD, 4),
+        ClauseUpdate.of(ClauseUpdate.Type.REMOVE, 3, 2));
+    assertEquals(ClauseBatch.of(ClauseUpdate.of(ClauseUpdate.Type.ADD, 1),
+        ClauseUpdate.of(ClauseUpdate.Type.ADD, 4)), pipeline.filter(batch));
+    assertEquals(2, pipeline.getFilteredUpdates());
+  }
+
+}
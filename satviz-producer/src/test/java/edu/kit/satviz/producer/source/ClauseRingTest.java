@@ -0,0 +1,119 @@
+package edu.kit.satviz.producer.source;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.kit.satviz.sat.ClauseBatch;
+import edu.kit.satviz.sat.ClauseUpdate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ClauseRingTest {
+
+  private static final int LONG_CLAUSE = 300_000;
+
+  @Test
+  void test_offer_fullAndWrapAround() {
+    ClauseRing ring = new ClauseRing();
+    assertEquals(ClauseRing.DEFAULT_CAPACITY, ring.capacity());
+    for (int i = 1; i <= 3; i++) {
+      assertTrue(ring.offer(clause(i, LONG_CLAUSE)));
+    }
+    assertFalse(ring.offer(clause(4, LONG_CLAUSE)));
+
+    ClauseBatch.Builder builder = new ClauseBatch.Builder();
+    assertEquals(1, ring.drain(builder, 1));
+    // the fourth clause wraps around the end of the array
+    assertTrue(ring.offer(clause(4, LONG_CLAUSE)));
+    assertEquals(3, ring.drain(builder, Integer.MAX_VALUE));
+    ClauseBatch batch = builder.build();
+    assertEquals(4, batch.size());
+    for (int i = 0; i < 4; i++) {
+      assertArrayEquals(clause(i + 1, LONG_CLAUSE), batch.clauseLiterals(i));
+      assertEquals(ClauseUpdate.Type.ADD, batch.type(i));
+    }
+    assertEquals(0, ring.used());
+  }
+
+  @Test
+  void test_close_drainsRemaining() {
+    ClauseRing ring = new ClauseRing(16);
+    assertTrue(ring.offer(new int[] {1, -2}));
+    ring.close();
+    assertFalse(ring.offer(new int[] {3}));
+    assertFalse(ring.awaitSpace(1));
+    assertTrue(ring.awaitClauses());
+    ClauseBatch.Builder builder = new ClauseBatch.Builder();
+    assertEquals(1, ring.drain(builder, 10));
+    assertEquals(ClauseBatch.of(ClauseUpdate.of(ClauseUpdate.Type.ADD, 1, -2)), builder.build());
+    assertFalse(ring.awaitClauses());
+  }
+
+  @Test
+  void test_handOff_concurrent() throws InterruptedException {
+    final int clauses = 200_000;
+    // the longest clauses don't fit into the ring and are copied in chunks
+    ClauseRing ring = new ClauseRing(64);
+    Thread producer = new Thread(() -> {
+      for (int i = 1; i <= clauses; i++) {
+        int[] clause = clause(i, i % 100);
+        if (clause.length >= ring.capacity()) {
+          assertTrue(ring.put(clause));
+          continue;
+        }
+        while (!ring.offer(clause)) {
+          assertTrue(ring.awaitSpace(clause.length));
+        }
+      }
+      ring.close();
+    });
+    producer.start();
+
+    List<int[]> received = new ArrayList<>();
+    ClauseBatch.Builder builder = new ClauseBatch.Builder();
+    while (ring.awaitClauses()) {
+      ring.drain(builder, 4096);
+      ClauseBatch batch = builder.build();
+      for (int i = 0; i < batch.size(); i++) {
+        received.add(batch.clauseLiterals(i));
+      }
+    }
+    producer.join();
+    assertEquals(clauses, received.size());
+    for (int i = 1; i <= clauses; i++) {
+      assertArrayEquals(clause(i, i % 100), received.get(i - 1));
+    }
+  }
+
+  @Test
+  void test_put_longerThanCapacity() {
+    ClauseRing ring = new ClauseRing(8);
+    assertThrows(IllegalArgumentException.class, () -> new ClauseRing(12));
+    assertTrue(ring.offer(new int[] {1, 2}));
+    Thread producer = new Thread(() -> assertTrue(ring.put(clause(10, 20))));
+    producer.start();
+
+    ClauseBatch.Builder builder = new ClauseBatch.Builder();
+    int moved = 0;
+    while (moved < 2) {
+      assertTrue(ring.awaitClauses());
+      moved += ring.drain(builder, 10);
+    }
+    ClauseBatch batch = builder.build();
+    assertEquals(2, batch.size());
+    assertArrayEquals(new int[] {1, 2}, batch.clauseLiterals(0));
+    assertArrayEquals(clause(10, 20), batch.clauseLiterals(1));
+    assertEquals(0, ring.used());
+
+    // a clause that is cut off by closing the ring is discarded
+    ring.close();
+    assertFalse(ring.put(clause(1, 20)));
+    assertFalse(ring.awaitClauses());
+  }
+
+  private static int[] clause(int first, int length) {
+    return IntStream.range(0, length).map(i -> i % 2 == 0 ? first + i : -(first + i)).toArray();
+  }
+
+}
@@ -0,0 +1,108 @@
+package edu.kit.satviz.producer.source;
+
+import static edu.kit.satviz.producer.ResourceHelper.PROOF_UPDATES;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.kit.satviz.producer.SourceException;
+import edu.kit.satviz.sat.ClauseUpdate;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LiveProofSourceTest {
+
+  private Path proof;
+  private List<ClauseUpdate> updates;
+  private AtomicBoolean refuted;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    proof = Files.createTempFile("live-proof", ".drat");
+    updates = new CopyOnWriteArrayList<>();
+    refuted = new AtomicBoolean(false);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    Files.delete(proof);
+  }
+
+  @Test
+  void test_open_appended() throws Exception {
+    LiveProofSource source = createSource(Duration.ofMinutes(1));
+    CompletableFuture<Void> done = openAsync(source);
+    // the second clause is split in the middle of a literal
+    append("1 2 3 0\nd 3 -");
+    waitForUpdates(1);
+    Thread.sleep(50);
+    assertEquals(PROOF_UPDATES.subList(0, 1), updates);
+    append("4 0\n2 -1 0\n");
+    waitForUpdates(3);
+    assertFalse(refuted.get());
+    append("0\n");
+    done.get(5, TimeUnit.SECONDS);
+    assertEquals(PROOF_UPDATES, updates);
+    assertTrue(refuted.get());
+  }
+
+  @Test
+  void test_open_timeout() throws Exception {
+    append("1 2 3 0\n3 -");
+    LiveProofSource source = createSource(Duration.ofMillis(100));
+    var e = assertThrows(SourceException.class, source::open);
+    assertNull(e.getCause());
+    assertEquals(PROOF_UPDATES.subList(0, 1), updates);
+    assertFalse(refuted.get());
+  }
+
+  @Test
+  void test_close() throws Exception {
+    append("1 2 3 0\n");
+    LiveProofSource source = createSource(Duration.ofMinutes(1));
+    CompletableFuture<Void> done = openAsync(source);
+    waitForUpdates(1);
+    source.close();
+    done.get(1, TimeUnit.SECONDS);
+    assertFalse(refuted.get());
+  }
+
+  private LiveProofSource createSource(Duration timeout) throws IOException {
+    LiveProofSource source = new LiveProofSource(proof, timeout);
+    source.subscribe(updates::add);
+    source.whenRefuted(() -> refuted.set(true));
+    return source;
+  }
+
+  private static CompletableFuture<Void> openAsync(LiveProofSource source) {
+    return CompletableFuture.runAsync(() -> {
+      try {
+        source.open();
+      } catch (SourceException e) {
+        throw new RuntimeException(e);
+      }
+    });
+  }
+
+  private void append(String content) throws IOException {
+    Files.writeString(proof, content, StandardOpenOption.APPEND);
+  }
+
+  private void waitForUpdates(int amount) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (updates.size() < amount && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertEquals(amount, updates.size());
+  }
+
+}
@@ -0,0 +1,138 @@
+package edu.kit.satviz.producer.source;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.kit.satviz.parsers.DratFile;
+import edu.kit.satviz.sat.ClauseUpdate;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProofIndexTest {
+
+  private static final int CLAUSES = 50;
+
+  private Path dir;
+  private Path proof;
+  private List<ClauseUpdate> updates;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    dir = Files.createTempDirectory("proof-index");
+    proof = dir.resolve("proof.drat");
+    updates = new ArrayList<>();
+    for (int i = 1; i <= CLAUSES; i++) {
+      updates.add(ClauseUpdate.of(i % 7 == 0 ? ClauseUpdate.Type.REMOVE : ClauseUpdate.Type.ADD,
+          i, -(i + 1), i * 100));
+    }
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    try (var files = Files.walk(dir)) {
+      for (Path path : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  void test_open_text() throws IOException {
+    writeText();
+    ProofIndex index = ProofIndex.build(proof, 8);
+    assertFalse(index.isBinary());
+    assertEquals(CLAUSES, index.getClauseCount());
+    for (int start = 0; start <= CLAUSES; start++) {
+      assertEquals(updates.subList(start, CLAUSES), readAll(index.open(start)));
+    }
+  }
+
+  @Test
+  void test_open_binary() throws IOException {
+    writeBinary();
+    ProofIndex index = ProofIndex.build(proof, 8);
+    assertTrue(index.isBinary());
+    assertEquals(CLAUSES, index.getClauseCount());
+    for (int start = 0; start <= CLAUSES; start++) {
+      assertEquals(updates.subList(start, CLAUSES), readAll(index.open(start)));
+    }
+  }
+
+  @Test
+  void test_open_invalid() throws IOException {
+    writeText();
+    ProofIndex index = ProofIndex.build(proof, 8);
+    assertThrows(IllegalArgumentException.class, () -> index.open(-1));
+    assertThrows(IllegalArgumentException.class, () -> index.open(CLAUSES + 1));
+  }
+
+  @Test
+  void test_loadOrBuild_sidecar() throws IOException {
+    writeText();
+    ProofIndex index = ProofIndex.loadOrBuild(proof);
+    Path sidecar = ProofIndex.sidecarOf(proof);
+    assertTrue(Files.exists(sidecar));
+    assertEquals(CLAUSES, index.getClauseCount());
+    assertNotNull(ProofIndex.load(proof, sidecar));
+    assertEquals(updates.subList(10, CLAUSES), readAll(ProofIndex.load(proof, sidecar).open(10)));
+  }
+
+  @Test
+  void test_load_outdated() throws IOException {
+    writeText();
+    ProofIndex.loadOrBuild(proof);
+    Files.writeString(proof, "1 2 0\n0\n");
+    Files.setLastModifiedTime(proof, FileTime.fromMillis(0));
+    assertNull(ProofIndex.load(proof, ProofIndex.sidecarOf(proof)));
+    assertEquals(1, ProofIndex.loadOrBuild(proof).getClauseCount());
+  }
+
+  private void writeText() throws IOException {
+    StringBuilder builder = new StringBuilder("c generated proof\n");
+    for (ClauseUpdate update : updates) {
+      if (update.type() == ClauseUpdate.Type.REMOVE) {
+        builder.append("d ");
+      }
+      for (int literal : update.clause().literals()) {
+        builder.append(literal).append(' ');
+      }
+      builder.append("0\n");
+    }
+    Files.writeString(proof, builder.append("0\n"));
+  }
+
+  private void writeBinary() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (ClauseUpdate update : updates) {
+      out.write(update.type().getId());
+      for (int literal : update.clause().literals()) {
+        int value = 2 * Math.abs(literal) + (literal < 0 ? 1 : 0);
+        while ((value & ~0x7f) != 0) {
+          out.write((value & 0x7f) | 0x80);
+          value >>>= 7;
+        }
+        out.write(value);
+      }
+      out.write(0);
+    }
+    out.write('a');
+    out.write(0);
+    Files.write(proof, out.toByteArray());
+  }
+
+  private static List<ClauseUpdate> readAll(DratFile drat) {
+    try (drat) {
+      List<ClauseUpdate> result = new ArrayList<>();
+      drat.forEach(result::add);
+      return result;
+    }
+  }
+
+}
@@ -10,6 +10,7 @@ import edu.kit.satviz.producer.cli.ProducerParameters;
 import edu.kit.satviz.producer.mode.ProofMode;
 import edu.kit.satviz.sat.ClauseUpdate;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -49,4 +50,35 @@ class ProofSourceTest {
     assertEquals(PROOF_UPDATES, updates);
   }
 
+  @Test
+  void test_open_startClause() throws IOException, SourceException {
+    var params = new ProducerParameters();
+    params.setHost("example.com");
+    params.setProofFile(extractResource("/proof.drat"));
+    params.setStartClause(1L);
+    ProducerModeData data = mode.apply(params);
+    List<ClauseUpdate> updates = new ArrayList<>();
+    data.source().subscribe(updates::add);
+    data.source().open();
+    assertEquals(PROOF_UPDATES.subList(1, PROOF_UPDATES.size()), updates);
+    Files.deleteIfExists(ProofIndex.sidecarOf(params.getProofFile()));
+  }
+
+  @Test
+  void test_open_startPercent() throws IOException, SourceException {
+    var params = new ProducerParameters();
+    params.setHost("example.com");
+    params.setProofFile(extractResource("/proof.drat"));
+    params.setStartPercent(100.0);
+    ProducerModeData data = mode.apply(params);
+    List<ClauseUpdate> updates = new ArrayList<>();
+    data.source().subscribe(updates::add);
+    var bool = new AtomicBoolean(false);
+    data.source().whenRefuted(() -> bool.set(true));
+    data.source().open();
+    assertEquals(List.of(), updates);
+    assertTrue(bool.get());
+    Files.deleteIfExists(ProofIndex.sidecarOf(params.getProofFile()));
+  }
+
 }
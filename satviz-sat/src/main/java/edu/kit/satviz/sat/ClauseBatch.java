@@ -0,0 +1,403 @@
+package edu.kit.satviz.sat;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable sequence of clause updates, which are stored in flat primitive arrays.<br>
+ * The literals of all clauses are stored back to back in a single <code>int</code>-array, the
+ * <code>i</code>-th clause occupies the indices from <code>clauseStart(i)</code> (inclusive) to
+ * <code>clauseEnd(i)</code> (exclusive). The types of the updates are stored in a bit set.<br>
+ * <br>
+ * Compared to an array of <code>ClauseUpdate</code>s, a batch only needs a constant amount of
+ * objects, no matter how many clauses it contains. Single updates can still be materialized with
+ * <code>get()</code>, if needed.
+ */
+public final class ClauseBatch implements Iterable<ClauseUpdate> {
+
+  private static final ClauseBatch EMPTY = new ClauseBatch(new int[0], new int[1], new long[0], 0);
+
+  private final int[] literals;
+  private final int[] offsets;
+  private final long[] removals;
+  private final int size;
+
+  private ClauseBatch(int[] literals, int[] offsets, long[] removals, int size) {
+    this.literals = literals;
+    this.offsets = offsets;
+    this.removals = removals;
+    this.size = size;
+  }
+
+  /**
+   * Returns an empty batch.
+   *
+   * @return A batch without any clause updates.
+   */
+  public static ClauseBatch empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Creates a batch containing the given clause updates.
+   *
+   * @param updates The clause updates in their order.
+   * @return A batch with the same clause updates.
+   */
+  public static ClauseBatch of(ClauseUpdate... updates) {
+    Builder builder = new Builder(updates.length, updates.length * 4);
+    for (ClauseUpdate update : updates) {
+      builder.add(update);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the amount of clause updates in this batch.
+   *
+   * @return The amount of clause updates.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether this batch contains no clause updates.
+   *
+   * @return {@code true}, if this batch is empty, {@code false} otherwise.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the total amount of literals of all clauses in this batch.
+   *
+   * @return The sum of all clause lengths.
+   */
+  public int literalCount() {
+    return offsets[size];
+  }
+
+  /**
+   * Returns the type of the {@code index}-th clause update.
+   *
+   * @param index The index of the clause update.
+   * @return The type of the update.
+   * @throws IndexOutOfBoundsException if the index is out of range.
+   */
+  public ClauseUpdate.Type type(int index) {
+    checkIndex(index);
+    return (removals[index >>> 6] & (1L << index)) != 0
+        ? ClauseUpdate.Type.REMOVE
+        : ClauseUpdate.Type.ADD;
+  }
+
+  /**
+   * Returns the index of the first literal of the {@code index}-th clause in {@link #literals()}.
+   *
+   * @param index The index of the clause update.
+   * @return The start of the clause (inclusive).
+   * @throws IndexOutOfBoundsException if the index is out of range.
+   */
+  public int clauseStart(int index) {
+    checkIndex(index);
+    return offsets[index];
+  }
+
+  /**
+   * Returns the index after the last literal of the {@code index}-th clause in
+   * {@link #literals()}.
+   *
+   * @param index The index of the clause update.
+   * @return The end of the clause (exclusive).
+   * @throws IndexOutOfBoundsException if the index is out of range.
+   */
+  public int clauseEnd(int index) {
+    checkIndex(index);
+    return offsets[index + 1];
+  }
+
+  /**
+   * Returns the amount of literals of the {@code index}-th clause.
+   *
+   * @param index The index of the clause update.
+   * @return The length of the clause.
+   * @throws IndexOutOfBoundsException if the index is out of range.
+   */
+  public int clauseLength(int index) {
+    checkIndex(index);
+    return offsets[index + 1] - offsets[index];
+  }
+
+  /**
+   * Returns the backing array of the literals of all clauses in this batch.<br>
+   * <i>The array must not be modified. It may be longer than {@link #literalCount()}.</i>
+   *
+   * @return The literals of all clauses.
+   */
+  public int[] literals() {
+    return literals;
+  }
+
+  /**
+   * Returns a copy of the literals of the {@code index}-th clause.
+   *
+   * @param index The index of the clause update.
+   * @return A new array containing the literals of the clause.
+   * @throws IndexOutOfBoundsException if the index is out of range.
+   */
+  public int[] clauseLiterals(int index) {
+    checkIndex(index);
+    return Arrays.copyOfRange(literals, offsets[index], offsets[index + 1]);
+  }
+
+  /**
+   * Creates a {@code ClauseUpdate} object for the {@code index}-th clause update.
+   *
+   * @param index The index of the clause update.
+   * @return A new clause update with the same type and literals.
+   * @throws IndexOutOfBoundsException if the index is out of range.
+   */
+  public ClauseUpdate get(int index) {
+    return new ClauseUpdate(new Clause(clauseLiterals(index)), type(index));
+  }
+
+  @Override
+  public Iterator<ClauseUpdate> iterator() {
+    return new Iterator<>() {
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return index < size;
+      }
+
+      @Override
+      public ClauseUpdate next() {
+        if (index >= size) {
+          throw new NoSuchElementException();
+        }
+        return get(index++);
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ClauseBatch other = (ClauseBatch) o;
+    if (size != other.size
+        || !Arrays.equals(offsets, 0, size + 1, other.offsets, 0, size + 1)
+        || !Arrays.equals(literals, 0, literalCount(), other.literals, 0, literalCount())) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (type(i) != other.type(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = size;
+    for (int i = 0; i < size; i++) {
+      result = 31 * result + type(i).hashCode();
+      for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+        result = 31 * result + literals[j];
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(type(i)).append(' ')
+          .append(Arrays.toString(Arrays.copyOfRange(literals, offsets[i], offsets[i + 1])));
+    }
+    return builder.append(']').toString();
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+  }
+
+  /**
+   * A builder for {@code ClauseBatch} instances.<br>
+   * Clauses can either be added as a whole or literal by literal, using {@link #addLiteral(int)}
+   * followed by {@link #endClause(ClauseUpdate.Type)}. The builder may be reused after
+   * {@link #build()} has been called.
+   */
+  public static final class Builder {
+
+    private static final int DEFAULT_CLAUSE_CAPACITY = 16;
+    private static final int DEFAULT_LITERAL_CAPACITY = 64;
+
+    private int[] literals;
+    private int[] offsets;
+    private long[] removals;
+    private int size;
+    private int literalCount;
+
+    /**
+     * Creates a new, empty builder.
+     */
+    public Builder() {
+      this(DEFAULT_CLAUSE_CAPACITY, DEFAULT_LITERAL_CAPACITY);
+    }
+
+    /**
+     * Creates a new, empty builder with the given initial capacities.
+     *
+     * @param clauseCapacity The expected amount of clause updates.
+     * @param literalCapacity The expected total amount of literals.
+     */
+    public Builder(int clauseCapacity, int literalCapacity) {
+      if (clauseCapacity < 0 || literalCapacity < 0) {
+        throw new IllegalArgumentException("Capacities must not be negative");
+      }
+      allocate(clauseCapacity, literalCapacity);
+    }
+
+    /**
+     * Appends a literal to the clause that is currently being built.
+     *
+     * @param literal The literal.
+     * @return This builder.
+     */
+    public Builder addLiteral(int literal) {
+      if (literalCount == literals.length) {
+        literals = Arrays.copyOf(literals, Math.max(DEFAULT_LITERAL_CAPACITY, literalCount * 2));
+      }
+      literals[literalCount++] = literal;
+      return this;
+    }
+
+    /**
+     * Finishes the clause that is currently being built, i.e. all literals added since the last
+     * clause was finished.
+     *
+     * @param type The type of the clause update.
+     * @return This builder.
+     */
+    public Builder endClause(ClauseUpdate.Type type) {
+      if (size + 1 == offsets.length) {
+        offsets = Arrays.copyOf(offsets, Math.max(DEFAULT_CLAUSE_CAPACITY, size * 2) + 1);
+      }
+      if ((size >>> 6) == removals.length) {
+        removals = Arrays.copyOf(removals, Math.max(1, removals.length * 2));
+      }
+      if (type == ClauseUpdate.Type.REMOVE) {
+        removals[size >>> 6] |= 1L << size;
+      }
+      offsets[++size] = literalCount;
+      return this;
+    }
+
+    /**
+     * Appends a clause update, whose literals are taken from a range of an array.
+     *
+     * @param type The type of the clause update.
+     * @param source The array containing the literals.
+     * @param from The start of the range (inclusive).
+     * @param to The end of the range (exclusive).
+     * @return This builder.
+     */
+    public Builder add(ClauseUpdate.Type type, int[] source, int from, int to) {
+      int length = to - from;
+      ensureLiteralCapacity(length);
+      System.arraycopy(source, from, literals, literalCount, length);
+      literalCount += length;
+      return endClause(type);
+    }
+
+    /**
+     * Appends a clause update.
+     *
+     * @param type The type of the clause update.
+     * @param clause The literals of the clause.
+     * @return This builder.
+     */
+    public Builder add(ClauseUpdate.Type type, int... clause) {
+      return add(type, clause, 0, clause.length);
+    }
+
+    /**
+     * Appends a clause update.
+     *
+     * @param update The clause update.
+     * @return This builder.
+     */
+    public Builder add(ClauseUpdate update) {
+      return add(update.type(), update.clause().literals());
+    }
+
+    /**
+     * Appends all clause updates of a batch.
+     *
+     * @param batch The batch.
+     * @return This builder.
+     */
+    public Builder addAll(ClauseBatch batch) {
+      ensureLiteralCapacity(batch.literalCount());
+      for (int i = 0; i < batch.size; i++) {
+        add(batch.type(i), batch.literals, batch.offsets[i], batch.offsets[i + 1]);
+      }
+      return this;
+    }
+
+    /**
+     * Returns the amount of finished clause updates.
+     *
+     * @return The amount of clause updates, that would be contained in the built batch.
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Creates a batch of all finished clause updates and resets this builder.
+     * Literals of an unfinished clause are discarded.
+     *
+     * @return The batch.
+     */
+    public ClauseBatch build() {
+      ClauseBatch batch = size == 0
+          ? EMPTY
+          : new ClauseBatch(literals, offsets, removals, size);
+      allocate(DEFAULT_CLAUSE_CAPACITY, DEFAULT_LITERAL_CAPACITY);
+      return batch;
+    }
+
+    private void ensureLiteralCapacity(int additional) {
+      if (literals.length - literalCount < additional) {
+        literals = Arrays.copyOf(literals, Math.max(literals.length * 2, literalCount + additional));
+      }
+    }
+
+    private void allocate(int clauseCapacity, int literalCapacity) {
+      literals = new int[literalCapacity];
+      offsets = new int[clauseCapacity + 1];
+      removals = new long[(clauseCapacity + 63) >>> 6];
+      size = 0;
+      literalCount = 0;
+    }
+
+  }
+
+}
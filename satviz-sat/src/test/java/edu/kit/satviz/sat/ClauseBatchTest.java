@@ -0,0 +1,113 @@
+package edu.kit.satviz.sat;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.kit.satviz.sat.ClauseUpdate.Type;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests the functionality of the {@code ClauseBatch} class.
+ */
+class ClauseBatchTest {
+
+  private static final ClauseUpdate[] UPDATES = {
+      ClauseUpdate.of(Type.ADD, 1, -2, 3),
+      ClauseUpdate.of(Type.REMOVE, 4),
+      ClauseUpdate.of(Type.ADD),
+      ClauseUpdate.of(Type.REMOVE, -5, 6)
+  };
+
+  /**
+   * This tests, whether a batch created with {@code of()} contains exactly the given updates.
+   */
+  @Test
+  void of_test() {
+    ClauseBatch batch = ClauseBatch.of(UPDATES);
+    assertEquals(UPDATES.length, batch.size());
+    assertEquals(6, batch.literalCount());
+    for (int i = 0; i < UPDATES.length; i++) {
+      assertEquals(UPDATES[i], batch.get(i));
+      assertEquals(UPDATES[i].type(), batch.type(i));
+      assertEquals(UPDATES[i].clause().literals().length, batch.clauseLength(i));
+    }
+    assertArrayEquals(new int[] {-5, 6}, batch.clauseLiterals(3));
+    assertEquals(4, batch.clauseStart(3));
+    assertEquals(6, batch.clauseEnd(3));
+  }
+
+  /**
+   * This tests, whether clauses built literal by literal equal those added as a whole.
+   */
+  @Test
+  void builder_literals_test() {
+    ClauseBatch.Builder builder = new ClauseBatch.Builder(0, 0);
+    builder.addLiteral(1).addLiteral(-2).addLiteral(3).endClause(Type.ADD);
+    builder.addLiteral(4).endClause(Type.REMOVE);
+    builder.endClause(Type.ADD);
+    builder.add(Type.REMOVE, new int[] {7, -5, 6, 8}, 1, 3);
+    assertEquals(4, builder.size());
+    assertEquals(ClauseBatch.of(UPDATES), builder.build());
+    assertEquals(0, builder.size());
+    assertTrue(builder.build().isEmpty());
+  }
+
+  /**
+   * This tests, whether the types are stored correctly beyond a single word of the bit set.
+   */
+  @Test
+  void builder_many_test() {
+    ClauseBatch.Builder builder = new ClauseBatch.Builder();
+    List<ClauseUpdate> expected = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      ClauseUpdate update = ClauseUpdate.of(i % 3 == 0 ? Type.REMOVE : Type.ADD, i, -i - 1);
+      builder.add(update);
+      expected.add(update);
+    }
+    ClauseBatch batch = builder.build();
+    List<ClauseUpdate> actual = new ArrayList<>();
+    batch.forEach(actual::add);
+    assertEquals(expected, actual);
+  }
+
+  /**
+   * This tests, whether {@code addAll()} concatenates batches.
+   */
+  @Test
+  void addAll_test() {
+    ClauseBatch first = ClauseBatch.of(UPDATES[0], UPDATES[1]);
+    ClauseBatch second = ClauseBatch.of(UPDATES[2], UPDATES[3]);
+    ClauseBatch batch = new ClauseBatch.Builder().addAll(first).addAll(second).build();
+    assertEquals(ClauseBatch.of(UPDATES), batch);
+    assertEquals(ClauseBatch.of(UPDATES).hashCode(), batch.hashCode());
+  }
+
+  /**
+   * This tests, whether {@code equals()} compares the types as well as the literals.
+   */
+  @Test
+  void equals_test() {
+    ClauseBatch batch = ClauseBatch.of(UPDATES);
+    assertNotEquals(ClauseBatch.of(ClauseUpdate.of(Type.ADD, 1)),
+        ClauseBatch.of(ClauseUpdate.of(Type.REMOVE, 1)));
+    assertNotEquals(batch, ClauseBatch.of(UPDATES[0]));
+    assertNotEquals(batch, null);
+    assertEquals(ClauseBatch.empty(), ClauseBatch.of());
+  }
+
+  /**
+   * This tests, whether indices outside the batch are rejected.
+   */
+  @Test
+  void index_test() {
+    ClauseBatch batch = ClauseBatch.of(UPDATES);
+    assertThrows(IndexOutOfBoundsException.class, () -> batch.get(UPDATES.length));
+    assertThrows(IndexOutOfBoundsException.class, () -> batch.type(-1));
+  }
+
+}
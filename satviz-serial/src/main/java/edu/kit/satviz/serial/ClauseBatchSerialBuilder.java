@@ -0,0 +1,109 @@
+package edu.kit.satviz.serial;
+
+import edu.kit.satviz.sat.ClauseBatch;
+import edu.kit.satviz.sat.ClauseUpdate;
+import java.util.NoSuchElementException;
+
+/**
+ * The {@link SerialBuilder} corresponding to {@link ClauseBatchSerializer}.<br>
+ * The literals are decoded directly into a {@link ClauseBatch.Builder},
+ * so no objects are created per clause update.
+ */
+public class ClauseBatchSerialBuilder extends SerialBuilder<ClauseBatch> {
+
+  private final int fixedAmount;
+  private final SerialBuilder<Integer> amountBuilder = new IntSerialBuilder();
+  private final ClauseBatch.Builder builder = new ClauseBatch.Builder();
+  private ClauseBatch batch;
+
+  private int amount;
+  private ClauseUpdate.Type type;
+  private int acc;
+  private int currentShift;
+
+  /**
+   * Creates a builder for batches, which are preceded by their amount of clause updates.
+   */
+  public ClauseBatchSerialBuilder() {
+    this.fixedAmount = -1;
+    processReset();
+  }
+
+  /**
+   * Creates a builder for a known amount of clause updates, which are not preceded by
+   * their amount, as written by {@link ClauseBatchSerializer#serializeUpdates}.
+   *
+   * @param amount the amount of clause updates
+   */
+  public ClauseBatchSerialBuilder(int amount) {
+    if (amount <= 0) {
+      throw new IllegalArgumentException("amount must be positive");
+    }
+    this.fixedAmount = amount;
+    processReset();
+  }
+
+  @Override
+  protected void processAddByte(byte b) throws SerializationException {
+    if (amount < 0) {
+      if (amountBuilder.addByte(b)) {
+        amount = amountBuilder.getObject();
+        if (amount < 0) {
+          fail("negative amount of clause updates");
+        } else if (amount == 0) {
+          batch = ClauseBatch.empty();
+          finish();
+        }
+      }
+    } else if (type == null) {
+      try {
+        type = ClauseUpdate.Type.getById(b);
+      } catch (NoSuchElementException e) {
+        fail("Unknown clause update type " + b);
+      }
+    } else if (b == 0) {
+      if (currentShift != 0) {
+        fail("literal mapping not terminated correctly");
+      }
+      builder.endClause(type);
+      type = null;
+      if (builder.size() == amount) {
+        batch = builder.build();
+        finish();
+      }
+    } else if ((b & 0x80) != 0) {
+      // literal not done
+      acc |= (b & 0x7f) << currentShift;
+      currentShift += 7;
+      if (currentShift > 28) {
+        fail("unsigned literal mapping too big");
+      }
+    } else {
+      // literal done with this byte; add and reset
+      acc |= b << currentShift;
+      int lit = (acc & 1) == 0 ? acc >>> 1 : -(acc >>> 1);
+      if (lit == 0) {
+        fail("invalid unsigned literal mapping value");
+      }
+      builder.addLiteral(lit);
+      acc = 0;
+      currentShift = 0;
+    }
+  }
+
+  @Override
+  protected ClauseBatch processGetObject() {
+    return batch;
+  }
+
+  @Override
+  protected void processReset() {
+    amountBuilder.reset();
+    builder.build();
+    batch = null;
+    amount = fixedAmount;
+    type = null;
+    acc = 0;
+    currentShift = 0;
+  }
+}
@@ -0,0 +1,129 @@
+package edu.kit.satviz.serial;
+
+import edu.kit.satviz.sat.ClauseBatch;
+import edu.kit.satviz.sat.ClauseUpdate;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Serializer} for {@code ClauseBatch}es.<br>
+ * Uses four bytes (little endian) for the amount of clause updates, followed by the clause
+ * updates as specified by {@link ClauseUpdateSerializer}.
+ */
+public class ClauseBatchSerializer extends Serializer<ClauseBatch> {
+
+  private static final IntSerializer intSerializer = new IntSerializer();
+
+  @Override
+  public void serialize(ClauseBatch batch, OutputStream out) throws IOException {
+    intSerializer.serialize(batch.size(), out);
+    serializeUpdates(batch, out);
+  }
+
+  /**
+   * Serializes the clause updates of a batch without the preceding amount.
+   * The result is the same as serializing each update with a {@link ClauseUpdateSerializer}.
+   *
+   * @param batch the batch
+   * @param out the stream to write to
+   * @throws IOException if the stream cannot be used
+   */
+  public void serializeUpdates(ClauseBatch batch, OutputStream out) throws IOException {
+    int[] literals = batch.literals();
+    for (int i = 0; i < batch.size(); i++) {
+      out.write(batch.type(i).getId());
+      ClauseSerializer.serializeLiterals(literals, batch.clauseStart(i), batch.clauseEnd(i), out);
+    }
+  }
+
+  @Override
+  public boolean encode(ClauseBatch batch, ByteBuffer out) {
+    int start = out.position();
+    if (!intSerializer.encode(batch.size(), out)) {
+      return false;
+    }
+    if (!encodeUpdates(batch, out)) {
+      out.position(start);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Encodes the clause updates of a batch without the preceding amount.
+   * If the buffer doesn't have enough space left, its position is left unchanged.
+   *
+   * @param batch the batch
+   * @param out the buffer to write to
+   * @return whether the clause updates were written
+   * @see #serializeUpdates(ClauseBatch, OutputStream)
+   */
+  public boolean encodeUpdates(ClauseBatch batch, ByteBuffer out) {
+    int start = out.position();
+    int[] literals = batch.literals();
+    for (int i = 0; i < batch.size(); i++) {
+      if (!out.hasRemaining()) {
+        out.position(start);
+        return false;
+      }
+      out.put(batch.type(i).getId());
+      if (!ClauseSerializer.encodeLiterals(
+          literals, batch.clauseStart(i), batch.clauseEnd(i), out)) {
+        out.position(start);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public ClauseBatch decode(ByteBuffer in) throws SerializationException {
+    if (in.remaining() < Integer.BYTES) {
+      return null;
+    }
+    int start = in.position();
+    int amount = IntSerializer.decodeInt(in, start);
+    if (amount < 0) {
+      throw new SerializationException("negative amount of clause updates");
+    }
+    in.position(start + Integer.BYTES);
+    ClauseBatch batch = decodeUpdates(in, amount);
+    if (batch == null) {
+      in.position(start);
+    }
+    return batch;
+  }
+
+  /**
+   * Decodes a known amount of clause updates, which are not preceded by their amount.
+   * The literals are decoded directly into a {@link ClauseBatch.Builder}.
+   * If the buffer ends before the last clause update is complete, <code>null</code> is returned
+   *     and the position is left unchanged.
+   *
+   * @param in the buffer to read from
+   * @param amount the amount of clause updates
+   * @return the batch, <code>null</code> if more bytes are needed
+   * @throws SerializationException if the buffer contains invalid data
+   * @see ClauseBatchSerialBuilder#ClauseBatchSerialBuilder(int)
+   */
+  public ClauseBatch decodeUpdates(ByteBuffer in, int amount) throws SerializationException {
+    // every clause update needs at least two bytes and every literal at least one,
+    // the builder grows, if the estimate of 16 literals per clause is too low
+    int remaining = in.remaining();
+    ClauseBatch.Builder builder = new ClauseBatch.Builder(
+        Math.min(amount, remaining / 2), (int) Math.min(remaining, amount * 16L));
+    int start = in.position();
+    if (new ClauseDecoder().decodeUpdates(in, amount,
+        (type, literals, length) -> builder.add(type, literals, 0, length)) < amount) {
+      in.position(start);
+      return null;
+    }
+    return builder.build();
+  }
+
+  @Override
+  public SerialBuilder<ClauseBatch> getBuilder() {
+    return new ClauseBatchSerialBuilder();
+  }
+}
@@ -0,0 +1,91 @@
+package edu.kit.satviz.serial;
+
+import edu.kit.satviz.sat.ClauseUpdate;
+import java.nio.ByteBuffer;
+
+/**
+ * A decoder for clauses in the format of {@link ClauseSerializer} and
+ * {@link ClauseUpdateSerializer}, which doesn't create any objects per clause.<br>
+ * The literals are decoded into a scratch array that is reused for all clauses and handed to a
+ * {@link ClauseVisitor}. The array only grows if a clause doesn't fit.
+ *
+ * <p>As the scratch array is shared, an instance of this class must not be used by multiple
+ * threads at once.
+ */
+public class ClauseDecoder {
+  /** Default capacity for the reused literal array. */
+  private static final int DEFAULT_CAP = 16;
+
+  private int[] literals = new int[DEFAULT_CAP];
+
+  /**
+   * Decodes a single clause without a type byte.
+   * If the buffer ends before the clause is complete, the visitor isn't called and the position
+   *     of the buffer is left unchanged.
+   *
+   * @param in the buffer to read from
+   * @param type the type passed to the visitor
+   * @param visitor the visitor receiving the clause
+   * @return whether a clause was decoded
+   * @throws SerializationException if the buffer contains invalid data
+   */
+  public boolean decodeClause(ByteBuffer in, ClauseUpdate.Type type, ClauseVisitor visitor)
+      throws SerializationException {
+    int start = in.position();
+    int end = ClauseSerializer.findTerminator(in, start);
+    if (end == -1) {
+      return false;
+    }
+    // a literal needs at least one byte, so this is an upper bound of the amount of literals
+    if (literals.length < end - start) {
+      literals = new int[Math.max(end - start, literals.length * 2)];
+    }
+    int length = ClauseSerializer.decodeLiterals(in, start, end, literals);
+    in.position(end + 1);
+    visitor.visitClause(type, literals, length);
+    return true;
+  }
+
+  /**
+   * Decodes a single clause update.
+   * If the buffer ends before the clause update is complete, the visitor isn't called and the
+   *     position of the buffer is left unchanged.
+   *
+   * @param in the buffer to read from
+   * @param visitor the visitor receiving the clause
+   * @return whether a clause update was decoded
+   * @throws SerializationException if the buffer contains invalid data
+   */
+  public boolean decodeUpdate(ByteBuffer in, ClauseVisitor visitor)
+      throws SerializationException {
+    if (!in.hasRemaining()) {
+      return false;
+    }
+    int start = in.position();
+    ClauseUpdate.Type type = ClauseUpdateSerializer.readType(in.get());
+    if (!decodeClause(in, type, visitor)) {
+      in.position(start);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Decodes clause updates until either the given amount is reached or the buffer ends.
+   * Bytes of an incomplete clause update at the end of the buffer are not consumed.
+   *
+   * @param in the buffer to read from
+   * @param amount the maximum amount of clause updates
+   * @param visitor the visitor receiving the clauses
+   * @return the amount of decoded clause updates
+   * @throws SerializationException if the buffer contains invalid data
+   */
+  public int decodeUpdates(ByteBuffer in, int amount, ClauseVisitor visitor)
+      throws SerializationException {
+    int decoded = 0;
+    while (decoded < amount && decodeUpdate(in, visitor)) {
+      decoded++;
+    }
+    return decoded;
+  }
+}
@@ -1,6 +1,7 @@
 package edu.kit.satviz.serial;
 
 import edu.kit.satviz.sat.Clause;
+import edu.kit.satviz.sat.ClauseUpdate;
 
 /**
  * A {@link SerialBuilder} for SAT clauses.
@@ -44,10 +45,6 @@ public class ClauseSerialBuilder extends SerialBuilder<Clause> {
       if (acc != 0) {
         fail("literal mapping not terminated correctly");
       }
-      // crop array
-      int[] cutLiterals = new int[numLiterals];
-      System.arraycopy(literals, 0, cutLiterals, 0, numLiterals);
-      clause = new Clause(cutLiterals);
       finish();
       return;
     }
@@ -68,15 +65,39 @@ public class ClauseSerialBuilder extends SerialBuilder<Clause> {
     }
   }
 
+  /**
+   * Passes the finished clause to a visitor, without creating a {@link Clause} object.
+   * The literal array of this builder is reused after a {@link #reset()}.
+   *
+   * @param type the type passed to the visitor
+   * @param visitor the visitor receiving the clause
+   * @throws IllegalStateException if the clause is not finished yet
+   */
+  public void visit(ClauseUpdate.Type type, ClauseVisitor visitor) {
+    if (!finished()) {
+      throw new IllegalStateException("clause is not finished");
+    }
+    visitor.visitClause(type, literals, numLiterals);
+  }
+
   @Override
   protected Clause processGetObject() {
+    if (clause == null) {
+      // crop array
+      int[] cutLiterals = new int[numLiterals];
+      System.arraycopy(literals, 0, cutLiterals, 0, numLiterals);
+      clause = new Clause(cutLiterals);
+    }
     return clause;
   }
 
   @Override
   protected void processReset() {
     numLiterals = 0;
-    literals = new int[DEFAULT_CAP];
+    // the literals are copied when the clause is created, so the array can be reused
+    if (literals == null) {
+      literals = new int[DEFAULT_CAP];
+    }
     clause = null;
     acc = 0;
     currentShift = 0;
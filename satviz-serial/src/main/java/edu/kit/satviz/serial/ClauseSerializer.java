@@ -3,6 +3,7 @@ package edu.kit.satviz.serial;
 import edu.kit.satviz.sat.Clause;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * A {@link Serializer} for SAT clauses.
@@ -13,7 +14,22 @@ public class ClauseSerializer extends Serializer<Clause> {
   @Override
   public void serialize(Clause clause, OutputStream out) throws IOException {
     int[] literals = clause.literals();
-    for (int lit : literals) {
+    serializeLiterals(literals, 0, literals.length, out);
+  }
+
+  /**
+   * Serializes a range of an array of literals as a clause, including the trailing 0.
+   *
+   * @param literals the array containing the literals
+   * @param from the start of the range (inclusive)
+   * @param to the end of the range (exclusive)
+   * @param out the stream to write to
+   * @throws IOException if the stream cannot be used
+   */
+  static void serializeLiterals(int[] literals, int from, int to, OutputStream out)
+      throws IOException {
+    for (int i = from; i < to; i++) {
+      int lit = literals[i];
       int unsignedMapping = (lit > 0) ? 2 * lit : (-2 * lit) + 1;
       // split into 7 bit blocks
       while (unsignedMapping > 0x7f) {
@@ -26,6 +42,136 @@ public class ClauseSerializer extends Serializer<Clause> {
     out.write(0);
   }
 
+  @Override
+  public boolean encode(Clause clause, ByteBuffer out) {
+    int[] literals = clause.literals();
+    return encodeLiterals(literals, 0, literals.length, out);
+  }
+
+  @Override
+  public Clause decode(ByteBuffer in) throws SerializationException {
+    int start = in.position();
+    int end = findTerminator(in, start);
+    if (end == -1) {
+      return null;
+    }
+    // the last byte of every literal has MSB 0, so the array can be allocated with its exact size
+    int[] literals = new int[countLiterals(in, start, end)];
+    decodeLiterals(in, start, end, literals);
+    in.position(end + 1);
+    return new Clause(literals);
+  }
+
+  /**
+   * Encodes a range of an array of literals as a clause, including the trailing 0.
+   * If the buffer doesn't have enough space left, its position is left unchanged.
+   *
+   * @param literals the array containing the literals
+   * @param from the start of the range (inclusive)
+   * @param to the end of the range (exclusive)
+   * @param out the buffer to write to
+   * @return whether the clause was written
+   */
+  static boolean encodeLiterals(int[] literals, int from, int to, ByteBuffer out) {
+    int start = out.position();
+    for (int i = from; i < to; i++) {
+      int lit = literals[i];
+      int unsignedMapping = (lit > 0) ? 2 * lit : (-2 * lit) + 1;
+      while (unsignedMapping > 0x7f) {
+        if (!out.hasRemaining()) {
+          out.position(start);
+          return false;
+        }
+        out.put((byte) ((unsignedMapping & 0x7f) | 0x80));
+        unsignedMapping >>>= 7;
+      }
+      if (!out.hasRemaining()) {
+        out.position(start);
+        return false;
+      }
+      out.put((byte) unsignedMapping);
+    }
+    if (!out.hasRemaining()) {
+      out.position(start);
+      return false;
+    }
+    out.put((byte) 0);
+    return true;
+  }
+
+  /**
+   * Finds the 0-byte terminating the clause that starts at the given index.
+   * As every byte of a literal mapping is non-zero, this is simply the next 0-byte.
+   *
+   * @param in the buffer
+   * @param from the index of the first byte of the clause
+   * @return the index of the terminating 0-byte, -1 if the buffer ends before
+   */
+  static int findTerminator(ByteBuffer in, int from) {
+    int limit = in.limit();
+    for (int i = from; i < limit; i++) {
+      if (in.get(i) == 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // counts the literals of a clause, whose bytes lie completely inside the buffer
+  private static int countLiterals(ByteBuffer in, int from, int to) {
+    int amount = 0;
+    for (int i = from; i < to; i++) {
+      if ((in.get(i) & 0x80) == 0) {
+        amount++;
+      }
+    }
+    return amount;
+  }
+
+  /**
+   * Decodes the literals of a clause, whose bytes lie completely inside the buffer.
+   * The position of the buffer is not changed.
+   *
+   * @param in the buffer
+   * @param from the index of the first byte of the clause
+   * @param to the index of the terminating 0-byte, see {@link #findTerminator}
+   * @param dest the array to store the literals in, which must have room for
+   *     <code>to - from</code> literals
+   * @return the amount of literals
+   * @throws SerializationException if the literals are not encoded correctly
+   */
+  static int decodeLiterals(ByteBuffer in, int from, int to, int[] dest)
+      throws SerializationException {
+    int amount = 0;
+    int acc = 0;
+    int currentShift = 0;
+    for (int i = from; i < to; i++) {
+      byte b = in.get(i);
+      if ((b & 0x80) != 0) {
+        // literal not done
+        acc |= (b & 0x7f) << currentShift;
+        currentShift += 7;
+        if (currentShift > 28) {
+          throw new SerializationException("unsigned literal mapping too big");
+        }
+      } else {
+        // literal done with this byte; add and reset
+        acc |= b << currentShift;
+        int lit = (acc & 1) == 0 ? acc >>> 1 : -(acc >>> 1);
+        if (lit == 0) {
+          throw new SerializationException("invalid unsigned literal mapping value");
+        }
+        dest[amount++] = lit;
+        acc = 0;
+        currentShift = 0;
+      }
+    }
+    if (currentShift != 0) {
+      throw new SerializationException("literal mapping not terminated correctly");
+    }
+    return amount;
+  }
+
   @Override
   public SerialBuilder<Clause> getBuilder() {
     return new ClauseSerialBuilder();
@@ -1,8 +1,11 @@
 package edu.kit.satviz.serial;
 
+import edu.kit.satviz.sat.Clause;
 import edu.kit.satviz.sat.ClauseUpdate;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
 
 /**
  * A {@link Serializer} for {@code ClauseUpdate}s, i.e. the combination of a {@code Clause} and
@@ -20,6 +23,69 @@ public class ClauseUpdateSerializer extends Serializer<ClauseUpdate> {
     clauseSerializer.serialize(clauseUpdate.clause(), out);
   }
 
+  @Override
+  public boolean encode(ClauseUpdate clauseUpdate, ByteBuffer out) {
+    int[] literals = clauseUpdate.clause().literals();
+    return encode(clauseUpdate.type(), literals, 0, literals.length, out);
+  }
+
+  /**
+   * Encodes a clause update, whose literals are given as a range of an array, e.g. one passed to
+   *     a {@link ClauseVisitor}. The bytes are the same as for the corresponding
+   *     {@code ClauseUpdate} object.
+   *
+   * @param type the type of the clause update
+   * @param literals the array containing the literals
+   * @param from the start of the range (inclusive)
+   * @param to the end of the range (exclusive)
+   * @param out the buffer to write to
+   * @return <code>true</code> if the clause update was written, <code>false</code> if the buffer
+   *     doesn't have enough space left
+   */
+  public boolean encode(ClauseUpdate.Type type, int[] literals, int from, int to,
+                        ByteBuffer out) {
+    if (!out.hasRemaining()) {
+      return false;
+    }
+    int start = out.position();
+    out.put(type.getId());
+    if (!ClauseSerializer.encodeLiterals(literals, from, to, out)) {
+      out.position(start);
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public ClauseUpdate decode(ByteBuffer in) throws SerializationException {
+    if (!in.hasRemaining()) {
+      return null;
+    }
+    int start = in.position();
+    ClauseUpdate.Type type = readType(in.get());
+    Clause clause = clauseSerializer.decode(in);
+    if (clause == null) {
+      in.position(start);
+      return null;
+    }
+    return new ClauseUpdate(clause, type);
+  }
+
+  /**
+   * Gets the clause update type identified by a byte.
+   *
+   * @param id the byte
+   * @return the type
+   * @throws SerializationException if the byte doesn't identify a type
+   */
+  static ClauseUpdate.Type readType(byte id) throws SerializationException {
+    try {
+      return ClauseUpdate.Type.getById(id);
+    } catch (NoSuchElementException e) {
+      throw new SerializationException("Unknown clause update type " + id);
+    }
+  }
+
   @Override
   public SerialBuilder<ClauseUpdate> getBuilder() {
     return new ClauseUpdateSerialBuilder();
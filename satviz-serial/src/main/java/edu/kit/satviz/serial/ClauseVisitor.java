@@ -0,0 +1,23 @@
+package edu.kit.satviz.serial;
+
+import edu.kit.satviz.sat.ClauseUpdate;
+
+/**
+ * A callback for decoded clauses, which are passed as a range of a reused literal array instead of
+ * a {@link edu.kit.satviz.sat.Clause} object.
+ *
+ * @see ClauseDecoder
+ */
+@FunctionalInterface
+public interface ClauseVisitor {
+
+  /**
+   * Called for every decoded clause.
+   * The array is overwritten by the following clauses, so it must not be stored or modified.
+   *
+   * @param type the type of the clause update
+   * @param literals the array containing the literals of the clause, starting at index 0
+   * @param length the amount of literals
+   */
+  void visitClause(ClauseUpdate.Type type, int[] literals, int length);
+}
@@ -3,6 +3,7 @@ package edu.kit.satviz.serial;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * A {@link Serializer} for integers.
@@ -33,6 +34,43 @@ public class IntSerializer extends Serializer<Integer> {
     return i;
   }
 
+  @Override
+  public boolean encode(Integer i, ByteBuffer out) {
+    if (out.remaining() < Integer.BYTES) {
+      return false;
+    }
+    int primitive = i;
+    out.put((byte) primitive);
+    out.put((byte) (primitive >>> 8));
+    out.put((byte) (primitive >>> 16));
+    out.put((byte) (primitive >>> 24));
+    return true;
+  }
+
+  @Override
+  public Integer decode(ByteBuffer in) {
+    if (in.remaining() < Integer.BYTES) {
+      return null;
+    }
+    int index = in.position();
+    in.position(index + Integer.BYTES);
+    return decodeInt(in, index);
+  }
+
+  /**
+   * Reads an integer at an absolute index of a buffer, without changing its position.
+   *
+   * @param in the buffer
+   * @param index the index of the first (least significant) byte
+   * @return the integer
+   */
+  static int decodeInt(ByteBuffer in, int index) {
+    return (in.get(index) & 0xff)
+        | (in.get(index + 1) & 0xff) << 8
+        | (in.get(index + 2) & 0xff) << 16
+        | (in.get(index + 3) & 0xff) << 24;
+  }
+
   @Override
   public SerialBuilder<Integer> getBuilder() {
     return new IntSerialBuilder();
@@ -0,0 +1,29 @@
+package edu.kit.satviz.serial;
+
+/**
+ * A {@link SerialBuilder} for long integers.
+ * Uses little endian format.
+ */
+public class LongSerialBuilder extends SerialBuilder<Long> {
+  long acc = 0;
+  int read = 0;
+
+  @Override
+  protected void processAddByte(byte b) {
+    acc |= (b & 0xffL) << (read++ << 3);
+    if (read == Long.BYTES) {
+      finish();
+    }
+  }
+
+  @Override
+  protected Long processGetObject() {
+    return acc;
+  }
+
+  @Override
+  protected void processReset() {
+    acc = 0;
+    read = 0;
+  }
+}
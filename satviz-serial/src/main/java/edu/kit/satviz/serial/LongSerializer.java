@@ -0,0 +1,63 @@
+package edu.kit.satviz.serial;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Serializer} for long integers.
+ * Uses little endian format.
+ */
+public class LongSerializer extends Serializer<Long> {
+
+  @Override
+  public void serialize(Long l, OutputStream out) throws IOException {
+    long primitive = l;
+    for (int numByte = 0; numByte < Long.BYTES; numByte++) {
+      out.write((byte) (primitive >>> (numByte << 3)));
+    }
+  }
+
+  @Override
+  public Long deserialize(InputStream in) throws IOException, SerializationException {
+    // overwritten to avoid an abundance of builders being created
+    long l = 0;
+    for (int numByte = 0; numByte < Long.BYTES; numByte++) {
+      int readByte = in.read();
+      if (readByte == -1) {
+        throw new SerializationException("unexpected end of stream");
+      }
+      l |= (readByte & 0xffL) << (numByte << 3);
+    }
+    return l;
+  }
+
+  @Override
+  public boolean encode(Long l, ByteBuffer out) {
+    if (out.remaining() < Long.BYTES) {
+      return false;
+    }
+    long primitive = l;
+    for (int numByte = 0; numByte < Long.BYTES; numByte++) {
+      out.put((byte) (primitive >>> (numByte << 3)));
+    }
+    return true;
+  }
+
+  @Override
+  public Long decode(ByteBuffer in) {
+    if (in.remaining() < Long.BYTES) {
+      return null;
+    }
+    int index = in.position();
+    in.position(index + Long.BYTES);
+    return (IntSerializer.decodeInt(in, index) & 0xffffffffL)
+        | (long) IntSerializer.decodeInt(in, index + Integer.BYTES) << 32;
+  }
+
+  @Override
+  public SerialBuilder<Long> getBuilder() {
+    return new LongSerialBuilder();
+  }
+}
@@ -49,7 +49,7 @@ public class SatAssignmentSerialBuilder extends SerialBuilder<SatAssignment> {
     currentVariable = 1;
   }
 
-  private static SatAssignment.VariableState convertValueToVariableState(byte val) {
+  static SatAssignment.VariableState convertValueToVariableState(byte val) {
     return switch (val) {
       case 0 -> SatAssignment.VariableState.DONTCARE;
       case 1 -> SatAssignment.VariableState.SET;
@@ -4,6 +4,7 @@ import edu.kit.satviz.sat.SatAssignment;
 import edu.kit.satviz.sat.SatAssignment.VariableState;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * A {@link Serializer} for SAT assignments.
@@ -33,6 +34,64 @@ public class SatAssignmentSerializer extends Serializer<SatAssignment> {
     }
   }
 
+  @Override
+  public boolean encode(SatAssignment assign, ByteBuffer out) {
+    int varCount = assign.getVarCount();
+    if (out.remaining() < Integer.BYTES + bitmapSize(varCount)) {
+      return false;
+    }
+    new IntSerializer().encode(varCount, out);
+
+    byte b = 0;
+    for (int i = 1; i <= varCount; i++) {
+      byte val = convertVariableStateToValue(assign.get(i));
+      // value of literal is index in two-bit array
+      int shift = (i & 3) << 1;
+      b |= val << shift;
+      if ((i & 3) == 0) {
+        out.put(b);
+        b = 0;
+      }
+    }
+    if ((varCount & 3) != 0) {
+      // write final byte
+      out.put(b);
+    }
+    return true;
+  }
+
+  @Override
+  public SatAssignment decode(ByteBuffer in) throws SerializationException {
+    if (in.remaining() < Integer.BYTES) {
+      return null;
+    }
+    int start = in.position();
+    int varCount = IntSerializer.decodeInt(in, start);
+    if (varCount < 0) {
+      throw new SerializationException("negative amount of variables");
+    }
+    if (in.remaining() - Integer.BYTES < bitmapSize(varCount)) {
+      return null;
+    }
+    in.position(start + Integer.BYTES);
+    SatAssignment assign = new SatAssignment(varCount);
+    byte b = 0;
+    for (int i = 1; i <= varCount; i++) {
+      // each byte holds the variables 4k+1 to 4k+4, see serialize()
+      if ((i & 3) == 1) {
+        b = in.get();
+      }
+      int shift = (i & 3) << 1;
+      byte value = (byte) ((b >> shift) & 3);
+      assign.set(i, SatAssignmentSerialBuilder.convertValueToVariableState(value));
+    }
+    return assign;
+  }
+
+  private static int bitmapSize(int varCount) {
+    return (varCount + 3) >>> 2;
+  }
+
   @Override
   public SerialBuilder<SatAssignment> getBuilder() {
     return new SatAssignmentSerialBuilder();
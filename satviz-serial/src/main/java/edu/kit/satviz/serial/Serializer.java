@@ -1,8 +1,11 @@
 package edu.kit.satviz.serial;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 
 /**
  * An abstract class for serializing and deserializing objects.
@@ -72,6 +75,87 @@ public abstract class Serializer<T> {
     return builder.getObject();
   }
 
+  /**
+   * Encodes an object of type <code>T</code> into a buffer.
+   * This is the bulk alternative to {@link #serialize(Object, OutputStream)}; both produce the
+   *     same bytes.
+   * If the remaining space of the buffer is too small, nothing is written.
+   * The default implementation serializes the object to a temporary array first.
+   *
+   * @param t the object
+   * @param out the buffer to write to, starting at its position
+   * @return <code>true</code> if the object was written (and the position advanced),
+   *     <code>false</code> if the buffer doesn't have enough space left
+   * @throws SerializationException if the object cannot be serialized
+   */
+  public boolean encode(T t, ByteBuffer out) throws SerializationException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      serialize(t, bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e); // not thrown by ByteArrayOutputStream
+    }
+    if (bytes.size() > out.remaining()) {
+      return false;
+    }
+    out.put(bytes.toByteArray());
+    return true;
+  }
+
+  /**
+   * Encodes an object into a buffer.
+   * Tries to cast the object to type <code>T</code>, and encode that.
+   *
+   * @param o the object
+   * @param out the buffer to write to, starting at its position
+   * @return <code>true</code> if the object was written, <code>false</code> if the buffer doesn't
+   *     have enough space left
+   * @throws SerializationException if the object cannot be serialized
+   *     or cast to type <code>T</code>
+   * @see #encode(Object, ByteBuffer)
+   */
+  public boolean encodeUnsafe(Object o, ByteBuffer out) throws SerializationException {
+    try {
+      @SuppressWarnings("unchecked")
+      T t = (T) o;
+      return encode(t, out);
+    } catch (ClassCastException e) {
+      throw new SerializationException("invalid object type");
+    }
+  }
+
+  /**
+   * Decodes an object of type <code>T</code> from the remaining bytes of a buffer.
+   * This is the bulk alternative to feeding single bytes to a {@link SerialBuilder}.
+   * If the buffer ends before the object is complete, <code>null</code> is returned and the
+   *     position is left unchanged, so decoding can be retried once more bytes are available
+   *     (or the bytes can be passed on to a builder).
+   * Since every encoded object has at least one byte, callers can distinguish an incomplete
+   *     object from a decoded <code>null</code> object by checking whether the position has
+   *     advanced.
+   * The default implementation uses a corresponding builder.
+   *
+   * @param in the buffer to read from, starting at its position
+   * @return the decoded object, <code>null</code> if more bytes are needed
+   * @throws SerializationException if the buffer contains invalid data; the position is undefined
+   *     in this case
+   */
+  public T decode(ByteBuffer in) throws SerializationException {
+    SerialBuilder<T> builder = getBuilder();
+    if (builder == null) {
+      throw new NullPointerException("no builder available");
+    }
+
+    int start = in.position();
+    while (in.hasRemaining()) {
+      if (builder.addByte(in.get())) {
+        return builder.getObject();
+      }
+    }
+    in.position(start);
+    return null;
+  }
+
   /**
    * Gets a new {@link SerialBuilder} to deserialize an object of type <code>T</code> in steps.
    *
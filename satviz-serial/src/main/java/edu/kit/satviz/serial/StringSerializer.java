@@ -2,6 +2,7 @@ package edu.kit.satviz.serial;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -19,6 +20,34 @@ public class StringSerializer extends Serializer<String> {
     out.write('\0');
   }
 
+  @Override
+  public boolean encode(String s, ByteBuffer out) throws SerializationException {
+    if (s.contains("\0")) {
+      throw new SerializationException("invalid string");
+    }
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    if (out.remaining() < bytes.length + 1) {
+      return false;
+    }
+    out.put(bytes);
+    out.put((byte) 0);
+    return true;
+  }
+
+  @Override
+  public String decode(ByteBuffer in) {
+    int start = in.position();
+    for (int i = start; i < in.limit(); i++) {
+      if (in.get(i) == 0) {
+        byte[] bytes = new byte[i - start];
+        in.get(bytes);
+        in.get(); // skip the terminating null-byte
+        return new String(bytes, StandardCharsets.UTF_8);
+      }
+    }
+    return null;
+  }
+
   @Override
   public SerialBuilder<String> getBuilder() {
     return new StringSerialBuilder();
@@ -0,0 +1,105 @@
+package edu.kit.satviz.serial;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.kit.satviz.sat.ClauseBatch;
+import edu.kit.satviz.sat.ClauseUpdate;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ClauseBatchSerializerTest {
+
+  private static final ClauseUpdate[] UPDATES = {
+      ClauseUpdate.of(ClauseUpdate.Type.ADD, 1, -2, 300000),
+      ClauseUpdate.of(ClauseUpdate.Type.REMOVE),
+      ClauseUpdate.of(ClauseUpdate.Type.REMOVE, Integer.MAX_VALUE >> 1, -64)
+  };
+
+  private ClauseBatchSerializer serializer;
+
+  @BeforeEach
+  void setUp() {
+    serializer = new ClauseBatchSerializer();
+  }
+
+  @Test
+  void testLoopback() throws IOException, SerializationException {
+    var out = new ByteArrayOutputStream();
+    serializer.serialize(ClauseBatch.of(UPDATES), out);
+    var in = new ByteArrayInputStream(out.toByteArray());
+    assertEquals(ClauseBatch.of(UPDATES), serializer.deserialize(in));
+    assertEquals(-1, in.read());
+  }
+
+  @Test
+  void testEmpty() throws IOException, SerializationException {
+    var out = new ByteArrayOutputStream();
+    serializer.serialize(ClauseBatch.empty(), out);
+    assertEquals(4, out.size());
+    var in = new ByteArrayInputStream(out.toByteArray());
+    assertEquals(ClauseBatch.empty(), serializer.deserialize(in));
+  }
+
+  @Test
+  void testCompatibleWithClauseUpdates() throws IOException, SerializationException {
+    var expected = new ByteArrayOutputStream();
+    var updateSerializer = new ClauseUpdateSerializer();
+    for (ClauseUpdate update : UPDATES) {
+      updateSerializer.serialize(update, expected);
+    }
+    var out = new ByteArrayOutputStream();
+    serializer.serializeUpdates(ClauseBatch.of(UPDATES), out);
+    assertArrayEquals(expected.toByteArray(), out.toByteArray());
+
+    var builder = new ClauseBatchSerialBuilder(UPDATES.length);
+    byte[] bytes = out.toByteArray();
+    for (int i = 0; i < bytes.length; i++) {
+      assertEquals(i == bytes.length - 1, builder.addByte(bytes[i]));
+    }
+    assertEquals(ClauseBatch.of(UPDATES), builder.getObject());
+  }
+
+  @Test
+  void testBufferLoopback() throws IOException, SerializationException {
+    var out = new ByteArrayOutputStream();
+    serializer.serialize(ClauseBatch.of(UPDATES), out);
+    ByteBuffer buffer = ByteBuffer.allocate(out.size());
+    assertTrue(serializer.encode(ClauseBatch.of(UPDATES), buffer));
+    assertArrayEquals(out.toByteArray(), buffer.array());
+    buffer.flip();
+    assertEquals(ClauseBatch.of(UPDATES), serializer.decode(buffer));
+    assertFalse(buffer.hasRemaining());
+  }
+
+  @Test
+  void testBufferIncomplete() throws SerializationException {
+    ByteBuffer buffer = ByteBuffer.allocate(64);
+    assertTrue(serializer.encodeUpdates(ClauseBatch.of(UPDATES), buffer));
+    buffer.flip();
+    for (int limit = 0; limit < buffer.capacity() && limit < buffer.limit(); limit++) {
+      ByteBuffer part = buffer.duplicate().limit(limit);
+      assertNull(serializer.decodeUpdates(part, UPDATES.length));
+      assertEquals(0, part.position());
+    }
+    assertEquals(ClauseBatch.of(UPDATES), serializer.decodeUpdates(buffer, UPDATES.length));
+
+    ByteBuffer small = ByteBuffer.allocate(5);
+    assertFalse(serializer.encode(ClauseBatch.of(UPDATES), small));
+    assertEquals(0, small.position());
+  }
+
+  @Test
+  void testInvalid() {
+    var builder = new ClauseBatchSerialBuilder(1);
+    assertThrows(SerializationException.class, () -> builder.addByte((byte) 3));
+    assertTrue(builder.failed());
+    builder.reset();
+    assertDoesNotThrow(() -> builder.addByte(ClauseUpdate.Type.ADD.getId()));
+    assertThrows(SerializationException.class, () -> builder.addByte((byte) 1));
+  }
+
+}
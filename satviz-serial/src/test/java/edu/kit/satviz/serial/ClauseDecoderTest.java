@@ -0,0 +1,97 @@
+package edu.kit.satviz.serial;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.kit.satviz.sat.ClauseBatch;
+import edu.kit.satviz.sat.ClauseUpdate;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ClauseDecoderTest {
+
+  private static final ClauseUpdate[] UPDATES = {
+      ClauseUpdate.of(ClauseUpdate.Type.ADD, 1, -2, 300000),
+      ClauseUpdate.of(ClauseUpdate.Type.REMOVE),
+      ClauseUpdate.of(ClauseUpdate.Type.ADD, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18,
+          19, 20, 21, -22),
+      ClauseUpdate.of(ClauseUpdate.Type.REMOVE, Integer.MAX_VALUE >> 1, -64)
+  };
+
+  private ClauseDecoder decoder;
+  private List<ClauseUpdate> visited;
+  private ClauseVisitor visitor;
+
+  @BeforeEach
+  void setUp() {
+    decoder = new ClauseDecoder();
+    visited = new ArrayList<>();
+    visitor = (type, literals, length) ->
+        visited.add(ClauseUpdate.of(type, Arrays.copyOf(literals, length)));
+  }
+
+  @Test
+  void testDecodeUpdates() throws SerializationException {
+    ByteBuffer buffer = ByteBuffer.allocate(128);
+    assertTrue(new ClauseBatchSerializer().encodeUpdates(ClauseBatch.of(UPDATES), buffer));
+    buffer.flip();
+    assertEquals(UPDATES.length, decoder.decodeUpdates(buffer, Integer.MAX_VALUE, visitor));
+    assertEquals(List.of(UPDATES), visited);
+    assertFalse(buffer.hasRemaining());
+  }
+
+  @Test
+  void testIncomplete() throws SerializationException {
+    ByteBuffer buffer = ByteBuffer.allocate(128);
+    assertTrue(new ClauseBatchSerializer().encodeUpdates(ClauseBatch.of(UPDATES), buffer));
+    buffer.flip();
+    int end = buffer.limit();
+    buffer.limit(end - 1);
+    assertEquals(UPDATES.length - 1, decoder.decodeUpdates(buffer, UPDATES.length, visitor));
+    assertEquals(List.of(UPDATES).subList(0, UPDATES.length - 1), visited);
+    int position = buffer.position();
+    buffer.limit(end);
+    assertEquals(position, buffer.position());
+    assertTrue(decoder.decodeUpdate(buffer, visitor));
+    assertEquals(List.of(UPDATES), visited);
+    assertFalse(decoder.decodeUpdate(buffer, visitor));
+  }
+
+  @Test
+  void testDecodeClause() throws SerializationException {
+    ByteBuffer buffer = ByteBuffer.allocate(16);
+    assertTrue(new ClauseSerializer().encode(UPDATES[0].clause(), buffer));
+    buffer.flip();
+    assertTrue(decoder.decodeClause(buffer, ClauseUpdate.Type.ADD, visitor));
+    assertEquals(List.of(UPDATES[0]), visited);
+  }
+
+  @Test
+  void testInvalid() {
+    ByteBuffer buffer = ByteBuffer.wrap(new byte[] {3, 2, 0});
+    assertThrows(SerializationException.class, () -> decoder.decodeUpdate(buffer, visitor));
+    ByteBuffer unterminated = ByteBuffer.wrap(new byte[] {'a', (byte) 0x82, 0});
+    assertThrows(SerializationException.class, () -> decoder.decodeUpdate(unterminated, visitor));
+  }
+
+  @Test
+  void testBuilderVisit() throws SerializationException {
+    ClauseSerialBuilder builder = new ClauseSerialBuilder();
+    for (ClauseUpdate update : UPDATES) {
+      ByteBuffer buffer = ByteBuffer.allocate(32);
+      assertTrue(new ClauseSerializer().encode(update.clause(), buffer));
+      for (int i = 0; i < buffer.position(); i++) {
+        builder.addByte(buffer.get(i));
+      }
+      builder.visit(update.type(), visitor);
+      assertEquals(update.clause(), builder.getObject());
+      builder.reset();
+    }
+    assertEquals(List.of(UPDATES), visited);
+    assertThrows(IllegalStateException.class, () -> builder.visit(ClauseUpdate.Type.ADD, visitor));
+  }
+
+}
@@ -7,6 +7,7 @@ import edu.kit.satviz.sat.ClauseUpdate;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -56,4 +57,22 @@ class ClauseUpdateSerializerTest {
     }
   }
 
+  @Test
+  void testBufferLoopback() throws SerializationException {
+    ByteBuffer buffer = ByteBuffer.allocate(32);
+    assertTrue(serializer.encode(update, buffer));
+    assertTrue(serializer.encode(trivialUpdate, buffer));
+    buffer.flip();
+    assertEquals(update, serializer.decode(buffer));
+    assertEquals(trivialUpdate, serializer.decode(buffer));
+    assertFalse(buffer.hasRemaining());
+    assertNull(serializer.decode(buffer));
+  }
+
+  @Test
+  void testBufferUnknownType() {
+    ByteBuffer buffer = ByteBuffer.wrap(new byte[] {3, 0});
+    assertThrows(SerializationException.class, () -> serializer.decode(buffer));
+  }
+
 }
@@ -0,0 +1,54 @@
+package edu.kit.satviz.serial;
+
+import org.junit.jupiter.api.Test;
+import java.io.*;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongSerializerTest {
+
+  private final LongSerializer serial = new LongSerializer();
+
+  private static final long[] LONGS = new long[]{
+      0, 1, -1, 42, -3333, 1000000000, 1L << 32, (1L << 32) - 1, 0x0123456789abcdefL,
+      Long.MIN_VALUE, Long.MAX_VALUE
+  };
+
+  @Test
+  void testSomeLongs() throws IOException {
+    for (long l : LONGS) {
+      try {
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+        serial.serialize(l, byteOut);
+        assertEquals(Long.BYTES, byteOut.size());
+
+        ByteArrayInputStream byteIn = new ByteArrayInputStream(byteOut.toByteArray());
+        assertEquals(l, serial.deserialize(byteIn));
+
+        SerialBuilder<Long> builder = serial.getBuilder();
+        for (byte b : byteOut.toByteArray()) {
+          builder.addByte(b);
+        }
+        assertTrue(builder.finished());
+        assertEquals(l, builder.getObject());
+      } catch (SerializationException e) {
+        fail(e);
+      }
+    }
+  }
+
+  @Test
+  void testBuffers() {
+    ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * LONGS.length);
+    for (long l : LONGS) {
+      assertTrue(serial.encode(l, buffer));
+    }
+    assertFalse(serial.encode(0L, buffer));
+    buffer.flip();
+    for (long l : LONGS) {
+      assertEquals(l, serial.decode(buffer));
+    }
+    assertNull(serial.decode(buffer));
+  }
+}
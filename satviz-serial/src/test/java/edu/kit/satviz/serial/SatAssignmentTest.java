@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -47,6 +48,23 @@ class SatAssignmentTest {
     assertEquals(assign, result); // .equals() implemented in SatAssignment
   }
 
+  @Test
+  void testBuffer() throws IOException, SerializationException {
+    SatAssignment assign = new SatAssignment(13);
+    assign.set(1, SatAssignment.VariableState.SET);
+    assign.set(12, SatAssignment.VariableState.UNSET);
+    assign.set(13, SatAssignment.VariableState.RESERVED);
+    ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+    serial.serialize(assign, byteOut);
+
+    assertFalse(serial.encode(assign, ByteBuffer.allocate(byteOut.size() - 1)));
+    ByteBuffer buffer = ByteBuffer.allocate(byteOut.size());
+    assertTrue(serial.encode(assign, buffer));
+    assertArrayEquals(byteOut.toByteArray(), buffer.array());
+    buffer.flip();
+    assertEquals(assign, serial.decode(buffer));
+  }
+
   @Test
   void testReset() {
     SatAssignment assign = new SatAssignment(10);
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -37,4 +38,17 @@ class StringTest {
     ByteArrayInputStream byteIn = new ByteArrayInputStream(byteOut.toByteArray());
     assertEquals(s, serial.deserialize(byteIn));
   }
+
+  @Test
+  void testBuffer() throws SerializationException {
+    ByteBuffer buffer = ByteBuffer.allocate(32);
+    assertTrue(serial.encode("༼ つ ◕_◕ ༽つ", buffer));
+    buffer.flip();
+    ByteBuffer part = buffer.duplicate().limit(buffer.limit() - 1);
+    assertNull(serial.decode(part));
+    assertEquals(0, part.position());
+    assertEquals("༼ つ ◕_◕ ༽つ", serial.decode(buffer));
+    assertThrows(SerializationException.class,
+        () -> serial.encode("a\0b", ByteBuffer.allocate(8)));
+  }
 }